@@ -0,0 +1,109 @@
+package com.revanth;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.revanth.handlers.appointments.AppointmentHandler;
+import com.revanth.handlers.clients.ClientHandler;
+import com.revanth.handlers.journals.JournalHandler;
+import com.revanth.handlers.mappings.ClientTherapistMappingHandler;
+import com.revanth.handlers.messages.MessageHandler;
+import com.revanth.handlers.sessions.SessionHandler;
+import com.revanth.handlers.therapists.TherapistHandler;
+import com.revanth.routing.RouteMatch;
+import com.revanth.routing.Router;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Single entry point for the whole API.
+ *
+ * Deployed behind a {@code {proxy+}} integration, one function (and one pool of warm execution
+ * environments) serves every route. Requests are dispatched to the per-resource handlers through a
+ * {@link Router}; the per-resource functions keep working unchanged. Authentication and the per-route
+ * ownership checks happen in the handlers, so both deployments enforce the same rules.
+ */
+public class ApiHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
+
+    private final Router<RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>> router;
+
+    public ApiHandler() {
+        ClientHandler clientHandler = new ClientHandler();
+        TherapistHandler therapistHandler = new TherapistHandler();
+        MessageHandler messageHandler = new MessageHandler();
+        AppointmentHandler appointmentHandler = new AppointmentHandler();
+        SessionHandler sessionHandler = new SessionHandler();
+        ClientTherapistMappingHandler mappingHandler = new ClientTherapistMappingHandler();
+        JournalHandler journalHandler = new JournalHandler();
+
+        router = new Router<RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>>()
+                // /clients
+                .add("GET", "/clients", clientHandler)
+                .add("POST", "/clients", clientHandler)
+                .add("POST", "/clients/login", clientHandler)
+                .add("POST", "/clients/refresh", clientHandler)
+                .add("GET", "/clients/{clientId}", clientHandler)
+                .add("PUT", "/clients/{clientId}", clientHandler)
+                .add("DELETE", "/clients/{clientId}", clientHandler)
+                // /therapists
+                .add("GET", "/therapists", therapistHandler)
+                .add("POST", "/therapists", therapistHandler)
+                .add("POST", "/therapists/login", therapistHandler)
+                .add("POST", "/therapists/refresh", therapistHandler)
+                .add("GET", "/therapists/available", therapistHandler)
+                .add("GET", "/therapists/{therapistId}", therapistHandler)
+                .add("PUT", "/therapists/{therapistId}", therapistHandler)
+                .add("DELETE", "/therapists/{therapistId}", therapistHandler)
+                // /messages
+                .add("POST", "/messages/send", messageHandler)
+                .add("POST", "/messages/batch", messageHandler)
+                .add("GET", "/messages/history", messageHandler)
+                // /appointment
+                .add("POST", "/appointment/request", appointmentHandler)
+                // /session
+                .add("GET", "/session", sessionHandler)
+                .add("POST", "/session", sessionHandler)
+                .add("PATCH", "/session", sessionHandler)
+                // /mappings
+                .add("POST", "/mappings", mappingHandler)
+                .add("DELETE", "/mappings", mappingHandler)
+                .add("POST", "/mappings/accept", mappingHandler)
+                .add("POST", "/mappings/journal-access", mappingHandler)
+                .add("POST", "/mappings/revoke-journal-access", mappingHandler)
+                // /journal
+                .add("GET", "/journal", journalHandler)
+                .add("GET", "/journal/summary", journalHandler)
+                .add("POST", "/journal", journalHandler)
+                .add("POST", "/journal/batch", journalHandler);
+    }
+
+    @Override
+    public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        RouteMatch<RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent>> match =
+                router.match(request.getHttpMethod(), request.getPath());
+
+        if (match == null) {
+            return createErrorResponse(404, "Not Found");
+        }
+        if (match.getTarget() == null) {
+            return createErrorResponse(405, "Method Not Allowed");
+        }
+
+        // Replace the {proxy+} parameter with the ones named by the route.
+        request.setPathParameters(match.getPathParameters());
+        return match.getTarget().handleRequest(request, context);
+    }
+
+    private APIGatewayProxyResponseEvent createErrorResponse(int statusCode, String message) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        headers.put("Access-Control-Allow-Origin", "*");
+
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withHeaders(headers)
+                .withBody(String.format("{\"message\": \"%s\"}", message));
+    }
+}
@@ -0,0 +1,116 @@
+package com.revanth.availability;
+
+import com.revanth.models.Therapist;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Immutable in-memory index answering "which therapists are free for this whole window".
+ *
+ * It is the transpose of the per-therapist bitmaps: for every weekly slot there is one bitset over all
+ * therapists. A window query ANDs the bitsets of the slots it covers, so its cost depends on the window
+ * length and the number of therapists / 64, not on parsing anything.
+ *
+ * Therapists without a usable bitmap (legacy free-form {@code slotsAvailable}, or none at all) can't be
+ * matched against a window; they are kept in {@link #unknownAvailability()} so callers can still show them.
+ */
+public final class AvailabilityIndex {
+
+    private final List<Therapist> therapists;
+    private final List<Therapist> unknownAvailability;
+    private final long[][] freeBySlot;
+    private final int words;
+
+    private AvailabilityIndex(List<Therapist> therapists, List<Therapist> unknownAvailability) {
+        this.therapists = therapists;
+        this.unknownAvailability = unknownAvailability;
+        this.words = (therapists.size() + 63) >>> 6;
+        this.freeBySlot = new long[WeeklyAvailability.SLOTS_PER_WEEK][words];
+
+        for (int t = 0; t < therapists.size(); t++) {
+            byte[] bitmap = therapists.get(t).getAvailability();
+            for (int slot = 0; slot < WeeklyAvailability.SLOTS_PER_WEEK; slot++) {
+                if (WeeklyAvailability.isFree(bitmap, slot)) {
+                    freeBySlot[slot][t >>> 6] |= 1L << t;
+                }
+            }
+        }
+    }
+
+    /**
+     * Builds the index from therapists that have an availability bitmap; the others are listed in
+     * {@link #unknownAvailability()}.
+     */
+    public static AvailabilityIndex build(Iterable<Therapist> therapists) {
+        List<Therapist> indexed = new ArrayList<>();
+        List<Therapist> unknown = new ArrayList<>();
+        for (Therapist therapist : therapists) {
+            if (WeeklyAvailability.isKnown(therapist.getAvailability())) {
+                indexed.add(therapist);
+            } else {
+                unknown.add(therapist);
+            }
+        }
+        return new AvailabilityIndex(List.copyOf(indexed), List.copyOf(unknown));
+    }
+
+    public int size() {
+        return therapists.size();
+    }
+
+    /**
+     * Therapists whose availability can't be searched, because they have no bitmap.
+     */
+    public List<Therapist> unknownAvailability() {
+        return unknownAvailability;
+    }
+
+    /**
+     * Therapists free for every slot overlapping {@code [from, to)}. The window may span the end of the
+     * week but not be longer than one week.
+     */
+    public List<Therapist> freeDuring(Instant from, Instant to) {
+        if (!from.isBefore(to)) {
+            throw new IllegalArgumentException("from must be before to.");
+        }
+        if (Duration.between(from, to).compareTo(Duration.ofDays(7)) > 0) {
+            throw new IllegalArgumentException("The window can't be longer than one week.");
+        }
+
+        // Round the end up to the slot that contains its last minute
+        int first = WeeklyAvailability.slotOf(from);
+        int count = (int) ((Duration.between(from, to).toMinutes() + minuteInSlot(from)
+                + WeeklyAvailability.SLOT_MINUTES - 1) / WeeklyAvailability.SLOT_MINUTES);
+        count = Math.min(Math.max(count, 1), WeeklyAvailability.SLOTS_PER_WEEK);
+
+        long[] free = freeBySlot[first].clone();
+        for (int i = 1; i < count; i++) {
+            long[] slot = freeBySlot[(first + i) % WeeklyAvailability.SLOTS_PER_WEEK];
+            boolean any = false;
+            for (int w = 0; w < words; w++) {
+                free[w] &= slot[w];
+                any |= free[w] != 0;
+            }
+            if (!any) {
+                return List.of();
+            }
+        }
+
+        List<Therapist> result = new ArrayList<>();
+        for (int w = 0; w < words; w++) {
+            long bits = free[w];
+            while (bits != 0) {
+                result.add(therapists.get((w << 6) + Long.numberOfTrailingZeros(bits)));
+                bits &= bits - 1;
+            }
+        }
+        return result;
+    }
+
+    private static long minuteInSlot(Instant instant) {
+        return (instant.getEpochSecond() / 60) % WeeklyAvailability.SLOT_MINUTES;
+    }
+}
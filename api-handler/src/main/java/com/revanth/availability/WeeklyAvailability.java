@@ -0,0 +1,131 @@
+package com.revanth.availability;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * A therapist's recurring weekly availability as a bitmap of 15-minute UTC slots.
+ *
+ * Slot {@code i} is {@code dayOfWeek * 96 + minuteOfDay / 15} with Monday as day 0, and is stored in bit
+ * {@code i % 8} of byte {@code i / 8}, so a whole week fits in 84 bytes. The bitmap is derived from the
+ * human-readable {@code slotsAvailable} ranges, e.g. {@code "MON 09:00-12:30"}. Therapists written before
+ * the bitmap existed may hold free-form text there instead; they have no usable bitmap (see {@link #encode}).
+ */
+public final class WeeklyAvailability {
+
+    public static final int SLOT_MINUTES = 15;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+    public static final int BYTES = SLOTS_PER_WEEK / 8;
+
+    private WeeklyAvailability() {
+    }
+
+    /**
+     * Encodes ranges like {@code "MON 09:00-12:30"}. Times are UTC, on 15-minute boundaries, and the end
+     * is exclusive ({@code "24:00"} is allowed).
+     */
+    public static byte[] fromSlots(List<String> slots) {
+        byte[] bitmap = new byte[BYTES];
+        for (String slot : slots) {
+            if (slot == null) {
+                throw new IllegalArgumentException("Slots can't be null.");
+            }
+            String[] dayAndRange = slot.trim().split("\\s+");
+            String[] range = dayAndRange.length == 2 ? dayAndRange[1].split("-") : new String[0];
+            if (range.length != 2) {
+                throw new IllegalArgumentException("Invalid slot \"" + slot + "\", expected e.g. \"MON 09:00-12:30\".");
+            }
+
+            int day = dayIndex(dayAndRange[0], slot);
+            int start = slotOfDay(range[0], slot);
+            int end = slotOfDay(range[1], slot);
+            if (start >= end) {
+                throw new IllegalArgumentException("Invalid slot \"" + slot + "\", the range is empty.");
+            }
+            for (int i = day * SLOTS_PER_DAY + start; i < day * SLOTS_PER_DAY + end; i++) {
+                bitmap[i >> 3] |= (byte) (1 << (i & 7));
+            }
+        }
+        return bitmap;
+    }
+
+    /**
+     * The {@code availability} attribute to store for {@code slotsAvailable}: {@code null} when there are
+     * no slots, the bitmap when every range is structured, and an empty array for legacy free-form text.
+     * The empty array replaces any older bitmap on a partial update and marks the availability unknown.
+     */
+    public static byte[] encode(List<String> slots) {
+        if (slots == null) {
+            return null;
+        }
+        try {
+            return fromSlots(slots);
+        } catch (IllegalArgumentException e) {
+            return new byte[0];
+        }
+    }
+
+    /**
+     * Whether {@code bitmap} holds a searchable week, rather than being absent or the legacy marker.
+     */
+    public static boolean isKnown(byte[] bitmap) {
+        return bitmap != null && bitmap.length == BYTES;
+    }
+
+    public static boolean isFree(byte[] bitmap, int slot) {
+        return (bitmap[slot >> 3] & (1 << (slot & 7))) != 0;
+    }
+
+    /**
+     * The slot containing the given instant.
+     */
+    public static int slotOf(Instant instant) {
+        LocalDateTime time = LocalDateTime.ofInstant(instant, ZoneOffset.UTC);
+        return (time.getDayOfWeek().getValue() - 1) * SLOTS_PER_DAY
+                + (time.getHour() * 60 + time.getMinute()) / SLOT_MINUTES;
+    }
+
+    /**
+     * Parses an ISO-8601 date-time; one without an offset is taken as UTC.
+     */
+    public static Instant parseTime(String value) {
+        try {
+            return OffsetDateTime.parse(value).toInstant();
+        } catch (DateTimeParseException e) {
+            try {
+                return LocalDateTime.parse(value).toInstant(ZoneOffset.UTC);
+            } catch (DateTimeParseException ignored) {
+                throw new IllegalArgumentException("Invalid date-time: " + value);
+            }
+        }
+    }
+
+    private static int dayIndex(String day, String slot) {
+        for (DayOfWeek dayOfWeek : DayOfWeek.values()) {
+            if (dayOfWeek.name().startsWith(day.toUpperCase(Locale.ROOT)) && day.length() >= 3) {
+                return dayOfWeek.getValue() - 1;
+            }
+        }
+        throw new IllegalArgumentException("Invalid day in slot \"" + slot + "\".");
+    }
+
+    private static int slotOfDay(String time, String slot) {
+        String[] parts = time.split(":");
+        try {
+            int minutes = Integer.parseInt(parts[0]) * 60 + (parts.length > 1 ? Integer.parseInt(parts[1]) : 0);
+            if (parts.length <= 2 && minutes >= 0 && minutes <= 24 * 60 && minutes % SLOT_MINUTES == 0) {
+                return minutes / SLOT_MINUTES;
+            }
+        } catch (NumberFormatException ignored) {
+            // Fall through to the error below
+        }
+        throw new IllegalArgumentException("Invalid time in slot \"" + slot + "\", use HH:mm on a 15-minute boundary.");
+    }
+}
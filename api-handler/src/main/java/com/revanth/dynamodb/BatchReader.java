@@ -0,0 +1,161 @@
+package com.revanth.dynamodb;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchGetItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.KeysAndAttributes;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Fetches many items by partition key with {@code BatchGetItem}: 100 keys per call, calls running in
+ * parallel, and {@code UnprocessedKeys} retried with the same backoff as {@link BatchWriter}.
+ */
+public final class BatchReader {
+
+    public static final int MAX_BATCH_SIZE = 100;
+    public static final int MAX_REQUEST_IDS = 500;
+
+    private BatchReader() {
+    }
+
+    /**
+     * Parses a comma-separated {@code ids} parameter, enforcing {@link #MAX_REQUEST_IDS}. A missing or
+     * blank parameter is rejected like an empty list.
+     */
+    public static List<String> parseIds(String ids) {
+        if (ids == null || ids.isBlank()) {
+            throw new IllegalArgumentException("ids must contain between 1 and " + MAX_REQUEST_IDS + " IDs.");
+        }
+        List<String> parsed = new ArrayList<>();
+        for (String id : ids.split(",")) {
+            if (!id.isBlank()) {
+                parsed.add(id.trim());
+            }
+        }
+        if (parsed.isEmpty() || parsed.size() > MAX_REQUEST_IDS) {
+            throw new IllegalArgumentException("ids must contain between 1 and " + MAX_REQUEST_IDS + " IDs.");
+        }
+        return parsed;
+    }
+
+    /**
+     * Reads the items with the given partition keys from a table without a sort key. The result has one
+     * entry per requested ID, in request order, with {@code null} for IDs that don't exist. Attributes in
+     * {@code excludedAttributes} are left out of the projection, so they never leave DynamoDB.
+     */
+    public static <T> List<T> getAll(DynamoDbTable<T> table, List<String> ids, List<String> excludedAttributes) {
+        String partitionKey = table.tableSchema().tableMetadata().primaryPartitionKey();
+
+        Map<String, String> names = new HashMap<>();
+        List<String> projection = new ArrayList<>();
+        for (String attribute : table.tableSchema().attributeNames()) {
+            if (!excludedAttributes.contains(attribute)) {
+                String placeholder = "#a" + names.size();
+                names.put(placeholder, attribute);
+                projection.add(placeholder);
+            }
+        }
+
+        // BatchGetItem rejects duplicate keys
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(ids));
+        Map<String, Map<String, AttributeValue>> found = new ConcurrentHashMap<>();
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int start = 0; start < distinct.size(); start += MAX_BATCH_SIZE) {
+            List<String> chunk = distinct.subList(start, Math.min(start + MAX_BATCH_SIZE, distinct.size()));
+            List<Map<String, AttributeValue>> keys = new ArrayList<>();
+            for (String id : chunk) {
+                keys.add(Map.of(partitionKey, AttributeValue.builder().s(id).build()));
+            }
+            KeysAndAttributes request = KeysAndAttributes.builder()
+                    .keys(keys)
+                    .projectionExpression(String.join(", ", projection))
+                    .expressionAttributeNames(names)
+                    .build();
+            calls.add(CompletableFuture.runAsync(
+                    () -> readChunk(table.tableName(), request, item -> found.put(item.get(partitionKey).s(), item)),
+                    DynamoDbRegistry.executor()));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).join();
+
+        List<T> items = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            Map<String, AttributeValue> item = found.get(id);
+            items.add(item != null ? table.tableSchema().mapToItem(item) : null);
+        }
+        return items;
+    }
+
+    /**
+     * Checks which of the given items already exist, by their full primary key, so it also works for
+     * tables with a sort key. Only the key attributes are read. The result has one flag per input item.
+     */
+    public static <T> List<Boolean> exists(DynamoDbTable<T> table, List<T> items) {
+        List<String> keyAttributes = new ArrayList<>(table.tableSchema().tableMetadata().primaryKeys());
+        Map<String, String> names = new HashMap<>();
+        List<String> projection = new ArrayList<>();
+        for (String attribute : keyAttributes) {
+            String placeholder = "#k" + names.size();
+            names.put(placeholder, attribute);
+            projection.add(placeholder);
+        }
+
+        List<Map<String, AttributeValue>> keys = new ArrayList<>(items.size());
+        Map<Map<String, AttributeValue>, Boolean> distinct = new LinkedHashMap<>();
+        for (T item : items) {
+            Map<String, AttributeValue> key = table.tableSchema().itemToMap(item, keyAttributes);
+            keys.add(key);
+            distinct.put(key, Boolean.TRUE);
+        }
+
+        List<Map<String, AttributeValue>> distinctKeys = new ArrayList<>(distinct.keySet());
+        Set<Map<String, AttributeValue>> found = ConcurrentHashMap.newKeySet();
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (int start = 0; start < distinctKeys.size(); start += MAX_BATCH_SIZE) {
+            KeysAndAttributes request = KeysAndAttributes.builder()
+                    .keys(distinctKeys.subList(start, Math.min(start + MAX_BATCH_SIZE, distinctKeys.size())))
+                    .projectionExpression(String.join(", ", projection))
+                    .expressionAttributeNames(names)
+                    .build();
+            calls.add(CompletableFuture.runAsync(
+                    () -> readChunk(table.tableName(), request, found::add), DynamoDbRegistry.executor()));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).join();
+
+        List<Boolean> exists = new ArrayList<>(keys.size());
+        for (Map<String, AttributeValue> key : keys) {
+            exists.add(found.contains(key));
+        }
+        return exists;
+    }
+
+    private static void readChunk(String tableName, KeysAndAttributes request,
+                                  Consumer<Map<String, AttributeValue>> found) {
+        KeysAndAttributes pending = request;
+        for (int attempt = 1; pending != null && pending.hasKeys() && !pending.keys().isEmpty(); attempt++) {
+            if (attempt > BatchWriter.MAX_ATTEMPTS) {
+                throw new IllegalStateException("Throughput exceeded while reading " + tableName + ", retry the request.");
+            }
+            if (attempt > 1) {
+                BatchWriter.backoff(attempt - 1);
+            }
+            BatchGetItemResponse response = DynamoDbRegistry.dynamoDbClient().batchGetItem(BatchGetItemRequest.builder()
+                    .requestItems(Map.of(tableName, pending))
+                    .build());
+            for (Map<String, AttributeValue> item : response.responses().getOrDefault(tableName, List.of())) {
+                found.accept(item);
+            }
+            pending = response.unprocessedKeys().get(tableName);
+        }
+    }
+}
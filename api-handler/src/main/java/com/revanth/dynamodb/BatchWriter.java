@@ -0,0 +1,246 @@
+package com.revanth.dynamodb;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.revanth.json.JsonCodec;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.BatchWriteItemResponse;
+import software.amazon.awssdk.services.dynamodb.model.PutRequest;
+import software.amazon.awssdk.services.dynamodb.model.WriteRequest;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Writes many items with {@code BatchWriteItem}: 25 items per call, calls running in parallel, and
+ * {@code UnprocessedItems} retried with full-jitter exponential backoff.
+ *
+ * Every input item gets a {@link Result}, so callers can report which items made it. BatchWriteItem puts
+ * are unconditional, so callers that must not overwrite existing items have to filter them out first.
+ */
+public final class BatchWriter {
+
+    public static final int MAX_BATCH_SIZE = 25;
+    // Upper bound for one bulk request, so a single invocation stays well inside the Lambda timeout
+    public static final int MAX_REQUEST_ITEMS = 500;
+
+    static final int MAX_ATTEMPTS = 6;
+    private static final long BASE_BACKOFF_MILLIS = 50;
+    private static final long MAX_BACKOFF_MILLIS = 2000;
+
+    private BatchWriter() {
+    }
+
+    /**
+     * Puts all items into the table and returns one result per item, in input order.
+     */
+    public static <T> List<Result> putAll(DynamoDbTable<T> table, List<T> items) {
+        return putAll(table, items, null);
+    }
+
+    /**
+     * Like {@link #putAll(DynamoDbTable, List)}, but every call, retries included, first takes one token
+     * per item from {@code limiter}, so bulk loads can be held below the table's write capacity.
+     */
+    public static <T> List<Result> putAll(DynamoDbTable<T> table, List<T> items, TokenBucket limiter) {
+        List<String> keyAttributes = new ArrayList<>(table.tableSchema().tableMetadata().primaryKeys());
+        List<Result> results = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            results.add(Result.written(i));
+        }
+
+        // One BatchWriteItem call can't contain the same key twice
+        Map<String, Integer> firstIndexByKey = new HashMap<>();
+        List<List<Integer>> chunks = new ArrayList<>();
+        List<Integer> chunk = new ArrayList<>();
+        List<Map<String, AttributeValue>> itemMaps = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            Map<String, AttributeValue> itemMap = table.tableSchema().itemToMap(items.get(i), true);
+            itemMaps.add(itemMap);
+            if (firstIndexByKey.putIfAbsent(keyOf(itemMap, keyAttributes), i) != null) {
+                results.set(i, Result.failed(i, "Duplicate key in batch."));
+                continue;
+            }
+            chunk.add(i);
+            if (chunk.size() == MAX_BATCH_SIZE) {
+                chunks.add(chunk);
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            chunks.add(chunk);
+        }
+
+        List<CompletableFuture<Void>> calls = new ArrayList<>();
+        for (List<Integer> indexes : chunks) {
+            calls.add(CompletableFuture.runAsync(
+                    () -> writeChunk(table.tableName(), indexes, itemMaps, keyAttributes, results, limiter),
+                    DynamoDbRegistry.executor()));
+        }
+        CompletableFuture.allOf(calls.toArray(new CompletableFuture<?>[0])).join();
+        return results;
+    }
+
+    /**
+     * Reads the items of a bulk request body, enforcing {@link #MAX_REQUEST_ITEMS}.
+     */
+    public static <T> List<T> readRequest(String requestBody, Class<T> type) {
+        List<T> items;
+        try {
+            items = JsonCodec.readList(requestBody, type);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid request body: " + e.getMessage());
+        }
+        if (items == null || items.isEmpty() || items.size() > MAX_REQUEST_ITEMS) {
+            throw new IllegalArgumentException("Send between 1 and " + MAX_REQUEST_ITEMS + " items.");
+        }
+        return items;
+    }
+
+    /**
+     * The response for a bulk request: 200 when every item was written, 207 otherwise, and the body
+     * {@code {"results": [...]}} with one entry per input item.
+     */
+    public static int statusCode(List<Result> results) {
+        for (Result result : results) {
+            if (!result.succeeded()) {
+                return 207;
+            }
+        }
+        return 200;
+    }
+
+    public static String responseBody(List<Result> results) throws JsonProcessingException {
+        return JsonCodec.write(Map.of("results", results));
+    }
+
+    private static void writeChunk(String tableName, List<Integer> indexes, List<Map<String, AttributeValue>> itemMaps,
+                                   List<String> keyAttributes, List<Result> results, TokenBucket limiter) {
+        DynamoDbClient client = DynamoDbRegistry.dynamoDbClient();
+        Map<String, Integer> indexByKey = new HashMap<>();
+        List<WriteRequest> pending = new ArrayList<>(indexes.size());
+        for (int index : indexes) {
+            Map<String, AttributeValue> itemMap = itemMaps.get(index);
+            indexByKey.put(keyOf(itemMap, keyAttributes), index);
+            pending.add(WriteRequest.builder().putRequest(PutRequest.builder().item(itemMap).build()).build());
+        }
+
+        try {
+            for (int attempt = 1; !pending.isEmpty() && attempt <= MAX_ATTEMPTS; attempt++) {
+                if (attempt > 1) {
+                    backoff(attempt - 1);
+                }
+                if (limiter != null) {
+                    limiter.acquire(pending.size());
+                }
+                BatchWriteItemResponse response = client.batchWriteItem(BatchWriteItemRequest.builder()
+                        .requestItems(Map.of(tableName, pending))
+                        .build());
+                pending = response.unprocessedItems().getOrDefault(tableName, List.of());
+            }
+        } catch (RuntimeException e) {
+            for (int index : indexes) {
+                results.set(index, Result.failed(index, e.getMessage()));
+            }
+            return;
+        }
+
+        for (WriteRequest unprocessed : pending) {
+            int index = indexByKey.get(keyOf(unprocessed.putRequest().item(), keyAttributes));
+            results.set(index, Result.failed(index, "Throughput exceeded, retry the item."));
+        }
+    }
+
+    /**
+     * Sleeps before the given retry, using full-jitter exponential backoff.
+     */
+    static void backoff(int retry) {
+        long cap = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << Math.min(retry, 16));
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(cap + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying unprocessed items", e);
+        }
+    }
+
+    private static String keyOf(Map<String, AttributeValue> itemMap, List<String> keyAttributes) {
+        StringBuilder key = new StringBuilder();
+        for (String attribute : keyAttributes) {
+            key.append(itemMap.get(attribute)).append('\u0000');
+        }
+        return key.toString();
+    }
+
+    /**
+     * The outcome of one input item.
+     */
+    public static final class Result {
+
+        public enum Status {
+            WRITTEN("written"),
+            FAILED("failed");
+
+            private final String value;
+
+            Status(String value) {
+                this.value = value;
+            }
+
+            @Override
+            public String toString() {
+                return value;
+            }
+        }
+
+        private final int index;
+        private final Status status;
+        private final String error;
+
+        private Result(int index, Status status, String error) {
+            this.index = index;
+            this.status = status;
+            this.error = error;
+        }
+
+        public static Result written(int index) {
+            return new Result(index, Status.WRITTEN, null);
+        }
+
+        /**
+         * A failed item; exceptions without a message still count as failures and get a generic error.
+         */
+        public static Result failed(int index, String error) {
+            return new Result(index, Status.FAILED, error != null ? error : "Write failed.");
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public String getStatus() {
+            return status.toString();
+        }
+
+        public String getError() {
+            return error;
+        }
+
+        /**
+         * The same outcome reported under another index, e.g. the item's position in the original request.
+         */
+        public Result withIndex(int index) {
+            return new Result(index, status, error);
+        }
+
+        public boolean succeeded() {
+            return status == Status.WRITTEN;
+        }
+    }
+}
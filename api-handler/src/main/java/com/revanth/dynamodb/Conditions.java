@@ -0,0 +1,55 @@
+package com.revanth.dynamodb;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.util.List;
+
+/**
+ * Condition expressions and transaction failure checks shared by the conditional writes: account and
+ * email lock creation, message timestamps, slot locks and the importer.
+ */
+public final class Conditions {
+
+    private Conditions() {
+    }
+
+    /**
+     * Condition that the item being written does not exist yet.
+     */
+    public static Expression notExists(String keyAttribute) {
+        return Expression.builder()
+                .expression("attribute_not_exists(#key)")
+                .putExpressionName("#key", keyAttribute)
+                .build();
+    }
+
+    /**
+     * Whether the transaction was cancelled because the condition on the write at {@code index} failed.
+     */
+    public static boolean conditionFailed(TransactionCanceledException e, int index) {
+        List<CancellationReason> reasons = e.cancellationReasons();
+        return reasons != null && reasons.size() > index
+                && "ConditionalCheckFailed".equals(reasons.get(index).code());
+    }
+
+    /**
+     * Whether any write of the transaction was cancelled with one of the given reason codes, such as
+     * {@code TransactionConflict} or {@code ThrottlingError}.
+     */
+    public static boolean cancelledWith(TransactionCanceledException e, String... codes) {
+        List<CancellationReason> reasons = e.cancellationReasons();
+        if (reasons == null) {
+            return false;
+        }
+        for (CancellationReason reason : reasons) {
+            for (String code : codes) {
+                if (code.equals(reason.code())) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
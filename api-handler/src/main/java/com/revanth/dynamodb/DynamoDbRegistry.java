@@ -0,0 +1,156 @@
+package com.revanth.dynamodb;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClientBuilder;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Process-wide holder for the DynamoDB clients and tables used by the handlers.
+ *
+ * The clients are built once per JVM, while the Lambda init phase runs, so every handler in the
+ * execution environment shares the same HTTP connection pool. Tables are cached by model class and
+ * table name, and use the static schemas from {@link TableSchemas}.
+ */
+public final class DynamoDbRegistry {
+
+    private static final Duration CONNECTION_TIMEOUT = Duration.ofSeconds(2);
+    private static final Duration SOCKET_TIMEOUT = Duration.ofSeconds(5);
+    private static final String MAX_KEEP_ALIVE_CONNECTIONS = "50";
+
+    private static final Map<List<Object>, DynamoDbTable<?>> TABLES = new ConcurrentHashMap<>();
+
+    // Runs DynamoDB calls a request issues concurrently (batch chunks, fan-out reads); they are I/O bound.
+    private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(8, runnable -> {
+        Thread thread = new Thread(runnable, "dynamodb-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    // Built on first use of a client or table, which the handlers' constructors make during init. The
+    // executor doesn't need them, so it works without a region or credentials.
+    private static final class Clients {
+        static final DynamoDbClient DYNAMO_DB_CLIENT;
+        static final DynamoDbEnhancedClient ENHANCED_CLIENT;
+
+        static {
+            // HttpURLConnection keeps idle sockets in the JVM-wide keep-alive cache; widen it beyond the
+            // default of 5 so bursts of concurrent calls don't reconnect to DynamoDB.
+            if (System.getProperty("http.maxConnections") == null) {
+                System.setProperty("http.maxConnections", MAX_KEEP_ALIVE_CONNECTIONS);
+            }
+
+            DYNAMO_DB_CLIENT = buildDynamoDbClient();
+            ENHANCED_CLIENT = DynamoDbEnhancedClient.builder()
+                    .dynamoDbClient(DYNAMO_DB_CLIENT)
+                    .build();
+        }
+    }
+
+    private DynamoDbRegistry() {
+    }
+
+    public static DynamoDbClient dynamoDbClient() {
+        return Clients.DYNAMO_DB_CLIENT;
+    }
+
+    public static DynamoDbEnhancedClient enhancedClient() {
+        return Clients.ENHANCED_CLIENT;
+    }
+
+    public static ExecutorService executor() {
+        return EXECUTOR;
+    }
+
+    /**
+     * Waits for a read that was submitted to {@link #executor()} alongside an authorization check. If the
+     * check fails, the check's exception is rethrown, so nothing from the read is returned, and the read is
+     * cancelled: a read still queued never runs, and a running one is interrupted. The SDK abandons an
+     * interrupted call at its next interruption check, e.g. before a retry; a socket read already in
+     * progress still runs until it returns or times out, but the caller doesn't wait for it.
+     */
+    public static <T> T awaitAuthorized(Future<?> authorization, Future<T> read) {
+        try {
+            await(authorization);
+        } catch (RuntimeException e) {
+            read.cancel(true);
+            throw e;
+        }
+        return await(read);
+    }
+
+    private static <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException
+                    ? (RuntimeException) e.getCause()
+                    : new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for DynamoDB.");
+        }
+    }
+
+    /**
+     * Returns the table for the given model and table name, creating it on first use. The same model
+     * can be mapped onto several tables, e.g. by the export and import tools.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> DynamoDbTable<T> table(Class<T> modelClass, String tableName) {
+        return (DynamoDbTable<T>) TABLES.computeIfAbsent(Arrays.asList(modelClass, tableName),
+                key -> Clients.ENHANCED_CLIENT.table(tableName, TableSchemas.forModel(modelClass)));
+    }
+
+    private static DynamoDbClient buildDynamoDbClient() {
+        SdkHttpClient httpClient = UrlConnectionHttpClient.builder()
+                .connectionTimeout(CONNECTION_TIMEOUT)
+                .socketTimeout(SOCKET_TIMEOUT)
+                .build();
+
+        DynamoDbClientBuilder builder = DynamoDbClient.builder()
+                .httpClient(httpClient)
+                .credentialsProvider(credentialsProvider());
+
+        // Lambda always sets AWS_REGION; setting it explicitly skips the region provider chain.
+        String region = System.getenv("AWS_REGION");
+        if (region != null) {
+            builder.region(Region.of(region));
+        }
+
+        // Lets the handlers run against DynamoDB Local.
+        String endpoint = System.getenv("DYNAMODB_ENDPOINT");
+        if (endpoint != null) {
+            builder.endpointOverride(URI.create(endpoint));
+        }
+
+        return builder.build();
+    }
+
+    private static AwsCredentialsProvider credentialsProvider() {
+        // Lambda injects the execution role credentials as environment variables.
+        if (System.getenv("AWS_ACCESS_KEY_ID") != null) {
+            return EnvironmentVariableCredentialsProvider.create();
+        }
+        return DefaultCredentialsProvider.create();
+    }
+}
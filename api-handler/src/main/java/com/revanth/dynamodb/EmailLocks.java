@@ -0,0 +1,53 @@
+package com.revanth.dynamodb;
+
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Locale;
+
+/**
+ * Helpers for keeping user emails unique in the Clients and Therapists tables.
+ *
+ * A global secondary index can't enforce uniqueness, so every account also owns a lock item keyed
+ * {@code EMAIL#<email>} in the same table. The lock is written in the same transaction as the account
+ * with a {@link Conditions#notExists} condition. Lock items have no {@code email} attribute, so they
+ * stay out of {@link #EMAIL_INDEX} and are filtered out of scans with {@link #accountsOnly()}.
+ */
+public final class EmailLocks {
+
+    public static final String EMAIL_INDEX = "EmailIndex";
+
+    private static final String LOCK_PREFIX = "EMAIL#";
+
+    private EmailLocks() {
+    }
+
+    public static String normalize(String email) {
+        return email == null ? null : email.trim().toLowerCase(Locale.ROOT);
+    }
+
+    public static String lockKey(String email) {
+        return LOCK_PREFIX + normalize(email);
+    }
+
+    /**
+     * Scan filter that skips the lock items. As a write condition it also requires the account to exist.
+     */
+    public static Expression accountsOnly() {
+        return Expression.builder()
+                .expression("attribute_exists(#email)")
+                .putExpressionName("#email", "email")
+                .build();
+    }
+
+    /**
+     * Condition that the account still has the given email, so an email change can't race another one.
+     */
+    public static Expression hasEmail(String email) {
+        return Expression.builder()
+                .expression("#email = :email")
+                .putExpressionName("#email", "email")
+                .putExpressionValue(":email", AttributeValue.builder().s(email).build())
+                .build();
+    }
+}
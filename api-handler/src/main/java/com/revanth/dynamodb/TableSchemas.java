@@ -0,0 +1,226 @@
+package com.revanth.dynamodb;
+
+import com.revanth.models.Appointment;
+import com.revanth.models.Client;
+import com.revanth.models.ClientTherapistMapping;
+import com.revanth.models.Journal;
+import com.revanth.models.Message;
+import com.revanth.models.Session;
+import com.revanth.models.Therapist;
+import software.amazon.awssdk.enhanced.dynamodb.EnhancedType;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.StaticTableSchema;
+
+import java.util.List;
+import java.util.Map;
+
+import static software.amazon.awssdk.enhanced.dynamodb.extensions.VersionedRecordExtension.AttributeTags.versionAttribute;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.atomicCounter;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.primarySortKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondaryPartitionKey;
+import static software.amazon.awssdk.enhanced.dynamodb.mapper.StaticAttributeTags.secondarySortKey;
+
+/**
+ * Hand-written table schemas for the models in {@code com.revanth.models}.
+ *
+ * {@link TableSchema#fromBean(Class)} introspects the bean and generates accessor lambdas on every cold
+ * start; these schemas are plain method references, so building them costs next to nothing. The
+ * attribute names must stay in sync with the {@code @DynamoDbAttribute} annotations on the models.
+ */
+public final class TableSchemas {
+
+    public static final String CLIENT_MESSAGES_INDEX = "ClientMessagesIndex";
+    public static final String THERAPIST_MESSAGES_INDEX = "TherapistMessagesIndex";
+    public static final String CLIENT_SESSIONS_INDEX = "ClientSessionsIndex";
+    public static final String THERAPIST_SESSIONS_INDEX = "TherapistSessionsIndex";
+
+    public static final TableSchema<Client> CLIENT = StaticTableSchema.builder(Client.class)
+            .newItemSupplier(Client::new)
+            .addAttribute(String.class, a -> a.name("clientId")
+                    .getter(Client::getClientId)
+                    .setter(Client::setClientId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("name")
+                    .getter(Client::getName)
+                    .setter(Client::setName))
+            .addAttribute(String.class, a -> a.name("email")
+                    .getter(Client::getEmail)
+                    .setter(Client::setEmail)
+                    .tags(secondaryPartitionKey(EmailLocks.EMAIL_INDEX)))
+            .addAttribute(String.class, a -> a.name("password")
+                    .getter(Client::getPassword)
+                    .setter(Client::setPassword))
+            .addAttribute(Long.class, a -> a.name("version")
+                    .getter(Client::getVersion)
+                    .setter(Client::setVersion)
+                    .tags(atomicCounter()))
+            .build();
+
+    public static final TableSchema<Therapist> THERAPIST = StaticTableSchema.builder(Therapist.class)
+            .newItemSupplier(Therapist::new)
+            .addAttribute(String.class, a -> a.name("therapistId")
+                    .getter(Therapist::getTherapistId)
+                    .setter(Therapist::setTherapistId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("name")
+                    .getter(Therapist::getName)
+                    .setter(Therapist::setName))
+            .addAttribute(String.class, a -> a.name("email")
+                    .getter(Therapist::getEmail)
+                    .setter(Therapist::setEmail)
+                    .tags(secondaryPartitionKey(EmailLocks.EMAIL_INDEX)))
+            .addAttribute(String.class, a -> a.name("password")
+                    .getter(Therapist::getPassword)
+                    .setter(Therapist::setPassword))
+            .addAttribute(EnhancedType.listOf(String.class), a -> a.name("slotsAvailable")
+                    .getter(Therapist::getSlotsAvailable)
+                    .setter(Therapist::setSlotsAvailable))
+            .addAttribute(byte[].class, a -> a.name("availability")
+                    .getter(Therapist::getAvailability)
+                    .setter(Therapist::setAvailability))
+            .addAttribute(Long.class, a -> a.name("version")
+                    .getter(Therapist::getVersion)
+                    .setter(Therapist::setVersion)
+                    .tags(atomicCounter()))
+            .build();
+
+    public static final TableSchema<Message> MESSAGE = StaticTableSchema.builder(Message.class)
+            .newItemSupplier(Message::new)
+            .addAttribute(String.class, a -> a.name("conversationId")
+                    .getter(Message::getConversationId)
+                    .setter(Message::setConversationId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("timestamp")
+                    .getter(Message::getTimestamp)
+                    .setter(Message::setTimestamp)
+                    .tags(primarySortKey(), secondarySortKey(List.of(CLIENT_MESSAGES_INDEX, THERAPIST_MESSAGES_INDEX))))
+            .addAttribute(String.class, a -> a.name("sender")
+                    .getter(Message::getSender)
+                    .setter(Message::setSender))
+            .addAttribute(String.class, a -> a.name("receiver")
+                    .getter(Message::getReceiver)
+                    .setter(Message::setReceiver))
+            .addAttribute(String.class, a -> a.name("messageContent")
+                    .getter(Message::getMessageContent)
+                    .setter(Message::setMessageContent))
+            .addAttribute(String.class, a -> a.name("senderRole")
+                    .getter(Message::getSenderRole)
+                    .setter(Message::setSenderRole))
+            .addAttribute(String.class, a -> a.name("clientId")
+                    .getter(Message::getClientId)
+                    .setter(Message::setClientId)
+                    .tags(secondaryPartitionKey(CLIENT_MESSAGES_INDEX)))
+            .addAttribute(String.class, a -> a.name("therapistId")
+                    .getter(Message::getTherapistId)
+                    .setter(Message::setTherapistId)
+                    .tags(secondaryPartitionKey(THERAPIST_MESSAGES_INDEX)))
+            .build();
+
+    public static final TableSchema<Journal> JOURNAL = StaticTableSchema.builder(Journal.class)
+            .newItemSupplier(Journal::new)
+            .addAttribute(String.class, a -> a.name("clientId")
+                    .getter(Journal::getClientId)
+                    .setter(Journal::setClientId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("timestamp")
+                    .getter(Journal::getTimestamp)
+                    .setter(Journal::setTimestamp)
+                    .tags(primarySortKey()))
+            .addAttribute(String.class, a -> a.name("feeling")
+                    .getter(Journal::getFeeling)
+                    .setter(Journal::setFeeling))
+            .addAttribute(String.class, a -> a.name("intensity")
+                    .getter(Journal::getIntensity)
+                    .setter(Journal::setIntensity))
+            .build();
+
+    public static final TableSchema<Session> SESSION = StaticTableSchema.builder(Session.class)
+            .newItemSupplier(Session::new)
+            .addAttribute(String.class, a -> a.name("sessionId")
+                    .getter(Session::getSessionId)
+                    .setter(Session::setSessionId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("sessionDate")
+                    .getter(Session::getSessionDate)
+                    .setter(Session::setSessionDate)
+                    .tags(primarySortKey(), secondarySortKey(THERAPIST_SESSIONS_INDEX)))
+            .addAttribute(String.class, a -> a.name("therapistId")
+                    .getter(Session::getTherapistId)
+                    .setter(Session::setTherapistId)
+                    .tags(secondarySortKey(CLIENT_SESSIONS_INDEX), secondaryPartitionKey(THERAPIST_SESSIONS_INDEX)))
+            .addAttribute(String.class, a -> a.name("clientId")
+                    .getter(Session::getClientId)
+                    .setter(Session::setClientId)
+                    .tags(secondaryPartitionKey(CLIENT_SESSIONS_INDEX)))
+            .addAttribute(String.class, a -> a.name("sharedNotes")
+                    .getter(Session::getSharedNotes)
+                    .setter(Session::setSharedNotes))
+            .addAttribute(String.class, a -> a.name("privateNotes")
+                    .getter(Session::getPrivateNotes)
+                    .setter(Session::setPrivateNotes))
+            .build();
+
+    public static final TableSchema<Appointment> APPOINTMENT = StaticTableSchema.builder(Appointment.class)
+            .newItemSupplier(Appointment::new)
+            .addAttribute(String.class, a -> a.name("appointmentId")
+                    .getter(Appointment::getAppointmentId)
+                    .setter(Appointment::setAppointmentId)
+                    .tags(primaryPartitionKey()))
+            .addAttribute(String.class, a -> a.name("timestamp")
+                    .getter(Appointment::getDateTimeSlot)
+                    .setter(Appointment::setDateTimeSlot)
+                    .tags(primarySortKey()))
+            .addAttribute(String.class, a -> a.name("clientId")
+                    .getter(Appointment::getClientId)
+                    .setter(Appointment::setClientId))
+            .addAttribute(String.class, a -> a.name("therapistId")
+                    .getter(Appointment::getTherapistId)
+                    .setter(Appointment::setTherapistId))
+            .build();
+
+    public static final TableSchema<ClientTherapistMapping> CLIENT_THERAPIST_MAPPING =
+            StaticTableSchema.builder(ClientTherapistMapping.class)
+                    .newItemSupplier(ClientTherapistMapping::new)
+                    .addAttribute(String.class, a -> a.name("clientId")
+                            .getter(ClientTherapistMapping::getClientId)
+                            .setter(ClientTherapistMapping::setClientId)
+                            .tags(primaryPartitionKey()))
+                    .addAttribute(String.class, a -> a.name("therapistId")
+                            .getter(ClientTherapistMapping::getTherapistId)
+                            .setter(ClientTherapistMapping::setTherapistId)
+                            .tags(primarySortKey()))
+                    .addAttribute(String.class, a -> a.name("journalAccess")
+                            .getter(ClientTherapistMapping::getJournalAccess)
+                            .setter(ClientTherapistMapping::setJournalAccess))
+                    .addAttribute(String.class, a -> a.name("status")
+                            .getter(ClientTherapistMapping::getStatus)
+                            .setter(ClientTherapistMapping::setStatus))
+                    .addAttribute(Long.class, a -> a.name("version")
+                            .getter(ClientTherapistMapping::getVersion)
+                            .setter(ClientTherapistMapping::setVersion)
+                            .tags(versionAttribute()))
+                    .build();
+
+    private static final Map<Class<?>, TableSchema<?>> SCHEMAS = Map.of(
+            Client.class, CLIENT,
+            Therapist.class, THERAPIST,
+            Message.class, MESSAGE,
+            Journal.class, JOURNAL,
+            Session.class, SESSION,
+            Appointment.class, APPOINTMENT,
+            ClientTherapistMapping.class, CLIENT_THERAPIST_MAPPING);
+
+    private TableSchemas() {
+    }
+
+    /**
+     * Returns the static schema for a model, falling back to bean introspection for classes that
+     * don't have one yet.
+     */
+    @SuppressWarnings("unchecked")
+    public static <T> TableSchema<T> forModel(Class<T> modelClass) {
+        TableSchema<?> schema = SCHEMAS.get(modelClass);
+        return schema != null ? (TableSchema<T>) schema : TableSchema.fromBean(modelClass);
+    }
+}
@@ -0,0 +1,54 @@
+package com.revanth.dynamodb;
+
+/**
+ * A blocking token bucket for pacing writes, e.g. to stay under a table's provisioned write capacity.
+ *
+ * Tokens refill continuously at {@code ratePerSecond} up to {@code capacity}, so short bursts go out at
+ * once and sustained load is held to the rate. {@link #acquire(int)} blocks the caller until enough
+ * tokens are available, which is what pushes back on whoever produces the work.
+ */
+public final class TokenBucket {
+
+    private final double ratePerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefill;
+
+    public TokenBucket(double ratePerSecond, double capacity) {
+        if (ratePerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("The rate must be positive and the capacity at least 1.");
+        }
+        this.ratePerNano = ratePerSecond / 1e9;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefill = System.nanoTime();
+    }
+
+    /**
+     * Takes {@code permits} tokens, waiting as long as needed. Requests larger than the capacity are
+     * allowed and simply wait for the bucket to fill up first.
+     */
+    public void acquire(int permits) {
+        long waitNanos;
+        synchronized (this) {
+            refill();
+            tokens -= permits;
+            // Going negative reserves the tokens; the caller waits for the debt to be paid back
+            waitNanos = tokens >= 0 ? 0 : (long) (-tokens / ratePerNano);
+        }
+        if (waitNanos > 0) {
+            try {
+                Thread.sleep(waitNanos / 1_000_000, (int) (waitNanos % 1_000_000));
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for write capacity", e);
+            }
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        tokens = Math.min(capacity, tokens + (now - lastRefill) * ratePerNano);
+        lastRefill = now;
+    }
+}
@@ -0,0 +1,123 @@
+package com.revanth.export;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.revanth.json.JsonCodec;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * JSON forms of DynamoDB items used by the export.
+ *
+ * Items are written as plain JSON (strings, numbers, booleans, arrays, objects; binary as base64) so the
+ * dumps load directly into analytics tools. Scan keys in checkpoints keep their DynamoDB types instead,
+ * since they have to be sent back to DynamoDB exactly.
+ */
+final class AttributeValueJson {
+
+    private AttributeValueJson() {
+    }
+
+    static void writeItem(JsonGenerator generator, Map<String, AttributeValue> item) throws IOException {
+        generator.writeStartObject();
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            generator.writeFieldName(attribute.getKey());
+            writeValue(generator, attribute.getValue());
+        }
+        generator.writeEndObject();
+    }
+
+    static ObjectNode keyToJson(Map<String, AttributeValue> key) {
+        ObjectNode json = JsonCodec.mapper().createObjectNode();
+        key.forEach((name, value) -> {
+            ObjectNode typed = json.putObject(name);
+            if (value.s() != null) {
+                typed.put("S", value.s());
+            } else if (value.n() != null) {
+                typed.put("N", value.n());
+            } else if (value.b() != null) {
+                typed.put("B", Base64.getEncoder().encodeToString(value.b().asByteArray()));
+            } else {
+                throw new IllegalArgumentException("Unsupported key attribute type for " + name);
+            }
+        });
+        return json;
+    }
+
+    static Map<String, AttributeValue> keyFromJson(JsonNode json) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = json.fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            JsonNode typed = field.getValue();
+            AttributeValue.Builder value = AttributeValue.builder();
+            if (typed.has("S")) {
+                value.s(typed.get("S").asText());
+            } else if (typed.has("N")) {
+                value.n(typed.get("N").asText());
+            } else {
+                value.b(SdkBytes.fromByteArray(Base64.getDecoder().decode(typed.get("B").asText())));
+            }
+            key.put(field.getKey(), value.build());
+        }
+        return key;
+    }
+
+    private static void writeValue(JsonGenerator generator, AttributeValue value) throws IOException {
+        switch (value.type()) {
+            case S:
+                generator.writeString(value.s());
+                break;
+            case N:
+                generator.writeNumber(new BigDecimal(value.n()));
+                break;
+            case BOOL:
+                generator.writeBoolean(value.bool());
+                break;
+            case B:
+                generator.writeBinary(value.b().asByteArray());
+                break;
+            case SS:
+                generator.writeStartArray();
+                for (String s : value.ss()) {
+                    generator.writeString(s);
+                }
+                generator.writeEndArray();
+                break;
+            case NS:
+                generator.writeStartArray();
+                for (String n : value.ns()) {
+                    generator.writeNumber(new BigDecimal(n));
+                }
+                generator.writeEndArray();
+                break;
+            case BS:
+                generator.writeStartArray();
+                for (SdkBytes b : value.bs()) {
+                    generator.writeBinary(b.asByteArray());
+                }
+                generator.writeEndArray();
+                break;
+            case L:
+                generator.writeStartArray();
+                for (AttributeValue element : value.l()) {
+                    writeValue(generator, element);
+                }
+                generator.writeEndArray();
+                break;
+            case M:
+                writeItem(generator, value.m());
+                break;
+            default:
+                generator.writeNull();
+        }
+    }
+}
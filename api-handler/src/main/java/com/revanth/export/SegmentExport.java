@@ -0,0 +1,172 @@
+package com.revanth.export;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.revanth.json.JsonCodec;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.ScanResponse;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports one scan segment of a table into numbered gzip NDJSON parts.
+ *
+ * Only one scan page is held in memory at a time. Whenever a part reaches its size limit it is closed and
+ * the segment's checkpoint is rewritten with the next part number and the scan key to continue from, so
+ * a restarted export resumes from the last closed part and rewrites only the part that was in progress.
+ * A checkpoint only resumes an export with the same number of segments.
+ */
+final class SegmentExport implements Callable<Long> {
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+    private final int segment;
+    private final int totalSegments;
+    private final Path outputDirectory;
+    private final long itemsPerPart;
+    private final int pageSize;
+
+    SegmentExport(DynamoDbClient dynamoDbClient, String tableName, int segment, int totalSegments,
+                  Path outputDirectory, long itemsPerPart, int pageSize) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+        this.segment = segment;
+        this.totalSegments = totalSegments;
+        this.outputDirectory = outputDirectory;
+        this.itemsPerPart = itemsPerPart;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Runs the segment to completion and returns the number of items written by this run.
+     */
+    @Override
+    public Long call() throws IOException {
+        Path checkpointFile = outputDirectory.resolve(String.format("%s.seg%04d.checkpoint.json", tableName, segment));
+        int part = 0;
+        Map<String, AttributeValue> startKey = null;
+        if (Files.exists(checkpointFile)) {
+            JsonNode checkpoint = JsonCodec.mapper().readTree(checkpointFile.toFile());
+            requireSameSegments(checkpointFile, checkpoint, totalSegments);
+            if (checkpoint.path("done").asBoolean()) {
+                return 0L;
+            }
+            part = checkpoint.path("nextPart").asInt();
+            if (checkpoint.hasNonNull("exclusiveStartKey")) {
+                startKey = AttributeValueJson.keyFromJson(checkpoint.get("exclusiveStartKey"));
+            }
+        }
+
+        long written = 0;
+        long inPart = 0;
+        JsonGenerator generator = null;
+        try {
+            do {
+                ScanResponse page = dynamoDbClient.scan(ScanRequest.builder()
+                        .tableName(tableName)
+                        .segment(segment)
+                        .totalSegments(totalSegments)
+                        .limit(pageSize)
+                        .exclusiveStartKey(startKey)
+                        .build());
+
+                for (Map<String, AttributeValue> item : page.items()) {
+                    if (generator == null) {
+                        generator = openPart(part);
+                    }
+                    AttributeValueJson.writeItem(generator, item);
+                    generator.writeRaw('\n');
+                    inPart++;
+                    written++;
+                }
+                startKey = page.hasLastEvaluatedKey() && !page.lastEvaluatedKey().isEmpty()
+                        ? page.lastEvaluatedKey()
+                        : null;
+
+                // Parts are only cut at page boundaries, where the scan key describes exactly what was written
+                if (generator != null && inPart >= itemsPerPart) {
+                    generator.close();
+                    generator = null;
+                    inPart = 0;
+                    part++;
+                    writeCheckpoint(checkpointFile, part, startKey, startKey == null);
+                }
+            } while (startKey != null);
+
+            if (generator != null) {
+                generator.close();
+                generator = null;
+                part++;
+            }
+            writeCheckpoint(checkpointFile, part, null, true);
+            return written;
+        } finally {
+            if (generator != null) {
+                generator.close();
+            }
+        }
+    }
+
+    /**
+     * Fails if the table has checkpoints in the directory from an export with a different segment count.
+     * Segment N of 8 and segment N of 16 cover different keys, so resuming one as the other would skip
+     * items or export them twice.
+     */
+    static void requireSameSegments(Path outputDirectory, String tableName, int totalSegments) throws IOException {
+        try (DirectoryStream<Path> checkpoints =
+                     Files.newDirectoryStream(outputDirectory, tableName + ".seg*.checkpoint.json")) {
+            for (Path checkpointFile : checkpoints) {
+                requireSameSegments(checkpointFile, JsonCodec.mapper().readTree(checkpointFile.toFile()), totalSegments);
+            }
+        }
+    }
+
+    private static void requireSameSegments(Path checkpointFile, JsonNode checkpoint, int totalSegments) {
+        int checkpointSegments = checkpoint.path("totalSegments").asInt();
+        if (checkpointSegments != totalSegments) {
+            throw new IllegalStateException(String.format(
+                    "%s was written by an export with %d segments; rerun with --segments %d or use a new --out directory",
+                    checkpointFile, checkpointSegments, checkpointSegments));
+        }
+    }
+
+    private JsonGenerator openPart(int part) throws IOException {
+        Path file = outputDirectory.resolve(String.format("%s-seg%04d-part%05d.ndjson.gz", tableName, segment, part));
+        OutputStream out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 64 * 1024);
+        JsonGenerator generator = JsonCodec.mapper().getFactory().createGenerator(out, JsonEncoding.UTF8);
+        // NDJSON: one compact object per line, no root separator
+        generator.setRootValueSeparator(null);
+        return generator;
+    }
+
+    private void writeCheckpoint(Path checkpointFile, int nextPart, Map<String, AttributeValue> startKey, boolean done)
+            throws IOException {
+        ObjectNode checkpoint = JsonCodec.mapper().createObjectNode();
+        checkpoint.put("table", tableName);
+        checkpoint.put("segment", segment);
+        checkpoint.put("totalSegments", totalSegments);
+        checkpoint.put("nextPart", nextPart);
+        checkpoint.put("done", done);
+        if (startKey != null) {
+            checkpoint.set("exclusiveStartKey", AttributeValueJson.keyToJson(startKey));
+        }
+
+        // Write-then-rename, so a crash never leaves a half-written checkpoint behind
+        Path temporary = checkpointFile.resolveSibling(checkpointFile.getFileName() + ".tmp");
+        JsonCodec.mapper().writeValue(temporary.toFile(), checkpoint);
+        Files.move(temporary, checkpointFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+}
@@ -0,0 +1,106 @@
+package com.revanth.export;
+
+import com.revanth.dynamodb.DynamoDbRegistry;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Dumps DynamoDB tables to gzip NDJSON part files with a parallel segmented scan.
+ *
+ * <pre>
+ * java -cp api-handler.jar com.revanth.export.TableExport \
+ *     --out ./export --segments 16 ClientsTable SessionsTable JournalsTable MessagesTable
+ * </pre>
+ *
+ * Each segment of each table runs on its own worker and writes {@code <table>-seg<N>-part<M>.ndjson.gz}
+ * plus a checkpoint; rerunning the same command resumes unfinished segments. A rerun with a different
+ * {@code --segments} is refused, as its segments would not line up with the checkpoints. The connection
+ * settings are the ones the handlers use, so {@code DYNAMODB_ENDPOINT} points the export at DynamoDB Local.
+ */
+public final class TableExport {
+
+    private static final Logger LOGGER = Logger.getLogger(TableExport.class.getName());
+
+    private TableExport() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path outputDirectory = Paths.get("export");
+        int segments = 8;
+        long itemsPerPart = 100_000;
+        int pageSize = 1000;
+        List<String> tables = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--out":
+                    outputDirectory = Paths.get(args[++i]);
+                    break;
+                case "--segments":
+                    segments = Integer.parseInt(args[++i]);
+                    break;
+                case "--items-per-part":
+                    itemsPerPart = Long.parseLong(args[++i]);
+                    break;
+                case "--page-size":
+                    pageSize = Integer.parseInt(args[++i]);
+                    break;
+                default:
+                    tables.add(args[i]);
+            }
+        }
+        if (tables.isEmpty()) {
+            System.err.println("Usage: TableExport [--out DIR] [--segments N] [--items-per-part N] [--page-size N] TABLE...");
+            System.exit(2);
+        }
+        Files.createDirectories(outputDirectory);
+        try {
+            for (String table : tables) {
+                SegmentExport.requireSameSegments(outputDirectory, table, segments);
+            }
+        } catch (IllegalStateException e) {
+            System.err.println(e.getMessage());
+            System.exit(2);
+        }
+
+        for (String table : tables) {
+            export(table, segments, outputDirectory, itemsPerPart, pageSize);
+        }
+    }
+
+    /**
+     * Exports one table and returns the number of items written by this run.
+     */
+    static long export(String table, int segments, Path outputDirectory, long itemsPerPart, int pageSize)
+            throws InterruptedException, ExecutionException {
+        // Segment workers block on network I/O, so one platform thread per segment is the right pool size
+        ExecutorService workers = Executors.newFixedThreadPool(segments);
+        long start = System.nanoTime();
+        try {
+            List<Future<Long>> results = new ArrayList<>();
+            for (int segment = 0; segment < segments; segment++) {
+                results.add(workers.submit(new SegmentExport(DynamoDbRegistry.dynamoDbClient(), table, segment,
+                        segments, outputDirectory, itemsPerPart, pageSize)));
+            }
+
+            long items = 0;
+            for (Future<Long> result : results) {
+                items += result.get();
+            }
+            double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-3);
+            LOGGER.info(String.format("Exported %d items from %s with %d segments in %.1fs (%.0f items/s)",
+                    items, table, segments, seconds, items / seconds));
+            return items;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+}
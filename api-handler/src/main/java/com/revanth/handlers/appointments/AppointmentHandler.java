@@ -4,79 +4,156 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revanth.availability.WeeklyAvailability;
+import com.revanth.dynamodb.Conditions;
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.http.CachePolicies;
+import com.revanth.http.ContentEncoding;
+import com.revanth.json.JsonCodec;
 import com.revanth.models.Appointment;
 import com.revanth.models.ClientTherapistMapping;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import com.revanth.security.AccessDeniedException;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AuthFilter;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.ConditionCheck;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
 public class AppointmentHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
+    private static final String SLOT_PREFIX = "SLOT#";
+    // Fixed-width UTC, so one instant always maps to the same slot lock however the client wrote it
+    private static final DateTimeFormatter SLOT_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss'Z'").withZone(ZoneOffset.UTC);
+
     private final DynamoDbTable<Appointment> appointmentTable;
     private final DynamoDbTable<ClientTherapistMapping> mappingTable;
 
     public AppointmentHandler() {
-        DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
-        appointmentTable = enhancedClient.table(System.getenv("APPOINTMENTS_TABLE_NAME"), TableSchema.fromBean(Appointment.class));
-        mappingTable = enhancedClient.table(System.getenv("MAPPINGS_TABLE_NAME"), TableSchema.fromBean(ClientTherapistMapping.class));
+        appointmentTable = DynamoDbRegistry.table(Appointment.class, System.getenv("APPOINTMENTS_TABLE_NAME"));
+        mappingTable = DynamoDbRegistry.table(ClientTherapistMapping.class, System.getenv("MAPPINGS_TABLE_NAME"));
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        ContentEncoding.decodeRequestBody(request);
+        AccessToken principal = AuthFilter.authenticate(request);
+        if (principal == null) {
+            return AuthFilter.unauthorized();
+        }
+        return ContentEncoding.encode(request, CachePolicies.apply(request, route(request, principal)));
+    }
+
+    private APIGatewayProxyResponseEvent route(APIGatewayProxyRequestEvent request, AccessToken principal) {
         String httpMethod = request.getHttpMethod();
         String responseMessage;
 
         try {
             if ("POST".equals(httpMethod) && request.getPath().equals("/appointment/request")) {
-                responseMessage = requestAppointment(request.getBody());
+                responseMessage = requestAppointment(request.getBody(), principal);
             } else {
                 return createResponse(400, "Unsupported HTTP method.");
             }
 
             return createResponse(200, responseMessage);
+        } catch (AccessDeniedException e) {
+            return AuthFilter.forbidden();
+        } catch (BookingException e) {
+            return createResponse(e.statusCode, e.getMessage());
+        } catch (IllegalArgumentException e) {
+            return createResponse(400, e.getMessage());
         } catch (Exception e) {
             return createResponse(500, "Error: " + e.getMessage());
         }
     }
 
-    private String requestAppointment(String requestBody) {
+    /**
+     * Books a slot in one transaction: the mapping must be accepted, the therapist's slot lock must not, and
+     * the appointment is written alongside the lock. Two clients racing for the same slot can't both win.
+     * The slot is stored as a UTC instant, so {@code 10:00Z} and {@code 12:00+02:00} are the same slot.
+     */
+    private String requestAppointment(String requestBody, AccessToken principal) {
         Appointment appointment = parseRequestBody(requestBody);
 
-        if (appointment.getClientId() == null || appointment.getTherapistId() == null) {
-            throw new IllegalArgumentException("clientId and therapistId are required.");
-        }
-
-        ClientTherapistMapping key = new ClientTherapistMapping();
-        key.setClientId(appointment.getClientId());
-        key.setTherapistId(appointment.getTherapistId());
-
-        ClientTherapistMapping mapping = mappingTable.getItem(key);
-        if (mapping == null) {
-            return "Appointment not possible as client and therapist are not mapped.";
+        if (appointment.getClientId() == null || appointment.getTherapistId() == null
+                || appointment.getDateTimeSlot() == null) {
+            throw new IllegalArgumentException("clientId, therapistId and dateTimeSlot are required.");
         }
+        // Either side of the mapping can book on its own behalf
+        AuthFilter.require(principal.isParticipant(appointment.getClientId(), appointment.getTherapistId()));
+        appointment.setDateTimeSlot(SLOT_FORMAT.format(WeeklyAvailability.parseTime(appointment.getDateTimeSlot())));
 
         // Generate unique appointmentId
         appointment.setAppointmentId(UUID.randomUUID().toString());
 
-        // Save the appointment to DynamoDB
-        appointmentTable.putItem(appointment);
+        try {
+            DynamoDbRegistry.enhancedClient().transactWriteItems(TransactWriteItemsEnhancedRequest.builder()
+                    .addConditionCheck(mappingTable, ConditionCheck.builder()
+                            .key(Key.builder()
+                                    .partitionValue(appointment.getClientId())
+                                    .sortValue(appointment.getTherapistId())
+                                    .build())
+                            .conditionExpression(Expression.builder()
+                                    .expression("#status = :accepted")
+                                    .putExpressionName("#status", "status")
+                                    .putExpressionValue(":accepted", AttributeValue.builder()
+                                            .s(ClientTherapistMapping.STATUS_ACCEPTED)
+                                            .build())
+                                    .build())
+                            .build())
+                    .addPutItem(appointmentTable, TransactPutItemEnhancedRequest.builder(Appointment.class)
+                            .item(slotLock(appointment))
+                            .conditionExpression(Conditions.notExists("appointmentId"))
+                            .build())
+                    .addPutItem(appointmentTable, appointment)
+                    .build());
+        } catch (TransactionCanceledException e) {
+            if (Conditions.conditionFailed(e, 0)) {
+                throw new AccessDeniedException("Appointment not possible until the client accepts the mapping.");
+            }
+            if (Conditions.conditionFailed(e, 1)) {
+                throw new BookingException(409, "Slot is already booked.");
+            }
+            if (Conditions.cancelledWith(e, "TransactionConflict")) {
+                // Another booking for the same slot is in flight
+                throw new BookingException(409, "Slot is being booked by another request, please retry.");
+            }
+            if (Conditions.cancelledWith(e, "ThrottlingError", "ProvisionedThroughputExceeded",
+                    "RequestLimitExceeded")) {
+                throw new BookingException(503, "Booking is temporarily unavailable, please retry.");
+            }
+            throw e;
+        }
 
         return "Appointment successfully set.";
     }
 
+    /**
+     * The lock item for a therapist's slot, kept in the appointments table under {@code SLOT#<therapistId>}.
+     */
+    private Appointment slotLock(Appointment appointment) {
+        Appointment lock = new Appointment();
+        lock.setAppointmentId(SLOT_PREFIX + appointment.getTherapistId());
+        lock.setDateTimeSlot(appointment.getDateTimeSlot());
+        lock.setClientId(appointment.getClientId());
+        lock.setTherapistId(appointment.getTherapistId());
+        return lock;
+    }
+
     private Appointment parseRequestBody(String requestBody) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.readValue(requestBody, Appointment.class);
+            return JsonCodec.read(requestBody, Appointment.class);
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid request body: " + e.getMessage());
         }
@@ -91,4 +168,16 @@ public class AppointmentHandler implements RequestHandler<APIGatewayProxyRequest
         response.setBody("{\"message\": \"" + message + "\"}");
         return response;
     }
+
+    // Answered with its status code: 409 when the slot is taken or contended, 503 when DynamoDB throttled
+    private static class BookingException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        BookingException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+    }
 }
@@ -5,16 +5,42 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 
+import com.revanth.dynamodb.BatchReader;
+import com.revanth.dynamodb.Conditions;
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.dynamodb.EmailLocks;
+import com.revanth.handlers.mappings.MappingCache;
+import com.revanth.http.CachePolicies;
+import com.revanth.http.ContentEncoding;
+import com.revanth.http.ETags;
+import com.revanth.json.JsonCodec;
 import com.revanth.models.Client;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import com.revanth.models.ClientTherapistMapping;
+import com.revanth.paging.PageRequest;
+import com.revanth.paging.PagedJsonArray;
+import com.revanth.security.AccessDeniedException;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AccessTokens;
+import com.revanth.security.AuthFilter;
+import com.revanth.security.TokenPair;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactUpdateItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.UpdateItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.logging.Logger;
@@ -22,20 +48,32 @@ import java.util.logging.Logger;
 public class ClientHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
     private static final Logger LOGGER = Logger.getLogger(ClientHandler.class.getName());
     private final DynamoDbTable<Client> clientTable;
-    private final ObjectMapper objectMapper;
+    private final MappingCache mappingCache;
 
     public ClientHandler() {
-        DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
-
-        clientTable = enhancedClient.table(System.getenv("CLIENTS_TABLE_NAME"), TableSchema.fromBean(Client.class));
-        objectMapper = new ObjectMapper();
+        clientTable = DynamoDbRegistry.table(Client.class, System.getenv("CLIENTS_TABLE_NAME"));
+        mappingCache = MappingCache.of(
+                DynamoDbRegistry.table(ClientTherapistMapping.class, System.getenv("MAPPINGS_TABLE_NAME")));
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        ContentEncoding.decodeRequestBody(request);
+        AccessToken principal = AuthFilter.authenticate(request);
+        if (principal == null && !isPublicRoute(request)) {
+            return AuthFilter.unauthorized();
+        }
+        return ContentEncoding.encode(request, CachePolicies.apply(request, route(request, principal)));
+    }
+
+    // Sign-up, login and token refresh are the only routes callers reach without a token
+    private static boolean isPublicRoute(APIGatewayProxyRequestEvent request) {
+        String path = request.getPath();
+        return "POST".equals(request.getHttpMethod())
+                && (path.equals("/clients") || path.equals("/clients/login") || path.equals("/clients/refresh"));
+    }
+
+    private APIGatewayProxyResponseEvent route(APIGatewayProxyRequestEvent request, AccessToken principal) {
         Map<String, String> headers = new HashMap<>();
         headers.put("Content-Type", "application/json");
         headers.put("Access-Control-Allow-Origin", "*");
@@ -43,28 +81,38 @@ public class ClientHandler implements RequestHandler<APIGatewayProxyRequestEvent
         try {
             switch (request.getHttpMethod()) {
                 case "GET":
-                    return handleGetRequest(request.getPath());
+                    return handleGetRequest(request, principal);
                 case "POST":
                     return handlePostRequest(request);
                 case "PUT":
-                    return handlePutRequest(request);
+                    return handlePutRequest(request, principal);
                 case "DELETE":
-                    return handleDeleteRequest(request.getPath());
+                    return handleDeleteRequest(request.getPath(), principal);
                 default:
                     return createErrorResponse(405, "Method Not Allowed", headers);
             }
+        } catch (AccessDeniedException e) {
+            return AuthFilter.forbidden();
         } catch (Exception e) {
             LOGGER.severe("Error processing request: " + e.getMessage());
             return createErrorResponse(500, "Internal Server Error: " + e.getMessage(), headers);
         }
     }
 
-    private APIGatewayProxyResponseEvent handleGetRequest(String path) {
+    private APIGatewayProxyResponseEvent handleGetRequest(APIGatewayProxyRequestEvent request, AccessToken principal) {
+        String path = request.getPath();
         if (path.equals("/clients")) {
-            return getAllClients();
+            // Looking clients up is for therapists; a client only ever reads their own profile
+            AuthFilter.require(principal.isTherapist());
+            Map<String, String> queryParams = request.getQueryStringParameters();
+            if (queryParams != null && queryParams.containsKey("ids")) {
+                return getClientsByIds(queryParams.get("ids"));
+            }
+            return getAllClients(queryParams);
         } else if (path.startsWith("/clients/")) {
             String clientId = path.split("/")[2];
-            return getClient(clientId);
+            AuthFilter.require(principal.isClient(clientId) || isMappedTherapist(principal, clientId));
+            return getClient(clientId, request);
         }
         return createErrorResponse(404, "Not Found", null);
     }
@@ -74,35 +122,84 @@ public class ClientHandler implements RequestHandler<APIGatewayProxyRequestEvent
             return createClient(request);
         } else if (request.getPath().equals("/clients/login")) {
             return loginClient(request);
+        } else if (request.getPath().equals("/clients/refresh")) {
+            return refreshToken(request);
         }
         return createErrorResponse(404, "Not Found", null);
     }
 
-    private APIGatewayProxyResponseEvent handlePutRequest(APIGatewayProxyRequestEvent request) {
+    private APIGatewayProxyResponseEvent handlePutRequest(APIGatewayProxyRequestEvent request, AccessToken principal) {
         if (request.getPath().startsWith("/clients/")) {
             String clientId = request.getPath().split("/")[2];
+            AuthFilter.require(principal.isClient(clientId));
             return updateClient(clientId, request);
         }
         return createErrorResponse(404, "Not Found", null);
     }
 
-    private APIGatewayProxyResponseEvent handleDeleteRequest(String path) {
+    private APIGatewayProxyResponseEvent handleDeleteRequest(String path, AccessToken principal) {
         if (path.startsWith("/clients/")) {
             String clientId = path.split("/")[2];
+            AuthFilter.require(principal.isClient(clientId));
             return deleteClient(clientId);
         }
         return createErrorResponse(404, "Not Found", null);
     }
 
-    private APIGatewayProxyResponseEvent getAllClients() {
+    private boolean isMappedTherapist(AccessToken principal, String clientId) {
+        return principal.isTherapist() && mappingCache.isAccepted(clientId, principal.getSubject());
+    }
+
+    private APIGatewayProxyResponseEvent getAllClients(Map<String, String> queryParams) {
         try {
-            return createSuccessResponse(clientTable.scan().items());
+            PageRequest pageRequest = PageRequest.from(queryParams, "/clients");
+            ScanEnhancedRequest scanRequest = ScanEnhancedRequest.builder()
+                    .limit(pageRequest.getLimit())
+                    .exclusiveStartKey(pageRequest.getExclusiveStartKey())
+                    .filterExpression(EmailLocks.accountsOnly())
+                    .build();
+
+            Page<Client> page = clientTable.scan(scanRequest).iterator().next();
+            return createPageResponse(PagedJsonArray.write(pageRequest, page, Client.class, clientTable.tableSchema()));
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(400, e.getMessage(), null);
         } catch (Exception e) {
             LOGGER.severe("Error fetching clients: " + e.getMessage());
             return createErrorResponse(500, "Error fetching clients", null);
         }
     }
 
+    /**
+     * Fetches several clients in one request. {@code items} keeps the request order and
+     * {@code missingIds} lists the IDs that don't exist; password hashes are not read at all.
+     */
+    private APIGatewayProxyResponseEvent getClientsByIds(String ids) {
+        try {
+            List<String> requestedIds = BatchReader.parseIds(ids);
+            List<Client> found = BatchReader.getAll(clientTable, requestedIds, List.of("password"));
+
+            List<Client> items = new ArrayList<>();
+            List<String> missingIds = new ArrayList<>();
+            for (int i = 0; i < requestedIds.size(); i++) {
+                if (found.get(i) != null) {
+                    items.add(found.get(i));
+                } else {
+                    missingIds.add(requestedIds.get(i));
+                }
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("items", items);
+            body.put("missingIds", missingIds);
+            return createSuccessResponse(body);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(400, e.getMessage(), null);
+        } catch (Exception e) {
+            LOGGER.severe("Error fetching clients by ID: " + e.getMessage());
+            return createErrorResponse(500, "Error fetching clients", null);
+        }
+    }
+
     private APIGatewayProxyResponseEvent createClient(APIGatewayProxyRequestEvent request) {
         try {
             Client client = parseBody(request, Client.class);
@@ -114,26 +211,42 @@ public class ClientHandler implements RequestHandler<APIGatewayProxyRequestEvent
 
             // Generate unique ID
             client.setClientId(UUID.randomUUID().toString());
+            client.setEmail(EmailLocks.normalize(client.getEmail()));
 
             // Hash password
             client.setPassword(BCrypt.hashpw(client.getPassword(), BCrypt.gensalt()));
 
-            clientTable.putItem(client);
+            // Write the client together with its email lock so two accounts can't share an email
+            DynamoDbRegistry.enhancedClient().transactWriteItems(TransactWriteItemsEnhancedRequest.builder()
+                    .addPutItem(clientTable, conditionalPut(client))
+                    .addPutItem(clientTable, conditionalPut(emailLock(client.getEmail())))
+                    .build());
             return createSuccessResponse(client);
+        } catch (TransactionCanceledException e) {
+            return createErrorResponse(409, "Email is already registered", null);
         } catch (Exception e) {
             LOGGER.severe("Error creating client: " + e.getMessage());
             return createErrorResponse(500, "Error creating client", null);
         }
     }
 
-    private APIGatewayProxyResponseEvent getClient(String clientId) {
+    /**
+     * Reads one client. The ETag is a hash of the stored attributes, so a matching {@code If-None-Match} is
+     * answered with 304 without serializing the item.
+     */
+    private APIGatewayProxyResponseEvent getClient(String clientId, APIGatewayProxyRequestEvent request) {
         try {
             Client keyClient = new Client();
             keyClient.setClientId(clientId);
             Client client = clientTable.getItem(keyClient);
-            return client != null
-                    ? createSuccessResponse(client)
-                    : createErrorResponse(404, "Client not found", null);
+            if (client == null) {
+                return createErrorResponse(404, "Client not found", null);
+            }
+            String etag = ETags.ofItem(clientTable.tableSchema(), client);
+            if (ETags.matches(request, etag)) {
+                return ETags.notModified(etag);
+            }
+            return ETags.apply(request, createSuccessResponse(client), etag);
         } catch (Exception e) {
             LOGGER.severe("Error fetching client: " + e.getMessage());
             return createErrorResponse(500, "Error fetching client", null);
@@ -142,36 +255,78 @@ public class ClientHandler implements RequestHandler<APIGatewayProxyRequestEvent
 
     private APIGatewayProxyResponseEvent updateClient(String clientId, APIGatewayProxyRequestEvent request) {
         try {
-            Client keyClient = new Client();
-            keyClient.setClientId(clientId);
-            Client existingClient = clientTable.getItem(keyClient);
-            if (existingClient == null) {
-                return createErrorResponse(404, "Client not found", null);
+            Client changes = parseBody(request, Client.class);
+            changes.setClientId(clientId);
+            changes.setEmail(EmailLocks.normalize(changes.getEmail()));
+            if (changes.getPassword() != null) {
+                changes.setPassword(BCrypt.hashpw(changes.getPassword(), BCrypt.gensalt()));
             }
 
-            Client updatedClient = parseBody(request, Client.class);
-            updatedClient.setClientId(clientId);
-
-            // Only update non-null fields
-            if (updatedClient.getEmail() != null) existingClient.setEmail(updatedClient.getEmail());
-            if (updatedClient.getPassword() != null) {
-                existingClient.setPassword(BCrypt.hashpw(updatedClient.getPassword(), BCrypt.gensalt()));
+            if (changes.getEmail() == null) {
+                // One UpdateItem that SETs only the fields present in the body and returns the new item
+                Client updatedClient = clientTable.updateItem(UpdateItemEnhancedRequest.builder(Client.class)
+                        .item(changes)
+                        .ignoreNulls(true)
+                        .conditionExpression(EmailLocks.accountsOnly())
+                        .build());
+                return createSuccessResponse(updatedClient);
             }
-            // Add more fields as needed
-
-            clientTable.putItem(existingClient);
-            return createSuccessResponse(existingClient);
+            return changeEmail(clientId, changes);
+        } catch (ConditionalCheckFailedException e) {
+            return createErrorResponse(404, "Client not found", null);
+        } catch (TransactionCanceledException e) {
+            if (Conditions.conditionFailed(e, 0)) {
+                return createErrorResponse(409, "Client was updated concurrently", null);
+            }
+            return createErrorResponse(409, "Email is already registered", null);
         } catch (Exception e) {
             LOGGER.severe("Error updating client: " + e.getMessage());
             return createErrorResponse(500, "Error updating client", null);
         }
     }
 
+    /**
+     * Applies an update that may change the email. The old email is needed to release its lock, so this
+     * path reads the client first and only commits if the email is still the one it read.
+     */
+    private APIGatewayProxyResponseEvent changeEmail(String clientId, Client changes) {
+        Client keyClient = new Client();
+        keyClient.setClientId(clientId);
+        Client existingClient = clientTable.getItem(keyClient);
+        if (existingClient == null || existingClient.getEmail() == null) {
+            return createErrorResponse(404, "Client not found", null);
+        }
+
+        String oldEmail = existingClient.getEmail();
+        TransactWriteItemsEnhancedRequest.Builder transaction = TransactWriteItemsEnhancedRequest.builder()
+                .addUpdateItem(clientTable, TransactUpdateItemEnhancedRequest.builder(Client.class)
+                        .item(changes)
+                        .ignoreNulls(true)
+                        .conditionExpression(EmailLocks.hasEmail(oldEmail))
+                        .build());
+        if (!changes.getEmail().equals(EmailLocks.normalize(oldEmail))) {
+            // Move the email lock in the same transaction as the update
+            transaction.addPutItem(clientTable, conditionalPut(emailLock(changes.getEmail())))
+                    .addDeleteItem(clientTable, emailLock(oldEmail));
+        }
+        DynamoDbRegistry.enhancedClient().transactWriteItems(transaction.build());
+
+        // Transactions return no attributes; apply the changes to the copy that was read
+        if (changes.getName() != null) existingClient.setName(changes.getName());
+        existingClient.setEmail(changes.getEmail());
+        existingClient.setVersion(existingClient.getVersion() != null ? existingClient.getVersion() + 1 : 1L);
+        if (changes.getPassword() != null) existingClient.setPassword(changes.getPassword());
+        return createSuccessResponse(existingClient);
+    }
+
     private APIGatewayProxyResponseEvent deleteClient(String clientId) {
         try {
             Client keyClient = new Client();
             keyClient.setClientId(clientId);
-            clientTable.deleteItem(keyClient);
+            Client deletedClient = clientTable.deleteItem(keyClient);
+            if (deletedClient != null && deletedClient.getEmail() != null) {
+                clientTable.deleteItem(emailLock(deletedClient.getEmail()));
+            }
             return createSuccessResponse("Client deleted successfully");
         } catch (Exception e) {
             LOGGER.severe("Error deleting client: " + e.getMessage());
@@ -181,16 +336,16 @@ public class ClientHandler implements RequestHandler<APIGatewayProxyRequestEvent
 
     private APIGatewayProxyResponseEvent loginClient(APIGatewayProxyRequestEvent request) {
         try {
-            Map<String, String> credentials = parseBody(request, HashMap.class);
-            String email = credentials.get("email");
+            Map<String, String> credentials = parseFields(request);
+            String email = EmailLocks.normalize(credentials.get("email"));
             String password = credentials.get("password");
+            if (email == null || password == null) {
+                return createErrorResponse(400, "Email and password are required", null);
+            }
 
-            // Find client by email (more efficient than scanning)
-            for (Client client : clientTable.scan().items()) {
-                if (client.getEmail().equals(email) &&
-                        BCrypt.checkpw(password, client.getPassword())) {
-                    return createSuccessResponse("Login successful");
-                }
+            Client client = findByEmail(email);
+            if (client != null && BCrypt.checkpw(password, client.getPassword())) {
+                return createSuccessResponse(AccessTokens.issue(client.getClientId(), AccessToken.ROLE_CLIENT, client.getPassword()));
             }
             return createErrorResponse(401, "Invalid email or password", null);
         } catch (Exception e) {
@@ -199,9 +354,66 @@ public class ClientHandler implements RequestHandler<APIGatewayProxyRequestEvent
         }
     }
 
+    private APIGatewayProxyResponseEvent refreshToken(APIGatewayProxyRequestEvent request) {
+        try {
+            Map<String, String> body = parseFields(request);
+            TokenPair tokens = AccessTokens.refresh(body.get("refreshToken"), this::currentCredential);
+            return tokens != null
+                    ? createSuccessResponse(tokens)
+                    : createErrorResponse(401, "Invalid refresh token", null);
+        } catch (Exception e) {
+            LOGGER.severe("Token refresh error: " + e.getMessage());
+            return createErrorResponse(500, "Token refresh error", null);
+        }
+    }
+
+    /**
+     * The stored password hash of a client, read consistently so a password change or deletion takes effect
+     * on the very next refresh; {@code null} if the client no longer exists.
+     */
+    private String currentCredential(String clientId) {
+        Client keyClient = new Client();
+        keyClient.setClientId(clientId);
+        Client client = clientTable.getItem(r -> r.key(clientTable.keyFrom(keyClient)).consistentRead(true));
+        return client == null ? null : client.getPassword();
+    }
+
+    private Client findByEmail(String email) {
+        QueryEnhancedRequest queryRequest = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(email)))
+                .limit(1)
+                .build();
+        return clientTable.index(EmailLocks.EMAIL_INDEX).query(queryRequest).stream()
+                .flatMap(page -> page.items().stream())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private Client emailLock(String email) {
+        Client lock = new Client();
+        lock.setClientId(EmailLocks.lockKey(email));
+        return lock;
+    }
+
+    private TransactPutItemEnhancedRequest<Client> conditionalPut(Client item) {
+        return TransactPutItemEnhancedRequest.builder(Client.class)
+                .item(item)
+                .conditionExpression(Conditions.notExists("clientId"))
+                .build();
+    }
+
     private <T> T parseBody(APIGatewayProxyRequestEvent request, Class<T> clazz) {
         try {
-            return objectMapper.readValue(request.getBody(), clazz);
+            return JsonCodec.read(request.getBody(), clazz);
+        } catch (Exception e) {
+            LOGGER.severe("Error parsing request body: " + e.getMessage());
+            throw new RuntimeException("Invalid request body", e);
+        }
+    }
+
+    private Map<String, String> parseFields(APIGatewayProxyRequestEvent request) {
+        try {
+            return JsonCodec.readStringMap(request.getBody());
         } catch (Exception e) {
             LOGGER.severe("Error parsing request body: " + e.getMessage());
             throw new RuntimeException("Invalid request body", e);
@@ -212,13 +424,25 @@ public class ClientHandler implements RequestHandler<APIGatewayProxyRequestEvent
         try {
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(200)
-                    .withBody(objectMapper.writeValueAsString(body));
+                    .withBody(JsonCodec.write(body));
         } catch (Exception e) {
             LOGGER.severe("Error creating success response: " + e.getMessage());
             return createErrorResponse(500, "Error creating response", null);
         }
     }
 
+    private APIGatewayProxyResponseEvent createPageResponse(PagedJsonArray page) {
+        Map<String, String> headers = new HashMap<>();
+        if (page.getNextToken() != null) {
+            headers.put("X-Next-Token", page.getNextToken());
+        }
+
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(200)
+                .withHeaders(headers)
+                .withBody(page.getBody());
+    }
+
     private APIGatewayProxyResponseEvent createErrorResponse(int statusCode, String message, Map<String, String> headers) {
         Map<String, String> defaultHeaders = new HashMap<>();
         defaultHeaders.put("Content-Type", "application/json");
@@ -4,113 +4,371 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.revanth.dynamodb.BatchWriter;
+import com.revanth.dynamodb.Conditions;
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.handlers.mappings.MappingCache;
+import com.revanth.http.CachePolicies;
+import com.revanth.http.ContentEncoding;
+import com.revanth.json.JsonCodec;
 import com.revanth.models.ClientTherapistMapping;
 import com.revanth.models.Journal;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import com.revanth.models.MoodSummary;
+import com.revanth.paging.PageRequest;
+import com.revanth.paging.PagedJsonArray;
+import com.revanth.security.AccessDeniedException;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AuthFilter;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Put;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItem;
+import software.amazon.awssdk.services.dynamodb.model.TransactWriteItemsRequest;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+import software.amazon.awssdk.services.dynamodb.model.Update;
 
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
 import java.util.stream.Collectors;
 
 public class JournalHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
+    // Fixed-width UTC timestamps, so the sort key orders entries chronologically
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+
     private final DynamoDbTable<Journal> journalTable;
-    private final DynamoDbTable<ClientTherapistMapping> mappingTable;
+    private final MappingCache mappingCache;
+    private final JournalRollups rollups;
 
     public JournalHandler() {
-        DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
-        journalTable = enhancedClient.table(System.getenv("JOURNALS_TABLE_NAME"), TableSchema.fromBean(Journal.class));
-        mappingTable = enhancedClient.table(System.getenv("MAPPINGS_TABLE_NAME"), TableSchema.fromBean(ClientTherapistMapping.class));
+        journalTable = DynamoDbRegistry.table(Journal.class, System.getenv("JOURNALS_TABLE_NAME"));
+        mappingCache = MappingCache.of(
+                DynamoDbRegistry.table(ClientTherapistMapping.class, System.getenv("MAPPINGS_TABLE_NAME")));
+        rollups = new JournalRollups(DynamoDbRegistry.dynamoDbClient(), System.getenv("JOURNAL_SUMMARIES_TABLE_NAME"));
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        ContentEncoding.decodeRequestBody(request);
+        AccessToken principal = AuthFilter.authenticate(request);
+        if (principal == null) {
+            return AuthFilter.unauthorized();
+        }
+        return ContentEncoding.encode(request, CachePolicies.apply(request, route(request, principal)));
+    }
+
+    private APIGatewayProxyResponseEvent route(APIGatewayProxyRequestEvent request, AccessToken principal) {
         String httpMethod = request.getHttpMethod();
         String responseMessage;
 
         try {
             if ("GET".equals(httpMethod) && request.getPath().equals("/journal")) {
-                Map<String, String> queryParams = request.getQueryStringParameters();
-                if (queryParams.containsKey("therapistId")) {
-                    responseMessage = getJournalEntriesForTherapist(queryParams);
-                } else {
-                    responseMessage = getJournalEntries(queryParams);
+                Map<String, String> queryParams = queryParams(request);
+                String therapistId = readingTherapist(queryParams, principal);
+                if (therapistId != null) {
+                    return createResponse(200, getJournalEntriesForTherapist(queryParams, therapistId));
                 }
+                return createResponse(200, getJournalEntries(queryParams));
+            } else if ("GET".equals(httpMethod) && request.getPath().equals("/journal/summary")) {
+                Map<String, String> queryParams = queryParams(request);
+                return createResponse(200, getMoodSummary(queryParams, readingTherapist(queryParams, principal)));
             } else if ("POST".equals(httpMethod) && request.getPath().equals("/journal")) {
-                responseMessage = addJournalEntry(request.getBody());
+                responseMessage = addJournalEntry(request.getBody(), principal);
+            } else if ("POST".equals(httpMethod) && request.getPath().equals("/journal/batch")) {
+                List<BatchWriter.Result> results = addJournalEntries(request.getBody(), principal);
+                return createResponse(BatchWriter.statusCode(results), BatchWriter.responseBody(results));
             } else {
                 return createResponse(400, "Unsupported HTTP method.");
             }
 
             return createResponse(200, responseMessage);
+        } catch (AccessDeniedException e) {
+            return AuthFilter.forbidden();
+        } catch (IllegalArgumentException e) {
+            return createResponse(400, e.getMessage());
+        } catch (TransactionCanceledException e) {
+            if (Conditions.conditionFailed(e, 0)) {
+                return createResponse(409, "Journal entry already exists.");
+            }
+            return createResponse(500, "Error: " + e.getMessage());
         } catch (Exception e) {
             return createResponse(500, "Error: " + e.getMessage());
         }
     }
 
-    private String getJournalEntries(Map<String, String> queryParams) {
-        String clientId = queryParams.get("clientId");
-        String feeling = queryParams.get("feeling");
-        String intensity = queryParams.get("intensity");
+    private static Map<String, String> queryParams(APIGatewayProxyRequestEvent request) {
+        return request.getQueryStringParameters() != null ? request.getQueryStringParameters() : Map.of();
+    }
+
+    /**
+     * A journal is read by its client, or by a therapist the client granted journal access to. Returns
+     * the therapist whose access has to be checked, or {@code null} when clients read their own journal.
+     */
+    private static String readingTherapist(Map<String, String> queryParams, AccessToken principal) {
+        if (principal.isClient(queryParams.get("clientId"))) {
+            return null;
+        }
+        String therapistId = queryParams.get("therapistId");
+        AuthFilter.require(therapistId == null ? principal.isTherapist() : principal.isTherapist(therapistId));
+        return principal.getSubject();
+    }
+
+    private PagedJsonArray getJournalEntries(Map<String, String> queryParams) {
+        return queryJournal(queryParams);
+    }
 
-        List<Journal> journals = journalTable.scan().items().stream()
-                .filter(journal -> clientId.equals(journal.getClientId()) &&
-                        (feeling == null || feeling.equals(journal.getFeeling())) &&
-                        (intensity == null || intensity.equals(journal.getIntensity())))
-                .collect(Collectors.toList());
+    /**
+     * The access check and the journal query don't depend on each other, so they run concurrently and the
+     * request costs the slower of the two round trips. The page is discarded if access is denied.
+     */
+    private PagedJsonArray getJournalEntriesForTherapist(Map<String, String> queryParams, String therapistId) {
+        Future<?> access = DynamoDbRegistry.executor().submit(
+                () -> checkJournalAccess(queryParams.get("clientId"), therapistId));
+        Future<PagedJsonArray> page = DynamoDbRegistry.executor().submit(() -> queryJournal(queryParams));
+        return DynamoDbRegistry.awaitAuthorized(access, page);
+    }
 
-        return toJson(journals);
+    private void checkJournalAccess(String clientId, String therapistId) {
+        ClientTherapistMapping mapping = mappingCache.get(clientId, therapistId);
+        if (mapping == null || !"Yes".equals(mapping.getJournalAccess())) {
+            throw new AccessDeniedException("Therapist does not have access to the journal.");
+        }
     }
 
-    private String getJournalEntriesForTherapist(Map<String, String> queryParams) {
+    /**
+     * Reads one page of a client's mood rollups ({@code granularity} = day, week or month; default day).
+     * Only rollup items are read, so the cost does not grow with the number of journal entries.
+     */
+    private PagedJsonArray getMoodSummary(Map<String, String> queryParams, String therapistId)
+            throws JsonProcessingException {
         String clientId = queryParams.get("clientId");
-        String therapistId = queryParams.get("therapistId");
+        if (clientId == null) {
+            throw new IllegalArgumentException("clientId is required.");
+        }
+        String granularity = queryParams.getOrDefault("granularity", JournalRollups.DAY);
+        if (!JournalRollups.isGranularity(granularity)) {
+            throw new IllegalArgumentException("granularity must be day, week or month.");
+        }
+        LocalDate from = queryParams.get("from") != null ? JournalRollups.dateOf(queryParams.get("from"), "from") : null;
+        LocalDate to = queryParams.get("to") != null ? JournalRollups.dateOf(queryParams.get("to"), "to") : null;
+        if (from != null && to != null && from.isAfter(to)) {
+            throw new IllegalArgumentException("from must not be after to.");
+        }
 
-        ClientTherapistMapping key = new ClientTherapistMapping();
-        key.setClientId(clientId);
-        key.setTherapistId(therapistId);
+        PageRequest pageRequest = PageRequest.from(queryParams, "/journal/summary", clientId, granularity);
+        Future<QueryResponse> rollupPage = DynamoDbRegistry.executor().submit(
+                () -> rollups.query(clientId, granularity, from, to, pageRequest.getLimit(),
+                        pageRequest.getExclusiveStartKey()));
+        Future<?> access = therapistId != null
+                ? DynamoDbRegistry.executor().submit(() -> checkJournalAccess(clientId, therapistId))
+                : CompletableFuture.completedFuture(null);
+        QueryResponse response = DynamoDbRegistry.awaitAuthorized(access, rollupPage);
 
-        ClientTherapistMapping mapping = mappingTable.getItem(key);
+        List<MoodSummary> summaries = new ArrayList<>();
+        for (Map<String, AttributeValue> item : response.items()) {
+            summaries.add(JournalRollups.toSummary(item));
+        }
+        return PagedJsonArray.of(pageRequest, JsonCodec.writeList(summaries, MoodSummary.class),
+                response.hasLastEvaluatedKey() ? response.lastEvaluatedKey() : null);
+    }
 
+    /**
+     * Reads one page of a client's journal, oldest first. {@code from}/{@code to} are inclusive timestamp
+     * bounds on the sort key; {@code feeling}/{@code intensity} are applied by DynamoDB as filters.
+     */
+    private PagedJsonArray queryJournal(Map<String, String> queryParams) {
+        String clientId = queryParams.get("clientId");
+        if (clientId == null) {
+            throw new IllegalArgumentException("clientId is required.");
+        }
+        String from = queryParams.get("from");
+        String to = queryParams.get("to");
 
-        if (mapping == null || !"Yes".equals(mapping.getJournalAccess())) {
-            throw new IllegalArgumentException("Therapist does not have access to the journal.");
+        QueryConditional condition;
+        if (from != null && to != null) {
+            condition = QueryConditional.sortBetween(
+                    Key.builder().partitionValue(clientId).sortValue(from).build(),
+                    Key.builder().partitionValue(clientId).sortValue(to).build());
+        } else if (from != null) {
+            condition = QueryConditional.sortGreaterThanOrEqualTo(k -> k.partitionValue(clientId).sortValue(from));
+        } else if (to != null) {
+            condition = QueryConditional.sortLessThanOrEqualTo(k -> k.partitionValue(clientId).sortValue(to));
+        } else {
+            condition = QueryConditional.keyEqualTo(k -> k.partitionValue(clientId));
         }
 
-        List<Journal> journals = journalTable.scan().items().stream()
-                .filter(journal -> clientId.equals(journal.getClientId()))
-                .collect(Collectors.toList());
+        PageRequest pageRequest = PageRequest.from(queryParams, "/journal", clientId);
+        QueryEnhancedRequest queryRequest = QueryEnhancedRequest.builder()
+                .queryConditional(condition)
+                .filterExpression(journalFilter(queryParams.get("feeling"), queryParams.get("intensity")))
+                .limit(pageRequest.getLimit())
+                .exclusiveStartKey(pageRequest.getExclusiveStartKey())
+                .build();
+
+        Page<Journal> page = journalTable.query(queryRequest).iterator().next();
+        return PagedJsonArray.write(pageRequest, page, Journal.class, journalTable.tableSchema());
+    }
+
+    private Expression journalFilter(String feeling, String intensity) {
+        if (feeling == null && intensity == null) {
+            return null;
+        }
 
-        return toJson(journals);
+        List<String> conditions = new ArrayList<>();
+        Expression.Builder filter = Expression.builder();
+        if (feeling != null) {
+            conditions.add("#feeling = :feeling");
+            filter.putExpressionName("#feeling", "feeling")
+                    .putExpressionValue(":feeling", AttributeValue.builder().s(feeling).build());
+        }
+        if (intensity != null) {
+            conditions.add("#intensity = :intensity");
+            filter.putExpressionName("#intensity", "intensity")
+                    .putExpressionValue(":intensity", AttributeValue.builder().s(intensity).build());
+        }
+        return filter.expression(String.join(" AND ", conditions)).build();
     }
 
-    private String addJournalEntry(String requestBody) {
+    /**
+     * Writes the entry and bumps its day/week/month rollups in one transaction, so the summaries never
+     * drift from the entries. Re-sending an entry with the same timestamp is rejected rather than
+     * counted twice.
+     */
+    private String addJournalEntry(String requestBody, AccessToken principal) {
         Journal journal = parseRequestBody(requestBody);
-        journalTable.putItem(journal);
+        if (journal.getClientId() == null) {
+            throw new IllegalArgumentException("clientId is required.");
+        }
+        // Only clients write to their own journal
+        AuthFilter.require(principal.isClient(journal.getClientId()));
+        if (journal.getTimestamp() == null) {
+            journal.setTimestamp(TIMESTAMP_FORMAT.format(Instant.now()));
+        }
+        // The rollup periods come from the timestamp's date
+        JournalRollups.dateOf(journal.getTimestamp(), "timestamp");
+        JournalRollups.checkIntensity(journal.getIntensity());
+
+        List<TransactWriteItem> writes = new ArrayList<>();
+        writes.add(TransactWriteItem.builder().put(Put.builder()
+                .tableName(journalTable.tableName())
+                .item(journalTable.tableSchema().itemToMap(journal, true))
+                .conditionExpression("attribute_not_exists(#timestamp)")
+                .expressionAttributeNames(Map.of("#timestamp", "timestamp"))
+                .build()).build());
+        for (Update update : rollups.updatesFor(journal)) {
+            writes.add(TransactWriteItem.builder().update(update).build());
+        }
+
+        DynamoDbRegistry.dynamoDbClient().transactWriteItems(TransactWriteItemsRequest.builder()
+                .transactItems(writes)
+                .build());
         return "Journal entry added successfully.";
     }
 
-    private String toJson(Object object) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.writeValueAsString(object);
-        } catch (Exception e) {
-            throw new RuntimeException("Error converting to JSON: " + e.getMessage());
+    /**
+     * Bulk path for offline sync. Entries that already exist are reported instead of rewritten, the rest
+     * go through BatchWriteItem, and the rollups of the written entries are updated once per rollup item
+     * afterwards. Unlike the single-entry path this is not one transaction: a failure between the two
+     * steps leaves the rollups short by the affected entries.
+     */
+    private List<BatchWriter.Result> addJournalEntries(String requestBody, AccessToken principal) {
+        List<Journal> journals = BatchWriter.readRequest(requestBody, Journal.class);
+        for (Journal journal : journals) {
+            AuthFilter.require(principal.isClient(journal.getClientId()));
+        }
+        List<BatchWriter.Result> results = new ArrayList<>(journals.size());
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < journals.size(); i++) {
+            Journal journal = journals.get(i);
+            results.add(null);
+            try {
+                if (journal.getClientId() == null || journal.getTimestamp() == null) {
+                    throw new IllegalArgumentException("clientId and timestamp are required.");
+                }
+                JournalRollups.dateOf(journal.getTimestamp(), "timestamp");
+                JournalRollups.checkIntensity(journal.getIntensity());
+                candidates.add(i);
+            } catch (RuntimeException e) {
+                results.set(i, BatchWriter.Result.failed(i, e.getMessage()));
+            }
+        }
+
+        Set<String> existing = existingEntries(candidates.stream().map(journals::get).collect(Collectors.toList()));
+        List<Integer> toWrite = new ArrayList<>();
+        for (int i : candidates) {
+            if (existing.contains(entryKey(journals.get(i)))) {
+                results.set(i, BatchWriter.Result.failed(i, "Journal entry already exists."));
+            } else {
+                toWrite.add(i);
+            }
+        }
+
+        List<Journal> batch = toWrite.stream().map(journals::get).collect(Collectors.toList());
+        List<BatchWriter.Result> written = BatchWriter.putAll(journalTable, batch);
+        List<Journal> writtenJournals = new ArrayList<>();
+        for (int j = 0; j < written.size(); j++) {
+            int index = toWrite.get(j);
+            results.set(index, written.get(j).withIndex(index));
+            if (written.get(j).succeeded()) {
+                writtenJournals.add(batch.get(j));
+            }
+        }
+
+        rollups.addAll(writtenJournals);
+        return results;
+    }
+
+    /**
+     * Keys of the given entries that are already stored, read with BatchGetItem in chunks of 100.
+     */
+    private Set<String> existingEntries(List<Journal> journals) {
+        Set<String> existing = new HashSet<>();
+        for (int start = 0; start < journals.size(); start += 100) {
+            ReadBatch.Builder<Journal> readBatch = ReadBatch.builder(Journal.class).mappedTableResource(journalTable);
+            for (Journal journal : journals.subList(start, Math.min(start + 100, journals.size()))) {
+                readBatch.addGetItem(Key.builder()
+                        .partitionValue(journal.getClientId())
+                        .sortValue(journal.getTimestamp())
+                        .build());
+            }
+            BatchGetItemEnhancedRequest request = BatchGetItemEnhancedRequest.builder()
+                    .readBatches(readBatch.build())
+                    .build();
+            for (Journal found : DynamoDbRegistry.enhancedClient().batchGetItem(request).resultsForTable(journalTable)) {
+                existing.add(entryKey(found));
+            }
         }
+        return existing;
+    }
+
+    private static String entryKey(Journal journal) {
+        return journal.getClientId() + "#" + journal.getTimestamp();
     }
 
     private Journal parseRequestBody(String requestBody) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.readValue(requestBody, Journal.class);
+            return JsonCodec.read(requestBody, Journal.class);
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid request body: " + e.getMessage());
         }
@@ -125,4 +383,12 @@ public class JournalHandler implements RequestHandler<APIGatewayProxyRequestEven
         response.setBody(message);
         return response;
     }
+
+    private APIGatewayProxyResponseEvent createResponse(int statusCode, PagedJsonArray page) {
+        APIGatewayProxyResponseEvent response = createResponse(statusCode, page.getBody());
+        if (page.getNextToken() != null) {
+            response.getHeaders().put("X-Next-Token", page.getNextToken());
+        }
+        return response;
+    }
 }
@@ -0,0 +1,393 @@
+package com.revanth.handlers.journals;
+
+import com.revanth.models.Journal;
+import com.revanth.models.MoodSummary;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.PutItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryResponse;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.IsoFields;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Daily, weekly and monthly mood aggregates kept next to the raw journal entries.
+ *
+ * Each rollup item is keyed by {@code clientId} and a period such as {@code DAY#2024-05-01},
+ * {@code WEEK#2024-W18} or {@code MONTH#2024-05}, and only holds counters: the entry count, the sum and
+ * count of numeric intensities, and one {@code feeling:<name>} / {@code intensity:<value>} counter per
+ * distinct value. Counters are bumped with {@code ADD}, so a new entry costs three small updates no
+ * matter how long the history is, and min/max fall out of the intensity distribution when reading.
+ * Batches of entries are summed per rollup item first and applied with one update each.
+ *
+ * Feelings are free text on the entry but not in the rollups: they are counted against a fixed
+ * vocabulary ({@code JOURNAL_FEELINGS}, comma-separated, with a built-in default) and anything else is
+ * counted as {@code other}, so a rollup item can't grow without bound. For the same reason numeric
+ * intensities must lie between {@code 0} and {@code 10} and are counted to one decimal place, which caps
+ * the intensity counters at 101 per item; free-text intensities are not counted.
+ *
+ * Entries written before the rollups existed are not counted until {@link RollupBackfill} has rebuilt
+ * their clients' rollups.
+ */
+final class JournalRollups {
+
+    static final String DAY = "day";
+    static final String WEEK = "week";
+    static final String MONTH = "month";
+
+    static final String OTHER_FEELING = "other";
+
+    static final BigDecimal MIN_INTENSITY = BigDecimal.ZERO;
+    static final BigDecimal MAX_INTENSITY = BigDecimal.TEN;
+
+    private static final Set<String> FEELINGS = feelings(System.getenv("JOURNAL_FEELINGS"));
+    private static final String FEELING_PREFIX = "feeling:";
+    private static final String INTENSITY_PREFIX = "intensity:";
+    private static final DateTimeFormatter MONTH_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM");
+
+    private final DynamoDbClient dynamoDbClient;
+    private final String tableName;
+
+    JournalRollups(DynamoDbClient dynamoDbClient, String tableName) {
+        this.dynamoDbClient = dynamoDbClient;
+        this.tableName = tableName;
+    }
+
+    /**
+     * The updates that add one journal entry to its day, week and month rollups.
+     */
+    List<Update> updatesFor(Journal journal) {
+        List<Update> updates = new ArrayList<>();
+        for (Counters counters : aggregate(List.of(journal))) {
+            updates.add(Update.builder()
+                    .tableName(tableName)
+                    .key(counters.key())
+                    .updateExpression(counters.updateExpression())
+                    .expressionAttributeNames(counters.names)
+                    .expressionAttributeValues(counters.values)
+                    .build());
+        }
+        return updates;
+    }
+
+    /**
+     * Adds entries that were already written to their rollups, with one update per affected rollup item
+     * rather than three per entry.
+     */
+    void addAll(List<Journal> journals) {
+        for (Counters counters : aggregate(journals)) {
+            dynamoDbClient.updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(counters.key())
+                    .updateExpression(counters.updateExpression())
+                    .expressionAttributeNames(counters.names)
+                    .expressionAttributeValues(counters.values)
+                    .build());
+        }
+    }
+
+    /**
+     * Replaces all of one client's rollups with totals recomputed from the given entries, which must be
+     * every entry of that client. Unlike the incremental updates this writes absolute values, so running
+     * it again for the same client is harmless.
+     *
+     * @return the number of rollup items written
+     */
+    int rebuild(Iterable<Journal> journals) {
+        List<Counters> rollups = aggregate(journals);
+        for (Counters counters : rollups) {
+            dynamoDbClient.putItem(PutItemRequest.builder()
+                    .tableName(tableName)
+                    .item(counters.item())
+                    .build());
+        }
+        return rollups.size();
+    }
+
+    /**
+     * Reads one page of rollups for a client. {@code from}/{@code to} are inclusive and may be
+     * {@code null}.
+     */
+    QueryResponse query(String clientId, String granularity, LocalDate from, LocalDate to, int limit,
+                        Map<String, AttributeValue> exclusiveStartKey) {
+        Map<String, String> names = new HashMap<>();
+        names.put("#clientId", "clientId");
+        names.put("#period", "period");
+
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":clientId", AttributeValue.builder().s(clientId).build());
+
+        String prefix = prefix(granularity);
+        String periodCondition;
+        if (from != null || to != null) {
+            // Period keys of one granularity sort chronologically; the prefix sentinels cover open ends.
+            values.put(":from", AttributeValue.builder()
+                    .s(from != null ? periodKey(granularity, from) : prefix)
+                    .build());
+            values.put(":to", AttributeValue.builder()
+                    .s(to != null ? periodKey(granularity, to) : prefix + "~")
+                    .build());
+            periodCondition = "#period BETWEEN :from AND :to";
+        } else {
+            values.put(":prefix", AttributeValue.builder().s(prefix).build());
+            periodCondition = "begins_with(#period, :prefix)";
+        }
+
+        return dynamoDbClient.query(QueryRequest.builder()
+                .tableName(tableName)
+                .keyConditionExpression("#clientId = :clientId AND " + periodCondition)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .limit(limit)
+                .exclusiveStartKey(exclusiveStartKey)
+                .build());
+    }
+
+    static MoodSummary toSummary(Map<String, AttributeValue> item) {
+        MoodSummary summary = new MoodSummary();
+        String period = item.get("period").s();
+        summary.setPeriod(period.substring(period.indexOf('#') + 1));
+        summary.setEntries(longValue(item.get("entryCount")));
+
+        Map<String, Long> feelings = new TreeMap<>();
+        TreeMap<BigDecimal, Long> intensities = new TreeMap<>();
+        for (Map.Entry<String, AttributeValue> attribute : item.entrySet()) {
+            String name = attribute.getKey();
+            if (name.startsWith(FEELING_PREFIX)) {
+                feelings.put(name.substring(FEELING_PREFIX.length()), longValue(attribute.getValue()));
+            } else if (name.startsWith(INTENSITY_PREFIX)) {
+                intensities.put(new BigDecimal(name.substring(INTENSITY_PREFIX.length())), longValue(attribute.getValue()));
+            }
+        }
+        summary.setFeelings(feelings);
+
+        Map<String, Long> distribution = new TreeMap<>();
+        intensities.forEach((value, count) -> distribution.put(value.toPlainString(), count));
+        summary.setIntensities(distribution);
+
+        long intensityCount = longValue(item.get("intensityCount"));
+        if (intensityCount > 0) {
+            BigDecimal sum = new BigDecimal(item.get("intensitySum").n());
+            summary.setIntensityMean(sum.divide(BigDecimal.valueOf(intensityCount), 2, RoundingMode.HALF_UP));
+            summary.setIntensityMin(intensities.firstKey());
+            summary.setIntensityMax(intensities.lastKey());
+        }
+        return summary;
+    }
+
+    static boolean isGranularity(String granularity) {
+        return DAY.equals(granularity) || WEEK.equals(granularity) || MONTH.equals(granularity);
+    }
+
+    /**
+     * The date a timestamp or date parameter starts with, e.g. 2024-05-01 for 2024-05-01T10:00:00Z.
+     *
+     * @throws IllegalArgumentException if the value does not start with an ISO date
+     */
+    static LocalDate dateOf(String value, String name) {
+        if (value == null || value.length() < 10) {
+            throw new IllegalArgumentException(name + " must start with a date like 2024-05-01.");
+        }
+        try {
+            return LocalDate.parse(value.substring(0, 10));
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException(name + " must start with a date like 2024-05-01.");
+        }
+    }
+
+    /**
+     * The rollup counter a feeling is counted under: itself if it is in the vocabulary, ignoring case and
+     * surrounding blanks, otherwise {@code other}. Entries without a feeling are not counted.
+     */
+    static String feelingBucket(String feeling) {
+        if (feeling == null || feeling.isBlank()) {
+            return null;
+        }
+        String normalized = feeling.trim().toLowerCase(Locale.ROOT);
+        return FEELINGS.contains(normalized) ? normalized : OTHER_FEELING;
+    }
+
+    /**
+     * Rejects numeric intensities outside {@code 0..10}. Free text and missing intensities pass.
+     *
+     * @throws IllegalArgumentException if the intensity is a number out of range
+     */
+    static void checkIntensity(String intensity) {
+        BigDecimal value = parseIntensity(intensity);
+        if (value != null && !inRange(value)) {
+            throw new IllegalArgumentException("intensity must be between " + MIN_INTENSITY + " and "
+                    + MAX_INTENSITY + ".");
+        }
+    }
+
+    /**
+     * The rollup counter an intensity is counted under, rounded to one decimal place, or {@code null} for
+     * free text and for out-of-range values written before intensities were checked.
+     */
+    static BigDecimal intensityBucket(String intensity) {
+        BigDecimal value = parseIntensity(intensity);
+        if (value == null || !inRange(value)) {
+            return null;
+        }
+        return value.setScale(1, RoundingMode.HALF_UP).stripTrailingZeros();
+    }
+
+    private static boolean inRange(BigDecimal value) {
+        return value.compareTo(MIN_INTENSITY) >= 0 && value.compareTo(MAX_INTENSITY) <= 0;
+    }
+
+    private static Set<String> feelings(String configured) {
+        String list = configured != null && !configured.isBlank() ? configured
+                : "happy,calm,content,grateful,hopeful,excited,sad,anxious,stressed,angry,frustrated,"
+                + "lonely,tired,overwhelmed,numb,scared";
+        Set<String> feelings = new LinkedHashSet<>();
+        for (String feeling : list.split(",")) {
+            if (!feeling.isBlank()) {
+                feelings.add(feeling.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return Set.copyOf(feelings);
+    }
+
+    private static List<Counters> aggregate(Iterable<Journal> journals) {
+        Map<String, Counters> byItem = new LinkedHashMap<>();
+        for (Journal journal : journals) {
+            LocalDate date = dateOf(journal.getTimestamp(), "timestamp");
+            BigDecimal intensity = intensityBucket(journal.getIntensity());
+            String feeling = feelingBucket(journal.getFeeling());
+            for (String granularity : List.of(DAY, WEEK, MONTH)) {
+                String period = periodKey(granularity, date);
+                byItem.computeIfAbsent(journal.getClientId() + "|" + period,
+                        k -> new Counters(journal.getClientId(), period)).add(feeling, intensity);
+            }
+        }
+        for (Counters counters : byItem.values()) {
+            counters.buildExpression();
+        }
+        return new ArrayList<>(byItem.values());
+    }
+
+    private static String periodKey(String granularity, LocalDate date) {
+        switch (granularity) {
+            case DAY:
+                return prefix(DAY) + date;
+            case WEEK:
+                return prefix(WEEK) + String.format(Locale.ROOT, "%d-W%02d",
+                        date.get(IsoFields.WEEK_BASED_YEAR), date.get(IsoFields.WEEK_OF_WEEK_BASED_YEAR));
+            case MONTH:
+                return prefix(MONTH) + MONTH_FORMAT.format(date);
+            default:
+                throw new IllegalArgumentException("granularity must be day, week or month.");
+        }
+    }
+
+    private static String prefix(String granularity) {
+        return granularity.toUpperCase(Locale.ROOT) + "#";
+    }
+
+    private static BigDecimal parseIntensity(String intensity) {
+        if (intensity == null) {
+            return null;
+        }
+        try {
+            return new BigDecimal(intensity.trim());
+        } catch (NumberFormatException e) {
+            // Free-text intensities still count towards the entry and feeling totals.
+            return null;
+        }
+    }
+
+    private static long longValue(AttributeValue value) {
+        return value == null || value.n() == null ? 0 : Long.parseLong(value.n());
+    }
+
+    /**
+     * The increments for one rollup item, turned into an {@code ADD} expression.
+     */
+    private static final class Counters {
+        private final String clientId;
+        private final String period;
+        private long entries;
+        private long intensityCount;
+        private BigDecimal intensitySum = BigDecimal.ZERO;
+        private final Map<String, Long> feelings = new TreeMap<>();
+        private final Map<String, Long> intensities = new TreeMap<>();
+
+        private final List<String> counters = new ArrayList<>();
+        private final Map<String, String> names = new HashMap<>();
+        private final Map<String, AttributeValue> values = new HashMap<>();
+
+        private Counters(String clientId, String period) {
+            this.clientId = clientId;
+            this.period = period;
+        }
+
+        private void add(String feeling, BigDecimal intensity) {
+            entries++;
+            if (feeling != null) {
+                feelings.merge(feeling, 1L, Long::sum);
+            }
+            if (intensity != null) {
+                intensityCount++;
+                intensitySum = intensitySum.add(intensity);
+                intensities.merge(intensity.toPlainString(), 1L, Long::sum);
+            }
+        }
+
+        private void buildExpression() {
+            counter("entryCount", BigDecimal.valueOf(entries));
+            if (intensityCount > 0) {
+                counter("intensityCount", BigDecimal.valueOf(intensityCount));
+                counter("intensitySum", intensitySum);
+            }
+            feelings.forEach((feeling, count) -> counter(FEELING_PREFIX + feeling, BigDecimal.valueOf(count)));
+            intensities.forEach((value, count) -> counter(INTENSITY_PREFIX + value, BigDecimal.valueOf(count)));
+        }
+
+        // Counter names are user data, so they always go through placeholders
+        private void counter(String attribute, BigDecimal increment) {
+            int n = counters.size();
+            names.put("#c" + n, attribute);
+            values.put(":c" + n, AttributeValue.builder().n(increment.toPlainString()).build());
+            counters.add("#c" + n + " :c" + n);
+        }
+
+        /**
+         * The rollup item holding exactly these counts.
+         */
+        private Map<String, AttributeValue> item() {
+            Map<String, AttributeValue> item = key();
+            for (int n = 0; n < counters.size(); n++) {
+                item.put(names.get("#c" + n), values.get(":c" + n));
+            }
+            return item;
+        }
+
+        private Map<String, AttributeValue> key() {
+            Map<String, AttributeValue> key = new HashMap<>();
+            key.put("clientId", AttributeValue.builder().s(clientId).build());
+            key.put("period", AttributeValue.builder().s(period).build());
+            return key;
+        }
+
+        private String updateExpression() {
+            return "ADD " + String.join(", ", counters);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.revanth.handlers.journals;
+
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.dynamodb.EmailLocks;
+import com.revanth.models.Client;
+import com.revanth.models.Journal;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Rebuilds mood rollups from the raw journal entries, for entries written before the rollups existed
+ * or after a batch sync failed between its two steps.
+ *
+ * <pre>
+ * java -cp api-handler.jar com.revanth.handlers.journals.RollupBackfill \
+ *     --journals JournalsTable --summaries JournalSummariesTable --clients-table ClientsTable
+ * java -cp api-handler.jar com.revanth.handlers.journals.RollupBackfill \
+ *     --journals JournalsTable --summaries JournalSummariesTable c-1 c-2
+ * </pre>
+ *
+ * Each client's rollups are recomputed from all of their entries and overwritten, so rerunning is safe.
+ * An entry added for a client while that client is being rebuilt may be missed or counted twice; run it
+ * before the rollups are relied on, or rerun it for the affected clients.
+ */
+public final class RollupBackfill {
+
+    private static final Logger LOGGER = Logger.getLogger(RollupBackfill.class.getName());
+
+    private RollupBackfill() {
+    }
+
+    public static void main(String[] args) {
+        String journalsTable = System.getenv("JOURNALS_TABLE_NAME");
+        String summariesTable = System.getenv("JOURNAL_SUMMARIES_TABLE_NAME");
+        String clientsTable = null;
+        List<String> clientIds = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--journals":
+                    journalsTable = args[++i];
+                    break;
+                case "--summaries":
+                    summariesTable = args[++i];
+                    break;
+                case "--clients-table":
+                    clientsTable = args[++i];
+                    break;
+                default:
+                    clientIds.add(args[i]);
+            }
+        }
+        if (journalsTable == null || summariesTable == null || (clientsTable == null) == clientIds.isEmpty()) {
+            System.err.println("Usage: RollupBackfill --journals TABLE --summaries TABLE (--clients-table TABLE | CLIENT_ID...)");
+            System.exit(2);
+        }
+
+        List<String> clients = clientsTable != null ? allClientIds(clientsTable) : clientIds;
+        DynamoDbTable<Journal> journalTable = DynamoDbRegistry.table(Journal.class, journalsTable);
+        JournalRollups rollups = new JournalRollups(DynamoDbRegistry.dynamoDbClient(), summariesTable);
+
+        long clientCount = 0;
+        long itemCount = 0;
+        for (String clientId : clients) {
+            itemCount += rollups.rebuild(journalTable
+                    .query(QueryConditional.keyEqualTo(k -> k.partitionValue(clientId)))
+                    .items());
+            clientCount++;
+        }
+        LOGGER.info(String.format("Rebuilt %d rollup items for %d clients", itemCount, clientCount));
+    }
+
+    private static List<String> allClientIds(String clientsTable) {
+        DynamoDbTable<Client> clientTable = DynamoDbRegistry.table(Client.class, clientsTable);
+        // Skip the email lock items, which share the table
+        return clientTable.scan(ScanEnhancedRequest.builder()
+                        .filterExpression(EmailLocks.accountsOnly())
+                        .build())
+                .items()
+                .stream()
+                .map(Client::getClientId)
+                .collect(Collectors.toList());
+    }
+}
@@ -4,12 +4,21 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.http.CachePolicies;
+import com.revanth.http.ContentEncoding;
+import com.revanth.json.JsonCodec;
 import com.revanth.models.ClientTherapistMapping;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import com.revanth.security.AccessDeniedException;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AuthFilter;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValue;
+import software.amazon.awssdk.services.dynamodb.model.ReturnValuesOnConditionCheckFailure;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemResponse;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -17,110 +26,171 @@ import java.util.Map;
 public class ClientTherapistMappingHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
     private final DynamoDbTable<ClientTherapistMapping> mappingTable;
+    private final MappingCache mappingCache;
 
     public ClientTherapistMappingHandler() {
-        DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
-        mappingTable = enhancedClient.table(System.getenv("MAPPINGS_TABLE_NAME"), TableSchema.fromBean(ClientTherapistMapping.class));
+        mappingTable = DynamoDbRegistry.table(ClientTherapistMapping.class, System.getenv("MAPPINGS_TABLE_NAME"));
+        mappingCache = MappingCache.of(mappingTable);
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        ContentEncoding.decodeRequestBody(request);
+        AccessToken principal = AuthFilter.authenticate(request);
+        if (principal == null) {
+            return AuthFilter.unauthorized();
+        }
+        return ContentEncoding.encode(request, CachePolicies.apply(request, route(request, principal)));
+    }
+
+    private APIGatewayProxyResponseEvent route(APIGatewayProxyRequestEvent request, AccessToken principal) {
         String httpMethod = request.getHttpMethod();
         String responseMessage;
 
         try {
             if ("POST".equals(httpMethod) && request.getPath().equals("/mappings")) {
-                responseMessage = createMapping(request.getBody());
+                responseMessage = createMapping(request.getBody(), principal);
+            } else if ("POST".equals(httpMethod) && request.getPath().equals("/mappings/accept")) {
+                responseMessage = acceptMapping(request.getQueryStringParameters(), principal);
             } else if ("POST".equals(httpMethod) && request.getPath().equals("/mappings/journal-access")) {
-                responseMessage = updateJournalAccess(request.getQueryStringParameters());
+                responseMessage = updateJournalAccess(request.getQueryStringParameters(), principal);
             } else if ("POST".equals(httpMethod) && request.getPath().equals("/mappings/revoke-journal-access")) {
-                responseMessage = revokeJournalAccess(request.getQueryStringParameters());
+                responseMessage = revokeJournalAccess(request.getQueryStringParameters(), principal);
             } else if ("DELETE".equals(httpMethod)) {
-                responseMessage = deleteMapping(request.getQueryStringParameters());
+                responseMessage = deleteMapping(request.getQueryStringParameters(), principal);
             } else {
                 return createResponse(400, "Unsupported HTTP method.");
             }
 
             return createResponse(200, responseMessage);
+        } catch (MappingStateException e) {
+            return createResponse(e.statusCode, e.getMessage());
+        } catch (AccessDeniedException e) {
+            return AuthFilter.forbidden();
+        } catch (IllegalArgumentException e) {
+            return createResponse(400, e.getMessage());
         } catch (Exception e) {
             return createResponse(500, "Error: " + e.getMessage());
         }
     }
 
-    private String createMapping(String requestBody) {
+    /**
+     * Creates a mapping. The client's own mapping is accepted straight away; a therapist's is only a
+     * request until the client accepts it through {@code POST /mappings/accept}.
+     */
+    private String createMapping(String requestBody, AccessToken principal) {
         ClientTherapistMapping mapping = parseRequestBody(requestBody);
+        AuthFilter.require(principal.isParticipant(mapping.getClientId(), mapping.getTherapistId()));
 
         // Set default value for journalAccess
         mapping.setJournalAccess("No");
+        mapping.setStatus(principal.isClient(mapping.getClientId())
+                ? ClientTherapistMapping.STATUS_ACCEPTED
+                : ClientTherapistMapping.STATUS_PENDING);
 
-        // Save the mapping to DynamoDB
-        mappingTable.putItem(mapping);
+        // Save the mapping to DynamoDB; the version attribute makes this fail if the mapping already exists
+        try {
+            mappingTable.putItem(mapping);
+        } catch (ConditionalCheckFailedException e) {
+            throw new MappingStateException(409, "Mapping already exists.");
+        }
+        mappingCache.put(mapping);
 
         return "Mapping created successfully.";
     }
 
-    private String updateJournalAccess(Map<String, String> queryParams) {
-        if (queryParams == null || !queryParams.containsKey("clientId") || !queryParams.containsKey("therapistId")) {
-            throw new IllegalArgumentException("clientId and therapistId are required query parameters.");
+    /**
+     * Accepts a therapist's mapping request. Only the client can do this.
+     */
+    private String acceptMapping(Map<String, String> queryParams, AccessToken principal) {
+        requireKeyParameters(queryParams);
+        AuthFilter.require(principal.isClient(queryParams.get("clientId")));
+        try {
+            setAttribute(queryParams, "status", ClientTherapistMapping.STATUS_ACCEPTED, null);
+        } catch (ConditionalCheckFailedException e) {
+            throw new MappingStateException(404, "Mapping does not exist.");
         }
 
-        String clientId = queryParams.get("clientId");
-        String therapistId = queryParams.get("therapistId");
-
-        ClientTherapistMapping key = new ClientTherapistMapping();
-        key.setClientId(clientId);
-        key.setTherapistId(therapistId);
+        return "Mapping accepted successfully.";
+    }
 
-        ClientTherapistMapping existingMapping = mappingTable.getItem(key);
-        if (existingMapping == null) {
-            throw new IllegalArgumentException("Mapping does not exist.");
+    /**
+     * Grants the therapist access to the journal. Only the client can do this.
+     */
+    private String updateJournalAccess(Map<String, String> queryParams, AccessToken principal) {
+        requireKeyParameters(queryParams);
+        AuthFilter.require(principal.isClient(queryParams.get("clientId")));
+        try {
+            setAttribute(queryParams, "journalAccess", "Yes", null);
+        } catch (ConditionalCheckFailedException e) {
+            throw new MappingStateException(404, "Mapping does not exist.");
         }
 
-        // Update journalAccess to "Yes"
-        existingMapping.setJournalAccess("Yes");
-        mappingTable.updateItem(existingMapping);
-
         return "Journal access updated successfully.";
     }
 
-    private String revokeJournalAccess(Map<String, String> queryParams) {
-        if (queryParams == null || !queryParams.containsKey("clientId") || !queryParams.containsKey("therapistId")) {
-            throw new IllegalArgumentException("clientId and therapistId are required query parameters.");
-        }
-
-        String clientId = queryParams.get("clientId");
-        String therapistId = queryParams.get("therapistId");
-
-        ClientTherapistMapping key = new ClientTherapistMapping();
-        key.setClientId(clientId);
-        key.setTherapistId(therapistId);
-
-        ClientTherapistMapping existingMapping = mappingTable.getItem(key);
-        if (existingMapping == null) {
-            throw new IllegalArgumentException("Mapping does not exist.");
-        }
-
-        if (!"Yes".equals(existingMapping.getJournalAccess())) {
-            throw new IllegalArgumentException("Journal access is already revoked.");
+    /**
+     * Revokes the therapist's journal access. Either side of the mapping can do this.
+     */
+    private String revokeJournalAccess(Map<String, String> queryParams, AccessToken principal) {
+        requireKeyParameters(queryParams);
+        AuthFilter.require(principal.isParticipant(queryParams.get("clientId"), queryParams.get("therapistId")));
+        try {
+            setAttribute(queryParams, "journalAccess", "No", "Yes");
+        } catch (ConditionalCheckFailedException e) {
+            // The old item comes back only when the mapping exists, i.e. access was already revoked
+            if (e.hasItem() && !e.item().isEmpty()) {
+                throw new MappingStateException(409, "Journal access is already revoked.");
+            }
+            throw new MappingStateException(404, "Mapping does not exist.");
         }
 
-        // Update journalAccess to "No"
-        existingMapping.setJournalAccess("No");
-        mappingTable.updateItem(existingMapping);
-
         return "Journal access revoked successfully.";
     }
 
-    private String deleteMapping(Map<String, String> queryParams) {
-        if (queryParams == null || !queryParams.containsKey("clientId") || !queryParams.containsKey("therapistId")) {
-            throw new IllegalArgumentException("clientId and therapistId are required query parameters.");
+    /**
+     * Sets one attribute of an existing mapping and bumps the version in one conditional UpdateItem,
+     * without reading the mapping first. A non-null {@code requiredValue} must be the attribute's value at
+     * the time of the write.
+     */
+    private void setAttribute(Map<String, String> queryParams, String attribute, String value, String requiredValue) {
+        Map<String, AttributeValue> key = new HashMap<>();
+        key.put("clientId", AttributeValue.builder().s(queryParams.get("clientId")).build());
+        key.put("therapistId", AttributeValue.builder().s(queryParams.get("therapistId")).build());
+
+        Map<String, String> names = new HashMap<>();
+        names.put("#clientId", "clientId");
+        names.put("#attribute", attribute);
+        names.put("#version", "version");
+
+        Map<String, AttributeValue> values = new HashMap<>();
+        values.put(":value", AttributeValue.builder().s(value).build());
+        values.put(":one", AttributeValue.builder().n("1").build());
+
+        String condition = "attribute_exists(#clientId)";
+        if (requiredValue != null) {
+            values.put(":required", AttributeValue.builder().s(requiredValue).build());
+            condition += " AND #attribute = :required";
         }
 
+        UpdateItemResponse response = DynamoDbRegistry.dynamoDbClient().updateItem(UpdateItemRequest.builder()
+                .tableName(mappingTable.tableName())
+                .key(key)
+                .updateExpression("SET #attribute = :value ADD #version :one")
+                .conditionExpression(condition)
+                .expressionAttributeNames(names)
+                .expressionAttributeValues(values)
+                .returnValues(ReturnValue.ALL_NEW)
+                .returnValuesOnConditionCheckFailure(ReturnValuesOnConditionCheckFailure.ALL_OLD)
+                .build());
+        mappingCache.put(mappingTable.tableSchema().mapToItem(response.attributes()));
+    }
+
+    private String deleteMapping(Map<String, String> queryParams, AccessToken principal) {
+        requireKeyParameters(queryParams);
         String clientId = queryParams.get("clientId");
         String therapistId = queryParams.get("therapistId");
+        AuthFilter.require(principal.isParticipant(clientId, therapistId));
 
         ClientTherapistMapping key = new ClientTherapistMapping();
         key.setClientId(clientId);
@@ -128,14 +198,20 @@ public class ClientTherapistMappingHandler implements RequestHandler<APIGatewayP
 
         // Delete the mapping from DynamoDB
         mappingTable.deleteItem(key);
+        mappingCache.remove(clientId, therapistId);
 
         return "Mapping deleted successfully.";
     }
 
+    private static void requireKeyParameters(Map<String, String> queryParams) {
+        if (queryParams == null || !queryParams.containsKey("clientId") || !queryParams.containsKey("therapistId")) {
+            throw new IllegalArgumentException("clientId and therapistId are required query parameters.");
+        }
+    }
+
     private ClientTherapistMapping parseRequestBody(String requestBody) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.readValue(requestBody, ClientTherapistMapping.class);
+            return JsonCodec.read(requestBody, ClientTherapistMapping.class);
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid request body: " + e.getMessage());
         }
@@ -150,4 +226,16 @@ public class ClientTherapistMappingHandler implements RequestHandler<APIGatewayP
         response.setBody("{\"message\": \"" + message + "\"}");
         return response;
     }
+
+    // Answered with its status code: the mapping is missing (404) or already in the requested state (409)
+    private static class MappingStateException extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+
+        private final int statusCode;
+
+        MappingStateException(int statusCode, String message) {
+            super(message);
+            this.statusCode = statusCode;
+        }
+    }
 }
@@ -0,0 +1,196 @@
+package com.revanth.handlers.mappings;
+
+import com.revanth.metrics.EmbeddedMetrics;
+import com.revanth.models.ClientTherapistMapping;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Client-therapist mapping lookups for access checks, shared by every handler in the execution
+ * environment.
+ *
+ * Lookups are strongly consistent reads, and their results are kept in a bounded LRU cache. A mapping
+ * grants access, so it is served from the cache only for a short {@code MAPPING_CACHE_POSITIVE_TTL_SECONDS}
+ * (5 by default, 0 to confirm every grant): a revoke or delete made in another execution environment
+ * takes effect here within that time. The answer "not mapped" is kept for
+ * {@code MAPPING_CACHE_NEGATIVE_TTL_SECONDS}, which can delay a new mapping made elsewhere but never
+ * extends access. Writes made through this environment's handlers replace the entry straight away.
+ *
+ * Entries are replaced by whichever was loaded or written last. Whenever that changes the mapping's
+ * version, or whether it exists, it counts as an invalidation; a mapping that is deleted and created
+ * again with a lower version is picked up like any other.
+ *
+ * Hit, miss, eviction and invalidation counts are published every minute through {@link EmbeddedMetrics}.
+ */
+public final class MappingCache {
+
+    static final Duration POSITIVE_TTL = Duration.ofSeconds(envLong("MAPPING_CACHE_POSITIVE_TTL_SECONDS", 5));
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(envLong("MAPPING_CACHE_NEGATIVE_TTL_SECONDS", 10));
+    private static final int MAX_ENTRIES = (int) envLong("MAPPING_CACHE_MAX_ENTRIES", 1000);
+    private static final Duration METRICS_INTERVAL = Duration.ofMinutes(1);
+
+    private static final Map<String, MappingCache> CACHES = new ConcurrentHashMap<>();
+
+    private final DynamoDbTable<ClientTherapistMapping> mappingTable;
+    private final Clock clock;
+    private final Map<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+            if (size() > MAX_ENTRIES) {
+                evictions.incrementAndGet();
+                return true;
+            }
+            return false;
+        }
+    };
+
+    private final AtomicLong positiveHits = new AtomicLong();
+    private final AtomicLong negativeHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+    private volatile Instant lastPublished;
+
+    MappingCache(DynamoDbTable<ClientTherapistMapping> mappingTable, Clock clock) {
+        this.mappingTable = mappingTable;
+        this.clock = clock;
+        this.lastPublished = clock.instant();
+    }
+
+    /**
+     * The cache for the given mapping table, created on first use.
+     */
+    public static MappingCache of(DynamoDbTable<ClientTherapistMapping> mappingTable) {
+        // "" is not a valid table name, so an unset name cannot collide with a real table
+        return CACHES.computeIfAbsent(Objects.toString(mappingTable.tableName(), ""), name -> new MappingCache(mappingTable, Clock.systemUTC()));
+    }
+
+    /**
+     * Returns the current mapping, or {@code null} if the client and therapist are not mapped.
+     */
+    public ClientTherapistMapping get(String clientId, String therapistId) {
+        String cacheKey = cacheKey(clientId, therapistId);
+        Instant now = clock.instant();
+
+        Entry cached;
+        synchronized (entries) {
+            cached = entries.get(cacheKey);
+            if (cached != null && !cached.expiresAt.isAfter(now)) {
+                entries.remove(cacheKey);
+                cached = null;
+            }
+        }
+        if (cached != null) {
+            (cached.mapping != null ? positiveHits : negativeHits).incrementAndGet();
+            publishMetricsIfDue(now);
+            return cached.mapping;
+        }
+
+        misses.incrementAndGet();
+        ClientTherapistMapping mapping = mappingTable.getItem(GetItemEnhancedRequest.builder()
+                .key(Key.builder().partitionValue(clientId).sortValue(therapistId).build())
+                .consistentRead(true)
+                .build());
+
+        store(cacheKey, new Entry(mapping, now));
+        publishMetricsIfDue(now);
+        return mapping;
+    }
+
+    /**
+     * Whether the client has accepted the therapist. A mapping a therapist created on their own stays
+     * pending until then and grants nothing that needs the client's consent, such as reading the profile.
+     */
+    public boolean isAccepted(String clientId, String therapistId) {
+        ClientTherapistMapping mapping = get(clientId, therapistId);
+        return mapping != null && ClientTherapistMapping.STATUS_ACCEPTED.equals(mapping.getStatus());
+    }
+
+    /**
+     * Records the state of a mapping that was just written.
+     */
+    public void put(ClientTherapistMapping mapping) {
+        store(cacheKey(mapping.getClientId(), mapping.getTherapistId()), new Entry(mapping, clock.instant()));
+    }
+
+    /**
+     * Records that a mapping was just deleted.
+     */
+    public void remove(String clientId, String therapistId) {
+        store(cacheKey(clientId, therapistId), new Entry(null, clock.instant()));
+    }
+
+    private void store(String cacheKey, Entry entry) {
+        synchronized (entries) {
+            Entry current = entries.get(cacheKey);
+            // A lookup that started before a local write must not replace what the write recorded
+            if (current != null && current.loadedAt.isAfter(entry.loadedAt)) {
+                return;
+            }
+            if (current != null && !Objects.equals(current.version(), entry.version())) {
+                invalidations.incrementAndGet();
+            }
+            entries.put(cacheKey, entry);
+        }
+    }
+
+    private void publishMetricsIfDue(Instant now) {
+        Instant last = lastPublished;
+        if (now.isBefore(last.plus(METRICS_INTERVAL))) {
+            return;
+        }
+        synchronized (this) {
+            if (lastPublished != last) {
+                return;
+            }
+            lastPublished = now;
+        }
+
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("MappingCachePositiveHits", positiveHits.getAndSet(0));
+        counts.put("MappingCacheNegativeHits", negativeHits.getAndSet(0));
+        counts.put("MappingCacheMisses", misses.getAndSet(0));
+        counts.put("MappingCacheEvictions", evictions.getAndSet(0));
+        counts.put("MappingCacheInvalidations", invalidations.getAndSet(0));
+        EmbeddedMetrics.publishCounts(now, counts);
+    }
+
+    private static String cacheKey(String clientId, String therapistId) {
+        return clientId + "#" + therapistId;
+    }
+
+    private static long envLong(String name, long defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? Long.parseLong(value) : defaultValue;
+    }
+
+    /**
+     * A lookup or write result; {@code mapping} is {@code null} for "not mapped".
+     */
+    private static final class Entry {
+        private final ClientTherapistMapping mapping;
+        private final Instant loadedAt;
+        private final Instant expiresAt;
+
+        private Entry(ClientTherapistMapping mapping, Instant loadedAt) {
+            this.mapping = mapping;
+            this.loadedAt = loadedAt;
+            this.expiresAt = loadedAt.plus(mapping != null ? POSITIVE_TTL : NEGATIVE_TTL);
+        }
+
+        // null when not mapped, so creating or deleting a mapping also counts as a version change
+        private Long version() {
+            return mapping != null ? mapping.getVersion() : null;
+        }
+    }
+}
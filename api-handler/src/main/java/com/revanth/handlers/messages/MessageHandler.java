@@ -4,108 +4,327 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revanth.dynamodb.BatchWriter;
+import com.revanth.dynamodb.Conditions;
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.dynamodb.TableSchemas;
+import com.revanth.http.CachePolicies;
+import com.revanth.http.ContentEncoding;
+import com.revanth.json.JsonCodec;
 import com.revanth.models.Message;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import com.revanth.paging.PageRequest;
+import com.revanth.paging.PagedJsonArray;
+import com.revanth.security.AccessDeniedException;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AuthFilter;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.BatchGetItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
 import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ReadBatch;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 public class MessageHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
+    // Fixed-width UTC timestamps, so the sort key orders messages chronologically
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+    // Messages that land on the same millisecond of one conversation get a "#1", "#2", ... suffix
+    private static final int MAX_SEND_ATTEMPTS = 5;
+
     private final DynamoDbTable<Message> messageTable;
 
     public MessageHandler() {
-        DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
-        messageTable = enhancedClient.table(System.getenv("MESSAGES_TABLE_NAME"), TableSchema.fromBean(Message.class));
+        messageTable = DynamoDbRegistry.table(Message.class, System.getenv("MESSAGES_TABLE_NAME"));
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        ContentEncoding.decodeRequestBody(request);
+        AccessToken principal = AuthFilter.authenticate(request);
+        if (principal == null) {
+            return AuthFilter.unauthorized();
+        }
+        return ContentEncoding.encode(request, CachePolicies.apply(request, route(request, principal)));
+    }
+
+    private APIGatewayProxyResponseEvent route(APIGatewayProxyRequestEvent request, AccessToken principal) {
         String httpMethod = request.getHttpMethod();
         String responseMessage;
 
         try {
             if ("POST".equals(httpMethod) && request.getPath().equals("/messages/send")) {
-                responseMessage = sendMessage(request.getBody());
+                responseMessage = sendMessage(request.getBody(), principal);
+            } else if ("POST".equals(httpMethod) && request.getPath().equals("/messages/batch")) {
+                List<BatchWriter.Result> results = sendMessages(request.getBody(), principal);
+                return createResponse(BatchWriter.statusCode(results), BatchWriter.responseBody(results));
             } else if ("GET".equals(httpMethod) && request.getPath().equals("/messages/history")) {
                 Map<String, String> queryParams = request.getQueryStringParameters();
-                responseMessage = getMessageHistory(queryParams);
+                return createResponse(200, getMessageHistory(queryParams, principal));
             } else {
                 return createResponse(400, "Unsupported HTTP method.");
             }
 
             return createResponse(200, responseMessage);
+        } catch (AccessDeniedException e) {
+            return AuthFilter.forbidden();
+        } catch (IllegalArgumentException e) {
+            return createResponse(400, e.getMessage());
         } catch (Exception e) {
             return createResponse(500, "Error: " + e.getMessage());
         }
     }
 
-    private String sendMessage(String requestBody) {
+    /**
+     * Stores a message under a server-assigned timestamp. The write only succeeds if no message of the
+     * conversation has that sort key yet; on a collision the timestamp gets the next suffix, which still
+     * sorts before the following millisecond.
+     */
+    private String sendMessage(String requestBody, AccessToken principal) {
         Message message = parseRequestBody(requestBody);
+        // Users only send messages as themselves
+        AuthFilter.require(principal.getSubject().equals(message.getSender()));
+        prepare(message, principal);
+
+        String timestamp = TIMESTAMP_FORMAT.format(Instant.now());
+        for (int attempt = 0; attempt < MAX_SEND_ATTEMPTS; attempt++) {
+            message.setTimestamp(attempt == 0 ? timestamp : timestamp + "#" + attempt);
+            try {
+                messageTable.putItem(PutItemEnhancedRequest.builder(Message.class)
+                        .item(message)
+                        .conditionExpression(Conditions.notExists("timestamp"))
+                        .build());
+                return "Message sent successfully.";
+            } catch (ConditionalCheckFailedException e) {
+                // Another message of this conversation took the timestamp; try the next suffix
+            }
+        }
+        throw new IllegalStateException("Could not assign a unique timestamp to the message.");
+    }
+
+    /**
+     * Bulk path for offline sync. Each message must carry its original timestamp in the server's format,
+     * since that is its key. Messages whose key is already taken are reported instead of written, so a
+     * sender can't overwrite the other participant's message and replaying a batch doesn't duplicate it.
+     * The check and the BatchWriteItem are separate requests, so two batches racing for the same key can
+     * still both write it; the single-message path is conditional and has no such gap.
+     */
+    private List<BatchWriter.Result> sendMessages(String requestBody, AccessToken principal) {
+        List<Message> messages = BatchWriter.readRequest(requestBody, Message.class);
+        for (Message message : messages) {
+            AuthFilter.require(principal.getSubject().equals(message.getSender()));
+        }
+        List<BatchWriter.Result> results = new ArrayList<>(messages.size());
+        List<Integer> candidates = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) {
+            results.add(null);
+            try {
+                prepare(messages.get(i), principal);
+                requireTimestamp(messages.get(i).getTimestamp());
+                candidates.add(i);
+            } catch (IllegalArgumentException e) {
+                results.set(i, BatchWriter.Result.failed(i, e.getMessage()));
+            }
+        }
 
-        // Generate a unique conversationId
-        message.setConversationId(UUID.randomUUID().toString());
+        Set<String> existing = existingMessages(candidates.stream().map(messages::get).collect(Collectors.toList()));
+        List<Integer> toWrite = new ArrayList<>();
+        for (int i : candidates) {
+            if (existing.contains(messageKey(messages.get(i)))) {
+                results.set(i, BatchWriter.Result.failed(i, "Message already exists."));
+            } else {
+                toWrite.add(i);
+            }
+        }
 
-        // Save the message to DynamoDB
-        messageTable.putItem(message);
+        List<Message> batch = toWrite.stream().map(messages::get).collect(Collectors.toList());
+        List<BatchWriter.Result> written = BatchWriter.putAll(messageTable, batch);
+        for (int j = 0; j < written.size(); j++) {
+            results.set(toWrite.get(j), written.get(j).withIndex(toWrite.get(j)));
+        }
+        return results;
+    }
 
-        return "Message sent successfully.";
+    /**
+     * Keys of the given messages that are already stored, read with BatchGetItem in chunks of 100.
+     */
+    private Set<String> existingMessages(List<Message> messages) {
+        Set<String> existing = new HashSet<>();
+        for (int start = 0; start < messages.size(); start += 100) {
+            ReadBatch.Builder<Message> readBatch = ReadBatch.builder(Message.class).mappedTableResource(messageTable);
+            for (Message message : messages.subList(start, Math.min(start + 100, messages.size()))) {
+                readBatch.addGetItem(Key.builder()
+                        .partitionValue(message.getConversationId())
+                        .sortValue(message.getTimestamp())
+                        .build());
+            }
+            BatchGetItemEnhancedRequest request = BatchGetItemEnhancedRequest.builder()
+                    .readBatches(readBatch.build())
+                    .build();
+            for (Message found : DynamoDbRegistry.enhancedClient().batchGetItem(request).resultsForTable(messageTable)) {
+                existing.add(messageKey(found));
+            }
+        }
+        return existing;
+    }
+
+    private static String messageKey(Message message) {
+        return message.getConversationId() + "#" + message.getTimestamp();
     }
 
-    private String getMessageHistory(Map<String, String> queryParams) {
+    private static void requireTimestamp(String timestamp) {
+        if (timestamp == null) {
+            throw new IllegalArgumentException("timestamp is required.");
+        }
+        try {
+            TIMESTAMP_FORMAT.parse(timestamp);
+        } catch (DateTimeParseException e) {
+            throw new IllegalArgumentException("timestamp must look like 2024-05-01T10:00:00.000Z.");
+        }
+    }
+
+    private static void prepare(Message message, AccessToken principal) {
+        if (message.getSender() == null || message.getReceiver() == null) {
+            throw new IllegalArgumentException("sender and receiver are required.");
+        }
+
+        // Both directions of a conversation share one partition
+        message.setConversationId(conversationId(message.getSender(), message.getReceiver()));
+        assignParticipants(message, principal);
+    }
+
+    /**
+     * Lists one user's inbox ({@code clientId} or {@code therapistId}) or one conversation
+     * ({@code sender} and {@code receiver}). Callers only see inboxes and conversations they are part of.
+     */
+    private PagedJsonArray getMessageHistory(Map<String, String> queryParams, AccessToken principal) {
         if (queryParams == null) {
             throw new IllegalArgumentException("Query parameters are required.");
         }
 
         String sender = queryParams.get("sender");
         String receiver = queryParams.get("receiver");
+        String clientId = queryParams.get("clientId");
+        String therapistId = queryParams.get("therapistId");
 
-        List<Message> messages;
-        if (sender != null && receiver == null) {
-            messages = messageTable.query(QueryConditional.keyEqualTo(k -> k.partitionValue(sender)))
-                    .items()
-                    .stream()
-                    .collect(Collectors.toList());
-        } else if (receiver != null && sender == null) {
-            messages = messageTable.query(QueryConditional.keyEqualTo(k -> k.partitionValue(receiver)))
-                    .items()
-                    .stream()
-                    .collect(Collectors.toList());
-        } else if (sender != null) {
-            messages = messageTable.scan().items().stream()
-                    .filter(message -> sender.equals(message.getSender()) || receiver.equals(message.getReceiver()))
-                    .collect(Collectors.toList());
+        if (clientId != null) {
+            AuthFilter.require(principal.isClient(clientId));
+            PageRequest pageRequest = PageRequest.from(queryParams, "/messages/history", "clientId", clientId);
+            return PagedJsonArray.write(pageRequest, inboxPage(TableSchemas.CLIENT_MESSAGES_INDEX, clientId, pageRequest),
+                    Message.class, messageTable.tableSchema(), TableSchemas.CLIENT_MESSAGES_INDEX);
+        }
+        if (therapistId != null) {
+            AuthFilter.require(principal.isTherapist(therapistId));
+            PageRequest pageRequest = PageRequest.from(queryParams, "/messages/history", "therapistId", therapistId);
+            return PagedJsonArray.write(pageRequest, inboxPage(TableSchemas.THERAPIST_MESSAGES_INDEX, therapistId, pageRequest),
+                    Message.class, messageTable.tableSchema(), TableSchemas.THERAPIST_MESSAGES_INDEX);
+        }
+
+        if (sender == null || receiver == null) {
+            // Reading every user's messages is not something any caller may do
+            AuthFilter.require(sender != null || receiver != null);
+            throw new IllegalArgumentException("Use clientId or therapistId to list one user's messages.");
+        }
+        AuthFilter.require(principal.getSubject().equals(sender) || principal.getSubject().equals(receiver));
+        String conversationId = conversationId(sender, receiver);
+        PageRequest pageRequest = PageRequest.from(queryParams, "/messages/history", "conversationId", conversationId);
+        Page<Message> page = conversationPage(conversationId,
+                queryParams.get("after"), queryParams.get("before"), pageRequest);
+        return PagedJsonArray.write(pageRequest, page, Message.class, messageTable.tableSchema());
+    }
+
+    /**
+     * Reads one page of every message a user sent or received, newest first, from the given index.
+     */
+    private Page<Message> inboxPage(String indexName, String userId, PageRequest pageRequest) {
+        QueryEnhancedRequest queryRequest = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(userId)))
+                .scanIndexForward(false)
+                .limit(pageRequest.getLimit())
+                .exclusiveStartKey(pageRequest.getExclusiveStartKey())
+                .build();
+        return messageTable.index(indexName).query(queryRequest).iterator().next();
+    }
+
+    /**
+     * Reads one page of a conversation in timestamp order. {@code after} and {@code before} are
+     * exclusive bounds and may each be {@code null}.
+     */
+    private Page<Message> conversationPage(String conversationId, String after, String before, PageRequest pageRequest) {
+        QueryConditional condition;
+        Expression excludeBounds = null;
+        if (after != null && before != null) {
+            // BETWEEN is inclusive; drop the two boundary items with a filter
+            condition = QueryConditional.sortBetween(
+                    Key.builder().partitionValue(conversationId).sortValue(after).build(),
+                    Key.builder().partitionValue(conversationId).sortValue(before).build());
+            excludeBounds = Expression.builder()
+                    .expression("#timestamp <> :after AND #timestamp <> :before")
+                    .putExpressionName("#timestamp", "timestamp")
+                    .putExpressionValue(":after", AttributeValue.builder().s(after).build())
+                    .putExpressionValue(":before", AttributeValue.builder().s(before).build())
+                    .build();
+        } else if (after != null) {
+            condition = QueryConditional.sortGreaterThan(k -> k.partitionValue(conversationId).sortValue(after));
+        } else if (before != null) {
+            condition = QueryConditional.sortLessThan(k -> k.partitionValue(conversationId).sortValue(before));
         } else {
-            messages = messageTable.scan().items().stream().collect(Collectors.toList());
+            condition = QueryConditional.keyEqualTo(k -> k.partitionValue(conversationId));
         }
 
-        return toJson(messages);
+        QueryEnhancedRequest queryRequest = QueryEnhancedRequest.builder()
+                .queryConditional(condition)
+                .filterExpression(excludeBounds)
+                .limit(pageRequest.getLimit())
+                .exclusiveStartKey(pageRequest.getExclusiveStartKey())
+                .build();
+        return messageTable.query(queryRequest).iterator().next();
     }
 
-    private String toJson(Object object) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.writeValueAsString(object);
-        } catch (Exception e) {
-            throw new RuntimeException("Error converting to JSON: " + e.getMessage());
+    /**
+     * Fills in senderRole and the clientId and therapistId index attributes from the sender's access
+     * token. Values in the body are ignored, so nobody can file a message under someone else's inbox.
+     */
+    private static void assignParticipants(Message message, AccessToken principal) {
+        message.setSenderRole(principal.getRole());
+        if (principal.isClient()) {
+            message.setClientId(message.getSender());
+            message.setTherapistId(message.getReceiver());
+        } else if (principal.isTherapist()) {
+            message.setTherapistId(message.getSender());
+            message.setClientId(message.getReceiver());
+        } else {
+            throw new AccessDeniedException("Only clients and therapists send messages.");
         }
     }
 
+    /**
+     * Canonical partition key for the conversation between two users, independent of who is sending.
+     */
+    private static String conversationId(String userA, String userB) {
+        return userA.compareTo(userB) <= 0 ? userA + "#" + userB : userB + "#" + userA;
+    }
+
     private Message parseRequestBody(String requestBody) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.readValue(requestBody, Message.class);
+            return JsonCodec.read(requestBody, Message.class);
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid request body: " + e.getMessage());
         }
@@ -120,4 +339,12 @@ public class MessageHandler implements RequestHandler<APIGatewayProxyRequestEven
         response.setBody(message);
         return response;
     }
+
+    private APIGatewayProxyResponseEvent createResponse(int statusCode, PagedJsonArray page) {
+        APIGatewayProxyResponseEvent response = createResponse(statusCode, page.getBody());
+        if (page.getNextToken() != null) {
+            response.getHeaders().put("X-Next-Token", page.getNextToken());
+        }
+        return response;
+    }
 }
@@ -0,0 +1,134 @@
+package com.revanth.handlers.messages;
+
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.security.AccessToken;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Fills in senderRole, clientId and therapistId on messages written before the inbox indexes existed.
+ * Until it has run, those messages are missing from {@code GET /messages/history?clientId=} and
+ * {@code ?therapistId=}, though conversations still list them.
+ *
+ * <pre>
+ * java -cp api-handler.jar com.revanth.handlers.messages.MessageIndexBackfill \
+ *     --messages MessagesTable --clients ClientsTable --therapists TherapistsTable
+ * </pre>
+ *
+ * Old messages don't record who sent them in which role, so the sender is looked up in the clients table
+ * and then the therapists table. Messages whose sender is in neither are logged and left alone. Updates
+ * only apply while clientId is still absent, so rerunning is safe.
+ */
+public final class MessageIndexBackfill {
+
+    private static final Logger LOGGER = Logger.getLogger(MessageIndexBackfill.class.getName());
+
+    private final DynamoDbClient dynamoDb;
+    private final String messagesTable;
+    private final String clientsTable;
+    private final String therapistsTable;
+    private final Map<String, String> roles = new HashMap<>();
+
+    private MessageIndexBackfill(DynamoDbClient dynamoDb, String messagesTable, String clientsTable, String therapistsTable) {
+        this.dynamoDb = dynamoDb;
+        this.messagesTable = messagesTable;
+        this.clientsTable = clientsTable;
+        this.therapistsTable = therapistsTable;
+    }
+
+    public static void main(String[] args) {
+        String messagesTable = System.getenv("MESSAGES_TABLE_NAME");
+        String clientsTable = System.getenv("CLIENTS_TABLE_NAME");
+        String therapistsTable = System.getenv("THERAPISTS_TABLE_NAME");
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            switch (args[i]) {
+                case "--messages":
+                    messagesTable = args[i + 1];
+                    break;
+                case "--clients":
+                    clientsTable = args[i + 1];
+                    break;
+                case "--therapists":
+                    therapistsTable = args[i + 1];
+                    break;
+                default:
+                    messagesTable = null;
+            }
+        }
+        if (messagesTable == null || clientsTable == null || therapistsTable == null || args.length % 2 != 0) {
+            System.err.println("Usage: MessageIndexBackfill --messages TABLE --clients TABLE --therapists TABLE");
+            System.exit(2);
+        }
+
+        new MessageIndexBackfill(DynamoDbRegistry.dynamoDbClient(), messagesTable, clientsTable, therapistsTable).run();
+    }
+
+    private void run() {
+        ScanRequest scanRequest = ScanRequest.builder()
+                .tableName(messagesTable)
+                .projectionExpression("conversationId, #timestamp, sender, receiver")
+                .filterExpression("attribute_not_exists(clientId)")
+                .expressionAttributeNames(Map.of("#timestamp", "timestamp"))
+                .build();
+
+        long updated = 0;
+        long unknown = 0;
+        for (Map<String, AttributeValue> message : dynamoDb.scanPaginator(scanRequest).items()) {
+            String sender = message.get("sender") != null ? message.get("sender").s() : null;
+            String receiver = message.get("receiver") != null ? message.get("receiver").s() : null;
+            String role = sender != null && receiver != null ? roleOf(sender) : null;
+            if (role == null) {
+                unknown++;
+                LOGGER.warning("No client or therapist for message " + message.get("conversationId").s()
+                        + " / " + message.get("timestamp").s());
+                continue;
+            }
+            boolean fromClient = AccessToken.ROLE_CLIENT.equals(role);
+            if (setParticipants(message, role, fromClient ? sender : receiver, fromClient ? receiver : sender)) {
+                updated++;
+            }
+        }
+        LOGGER.info(String.format("Indexed %d messages, %d with an unknown sender", updated, unknown));
+    }
+
+    private String roleOf(String userId) {
+        return roles.computeIfAbsent(userId, id -> {
+            if (exists(clientsTable, "clientId", id)) {
+                return AccessToken.ROLE_CLIENT;
+            }
+            return exists(therapistsTable, "therapistId", id) ? AccessToken.ROLE_THERAPIST : null;
+        });
+    }
+
+    private boolean exists(String tableName, String keyName, String id) {
+        return dynamoDb.getItem(r -> r.tableName(tableName)
+                        .key(Map.of(keyName, AttributeValue.fromS(id)))
+                        .projectionExpression(keyName))
+                .hasItem();
+    }
+
+    private boolean setParticipants(Map<String, AttributeValue> message, String role, String clientId, String therapistId) {
+        try {
+            dynamoDb.updateItem(UpdateItemRequest.builder()
+                    .tableName(messagesTable)
+                    .key(Map.of("conversationId", message.get("conversationId"), "timestamp", message.get("timestamp")))
+                    .updateExpression("SET senderRole = :role, clientId = :clientId, therapistId = :therapistId")
+                    .conditionExpression("attribute_exists(conversationId) AND attribute_not_exists(clientId)")
+                    .expressionAttributeValues(Map.of(
+                            ":role", AttributeValue.fromS(role),
+                            ":clientId", AttributeValue.fromS(clientId),
+                            ":therapistId", AttributeValue.fromS(therapistId)))
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+}
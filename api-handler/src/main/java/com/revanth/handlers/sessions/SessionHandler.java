@@ -4,82 +4,137 @@ import com.amazonaws.services.lambda.runtime.Context;
 import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.dynamodb.TableSchemas;
+import com.revanth.handlers.mappings.MappingCache;
+import com.revanth.http.CachePolicies;
+import com.revanth.http.ContentEncoding;
+import com.revanth.json.JsonCodec;
+import com.revanth.models.ClientTherapistMapping;
 import com.revanth.models.Session;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import com.revanth.paging.PageRequest;
+import com.revanth.paging.PagedJsonArray;
+import com.revanth.security.AccessDeniedException;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AuthFilter;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
-import software.amazon.awssdk.services.dynamodb.model.CreateTableRequest;
-import software.amazon.awssdk.services.dynamodb.model.GlobalSecondaryIndex;
-import software.amazon.awssdk.services.dynamodb.model.KeySchemaElement;
-import software.amazon.awssdk.services.dynamodb.model.KeyType;
-import software.amazon.awssdk.services.dynamodb.model.Projection;
-import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.UpdateItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
 
 import java.util.HashMap;
-import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 public class SessionHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
 
     private final DynamoDbTable<Session> sessionTable;
+    private final MappingCache mappingCache;
 
     public SessionHandler() {
-        DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
-
-        // Ensure Global Secondary Index exists
-        CreateTableRequest createTableRequest = CreateTableRequest.builder()
-                .tableName("Session")
-                .keySchema(KeySchemaElement.builder().attributeName("sessionId").keyType(KeyType.HASH).build(),
-                        KeySchemaElement.builder().attributeName("sessionDate").keyType(KeyType.RANGE).build())
-                .globalSecondaryIndexes(
-                        GlobalSecondaryIndex.builder()
-                                .indexName("ClientId-TherapistId-Index")
-                                .keySchema(KeySchemaElement.builder().attributeName("clientId").keyType(KeyType.HASH).build(),
-                                        KeySchemaElement.builder().attributeName("therapistId").keyType(KeyType.RANGE).build())
-                                .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
-                                .build()
-                )
-                .build();
-
-        sessionTable = enhancedClient.table(System.getenv("SESSIONS_TABLE_NAME"), TableSchema.fromBean(Session.class));
+        sessionTable = DynamoDbRegistry.table(Session.class, System.getenv("SESSIONS_TABLE_NAME"));
+        mappingCache = MappingCache.of(
+                DynamoDbRegistry.table(ClientTherapistMapping.class, System.getenv("MAPPINGS_TABLE_NAME")));
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        ContentEncoding.decodeRequestBody(request);
+        AccessToken principal = AuthFilter.authenticate(request);
+        if (principal == null) {
+            return AuthFilter.unauthorized();
+        }
+        return ContentEncoding.encode(request, CachePolicies.apply(request, route(request, principal)));
+    }
+
+    private APIGatewayProxyResponseEvent route(APIGatewayProxyRequestEvent request, AccessToken principal) {
         String httpMethod = request.getHttpMethod();
         String responseMessage;
 
         try {
             if ("GET".equals(httpMethod)) {
-                responseMessage = getAllSessions();
+                return createResponse(200, getSessions(request.getQueryStringParameters(), principal));
             } else if ("POST".equals(httpMethod)) {
-                responseMessage = addSession(request.getBody());
+                responseMessage = addSession(request.getBody(), principal);
             } else if ("PATCH".equals(httpMethod)) {
-                responseMessage = updateSession(request.getBody());
+                responseMessage = updateSession(request.getBody(), principal);
             } else {
                 return createResponse(400, "Unsupported HTTP method.");
             }
 
             return createResponse(200, responseMessage);
+        } catch (AccessDeniedException e) {
+            return AuthFilter.forbidden();
+        } catch (IllegalArgumentException e) {
+            return createResponse(400, e.getMessage());
         } catch (Exception e) {
             return createResponse(500, "Error: " + e.getMessage());
         }
     }
 
-    private String getAllSessions() {
-        List<Session> sessions = sessionTable.scan().items().stream().collect(Collectors.toList());
-        return toJson(sessions);
+    /**
+     * Lists sessions through the session indexes: by {@code clientId} (optionally narrowed to one
+     * {@code therapistId}), or by {@code therapistId} with optional inclusive {@code from}/{@code to}
+     * bounds on the session date. Clients list their own sessions and therapists theirs, including
+     * their sessions with one client once that client has accepted the mapping.
+     */
+    private PagedJsonArray getSessions(Map<String, String> queryParams, AccessToken principal) {
+        if (queryParams == null) {
+            throw new IllegalArgumentException("clientId or therapistId is required.");
+        }
+
+        String clientId = queryParams.get("clientId");
+        String therapistId = queryParams.get("therapistId");
+
+        if (clientId != null) {
+            requireSessionAccess(principal, clientId, therapistId);
+            PageRequest pageRequest = PageRequest.from(queryParams, "/sessions", "clientId", clientId);
+            QueryConditional condition = therapistId != null
+                    ? QueryConditional.keyEqualTo(k -> k.partitionValue(clientId).sortValue(therapistId))
+                    : QueryConditional.keyEqualTo(k -> k.partitionValue(clientId));
+            return PagedJsonArray.write(pageRequest, indexPage(TableSchemas.CLIENT_SESSIONS_INDEX, condition, pageRequest),
+                    Session.class, sessionTable.tableSchema(), TableSchemas.CLIENT_SESSIONS_INDEX);
+        }
+        if (therapistId != null) {
+            AuthFilter.require(principal.isTherapist(therapistId));
+            PageRequest pageRequest = PageRequest.from(queryParams, "/sessions", "therapistId", therapistId);
+            QueryConditional condition = dateRange(therapistId, queryParams.get("from"), queryParams.get("to"));
+            return PagedJsonArray.write(pageRequest, indexPage(TableSchemas.THERAPIST_SESSIONS_INDEX, condition, pageRequest),
+                    Session.class, sessionTable.tableSchema(), TableSchemas.THERAPIST_SESSIONS_INDEX);
+        }
+        throw new IllegalArgumentException("clientId or therapistId is required.");
     }
 
-    private String addSession(String requestBody) {
+    private QueryConditional dateRange(String therapistId, String from, String to) {
+        if (from != null && to != null) {
+            return QueryConditional.sortBetween(
+                    Key.builder().partitionValue(therapistId).sortValue(from).build(),
+                    Key.builder().partitionValue(therapistId).sortValue(to).build());
+        } else if (from != null) {
+            return QueryConditional.sortGreaterThanOrEqualTo(k -> k.partitionValue(therapistId).sortValue(from));
+        } else if (to != null) {
+            return QueryConditional.sortLessThanOrEqualTo(k -> k.partitionValue(therapistId).sortValue(to));
+        }
+        return QueryConditional.keyEqualTo(k -> k.partitionValue(therapistId));
+    }
+
+    private Page<Session> indexPage(String indexName, QueryConditional condition, PageRequest pageRequest) {
+        QueryEnhancedRequest queryRequest = QueryEnhancedRequest.builder()
+                .queryConditional(condition)
+                .limit(pageRequest.getLimit())
+                .exclusiveStartKey(pageRequest.getExclusiveStartKey())
+                .build();
+        return sessionTable.index(indexName).query(queryRequest).iterator().next();
+    }
+
+    private String addSession(String requestBody, AccessToken principal) {
         Session session = parseRequestBody(requestBody);
+        requireSessionAccess(principal, session.getClientId(), session.getTherapistId());
 
         // Generate unique sessionId
         session.setSessionId(UUID.randomUUID().toString());
@@ -94,33 +149,53 @@ public class SessionHandler implements RequestHandler<APIGatewayProxyRequestEven
         return "Session added successfully.";
     }
 
-    private String updateSession(String requestBody) {
+    private String updateSession(String requestBody, AccessToken principal) {
         Session session = parseRequestBody(requestBody);
 
         if (session.getSessionId() == null || session.getSessionDate() == null ||
                 session.getTherapistId() == null || session.getClientId() == null) {
             throw new IllegalArgumentException("sessionId, sessionDate, therapistId, and clientId are required.");
         }
+        requireSessionAccess(principal, session.getClientId(), session.getTherapistId());
 
-        // Update session in DynamoDB
-        sessionTable.updateItem(session);
+        // Only SET the fields present in the body, so omitted notes aren't wiped. The stored session must
+        // belong to the same pair, so the body can't move someone else's session over to the caller.
+        try {
+            sessionTable.updateItem(UpdateItemEnhancedRequest.builder(Session.class)
+                    .item(session)
+                    .ignoreNulls(true)
+                    .conditionExpression(Expression.builder()
+                            .expression("attribute_exists(#sessionId) AND #clientId = :clientId"
+                                    + " AND #therapistId = :therapistId")
+                            .putExpressionName("#sessionId", "sessionId")
+                            .putExpressionName("#clientId", "clientId")
+                            .putExpressionName("#therapistId", "therapistId")
+                            .putExpressionValue(":clientId", AttributeValue.builder().s(session.getClientId()).build())
+                            .putExpressionValue(":therapistId",
+                                    AttributeValue.builder().s(session.getTherapistId()).build())
+                            .build())
+                    .build());
+        } catch (ConditionalCheckFailedException e) {
+            throw new IllegalArgumentException("Session does not exist.");
+        }
 
         return "Session updated successfully.";
     }
 
-    private String toJson(Object object) {
-        try {
-            ObjectMapper mapper = new ObjectMapper();
-            return mapper.writeValueAsString(object);
-        } catch (Exception e) {
-            throw new RuntimeException("Error converting to JSON: " + e.getMessage());
+    /**
+     * Either side of a pair can read and write its sessions, a therapist only under a mapping the client
+     * has accepted.
+     */
+    private void requireSessionAccess(AccessToken principal, String clientId, String therapistId) {
+        AuthFilter.require(principal.isParticipant(clientId, therapistId));
+        if (principal.isTherapist()) {
+            AuthFilter.require(mappingCache.isAccepted(clientId, principal.getSubject()));
         }
     }
 
     private Session parseRequestBody(String requestBody) {
-        ObjectMapper mapper = new ObjectMapper();
         try {
-            return mapper.readValue(requestBody, Session.class);
+            return JsonCodec.read(requestBody, Session.class);
         } catch (Exception e) {
             throw new IllegalArgumentException("Invalid request body: " + e.getMessage());
         }
@@ -135,4 +210,12 @@ public class SessionHandler implements RequestHandler<APIGatewayProxyRequestEven
         response.setBody(message);
         return response;
     }
+
+    private APIGatewayProxyResponseEvent createResponse(int statusCode, PagedJsonArray page) {
+        APIGatewayProxyResponseEvent response = createResponse(statusCode, page.getBody());
+        if (page.getNextToken() != null) {
+            response.getHeaders().put("X-Next-Token", page.getNextToken());
+        }
+        return response;
+    }
 }
@@ -0,0 +1,94 @@
+package com.revanth.handlers.therapists;
+
+import com.revanth.availability.WeeklyAvailability;
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.dynamodb.EmailLocks;
+import com.revanth.models.Therapist;
+import software.amazon.awssdk.core.SdkBytes;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.UpdateItemRequest;
+
+import java.util.Map;
+import java.util.logging.Logger;
+
+/**
+ * Derives the availability bitmap for therapists written before it existed.
+ *
+ * <pre>
+ * java -cp api-handler.jar com.revanth.handlers.therapists.AvailabilityBackfill --therapists TherapistsTable
+ * </pre>
+ *
+ * Only therapists with {@code slotsAvailable} and no {@code availability} attribute are written, and the
+ * update is conditional on the attribute still being absent, so rerunning is safe and a concurrent edit
+ * through the API wins. Free-form slots that don't parse get the empty "unknown" marker and are logged, so
+ * those therapists can be asked to re-enter their hours; until then search lists them as unknown.
+ */
+public final class AvailabilityBackfill {
+
+    private static final Logger LOGGER = Logger.getLogger(AvailabilityBackfill.class.getName());
+
+    private AvailabilityBackfill() {
+    }
+
+    public static void main(String[] args) {
+        String therapistsTable = System.getenv("THERAPISTS_TABLE_NAME");
+        for (int i = 0; i < args.length; i++) {
+            if ("--therapists".equals(args[i]) && i + 1 < args.length) {
+                therapistsTable = args[++i];
+            } else {
+                therapistsTable = null;
+                break;
+            }
+        }
+        if (therapistsTable == null) {
+            System.err.println("Usage: AvailabilityBackfill --therapists TABLE");
+            System.exit(2);
+        }
+
+        DynamoDbTable<Therapist> table = DynamoDbRegistry.table(Therapist.class, therapistsTable);
+        long encoded = 0;
+        long unknown = 0;
+        for (Therapist therapist : table.scan(ScanEnhancedRequest.builder()
+                        .attributesToProject("therapistId", "slotsAvailable", "availability")
+                        .filterExpression(EmailLocks.accountsOnly())
+                        .build())
+                .items()) {
+            if (therapist.getSlotsAvailable() == null || therapist.getAvailability() != null) {
+                continue;
+            }
+            byte[] bitmap = WeeklyAvailability.encode(therapist.getSlotsAvailable());
+            if (!setAvailability(therapistsTable, therapist.getTherapistId(), bitmap)) {
+                continue;
+            }
+            if (WeeklyAvailability.isKnown(bitmap)) {
+                encoded++;
+            } else {
+                unknown++;
+                LOGGER.warning("Free-form availability for therapist " + therapist.getTherapistId()
+                        + ": " + therapist.getSlotsAvailable());
+            }
+        }
+        LOGGER.info(String.format("Encoded availability for %d therapists, %d left unknown", encoded, unknown));
+    }
+
+    // Bumps the version as every other write does, so cached ETags for the therapist are invalidated
+    private static boolean setAvailability(String tableName, String therapistId, byte[] bitmap) {
+        try {
+            DynamoDbRegistry.dynamoDbClient().updateItem(UpdateItemRequest.builder()
+                    .tableName(tableName)
+                    .key(Map.of("therapistId", AttributeValue.fromS(therapistId)))
+                    .updateExpression("SET availability = :availability ADD version :one")
+                    .conditionExpression("attribute_exists(therapistId) AND attribute_not_exists(availability)")
+                    .expressionAttributeValues(Map.of(
+                            ":availability", AttributeValue.fromB(SdkBytes.fromByteArray(bitmap)),
+                            ":one", AttributeValue.fromN("1")))
+                    .build());
+            return true;
+        } catch (ConditionalCheckFailedException e) {
+            return false;
+        }
+    }
+}
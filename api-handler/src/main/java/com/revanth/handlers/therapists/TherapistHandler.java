@@ -5,66 +5,125 @@ import com.amazonaws.services.lambda.runtime.RequestHandler;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
 import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
 
+import com.revanth.availability.AvailabilityIndex;
+import com.revanth.availability.WeeklyAvailability;
+import com.revanth.dynamodb.BatchReader;
+import com.revanth.dynamodb.Conditions;
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.dynamodb.EmailLocks;
+import com.revanth.http.CachePolicies;
+import com.revanth.http.ContentEncoding;
+import com.revanth.http.ETags;
+import com.revanth.json.JsonCodec;
 import com.revanth.models.Therapist;
-import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import com.revanth.paging.PageRequest;
+import com.revanth.paging.PagedJsonArray;
+import com.revanth.security.AccessDeniedException;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AccessTokens;
+import com.revanth.security.AuthFilter;
+import com.revanth.security.TokenPair;
 import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
-import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
-import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryConditional;
+import software.amazon.awssdk.enhanced.dynamodb.model.QueryEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.ScanEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactUpdateItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.UpdateItemEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
 import org.mindrot.jbcrypt.BCrypt;
 
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.logging.Logger;
 
 public class TherapistHandler implements RequestHandler<APIGatewayProxyRequestEvent, APIGatewayProxyResponseEvent> {
     private static final Logger LOGGER = Logger.getLogger(TherapistHandler.class.getName());
     private final DynamoDbTable<Therapist> therapistTable;
-    private final ObjectMapper objectMapper;
 
-    public TherapistHandler() {
-        DynamoDbClient dynamoDbClient = DynamoDbClient.create();
-        DynamoDbEnhancedClient enhancedClient = DynamoDbEnhancedClient.builder()
-                .dynamoDbClient(dynamoDbClient)
-                .build();
+    // How long a search index may serve before a background rebuild from the table is started
+    private static final Duration AVAILABILITY_INDEX_TTL = Duration.ofSeconds(60);
 
-        therapistTable = enhancedClient.table(System.getenv("THERAPISTS_TABLE_NAME"), TableSchema.fromBean(Therapist.class));
-        objectMapper = new ObjectMapper();
+    private volatile AvailabilityIndex availabilityIndex;
+    private volatile Instant availabilityIndexExpiresAt = Instant.MIN;
+    // Bumped by every therapist write, so a rebuild that started before the write doesn't count as fresh
+    private final AtomicLong availabilityIndexGeneration = new AtomicLong();
+    private final AtomicBoolean availabilityIndexRefreshing = new AtomicBoolean();
+
+    public TherapistHandler() {
+        therapistTable = DynamoDbRegistry.table(Therapist.class, System.getenv("THERAPISTS_TABLE_NAME"));
     }
 
     @Override
     public APIGatewayProxyResponseEvent handleRequest(APIGatewayProxyRequestEvent request, Context context) {
+        ContentEncoding.decodeRequestBody(request);
+        AccessToken principal = AuthFilter.authenticate(request);
+        if (principal == null && !isPublicRoute(request)) {
+            return AuthFilter.unauthorized();
+        }
+        return ContentEncoding.encode(request, CachePolicies.apply(request, route(request, principal)));
+    }
+
+    // Sign-up, login and token refresh are the only routes callers reach without a token
+    private static boolean isPublicRoute(APIGatewayProxyRequestEvent request) {
+        String path = request.getPath();
+        return "POST".equals(request.getHttpMethod())
+                && (path.equals("/therapists") || path.equals("/therapists/login") || path.equals("/therapists/refresh"));
+    }
+
+    private APIGatewayProxyResponseEvent route(APIGatewayProxyRequestEvent request, AccessToken principal) {
         Map<String, String> headers = new HashMap<>();
         headers.put("Content-Type", "application/json");
         headers.put("Access-Control-Allow-Origin", "*");
 
         try {
             switch (request.getHttpMethod()) {
+                // The therapist directory is open to every signed-in user; only the owner may change a profile
                 case "GET":
-                    return handleGetRequest(request.getPath());
+                    return handleGetRequest(request);
                 case "POST":
                     return handlePostRequest(request);
                 case "PUT":
-                    return handlePutRequest(request);
+                    return handlePutRequest(request, principal);
                 case "DELETE":
-                    return handleDeleteRequest(request.getPath());
+                    return handleDeleteRequest(request.getPath(), principal);
                 default:
                     return createErrorResponse(405, "Method Not Allowed", headers);
             }
+        } catch (AccessDeniedException e) {
+            return AuthFilter.forbidden();
         } catch (Exception e) {
             LOGGER.severe("Error processing request: " + e.getMessage());
             return createErrorResponse(500, "Internal Server Error: " + e.getMessage(), headers);
         }
     }
 
-    private APIGatewayProxyResponseEvent handleGetRequest(String path) {
+    private APIGatewayProxyResponseEvent handleGetRequest(APIGatewayProxyRequestEvent request) {
+        String path = request.getPath();
         if (path.equals("/therapists")) {
-            return getAllTherapists();
+            Map<String, String> queryParams = request.getQueryStringParameters();
+            if (queryParams != null && queryParams.containsKey("ids")) {
+                return ETags.apply(request, getTherapistsByIds(queryParams.get("ids")), null);
+            }
+            return getAllTherapists(queryParams, request);
+        } else if (path.equals("/therapists/available")) {
+            return getAvailableTherapists(request.getQueryStringParameters());
         } else if (path.startsWith("/therapists/")) {
             String therapistId = path.split("/")[2];
-            return getTherapist(therapistId);
+            return getTherapist(therapistId, request);
         }
         return createErrorResponse(404, "Not Found", null);
     }
@@ -74,35 +133,196 @@ public class TherapistHandler implements RequestHandler<APIGatewayProxyRequestEv
             return createTherapist(request);
         } else if (request.getPath().equals("/therapists/login")) {
             return loginTherapist(request);
+        } else if (request.getPath().equals("/therapists/refresh")) {
+            return refreshToken(request);
         }
         return createErrorResponse(404, "Not Found", null);
     }
 
-    private APIGatewayProxyResponseEvent handlePutRequest(APIGatewayProxyRequestEvent request) {
+    private APIGatewayProxyResponseEvent handlePutRequest(APIGatewayProxyRequestEvent request, AccessToken principal) {
         if (request.getPath().startsWith("/therapists/")) {
             String therapistId = request.getPath().split("/")[2];
+            AuthFilter.require(principal.isTherapist(therapistId));
             return updateTherapist(therapistId, request);
         }
         return createErrorResponse(404, "Not Found", null);
     }
 
-    private APIGatewayProxyResponseEvent handleDeleteRequest(String path) {
+    private APIGatewayProxyResponseEvent handleDeleteRequest(String path, AccessToken principal) {
         if (path.startsWith("/therapists/")) {
             String therapistId = path.split("/")[2];
+            AuthFilter.require(principal.isTherapist(therapistId));
             return deleteTherapist(therapistId);
         }
         return createErrorResponse(404, "Not Found", null);
     }
 
-    private APIGatewayProxyResponseEvent getAllTherapists() {
+    /**
+     * One page of the therapist directory. The ETag is derived from the items' ETags and the continuation
+     * key, so an unchanged page is never serialized.
+     */
+    private APIGatewayProxyResponseEvent getAllTherapists(Map<String, String> queryParams,
+                                                          APIGatewayProxyRequestEvent request) {
         try {
-            return createSuccessResponse(therapistTable.scan().items());
+            PageRequest pageRequest = PageRequest.from(queryParams, "/therapists");
+            ScanEnhancedRequest scanRequest = ScanEnhancedRequest.builder()
+                    .limit(pageRequest.getLimit())
+                    .exclusiveStartKey(pageRequest.getExclusiveStartKey())
+                    .filterExpression(EmailLocks.accountsOnly())
+                    .build();
+
+            Page<Therapist> page = therapistTable.scan(scanRequest).iterator().next();
+            String etag = pageETag(page);
+            if (ETags.matches(request, etag)) {
+                return ETags.notModified(etag);
+            }
+            return ETags.apply(request,
+                    createPageResponse(PagedJsonArray.write(pageRequest, page, Therapist.class, therapistTable.tableSchema())), etag);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(400, e.getMessage(), null);
         } catch (Exception e) {
             LOGGER.severe("Error fetching therapists: " + e.getMessage());
             return createErrorResponse(500, "Error fetching therapists", null);
         }
     }
 
+    /**
+     * Therapists free for the whole {@code [from, to)} window, answered from the in-memory availability
+     * index instead of loading and parsing every therapist. Therapists whose availability is legacy
+     * free-form text can't be matched, so they are returned separately under {@code unknownAvailability}.
+     *
+     * The index is per execution environment and may be up to {@link #AVAILABILITY_INDEX_TTL} plus one
+     * rebuild behind the table; writes handled by another Lambda instance only show up after that.
+     */
+    private APIGatewayProxyResponseEvent getAvailableTherapists(Map<String, String> queryParams) {
+        try {
+            if (queryParams == null || queryParams.get("from") == null || queryParams.get("to") == null) {
+                return createErrorResponse(400, "from and to are required", null);
+            }
+            Instant from = WeeklyAvailability.parseTime(queryParams.get("from"));
+            Instant to = WeeklyAvailability.parseTime(queryParams.get("to"));
+
+            AvailabilityIndex index = availabilityIndex();
+            Map<String, List<Map<String, String>>> result = new LinkedHashMap<>();
+            result.put("available", summaries(index.freeDuring(from, to)));
+            result.put("unknownAvailability", summaries(index.unknownAvailability()));
+            return createSuccessResponse(result);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(400, e.getMessage(), null);
+        } catch (Exception e) {
+            LOGGER.severe("Error searching availability: " + e.getMessage());
+            return createErrorResponse(500, "Error searching availability", null);
+        }
+    }
+
+    private static List<Map<String, String>> summaries(List<Therapist> therapists) {
+        List<Map<String, String>> summaries = new ArrayList<>();
+        for (Therapist therapist : therapists) {
+            Map<String, String> summary = new HashMap<>();
+            summary.put("therapistId", therapist.getTherapistId());
+            summary.put("name", therapist.getName());
+            summaries.add(summary);
+        }
+        return summaries;
+    }
+
+    /**
+     * The current index. Only the first search in an execution environment waits for the scan; after
+     * that an expired index keeps serving while a rebuild runs in the background.
+     */
+    private AvailabilityIndex availabilityIndex() {
+        AvailabilityIndex index = availabilityIndex;
+        if (index == null) {
+            synchronized (this) {
+                if (availabilityIndex == null) {
+                    long generation = availabilityIndexGeneration.get();
+                    availabilityIndex = loadAvailabilityIndex();
+                    markAvailabilityIndexFresh(generation);
+                }
+                return availabilityIndex;
+            }
+        }
+        if (!Instant.now().isBefore(availabilityIndexExpiresAt)) {
+            refreshAvailabilityIndex();
+        }
+        return index;
+    }
+
+    private void refreshAvailabilityIndex() {
+        if (!availabilityIndexRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+        CompletableFuture.runAsync(() -> {
+            try {
+                long generation = availabilityIndexGeneration.get();
+                availabilityIndex = loadAvailabilityIndex();
+                markAvailabilityIndexFresh(generation);
+            } catch (RuntimeException e) {
+                LOGGER.warning("Error rebuilding the availability index: " + e.getMessage());
+            } finally {
+                availabilityIndexRefreshing.set(false);
+            }
+        }, DynamoDbRegistry.executor());
+    }
+
+    private AvailabilityIndex loadAvailabilityIndex() {
+        // Only the attributes the index needs; lock items have no email and are filtered out
+        ScanEnhancedRequest scanRequest = ScanEnhancedRequest.builder()
+                .attributesToProject("therapistId", "name", "availability")
+                .filterExpression(EmailLocks.accountsOnly())
+                .build();
+        return AvailabilityIndex.build(therapistTable.scan(scanRequest).items());
+    }
+
+    private void markAvailabilityIndexFresh(long generation) {
+        // A write during the scan leaves the index expired, so the next search starts another rebuild
+        if (availabilityIndexGeneration.get() == generation) {
+            availabilityIndexExpiresAt = Instant.now().plus(AVAILABILITY_INDEX_TTL);
+        }
+    }
+
+    /**
+     * Called after a therapist write, so this environment's next search doesn't keep serving the old index.
+     */
+    private void invalidateAvailabilityIndex() {
+        availabilityIndexGeneration.incrementAndGet();
+        availabilityIndexExpiresAt = Instant.MIN;
+        if (availabilityIndex != null) {
+            refreshAvailabilityIndex();
+        }
+    }
+
+    /**
+     * Fetches several therapists in one request. {@code items} keeps the request order and
+     * {@code missingIds} lists the IDs that don't exist; password hashes are not read at all.
+     */
+    private APIGatewayProxyResponseEvent getTherapistsByIds(String ids) {
+        try {
+            List<String> requestedIds = BatchReader.parseIds(ids);
+            List<Therapist> found = BatchReader.getAll(therapistTable, requestedIds, List.of("password"));
+
+            List<Therapist> items = new ArrayList<>();
+            List<String> missingIds = new ArrayList<>();
+            for (int i = 0; i < requestedIds.size(); i++) {
+                if (found.get(i) != null) {
+                    items.add(found.get(i));
+                } else {
+                    missingIds.add(requestedIds.get(i));
+                }
+            }
+
+            Map<String, Object> body = new LinkedHashMap<>();
+            body.put("items", items);
+            body.put("missingIds", missingIds);
+            return createSuccessResponse(body);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(400, e.getMessage(), null);
+        } catch (Exception e) {
+            LOGGER.severe("Error fetching therapists by ID: " + e.getMessage());
+            return createErrorResponse(500, "Error fetching therapists", null);
+        }
+    }
+
     private APIGatewayProxyResponseEvent createTherapist(APIGatewayProxyRequestEvent request) {
         try {
             Therapist therapist = parseBody(request, Therapist.class);
@@ -112,25 +332,44 @@ public class TherapistHandler implements RequestHandler<APIGatewayProxyRequestEv
             }
 
             therapist.setTherapistId(UUID.randomUUID().toString());
+            therapist.setEmail(EmailLocks.normalize(therapist.getEmail()));
             therapist.setPassword(BCrypt.hashpw(therapist.getPassword(), BCrypt.gensalt()));
-
-            therapistTable.putItem(therapist);
+            encodeAvailability(therapist);
+
+            // Write the therapist together with its email lock so two accounts can't share an email
+            DynamoDbRegistry.enhancedClient().transactWriteItems(TransactWriteItemsEnhancedRequest.builder()
+                    .addPutItem(therapistTable, conditionalPut(therapist))
+                    .addPutItem(therapistTable, conditionalPut(emailLock(therapist.getEmail())))
+                    .build());
+            invalidateAvailabilityIndex();
             return createSuccessResponse(therapist);
+        } catch (TransactionCanceledException e) {
+            return createErrorResponse(409, "Email is already registered", null);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(400, e.getMessage(), null);
         } catch (Exception e) {
             LOGGER.severe("Error creating therapist: " + e.getMessage());
             return createErrorResponse(500, "Error creating therapist", null);
         }
     }
 
-    private APIGatewayProxyResponseEvent getTherapist(String therapistId) {
+    /**
+     * Reads one therapist. The ETag is a hash of the stored attributes, so a matching {@code If-None-Match} is
+     * answered with 304 without serializing the item.
+     */
+    private APIGatewayProxyResponseEvent getTherapist(String therapistId, APIGatewayProxyRequestEvent request) {
         try {
             Therapist keyTherapist = new Therapist();
             keyTherapist.setTherapistId(therapistId);
             Therapist therapist = therapistTable.getItem(keyTherapist);
-
-            return therapist != null
-                    ? createSuccessResponse(therapist)
-                    : createErrorResponse(404, "Therapist not found", null);
+            if (therapist == null) {
+                return createErrorResponse(404, "Therapist not found", null);
+            }
+            String etag = ETags.ofItem(therapistTable.tableSchema(), therapist);
+            if (ETags.matches(request, etag)) {
+                return ETags.notModified(etag);
+            }
+            return ETags.apply(request, createSuccessResponse(therapist), etag);
         } catch (Exception e) {
             LOGGER.severe("Error fetching therapist: " + e.getMessage());
             return createErrorResponse(500, "Error fetching therapist", null);
@@ -139,39 +378,86 @@ public class TherapistHandler implements RequestHandler<APIGatewayProxyRequestEv
 
     private APIGatewayProxyResponseEvent updateTherapist(String therapistId, APIGatewayProxyRequestEvent request) {
         try {
-            Therapist keyTherapist = new Therapist();
-            keyTherapist.setTherapistId(therapistId);
-            Therapist existingTherapist = therapistTable.getItem(keyTherapist);
-
-            if (existingTherapist == null) {
-                return createErrorResponse(404, "Therapist not found", null);
+            Therapist changes = parseBody(request, Therapist.class);
+            changes.setTherapistId(therapistId);
+            changes.setEmail(EmailLocks.normalize(changes.getEmail()));
+            if (changes.getPassword() != null) {
+                changes.setPassword(BCrypt.hashpw(changes.getPassword(), BCrypt.gensalt()));
             }
-
-            Therapist updatedTherapist = parseBody(request, Therapist.class);
-            updatedTherapist.setTherapistId(therapistId);
-
-            if (updatedTherapist.getName() != null) existingTherapist.setName(updatedTherapist.getName());
-            if (updatedTherapist.getEmail() != null) existingTherapist.setEmail(updatedTherapist.getEmail());
-            if (updatedTherapist.getPassword() != null) {
-                existingTherapist.setPassword(BCrypt.hashpw(updatedTherapist.getPassword(), BCrypt.gensalt()));
+            encodeAvailability(changes);
+
+            if (changes.getEmail() == null) {
+                // One UpdateItem that SETs only the fields present in the body and returns the new item
+                Therapist updatedTherapist = therapistTable.updateItem(UpdateItemEnhancedRequest.builder(Therapist.class)
+                        .item(changes)
+                        .ignoreNulls(true)
+                        .conditionExpression(EmailLocks.accountsOnly())
+                        .build());
+                invalidateAvailabilityIndex();
+                return createSuccessResponse(updatedTherapist);
             }
-            if (updatedTherapist.getSlotsAvailable() != null) {
-                existingTherapist.setSlotsAvailable(updatedTherapist.getSlotsAvailable());
+            return changeEmail(therapistId, changes);
+        } catch (ConditionalCheckFailedException e) {
+            return createErrorResponse(404, "Therapist not found", null);
+        } catch (TransactionCanceledException e) {
+            if (Conditions.conditionFailed(e, 0)) {
+                return createErrorResponse(409, "Therapist was updated concurrently", null);
             }
-
-            therapistTable.putItem(existingTherapist);
-            return createSuccessResponse(existingTherapist);
+            return createErrorResponse(409, "Email is already registered", null);
+        } catch (IllegalArgumentException e) {
+            return createErrorResponse(400, e.getMessage(), null);
         } catch (Exception e) {
             LOGGER.severe("Error updating therapist: " + e.getMessage());
             return createErrorResponse(500, "Error updating therapist", null);
         }
     }
 
+    /**
+     * Applies an update that may change the email. The old email is needed to release its lock, so this
+     * path reads the therapist first and only commits if the email is still the one it read.
+     */
+    private APIGatewayProxyResponseEvent changeEmail(String therapistId, Therapist changes) {
+        Therapist keyTherapist = new Therapist();
+        keyTherapist.setTherapistId(therapistId);
+        Therapist existingTherapist = therapistTable.getItem(keyTherapist);
+        if (existingTherapist == null || existingTherapist.getEmail() == null) {
+            return createErrorResponse(404, "Therapist not found", null);
+        }
+
+        String oldEmail = existingTherapist.getEmail();
+        TransactWriteItemsEnhancedRequest.Builder transaction = TransactWriteItemsEnhancedRequest.builder()
+                .addUpdateItem(therapistTable, TransactUpdateItemEnhancedRequest.builder(Therapist.class)
+                        .item(changes)
+                        .ignoreNulls(true)
+                        .conditionExpression(EmailLocks.hasEmail(oldEmail))
+                        .build());
+        if (!changes.getEmail().equals(EmailLocks.normalize(oldEmail))) {
+            // Move the email lock in the same transaction as the update
+            transaction.addPutItem(therapistTable, conditionalPut(emailLock(changes.getEmail())))
+                    .addDeleteItem(therapistTable, emailLock(oldEmail));
+        }
+        DynamoDbRegistry.enhancedClient().transactWriteItems(transaction.build());
+        invalidateAvailabilityIndex();
+
+        // Transactions return no attributes; apply the changes to the copy that was read
+        if (changes.getName() != null) existingTherapist.setName(changes.getName());
+        if (changes.getSlotsAvailable() != null) existingTherapist.setSlotsAvailable(changes.getSlotsAvailable());
+        if (changes.getAvailability() != null) existingTherapist.setAvailability(changes.getAvailability());
+        existingTherapist.setEmail(changes.getEmail());
+        existingTherapist.setVersion(existingTherapist.getVersion() != null ? existingTherapist.getVersion() + 1 : 1L);
+        if (changes.getPassword() != null) existingTherapist.setPassword(changes.getPassword());
+        return createSuccessResponse(existingTherapist);
+    }
+
     private APIGatewayProxyResponseEvent deleteTherapist(String therapistId) {
         try {
             Therapist keyTherapist = new Therapist();
             keyTherapist.setTherapistId(therapistId);
-            therapistTable.deleteItem(keyTherapist);
+            Therapist deletedTherapist = therapistTable.deleteItem(keyTherapist);
+            invalidateAvailabilityIndex();
+            if (deletedTherapist != null && deletedTherapist.getEmail() != null) {
+                therapistTable.deleteItem(emailLock(deletedTherapist.getEmail()));
+            }
             return createSuccessResponse("Therapist deleted successfully");
         } catch (Exception e) {
             LOGGER.severe("Error deleting therapist: " + e.getMessage());
@@ -181,15 +467,16 @@ public class TherapistHandler implements RequestHandler<APIGatewayProxyRequestEv
 
     private APIGatewayProxyResponseEvent loginTherapist(APIGatewayProxyRequestEvent request) {
         try {
-            Map<String, String> credentials = parseBody(request, HashMap.class);
-            String email = credentials.get("email");
+            Map<String, String> credentials = parseFields(request);
+            String email = EmailLocks.normalize(credentials.get("email"));
             String password = credentials.get("password");
+            if (email == null || password == null) {
+                return createErrorResponse(400, "Email and password are required", null);
+            }
 
-            for (Therapist therapist : therapistTable.scan().items()) {
-                if (therapist.getEmail().equals(email) &&
-                        BCrypt.checkpw(password, therapist.getPassword())) {
-                    return createSuccessResponse("Login successful");
-                }
+            Therapist therapist = findByEmail(email);
+            if (therapist != null && BCrypt.checkpw(password, therapist.getPassword())) {
+                return createSuccessResponse(AccessTokens.issue(therapist.getTherapistId(), AccessToken.ROLE_THERAPIST, therapist.getPassword()));
             }
             return createErrorResponse(401, "Invalid email or password", null);
         } catch (Exception e) {
@@ -198,9 +485,83 @@ public class TherapistHandler implements RequestHandler<APIGatewayProxyRequestEv
         }
     }
 
+    private APIGatewayProxyResponseEvent refreshToken(APIGatewayProxyRequestEvent request) {
+        try {
+            Map<String, String> body = parseFields(request);
+            TokenPair tokens = AccessTokens.refresh(body.get("refreshToken"), this::currentCredential);
+            return tokens != null
+                    ? createSuccessResponse(tokens)
+                    : createErrorResponse(401, "Invalid refresh token", null);
+        } catch (Exception e) {
+            LOGGER.severe("Token refresh error: " + e.getMessage());
+            return createErrorResponse(500, "Token refresh error", null);
+        }
+    }
+
+    /**
+     * The stored password hash of a therapist, read consistently so a password change or deletion takes effect
+     * on the very next refresh; {@code null} if the therapist no longer exists.
+     */
+    private String currentCredential(String therapistId) {
+        Therapist keyTherapist = new Therapist();
+        keyTherapist.setTherapistId(therapistId);
+        Therapist therapist = therapistTable.getItem(r -> r.key(therapistTable.keyFrom(keyTherapist)).consistentRead(true));
+        return therapist == null ? null : therapist.getPassword();
+    }
+
+    private Therapist findByEmail(String email) {
+        QueryEnhancedRequest queryRequest = QueryEnhancedRequest.builder()
+                .queryConditional(QueryConditional.keyEqualTo(k -> k.partitionValue(email)))
+                .limit(1)
+                .build();
+        return therapistTable.index(EmailLocks.EMAIL_INDEX).query(queryRequest).stream()
+                .flatMap(page -> page.items().stream())
+                .findFirst()
+                .orElse(null);
+    }
+
+    /**
+     * Keeps the availability bitmap in step with {@code slotsAvailable}, the only form clients send.
+     * Free-form text from older clients is stored as sent and makes the availability unknown.
+     */
+    private void encodeAvailability(Therapist therapist) {
+        therapist.setAvailability(WeeklyAvailability.encode(therapist.getSlotsAvailable()));
+    }
+
+    private String pageETag(Page<Therapist> page) {
+        List<String> parts = new ArrayList<>();
+        for (Therapist therapist : page.items()) {
+            parts.add(ETags.ofItem(therapistTable.tableSchema(), therapist));
+        }
+        parts.add(String.valueOf(page.lastEvaluatedKey()));
+        return ETags.ofParts(parts);
+    }
+
+    private Therapist emailLock(String email) {
+        Therapist lock = new Therapist();
+        lock.setTherapistId(EmailLocks.lockKey(email));
+        return lock;
+    }
+
+    private TransactPutItemEnhancedRequest<Therapist> conditionalPut(Therapist item) {
+        return TransactPutItemEnhancedRequest.builder(Therapist.class)
+                .item(item)
+                .conditionExpression(Conditions.notExists("therapistId"))
+                .build();
+    }
+
     private <T> T parseBody(APIGatewayProxyRequestEvent request, Class<T> clazz) {
         try {
-            return objectMapper.readValue(request.getBody(), clazz);
+            return JsonCodec.read(request.getBody(), clazz);
+        } catch (Exception e) {
+            LOGGER.severe("Error parsing request body: " + e.getMessage());
+            throw new RuntimeException("Invalid request body", e);
+        }
+    }
+
+    private Map<String, String> parseFields(APIGatewayProxyRequestEvent request) {
+        try {
+            return JsonCodec.readStringMap(request.getBody());
         } catch (Exception e) {
             LOGGER.severe("Error parsing request body: " + e.getMessage());
             throw new RuntimeException("Invalid request body", e);
@@ -211,13 +572,25 @@ public class TherapistHandler implements RequestHandler<APIGatewayProxyRequestEv
         try {
             return new APIGatewayProxyResponseEvent()
                     .withStatusCode(200)
-                    .withBody(objectMapper.writeValueAsString(body));
+                    .withBody(JsonCodec.write(body));
         } catch (Exception e) {
             LOGGER.severe("Error creating success response: " + e.getMessage());
             return createErrorResponse(500, "Error creating response", null);
         }
     }
 
+    private APIGatewayProxyResponseEvent createPageResponse(PagedJsonArray page) {
+        Map<String, String> headers = new HashMap<>();
+        if (page.getNextToken() != null) {
+            headers.put("X-Next-Token", page.getNextToken());
+        }
+
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(200)
+                .withHeaders(headers)
+                .withBody(page.getBody());
+    }
+
     private APIGatewayProxyResponseEvent createErrorResponse(int statusCode, String message, Map<String, String> headers) {
         Map<String, String> defaultHeaders = new HashMap<>();
         defaultHeaders.put("Content-Type", "application/json");
@@ -0,0 +1,127 @@
+package com.revanth.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The cache policy of every cached route, shared by the handlers and the infra module.
+ *
+ * {@code APIGatewayStack} builds the stage cache settings and cache keys from {@link #ALL}, and handlers
+ * send the matching {@code Cache-Control} header through {@link #apply}, so the two can't drift apart.
+ * Only data that is fine to serve slightly stale is cached; journals, messages and sessions never are.
+ * Public entries are shared by every caller, so they hold only therapist profiles, which {@code JsonCodec}
+ * writes without the password hash.
+ *
+ * Cached routes sit behind {@code TokenAuthorizer}, which checks the access token before the cache is
+ * consulted; the handlers' own checks only run on a cache miss.
+ *
+ * The stage cache has no per-key eviction, so writes answer with an {@code X-Cache-Invalidate} header
+ * listing the cached paths they made stale. The writer re-reads those paths with
+ * {@code Cache-Control: max-age=0}, which the authorizer allows only for the paths of the caller's own
+ * profile; the stage ignores the header from everyone else, who see the change once the TTL runs out.
+ */
+public final class CachePolicies {
+
+    public static final String INVALIDATE_HEADER = "X-Cache-Invalidate";
+
+    // Literal routes come before parameterized ones they overlap with (available vs {therapistId})
+    public static final List<CachePolicy> ALL = List.of(
+            new CachePolicy("GET", "/therapists", 300, List.of("limit", "nextToken", "ids"), false),
+            // Same lifetime as the in-memory availability index behind it
+            new CachePolicy("GET", "/therapists/available", 60, List.of("from", "to"), false),
+            new CachePolicy("GET", "/therapists/{therapistId}", 300, List.of(), false),
+            new CachePolicy("GET", "/clients/{clientId}", 60, List.of(), true));
+
+    private CachePolicies() {
+    }
+
+    /**
+     * The policy for a route, by its API Gateway resource path, or {@code null} if it isn't cached.
+     */
+    public static CachePolicy forRoute(String method, String resourcePath) {
+        for (CachePolicy policy : ALL) {
+            if (policy.getMethod().equals(method) && policy.getResourcePath().equals(resourcePath)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Adds {@code Cache-Control} to cacheable responses of cached routes, and invalidation hints to
+     * successful writes.
+     */
+    public static APIGatewayProxyResponseEvent apply(APIGatewayProxyRequestEvent request,
+                                                     APIGatewayProxyResponseEvent response) {
+        Integer status = response.getStatusCode();
+        if (status == null || status >= 300 && status != 304) {
+            return response;
+        }
+
+        String method = request.getHttpMethod();
+        String path = request.getPath();
+        if ("GET".equals(method)) {
+            CachePolicy policy = match(method, path);
+            if (policy != null) {
+                withHeader(response, "Cache-Control", policy.cacheControl());
+            }
+            return response;
+        }
+
+        List<String> stale = invalidatedPaths(method, path);
+        if (!stale.isEmpty()) {
+            withHeader(response, INVALIDATE_HEADER, String.join(", ", stale));
+        }
+        return response;
+    }
+
+    /**
+     * The cached paths a write to {@code path} makes stale.
+     */
+    public static List<String> invalidatedPaths(String method, String path) {
+        if (path == null || "GET".equals(method)) {
+            return List.of();
+        }
+        List<String> segments = CachePolicy.segments(path);
+        Set<String> stale = new LinkedHashSet<>();
+        if (!segments.isEmpty() && segments.get(0).equals("therapists")) {
+            if (segments.size() == 1 || segments.size() == 2 && !isAccountAction(segments.get(1))) {
+                stale.add("/therapists");
+                stale.add("/therapists/available");
+            }
+            if (segments.size() == 2 && !isAccountAction(segments.get(1))) {
+                stale.add(path);
+            }
+        } else if (segments.size() == 2 && segments.get(0).equals("clients") && !isAccountAction(segments.get(1))) {
+            stale.add(path);
+        }
+        return new ArrayList<>(stale);
+    }
+
+    private static CachePolicy match(String method, String path) {
+        for (CachePolicy policy : ALL) {
+            if (policy.matches(method, path)) {
+                return policy;
+            }
+        }
+        return null;
+    }
+
+    // Login and token refresh are POSTs under the same resources but don't change any profile
+    private static boolean isAccountAction(String segment) {
+        return segment.equals("login") || segment.equals("refresh");
+    }
+
+    private static void withHeader(APIGatewayProxyResponseEvent response, String name, String value) {
+        Map<String, String> headers = response.getHeaders() != null ? new HashMap<>(response.getHeaders()) : new HashMap<>();
+        headers.put(name, value);
+        response.setHeaders(headers);
+    }
+}
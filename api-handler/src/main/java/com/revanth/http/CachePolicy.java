@@ -0,0 +1,110 @@
+package com.revanth.http;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Caching rules for one read route: how long API Gateway's stage cache and clients may keep a response,
+ * and which request parameters tell cached responses apart.
+ *
+ * {@code perUser} routes also key the cache on the {@code Authorization} header, so one caller's cached
+ * response is never served to another, and are marked {@code private} for shared caches downstream. The
+ * token in that header is verified by {@code TokenAuthorizer} before the cache lookup.
+ */
+public final class CachePolicy {
+
+    private final String method;
+    private final String resourcePath;
+    private final int ttlSeconds;
+    private final List<String> queryParameters;
+    private final boolean perUser;
+
+    CachePolicy(String method, String resourcePath, int ttlSeconds, List<String> queryParameters, boolean perUser) {
+        this.method = method;
+        this.resourcePath = resourcePath;
+        this.ttlSeconds = ttlSeconds;
+        this.queryParameters = List.copyOf(queryParameters);
+        this.perUser = perUser;
+    }
+
+    public String getMethod() {
+        return method;
+    }
+
+    /**
+     * The route as API Gateway names the resource, e.g. {@code /therapists/{therapistId}}.
+     */
+    public String getResourcePath() {
+        return resourcePath;
+    }
+
+    public int getTtlSeconds() {
+        return ttlSeconds;
+    }
+
+    public boolean isPerUser() {
+        return perUser;
+    }
+
+    /**
+     * The API Gateway method request parameters that make up the cache key: every path parameter, the
+     * listed query parameters, the headers the response depends on and, for per-user routes, the
+     * {@code Authorization} header.
+     */
+    public List<String> getCacheKeyParameters() {
+        List<String> parameters = new ArrayList<>();
+        for (String segment : segments(resourcePath)) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                parameters.add("method.request.path." + segment.substring(1, segment.length() - 1));
+            }
+        }
+        for (String parameter : queryParameters) {
+            parameters.add("method.request.querystring." + parameter);
+        }
+        // Gzipped bodies and 304s must only be served to requests that asked for them; Accept decides
+        // whether API Gateway can decode a handler-gzipped body for the caller
+        parameters.add("method.request.header.Accept");
+        parameters.add("method.request.header.Accept-Encoding");
+        parameters.add("method.request.header.If-None-Match");
+        if (perUser) {
+            parameters.add("method.request.header.Authorization");
+        }
+        return Collections.unmodifiableList(parameters);
+    }
+
+    /**
+     * The {@code Cache-Control} value handlers send with this route's successful responses.
+     */
+    public String cacheControl() {
+        return (perUser ? "private" : "public") + ", max-age=" + ttlSeconds;
+    }
+
+    boolean matches(String requestMethod, String path) {
+        if (!method.equals(requestMethod) || path == null) {
+            return false;
+        }
+        List<String> template = segments(resourcePath);
+        List<String> actual = segments(path);
+        if (template.size() != actual.size()) {
+            return false;
+        }
+        for (int i = 0; i < template.size(); i++) {
+            String segment = template.get(i);
+            if (!segment.startsWith("{") && !segment.equals(actual.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+}
@@ -0,0 +1,221 @@
+package com.revanth.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * Request and response body encoding shared by all handlers.
+ *
+ * Response bodies of at least {@code RESPONSE_COMPRESSION_MIN_BYTES} (default 1024) are gzipped when the
+ * request's {@code Accept-Encoding} allows it, and returned base64-encoded with {@code Content-Encoding:
+ * gzip}. API Gateway only turns them back into binary when the first media type in the request's
+ * {@code Accept} header is one of {@link #BINARY_MEDIA_TYPES}, which {@code APIGatewayStack} declares, so
+ * other requests are left plain here and compressed by API Gateway's own {@code minimumCompressionSize}
+ * instead; no response is compressed twice. Declaring JSON as binary also makes API Gateway base64-encode
+ * JSON request bodies, which {@link #decodeRequestBody} undoes before a handler reads them.
+ *
+ * Each thread keeps its {@link Deflater} and output buffer, so compressing a response doesn't allocate
+ * native zlib state or grow a fresh buffer every time.
+ */
+public final class ContentEncoding {
+
+    /**
+     * The media types API Gateway passes through as binary. Only JSON, so other content types are never
+     * base64-encoded on the way in or out.
+     */
+    public static final List<String> BINARY_MEDIA_TYPES = List.of("application/json");
+
+    private static final int MIN_COMPRESSED_BYTES = intEnv("RESPONSE_COMPRESSION_MIN_BYTES", 1024);
+    // Buffers that grew past this for one large response are dropped instead of kept per thread
+    private static final int MAX_RETAINED_BUFFER = 1024 * 1024;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, (byte) 0xff};
+
+    private static final ThreadLocal<Gzip> GZIP = ThreadLocal.withInitial(Gzip::new);
+
+    private ContentEncoding() {
+    }
+
+    /**
+     * Replaces a base64-encoded request body with its UTF-8 text. Safe to call more than once.
+     */
+    public static void decodeRequestBody(APIGatewayProxyRequestEvent request) {
+        if (Boolean.TRUE.equals(request.getIsBase64Encoded()) && request.getBody() != null) {
+            request.setBody(new String(Base64.getDecoder().decode(request.getBody()), StandardCharsets.UTF_8));
+            request.setIsBase64Encoded(false);
+        }
+    }
+
+    /**
+     * Compresses the response body when it is large enough and the client accepts gzip. Responses that
+     * are already encoded are returned unchanged.
+     */
+    public static APIGatewayProxyResponseEvent encode(APIGatewayProxyRequestEvent request,
+                                                      APIGatewayProxyResponseEvent response) {
+        if (response == null || response.getBody() == null || Boolean.TRUE.equals(response.getIsBase64Encoded())
+                || header(response.getHeaders(), "Content-Encoding") != null) {
+            return response;
+        }
+        byte[] body = response.getBody().getBytes(StandardCharsets.UTF_8);
+        if (body.length < MIN_COMPRESSED_BYTES) {
+            return response;
+        }
+
+        // Caches in front of the API must keep gzipped and plain variants apart
+        Map<String, String> headers = response.getHeaders() != null ? new HashMap<>(response.getHeaders()) : new HashMap<>();
+        String vary = header(headers, "Vary");
+        headers.put("Vary", vary == null ? "Accept-Encoding" : vary + ", Accept-Encoding");
+        response.setHeaders(headers);
+
+        if (!acceptsGzip(request) || !acceptsBinary(request)) {
+            return response;
+        }
+        String compressed = GZIP.get().compressToBase64(body);
+        if (compressed == null) {
+            return response;
+        }
+        headers.put("Content-Encoding", "gzip");
+        String etag = headers.get("ETag");
+        if (etag != null && etag.endsWith("\"") && !etag.startsWith("W/")) {
+            // A strong validator must differ between the gzipped and the plain representation
+            headers.put("ETag", etag.substring(0, etag.length() - 1) + ETags.GZIP_SUFFIX + "\"");
+        }
+        response.setBody(compressed);
+        response.setIsBase64Encoded(true);
+        return response;
+    }
+
+    /**
+     * Whether {@code Accept-Encoding} allows gzip, honouring {@code q=0} and the {@code *} wildcard.
+     */
+    static boolean acceptsGzip(APIGatewayProxyRequestEvent request) {
+        String acceptEncoding = header(request.getHeaders(), "Accept-Encoding");
+        if (acceptEncoding == null && request.getMultiValueHeaders() != null) {
+            for (Map.Entry<String, List<String>> entry : request.getMultiValueHeaders().entrySet()) {
+                if ("Accept-Encoding".equalsIgnoreCase(entry.getKey()) && entry.getValue() != null) {
+                    acceptEncoding = String.join(",", entry.getValue());
+                }
+            }
+        }
+        if (acceptEncoding == null) {
+            return false;
+        }
+
+        Boolean gzip = null;
+        Boolean wildcard = null;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim().toLowerCase(Locale.ROOT);
+            boolean allowed = true;
+            for (int i = 1; i < parts.length; i++) {
+                String parameter = parts[i].trim();
+                if (parameter.startsWith("q=")) {
+                    try {
+                        allowed = Double.parseDouble(parameter.substring(2)) > 0;
+                    } catch (NumberFormatException e) {
+                        allowed = false;
+                    }
+                }
+            }
+            if (name.equals("gzip") || name.equals("x-gzip")) {
+                gzip = allowed;
+            } else if (name.equals("*")) {
+                wildcard = allowed;
+            }
+        }
+        return gzip != null ? gzip : Boolean.TRUE.equals(wildcard);
+    }
+
+    /**
+     * Whether API Gateway will decode a base64 body for this request: it only looks at the first media
+     * type in {@code Accept}.
+     */
+    static boolean acceptsBinary(APIGatewayProxyRequestEvent request) {
+        String accept = header(request.getHeaders(), "Accept");
+        if (accept == null) {
+            return false;
+        }
+        String first = accept.split(",")[0].split(";")[0].trim().toLowerCase(Locale.ROOT);
+        return BINARY_MEDIA_TYPES.contains(first);
+    }
+
+    static String header(Map<String, String> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+
+    private static int intEnv(String name, int defaultValue) {
+        String value = System.getenv(name);
+        return value != null ? Integer.parseInt(value) : defaultValue;
+    }
+
+    /**
+     * A gzip writer over a reusable raw {@link Deflater}: header, deflate stream, then CRC-32 and length.
+     */
+    private static final class Gzip {
+        private final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+        private final CRC32 crc = new CRC32();
+        private byte[] buffer = new byte[16 * 1024];
+
+        /**
+         * The base64 of the gzipped input, or {@code null} when compressing wouldn't make it smaller.
+         */
+        private String compressToBase64(byte[] input) {
+            deflater.reset();
+            crc.reset();
+            crc.update(input, 0, input.length);
+
+            System.arraycopy(GZIP_HEADER, 0, buffer, 0, GZIP_HEADER.length);
+            int length = GZIP_HEADER.length;
+            deflater.setInput(input);
+            deflater.finish();
+            while (!deflater.finished()) {
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+                length += deflater.deflate(buffer, length, buffer.length - length);
+                if (length + 8 >= input.length) {
+                    return release(null);
+                }
+            }
+            length = writeIntLE(writeIntLE(length, (int) crc.getValue()), input.length);
+
+            ByteBuffer encoded = Base64.getEncoder().encode(ByteBuffer.wrap(buffer, 0, length));
+            return release(StandardCharsets.ISO_8859_1.decode(encoded).toString());
+        }
+
+        private int writeIntLE(int offset, int value) {
+            if (offset + 4 > buffer.length) {
+                buffer = Arrays.copyOf(buffer, buffer.length * 2);
+            }
+            for (int i = 0; i < 4; i++) {
+                buffer[offset + i] = (byte) (value >>> (8 * i));
+            }
+            return offset + 4;
+        }
+
+        private String release(String result) {
+            if (buffer.length > MAX_RETAINED_BUFFER) {
+                buffer = new byte[16 * 1024];
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.revanth.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Strong {@code ETag}s and {@code If-None-Match} handling for read endpoints.
+ *
+ * Stored items are tagged with a hash of their attributes, so a conditional GET that matches is answered
+ * with 304 before the item is serialized. Anything else is tagged with a hash of its parts or of the
+ * serialized body. Gzipped responses carry the ETag with a {@code -gzip} suffix, as a strong
+ * validator has to differ per content coding; both forms match here.
+ */
+public final class ETags {
+
+    static final String GZIP_SUFFIX = "-gzip";
+
+    private ETags() {
+    }
+
+    /**
+     * The ETag of a stored item, over its key and every other attribute. The version alone would repeat
+     * once an item is deleted and recreated, or restored from a backup, and it starts over at 1.
+     */
+    public static <T> String ofItem(TableSchema<T> tableSchema, T item) {
+        List<String> parts = new ArrayList<>();
+        for (Map.Entry<String, AttributeValue> attribute : new TreeMap<>(tableSchema.itemToMap(item, true)).entrySet()) {
+            parts.add(attribute.getKey());
+            parts.add(attribute.getValue().toString());
+        }
+        return ofParts(parts);
+    }
+
+    /**
+     * An ETag over the given parts, e.g. the IDs and versions of a page of items.
+     */
+    public static String ofParts(Iterable<String> parts) {
+        MessageDigest digest = sha256();
+        for (String part : parts) {
+            digest.update(String.valueOf(part).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+        }
+        // 128 bits is plenty to tell representations of one resource apart
+        return "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(Arrays.copyOf(digest.digest(), 16)) + "\"";
+    }
+
+    /**
+     * Whether {@code If-None-Match} lists the ETag (or is {@code *}), i.e. the caller's copy is current.
+     */
+    public static boolean matches(APIGatewayProxyRequestEvent request, String etag) {
+        String ifNoneMatch = ContentEncoding.header(request.getHeaders(), "If-None-Match");
+        if (ifNoneMatch == null || etag == null) {
+            return false;
+        }
+        String expected = opaque(etag);
+        for (String candidate : ifNoneMatch.split(",")) {
+            String tag = candidate.trim();
+            if (tag.equals("*") || opaque(tag).equals(expected)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public static APIGatewayProxyResponseEvent notModified(String etag) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("ETag", etag);
+        headers.put("Access-Control-Allow-Origin", "*");
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(304)
+                .withHeaders(headers);
+    }
+
+    /**
+     * Tags a successful response, falling back to a hash of its body when {@code etag} is {@code null},
+     * and turns it into a 304 if the caller already has it. Other responses are returned unchanged.
+     */
+    public static APIGatewayProxyResponseEvent apply(APIGatewayProxyRequestEvent request,
+                                                     APIGatewayProxyResponseEvent response, String etag) {
+        if (response.getStatusCode() == null || response.getStatusCode() != 200 || response.getBody() == null) {
+            return response;
+        }
+        String tag = etag != null ? etag : ofParts(List.of(response.getBody()));
+        if (matches(request, tag)) {
+            return notModified(tag);
+        }
+        Map<String, String> headers = response.getHeaders() != null ? new HashMap<>(response.getHeaders()) : new HashMap<>();
+        headers.put("ETag", tag);
+        response.setHeaders(headers);
+        return response;
+    }
+
+    private static String opaque(String tag) {
+        String value = tag.startsWith("W/") ? tag.substring(2) : tag;
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        return value.endsWith(GZIP_SUFFIX) ? value.substring(0, value.length() - GZIP_SUFFIX.length()) : value;
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,347 @@
+package com.revanth.importer;
+
+import com.revanth.dynamodb.BatchReader;
+import com.revanth.dynamodb.BatchWriter;
+import com.revanth.dynamodb.Conditions;
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.dynamodb.TokenBucket;
+import com.revanth.json.JsonCodec;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Expression;
+import software.amazon.awssdk.enhanced.dynamodb.model.PutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactPutItemEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.TransactWriteItemsEnhancedRequest;
+import software.amazon.awssdk.services.dynamodb.model.ConditionalCheckFailedException;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+import java.util.stream.Collectors;
+
+/**
+ * Loads NDJSON files of clients, therapists, mappings and sessions, e.g. when onboarding a clinic.
+ *
+ * <pre>
+ * java -cp api-handler.jar com.revanth.importer.BulkImport --rate 200 \
+ *     clients=clients.ndjson therapists=therapists.ndjson mappings=mappings.ndjson sessions=sessions.ndjson
+ * </pre>
+ *
+ * Files are imported in the order given, each in chunks: lines are parsed and validated, items that
+ * already exist are skipped, passwords of the remaining accounts are hashed on a bounded pool, and the
+ * items are written behind a token bucket of {@code --rate} items per second. While one chunk is written
+ * the next one is validated and hashed, and never more than that, so a slow or throttled table holds the
+ * reader back instead of filling memory. Mappings and sessions go out with {@code BatchWriteItem}.
+ * Accounts are written one transaction each, together with their email lock and on the condition that
+ * neither exists, so an import can never take over an email registered in the meantime; a rerun after a
+ * failure picks up exactly what is missing.
+ *
+ * Table names come from the same environment variables as the handlers. A summary is logged at the end,
+ * and {@code --report FILE} also writes it as JSON with the first problems per file.
+ */
+public final class BulkImport {
+
+    private static final Logger LOGGER = Logger.getLogger(BulkImport.class.getName());
+
+    private final TokenBucket limiter;
+    private final ExecutorService hashers;
+    private final ExecutorService writer;
+    private final int chunkSize;
+
+    private BulkImport(TokenBucket limiter, int hashThreads, int chunkSize) {
+        this.limiter = limiter;
+        this.hashers = Executors.newFixedThreadPool(hashThreads);
+        this.writer = Executors.newSingleThreadExecutor();
+        this.chunkSize = chunkSize;
+    }
+
+    public static void main(String[] args) throws Exception {
+        double rate = 100;
+        double burst = -1;
+        int hashThreads = Runtime.getRuntime().availableProcessors();
+        int chunkSize = 500;
+        Path reportFile = null;
+        List<String[]> files = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--rate":
+                    rate = Double.parseDouble(args[++i]);
+                    break;
+                case "--burst":
+                    burst = Double.parseDouble(args[++i]);
+                    break;
+                case "--hash-threads":
+                    hashThreads = Integer.parseInt(args[++i]);
+                    break;
+                case "--chunk-size":
+                    chunkSize = Integer.parseInt(args[++i]);
+                    break;
+                case "--report":
+                    reportFile = Paths.get(args[++i]);
+                    break;
+                default:
+                    String[] file = args[i].split("=", 2);
+                    if (file.length != 2) {
+                        throw new IllegalArgumentException("Expected NAME=FILE, got " + args[i]);
+                    }
+                    files.add(file);
+            }
+        }
+        if (files.isEmpty()) {
+            System.err.println("Usage: BulkImport [--rate ITEMS_PER_SECOND] [--burst ITEMS] [--hash-threads N] "
+                    + "[--chunk-size N] [--report FILE] clients=FILE therapists=FILE mappings=FILE sessions=FILE");
+            System.exit(2);
+        }
+
+        BulkImport bulkImport = new BulkImport(new TokenBucket(rate, burst > 0 ? burst : rate), hashThreads, chunkSize);
+        List<ImportReport> reports = new ArrayList<>();
+        try {
+            for (String[] file : files) {
+                ImportReport report = bulkImport.importFile(ModelImport.forName(file[0]), Paths.get(file[1]));
+                LOGGER.info(report.progress() + ", done in " + report.getElapsedMillis() + " ms");
+                reports.add(report);
+            }
+        } finally {
+            bulkImport.hashers.shutdownNow();
+            bulkImport.writer.shutdownNow();
+        }
+
+        if (reportFile != null) {
+            JsonCodec.mapper().writerWithDefaultPrettyPrinter().writeValue(reportFile.toFile(), reports);
+        }
+        if (reports.stream().anyMatch(ImportReport::hasProblems)) {
+            System.exit(1);
+        }
+    }
+
+    private <T> ImportReport importFile(ModelImport<T> model, Path file) throws IOException, InterruptedException,
+            ExecutionException {
+        DynamoDbTable<T> table = DynamoDbRegistry.table(model.type(), model.tableName());
+        List<String> keyAttributes = new ArrayList<>(table.tableSchema().tableMetadata().primaryKeys());
+        ImportReport report = new ImportReport(model.name(), file.toString());
+        Set<String> seenKeys = new HashSet<>();
+
+        CompletableFuture<Void> writing = CompletableFuture.completedFuture(null);
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            long lineNumber = 0;
+            List<Line<T>> chunk = new ArrayList<>(chunkSize);
+            String text;
+            while ((text = reader.readLine()) != null) {
+                lineNumber++;
+                if (text.isBlank()) {
+                    continue;
+                }
+                report.read(1);
+                try {
+                    T item = JsonCodec.read(text, model.type());
+                    model.prepare(item);
+                    if (!seenKeys.add(table.tableSchema().itemToMap(item, keyAttributes).toString())) {
+                        throw new IllegalArgumentException("Duplicate key in file.");
+                    }
+                    T lock = model.emailLock(item);
+                    if (lock != null && !seenKeys.add(table.tableSchema().itemToMap(lock, keyAttributes).toString())) {
+                        throw new IllegalArgumentException("Duplicate email in file.");
+                    }
+                    chunk.add(new Line<>(lineNumber, item));
+                } catch (Exception e) {
+                    report.rejected(lineNumber, e.getMessage());
+                }
+
+                if (chunk.size() == chunkSize) {
+                    writing = importChunk(model, table, chunk, report, writing);
+                    chunk = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                writing = importChunk(model, table, chunk, report, writing);
+            }
+        } finally {
+            writing.join();
+            report.finish();
+        }
+        return report;
+    }
+
+    /**
+     * Filters and hashes one chunk, then hands it to the writer once the previous chunk is written.
+     */
+    private <T> CompletableFuture<Void> importChunk(ModelImport<T> model, DynamoDbTable<T> table, List<Line<T>> chunk,
+                                                    ImportReport report, CompletableFuture<Void> previous)
+            throws InterruptedException, ExecutionException {
+        List<T> items = new ArrayList<>(chunk.size());
+        // Locks are looked up by the line they belong to, since not every line has to have one
+        Map<Long, T> locks = new HashMap<>();
+        List<Long> lockLines = new ArrayList<>();
+        for (Line<T> line : chunk) {
+            items.add(line.item);
+            T lock = model.emailLock(line.item);
+            if (lock != null) {
+                locks.put(line.number, lock);
+                lockLines.add(line.number);
+            }
+        }
+        List<Boolean> itemExists = BatchReader.exists(table, items);
+        Map<Long, Boolean> lockExists = new HashMap<>();
+        if (!lockLines.isEmpty()) {
+            List<Boolean> found = BatchReader.exists(table, lockLines.stream().map(locks::get).collect(Collectors.toList()));
+            for (int i = 0; i < lockLines.size(); i++) {
+                lockExists.put(lockLines.get(i), found.get(i));
+            }
+        }
+
+        List<Line<T>> toWrite = new ArrayList<>();
+        // Accounts that already exist but whose lock is missing; they count as skipped once the lock is in
+        List<Line<T>> locksToClaim = new ArrayList<>();
+        for (int i = 0; i < chunk.size(); i++) {
+            Line<T> line = chunk.get(i);
+            T lock = locks.get(line.number);
+            boolean hasLock = lock == null || lockExists.get(line.number);
+            if (itemExists.get(i)) {
+                if (hasLock) {
+                    report.skipped(1);
+                } else {
+                    // An earlier import wrote the account but not its lock
+                    locksToClaim.add(new Line<>(line.number, lock));
+                }
+            } else if (lock != null && hasLock) {
+                report.rejected(line.number, "Email is already registered");
+            } else {
+                toWrite.add(line);
+            }
+        }
+
+        List<Callable<Void>> hashing = new ArrayList<>(toWrite.size());
+        for (Line<T> line : toWrite) {
+            hashing.add(() -> {
+                model.hashPassword(line.item);
+                return null;
+            });
+        }
+        for (Future<Void> hashed : hashers.invokeAll(hashing)) {
+            hashed.get();
+        }
+
+        // Backpressure: wait for the previous chunk before queueing this one
+        previous.join();
+        return CompletableFuture.runAsync(() -> {
+            if (locks.isEmpty()) {
+                writeBatches(table, toWrite, report);
+            } else {
+                writeWithLocks(model, table, toWrite, locks, report);
+                claimLocks(model, table, locksToClaim, report);
+            }
+            LOGGER.info(report.progress());
+        }, writer);
+    }
+
+    private <T> void writeBatches(DynamoDbTable<T> table, List<Line<T>> lines, ImportReport report) {
+        List<BatchWriter.Result> results = BatchWriter.putAll(table, items(lines), limiter);
+        int written = 0;
+        for (int i = 0; i < results.size(); i++) {
+            if (results.get(i).succeeded()) {
+                written++;
+            } else {
+                report.failed(lines.get(i).number, results.get(i).getError());
+            }
+        }
+        report.imported(written);
+    }
+
+    /**
+     * Writes each account together with its email lock in one transaction, both on the condition that
+     * they don't exist yet, the same way sign-up does. An email that was registered after the chunk was
+     * checked, by the API or another import, is reported instead of being taken over.
+     */
+    private <T> void writeWithLocks(ModelImport<T> model, DynamoDbTable<T> table, List<Line<T>> lines,
+                                    Map<Long, T> locks, ImportReport report) {
+        Expression notExists = Conditions.notExists(table.tableSchema().tableMetadata().primaryPartitionKey());
+        List<CompletableFuture<Void>> writes = new ArrayList<>(lines.size());
+        for (Line<T> line : lines) {
+            writes.add(CompletableFuture.runAsync(() -> {
+                limiter.acquire(2);
+                try {
+                    DynamoDbRegistry.enhancedClient().transactWriteItems(TransactWriteItemsEnhancedRequest.builder()
+                            .addPutItem(table, conditionalPut(model, line.item, notExists))
+                            .addPutItem(table, conditionalPut(model, locks.get(line.number), notExists))
+                            .build());
+                    report.imported(1);
+                } catch (TransactionCanceledException e) {
+                    if (Conditions.conditionFailed(e, 0)) {
+                        report.skipped(1);
+                    } else if (Conditions.conditionFailed(e, 1)) {
+                        report.rejected(line.number, "Email is already registered");
+                    } else {
+                        report.failed(line.number, e.getMessage());
+                    }
+                } catch (RuntimeException e) {
+                    report.failed(line.number, e.getMessage());
+                }
+            }, DynamoDbRegistry.executor()));
+        }
+        CompletableFuture.allOf(writes.toArray(new CompletableFuture<?>[0])).join();
+    }
+
+    /**
+     * Adds the missing lock of an account an earlier import wrote, unless the email has been taken since.
+     */
+    private <T> void claimLocks(ModelImport<T> model, DynamoDbTable<T> table, List<Line<T>> locks,
+                                ImportReport report) {
+        Expression notExists = Conditions.notExists(table.tableSchema().tableMetadata().primaryPartitionKey());
+        for (Line<T> lock : locks) {
+            limiter.acquire(1);
+            try {
+                table.putItem(PutItemEnhancedRequest.builder(model.type())
+                        .item(lock.item)
+                        .conditionExpression(notExists)
+                        .build());
+                report.skipped(1);
+            } catch (ConditionalCheckFailedException e) {
+                report.rejected(lock.number, "Email is already registered");
+            } catch (RuntimeException e) {
+                report.failed(lock.number, "Email lock: " + e.getMessage());
+            }
+        }
+    }
+
+    private static <T> TransactPutItemEnhancedRequest<T> conditionalPut(ModelImport<T> model, T item,
+                                                                       Expression condition) {
+        return TransactPutItemEnhancedRequest.builder(model.type())
+                .item(item)
+                .conditionExpression(condition)
+                .build();
+    }
+
+    private static <T> List<T> items(List<Line<T>> lines) {
+        List<T> items = new ArrayList<>(lines.size());
+        for (Line<T> line : lines) {
+            items.add(line.item);
+        }
+        return items;
+    }
+
+    private static final class Line<T> {
+        private final long number;
+        private final T item;
+
+        private Line(long number, T item) {
+            this.number = number;
+            this.item = item;
+        }
+    }
+}
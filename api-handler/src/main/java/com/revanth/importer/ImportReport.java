@@ -0,0 +1,135 @@
+package com.revanth.importer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Counts for one import file. Lines end up in exactly one of imported, skipped (already present, e.g.
+ * from an earlier run), rejected (invalid, nothing written) or failed (the write didn't go through and
+ * rerunning the import retries it). Updated from the reader and the writer thread, hence synchronized.
+ */
+final class ImportReport {
+
+    private static final int MAX_LISTED_PROBLEMS = 1000;
+
+    private final String name;
+    private final String file;
+    private final long startNanos = System.nanoTime();
+    private long lines;
+    private long imported;
+    private long skipped;
+    private long rejected;
+    private long failed;
+    private long elapsedMillis;
+    private final List<Problem> problems = new ArrayList<>();
+
+    ImportReport(String name, String file) {
+        this.name = name;
+        this.file = file;
+    }
+
+    synchronized void read(int count) {
+        lines += count;
+    }
+
+    synchronized void imported(int count) {
+        imported += count;
+    }
+
+    synchronized void skipped(int count) {
+        skipped += count;
+    }
+
+    synchronized void rejected(long line, String error) {
+        rejected++;
+        problem(line, "rejected", error);
+    }
+
+    synchronized void failed(long line, String error) {
+        failed++;
+        problem(line, "failed", error);
+    }
+
+    synchronized void finish() {
+        elapsedMillis = (System.nanoTime() - startNanos) / 1_000_000;
+    }
+
+    synchronized String progress() {
+        double seconds = Math.max((System.nanoTime() - startNanos) / 1e9, 1e-3);
+        return String.format("%s: %d lines, %d imported, %d skipped, %d rejected, %d failed (%.0f lines/s)",
+                name, lines, imported, skipped, rejected, failed, lines / seconds);
+    }
+
+    synchronized boolean hasProblems() {
+        return rejected > 0 || failed > 0;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getFile() {
+        return file;
+    }
+
+    public synchronized long getLines() {
+        return lines;
+    }
+
+    public synchronized long getImported() {
+        return imported;
+    }
+
+    public synchronized long getSkipped() {
+        return skipped;
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    public synchronized long getFailed() {
+        return failed;
+    }
+
+    public synchronized long getElapsedMillis() {
+        return elapsedMillis;
+    }
+
+    /**
+     * The first rejected or failed lines, with the reason; the counts above include the rest.
+     */
+    public synchronized List<Problem> getProblems() {
+        return new ArrayList<>(problems);
+    }
+
+    private void problem(long line, String status, String error) {
+        if (problems.size() < MAX_LISTED_PROBLEMS) {
+            problems.add(new Problem(line, status, error));
+        }
+    }
+
+    public static final class Problem {
+        private final long line;
+        private final String status;
+        private final String error;
+
+        private Problem(long line, String status, String error) {
+            this.line = line;
+            this.status = status;
+            this.error = error;
+        }
+
+        public long getLine() {
+            return line;
+        }
+
+        public String getStatus() {
+            return status;
+        }
+
+        public String getError() {
+            return error;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.revanth.importer;
+
+import com.revanth.availability.WeeklyAvailability;
+import com.revanth.dynamodb.EmailLocks;
+import com.revanth.models.Client;
+import com.revanth.models.ClientTherapistMapping;
+import com.revanth.models.Session;
+import com.revanth.models.Therapist;
+import org.mindrot.jbcrypt.BCrypt;
+
+import java.nio.charset.StandardCharsets;
+import java.util.UUID;
+
+/**
+ * How one kind of import file is validated and turned into items.
+ *
+ * Items without an ID get one derived from their natural key (the email for accounts, the participants
+ * and date for sessions), so importing the same file twice addresses the same items and the second run
+ * finds them already present.
+ */
+abstract class ModelImport<T> {
+
+    private final String name;
+    private final Class<T> type;
+    private final String tableEnv;
+
+    private ModelImport(String name, Class<T> type, String tableEnv) {
+        this.name = name;
+        this.type = type;
+        this.tableEnv = tableEnv;
+    }
+
+    static ModelImport<?> forName(String name) {
+        switch (name) {
+            case "clients":
+                return new ClientImport();
+            case "therapists":
+                return new TherapistImport();
+            case "mappings":
+                return new MappingImport();
+            case "sessions":
+                return new SessionImport();
+            default:
+                throw new IllegalArgumentException("Unknown import " + name + ", use clients, therapists, mappings or sessions.");
+        }
+    }
+
+    String name() {
+        return name;
+    }
+
+    Class<T> type() {
+        return type;
+    }
+
+    String tableName() {
+        String tableName = System.getenv(tableEnv);
+        if (tableName == null) {
+            throw new IllegalStateException(tableEnv + " is not set.");
+        }
+        return tableName;
+    }
+
+    /**
+     * Checks and normalizes a parsed item, filling in derived fields. Throws
+     * {@link IllegalArgumentException} with the reason when the item can't be imported.
+     */
+    abstract void prepare(T item);
+
+    /**
+     * The email lock that has to exist next to the item, or {@code null} for models without one.
+     */
+    T emailLock(T item) {
+        return null;
+    }
+
+    /**
+     * Replaces a plain-text password with its BCrypt hash. This is the expensive step, so it only runs
+     * for items that are actually written.
+     */
+    void hashPassword(T item) {
+    }
+
+    static String hash(String password) {
+        // Hashes exported from another system are taken over as they are
+        if (password.length() == 60 && password.matches("\\$2[aby]\\$\\d\\d\\$.*")) {
+            return password;
+        }
+        return BCrypt.hashpw(password, BCrypt.gensalt());
+    }
+
+    static String derivedId(String... parts) {
+        return UUID.nameUUIDFromBytes(String.join("|", parts).getBytes(StandardCharsets.UTF_8)).toString();
+    }
+
+    static void require(boolean condition, String message) {
+        if (!condition) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+
+    private static final class ClientImport extends ModelImport<Client> {
+        private ClientImport() {
+            super("clients", Client.class, "CLIENTS_TABLE_NAME");
+        }
+
+        @Override
+        void prepare(Client client) {
+            require(client.getEmail() != null && client.getPassword() != null, "Email and password are required");
+            client.setEmail(EmailLocks.normalize(client.getEmail()));
+            // BatchWriteItem bypasses the atomic counter, so seed it the way a first put would
+            client.setVersion(0L);
+            if (client.getClientId() == null) {
+                client.setClientId(derivedId("client", client.getEmail()));
+            }
+        }
+
+        @Override
+        Client emailLock(Client client) {
+            Client lock = new Client();
+            lock.setClientId(EmailLocks.lockKey(client.getEmail()));
+            return lock;
+        }
+
+        @Override
+        void hashPassword(Client client) {
+            client.setPassword(hash(client.getPassword()));
+        }
+    }
+
+    private static final class TherapistImport extends ModelImport<Therapist> {
+        private TherapistImport() {
+            super("therapists", Therapist.class, "THERAPISTS_TABLE_NAME");
+        }
+
+        @Override
+        void prepare(Therapist therapist) {
+            require(therapist.getEmail() != null && therapist.getPassword() != null, "Email and password are required");
+            therapist.setEmail(EmailLocks.normalize(therapist.getEmail()));
+            // BatchWriteItem bypasses the atomic counter, so seed it the way a first put would
+            therapist.setVersion(0L);
+            if (therapist.getTherapistId() == null) {
+                therapist.setTherapistId(derivedId("therapist", therapist.getEmail()));
+            }
+            therapist.setAvailability(WeeklyAvailability.encode(therapist.getSlotsAvailable()));
+        }
+
+        @Override
+        Therapist emailLock(Therapist therapist) {
+            Therapist lock = new Therapist();
+            lock.setTherapistId(EmailLocks.lockKey(therapist.getEmail()));
+            return lock;
+        }
+
+        @Override
+        void hashPassword(Therapist therapist) {
+            therapist.setPassword(hash(therapist.getPassword()));
+        }
+    }
+
+    private static final class MappingImport extends ModelImport<ClientTherapistMapping> {
+        private MappingImport() {
+            super("mappings", ClientTherapistMapping.class, "MAPPINGS_TABLE_NAME");
+        }
+
+        @Override
+        void prepare(ClientTherapistMapping mapping) {
+            require(mapping.getClientId() != null && mapping.getTherapistId() != null,
+                    "clientId and therapistId are required.");
+            if (mapping.getJournalAccess() == null) {
+                mapping.setJournalAccess("No");
+            }
+            require("Yes".equals(mapping.getJournalAccess()) || "No".equals(mapping.getJournalAccess()),
+                    "journalAccess must be Yes or No.");
+            // BatchWriteItem bypasses the versioned put, so start the version the way a first put would
+            mapping.setVersion(1L);
+        }
+    }
+
+    private static final class SessionImport extends ModelImport<Session> {
+        private SessionImport() {
+            super("sessions", Session.class, "SESSIONS_TABLE_NAME");
+        }
+
+        @Override
+        void prepare(Session session) {
+            require(session.getSessionDate() != null && session.getTherapistId() != null && session.getClientId() != null,
+                    "sessionDate, therapistId, and clientId are required.");
+            if (session.getSessionId() == null) {
+                session.setSessionId(derivedId("session", session.getClientId(), session.getTherapistId(),
+                        session.getSessionDate()));
+            }
+        }
+    }
+}
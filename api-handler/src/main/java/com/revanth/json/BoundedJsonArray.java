@@ -0,0 +1,103 @@
+package com.revanth.json;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * A JSON array written item by item from a lazily fetched result, with hard limits on size.
+ *
+ * Items are pulled from the iterable one at a time (for DynamoDB results, one page at a time) and
+ * serialized straight into the output buffer, so memory is bounded by {@code maxBytes} rather than by
+ * the number of rows. Writing stops at whichever limit is hit first; the array is always valid JSON.
+ */
+public final class BoundedJsonArray {
+
+    public static final int DEFAULT_MAX_ITEMS = 1000;
+    // Lambda caps synchronous response payloads at 6 MB.
+    public static final int DEFAULT_MAX_BYTES = 4 * 1024 * 1024;
+
+    private final String body;
+    private final int itemCount;
+    private final boolean truncated;
+
+    private BoundedJsonArray(String body, int itemCount, boolean truncated) {
+        this.body = body;
+        this.itemCount = itemCount;
+        this.truncated = truncated;
+    }
+
+    public static <T> BoundedJsonArray write(Iterable<T> items, Class<T> type) {
+        return write(items, type, DEFAULT_MAX_ITEMS, DEFAULT_MAX_BYTES);
+    }
+
+    public static <T> BoundedJsonArray write(Iterable<T> items, Class<T> type, int maxItems, int maxBytes) {
+        ObjectWriter writer = JsonCodec.writer(type);
+        TruncatableOutputStream out = new TruncatableOutputStream();
+        int count = 0;
+        boolean truncated = false;
+
+        try (JsonGenerator generator = JsonCodec.mapper().getFactory().createGenerator(out)) {
+            // Items are root values to the generator; the commas between them are written here
+            generator.setRootValueSeparator(null);
+            out.write('[');
+            Iterator<T> iterator = items.iterator();
+            while (iterator.hasNext()) {
+                if (count == maxItems) {
+                    truncated = true;
+                    break;
+                }
+
+                int mark = out.size();
+                if (count > 0) {
+                    out.write(',');
+                }
+                writer.writeValue(generator, iterator.next());
+                generator.flush();
+
+                // Leave room for the closing bracket; drop the item that crossed the limit.
+                if (out.size() + 1 > maxBytes) {
+                    out.truncate(mark);
+                    truncated = true;
+                    break;
+                }
+                count++;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Error converting to JSON: " + e.getMessage(), e);
+        }
+
+        out.write(']');
+        return new BoundedJsonArray(out.toString(StandardCharsets.UTF_8), count, truncated);
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    public int getItemCount() {
+        return itemCount;
+    }
+
+    /**
+     * Whether items were left out because a limit was reached.
+     */
+    public boolean isTruncated() {
+        return truncated;
+    }
+
+    private static final class TruncatableOutputStream extends ByteArrayOutputStream {
+        TruncatableOutputStream() {
+            super(8 * 1024);
+        }
+
+        void truncate(int size) {
+            count = size;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package com.revanth.json;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import com.revanth.models.Appointment;
+import com.revanth.models.Client;
+import com.revanth.models.ClientTherapistMapping;
+import com.revanth.models.Journal;
+import com.revanth.models.Message;
+import com.revanth.models.Session;
+import com.revanth.models.Therapist;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Shared JSON reader/writer cache for the handlers.
+ *
+ * One {@link ObjectMapper} with the Blackbird module is built per JVM, and the readers and writers for
+ * each model (and for lists of each model) are resolved up front, so requests never rebuild Jackson's
+ * serializer caches.
+ *
+ * Account passwords are read from request bodies but never written: the password hash of a client or
+ * therapist is left out of every response, whichever handler or path serializes the account.
+ */
+public final class JsonCodec {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new BlackbirdModule())
+            .addMixIn(Client.class, AccountResponse.class)
+            .addMixIn(Therapist.class, AccountResponse.class);
+    private static final ObjectWriter WRITER = MAPPER.writer();
+    private static final ObjectReader STRING_MAP_READER = MAPPER.readerFor(new TypeReference<Map<String, String>>() {
+    });
+
+    private static final Map<Class<?>, ObjectReader> READERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> WRITERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectWriter> LIST_WRITERS = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectReader> LIST_READERS = new ConcurrentHashMap<>();
+
+    static {
+        for (Class<?> model : List.of(Client.class, Therapist.class, Message.class, Journal.class,
+                Session.class, Appointment.class, ClientTherapistMapping.class)) {
+            reader(model);
+            writer(model);
+            listReader(model);
+            listWriter(model);
+        }
+    }
+
+    private JsonCodec() {
+    }
+
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static ObjectReader reader(Class<?> type) {
+        return READERS.computeIfAbsent(type, MAPPER::readerFor);
+    }
+
+    public static ObjectWriter writer(Class<?> type) {
+        return WRITERS.computeIfAbsent(type, MAPPER::writerFor);
+    }
+
+    public static ObjectWriter listWriter(Class<?> elementType) {
+        return LIST_WRITERS.computeIfAbsent(elementType,
+                type -> MAPPER.writerFor(MAPPER.getTypeFactory().constructCollectionType(List.class, type)));
+    }
+
+    public static ObjectReader listReader(Class<?> elementType) {
+        return LIST_READERS.computeIfAbsent(elementType, MAPPER::readerForListOf);
+    }
+
+    public static <T> T read(String json, Class<T> type) throws JsonProcessingException {
+        return reader(type).readValue(json);
+    }
+
+    public static <T> List<T> readList(String json, Class<T> elementType) throws JsonProcessingException {
+        return listReader(elementType).readValue(json);
+    }
+
+    /**
+     * Reads a flat JSON object of string fields, e.g. login credentials.
+     */
+    public static Map<String, String> readStringMap(String json) throws JsonProcessingException {
+        return STRING_MAP_READER.readValue(json);
+    }
+
+    /**
+     * Serializes with the cached writer for the value's runtime class, so the serializer is looked up
+     * once per class rather than on every call.
+     */
+    public static String write(Object value) throws JsonProcessingException {
+        return value != null ? writer(value.getClass()).writeValueAsString(value) : WRITER.writeValueAsString(null);
+    }
+
+    public static <T> String writeList(List<T> values, Class<T> elementType) throws JsonProcessingException {
+        return listWriter(elementType).writeValueAsString(values);
+    }
+
+    /**
+     * The response projection of an account: everything but the password.
+     */
+    private abstract static class AccountResponse {
+        @JsonProperty(access = JsonProperty.Access.WRITE_ONLY)
+        abstract String getPassword();
+    }
+}
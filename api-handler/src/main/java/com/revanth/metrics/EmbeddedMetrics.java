@@ -0,0 +1,55 @@
+package com.revanth.metrics;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.amazonaws.services.lambda.runtime.LambdaRuntime;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.revanth.json.JsonCodec;
+
+import java.time.Instant;
+import java.util.Map;
+
+/**
+ * Publishes counters as CloudWatch embedded metrics: one JSON log line per call, from which CloudWatch
+ * extracts the values as metrics in the {@code TherapyApp} namespace. Lines go through the Lambda
+ * runtime's logger, which writes each one whole and attributes it to the current request.
+ */
+public final class EmbeddedMetrics {
+
+    static final String NAMESPACE = "TherapyApp";
+
+    private EmbeddedMetrics() {
+    }
+
+    /**
+     * Logs the counts, in order, as metrics with unit {@code Count}.
+     */
+    public static void publishCounts(Instant timestamp, Map<String, Long> counts) {
+        publishCounts(LambdaRuntime.getLogger(), timestamp, counts);
+    }
+
+    static void publishCounts(LambdaLogger logger, Instant timestamp, Map<String, Long> counts) {
+        logger.log(format(timestamp, counts) + "\n");
+    }
+
+    static String format(Instant timestamp, Map<String, Long> counts) {
+        ObjectNode line = JsonCodec.mapper().createObjectNode();
+        ObjectNode directive = line.putObject("_aws")
+                .put("Timestamp", timestamp.toEpochMilli())
+                .putArray("CloudWatchMetrics")
+                .addObject()
+                .put("Namespace", NAMESPACE);
+        directive.putArray("Dimensions").addArray();
+        ArrayNode metrics = directive.putArray("Metrics");
+        counts.forEach((name, count) -> {
+            metrics.addObject().put("Name", name).put("Unit", "Count");
+            line.put(name, count);
+        });
+        try {
+            return JsonCodec.write(line);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Could not write metrics", e);
+        }
+    }
+}
@@ -26,7 +26,7 @@ public class Appointment {
     }
 
     public void setDateTimeSlot(String dateTimeSlot) {
-        this.timestamp = timestamp;
+        this.timestamp = dateTimeSlot;
     }
 
     @DynamoDbAttribute("clientId")
@@ -1,8 +1,10 @@
 package com.revanth.models;
 
+import software.amazon.awssdk.enhanced.dynamodb.extensions.annotations.DynamoDbAtomicCounter;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
 
 import java.util.List;
 
@@ -12,6 +14,7 @@ public class Client {
     private String name;
     private String email;
     private String password;
+    private Long version;
 
     @DynamoDbPartitionKey
     @DynamoDbAttribute("clientId")
@@ -32,6 +35,7 @@ public class Client {
         this.name = name;
     }
 
+    @DynamoDbSecondaryPartitionKey(indexNames = "EmailIndex")
     @DynamoDbAttribute("email")
     public String getEmail() {
         return email;
@@ -49,4 +53,17 @@ public class Client {
     public void setPassword(String password) {
         this.password = password;
     }
+
+    /**
+     * Incremented by every write, so it identifies the item's current state (see the {@code ETag}s).
+     */
+    @DynamoDbAtomicCounter
+    @DynamoDbAttribute("version")
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
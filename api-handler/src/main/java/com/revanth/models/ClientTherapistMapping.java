@@ -1,12 +1,19 @@
 package com.revanth.models;
 
+import software.amazon.awssdk.enhanced.dynamodb.extensions.annotations.DynamoDbVersionAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.*;
 
 @DynamoDbBean
 public class ClientTherapistMapping {
+    // A therapist's request stays pending until the client accepts it; a client's own mapping is accepted
+    public static final String STATUS_PENDING = "pending";
+    public static final String STATUS_ACCEPTED = "accepted";
+
     private String clientId;
     private String therapistId;
     private String journalAccess;
+    private String status;
+    private Long version;
 
     @DynamoDbPartitionKey
     @DynamoDbAttribute("clientId")
@@ -36,4 +43,23 @@ public class ClientTherapistMapping {
     public void setJournalAccess(String journalAccess) {
         this.journalAccess = journalAccess;
     }
+
+    @DynamoDbAttribute("status")
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    @DynamoDbVersionAttribute
+    @DynamoDbAttribute("version")
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
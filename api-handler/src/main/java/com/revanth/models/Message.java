@@ -3,6 +3,8 @@ package com.revanth.models;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondarySortKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
 @DynamoDbBean
@@ -13,6 +15,9 @@ public class Message {
 
     private String receiver;
     private String messageContent;
+    private String senderRole;
+    private String clientId;
+    private String therapistId;
 
     @DynamoDbPartitionKey
     @DynamoDbAttribute("conversationId")
@@ -25,6 +30,7 @@ public class Message {
     }
 
     @DynamoDbSortKey
+    @DynamoDbSecondarySortKey(indexNames = {"ClientMessagesIndex", "TherapistMessagesIndex"})
     @DynamoDbAttribute("timestamp")
     public String getTimestamp() {
         return timestamp;
@@ -60,4 +66,33 @@ public class Message {
     public void setMessageContent(String messageContent) {
         this.messageContent = messageContent;
     }
+
+    @DynamoDbAttribute("senderRole")
+    public String getSenderRole() {
+        return senderRole;
+    }
+
+    public void setSenderRole(String senderRole) {
+        this.senderRole = senderRole;
+    }
+
+    @DynamoDbSecondaryPartitionKey(indexNames = "ClientMessagesIndex")
+    @DynamoDbAttribute("clientId")
+    public String getClientId() {
+        return clientId;
+    }
+
+    public void setClientId(String clientId) {
+        this.clientId = clientId;
+    }
+
+    @DynamoDbSecondaryPartitionKey(indexNames = "TherapistMessagesIndex")
+    @DynamoDbAttribute("therapistId")
+    public String getTherapistId() {
+        return therapistId;
+    }
+
+    public void setTherapistId(String therapistId) {
+        this.therapistId = therapistId;
+    }
 }
@@ -0,0 +1,79 @@
+package com.revanth.models;
+
+import java.math.BigDecimal;
+import java.util.Map;
+
+/**
+ * Mood statistics for one client over one day, ISO week or month.
+ */
+public class MoodSummary {
+    private String period;
+    private long entries;
+    private BigDecimal intensityMean;
+    private BigDecimal intensityMin;
+    private BigDecimal intensityMax;
+    private Map<String, Long> feelings;
+    private Map<String, Long> intensities;
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(String period) {
+        this.period = period;
+    }
+
+    public long getEntries() {
+        return entries;
+    }
+
+    public void setEntries(long entries) {
+        this.entries = entries;
+    }
+
+    public BigDecimal getIntensityMean() {
+        return intensityMean;
+    }
+
+    public void setIntensityMean(BigDecimal intensityMean) {
+        this.intensityMean = intensityMean;
+    }
+
+    public BigDecimal getIntensityMin() {
+        return intensityMin;
+    }
+
+    public void setIntensityMin(BigDecimal intensityMin) {
+        this.intensityMin = intensityMin;
+    }
+
+    public BigDecimal getIntensityMax() {
+        return intensityMax;
+    }
+
+    public void setIntensityMax(BigDecimal intensityMax) {
+        this.intensityMax = intensityMax;
+    }
+
+    /**
+     * Number of entries per feeling.
+     */
+    public Map<String, Long> getFeelings() {
+        return feelings;
+    }
+
+    public void setFeelings(Map<String, Long> feelings) {
+        this.feelings = feelings;
+    }
+
+    /**
+     * Number of entries per intensity value.
+     */
+    public Map<String, Long> getIntensities() {
+        return intensities;
+    }
+
+    public void setIntensities(Map<String, Long> intensities) {
+        this.intensities = intensities;
+    }
+}
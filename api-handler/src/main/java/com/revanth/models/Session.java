@@ -3,6 +3,8 @@ package com.revanth.models;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondarySortKey;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSortKey;
 
 @DynamoDbBean
@@ -25,6 +27,7 @@ public class Session {
     }
 
     @DynamoDbSortKey
+    @DynamoDbSecondarySortKey(indexNames = "TherapistSessionsIndex")
     @DynamoDbAttribute("sessionDate")
     public String getSessionDate() {
         return sessionDate;
@@ -34,6 +37,8 @@ public class Session {
         this.sessionDate = sessionDate;
     }
 
+    @DynamoDbSecondarySortKey(indexNames = "ClientSessionsIndex")
+    @DynamoDbSecondaryPartitionKey(indexNames = "TherapistSessionsIndex")
     @DynamoDbAttribute("therapistId")
     public String getTherapistId() {
         return therapistId;
@@ -43,6 +48,7 @@ public class Session {
         this.therapistId = therapistId;
     }
 
+    @DynamoDbSecondaryPartitionKey(indexNames = "ClientSessionsIndex")
     @DynamoDbAttribute("clientId")
     public String getClientId() {
         return clientId;
@@ -1,8 +1,10 @@
 package com.revanth.models;
 
+import software.amazon.awssdk.enhanced.dynamodb.extensions.annotations.DynamoDbAtomicCounter;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbAttribute;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbBean;
 import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbPartitionKey;
+import software.amazon.awssdk.enhanced.dynamodb.mapper.annotations.DynamoDbSecondaryPartitionKey;
 
 import java.util.List;
 
@@ -14,6 +16,8 @@ public class Therapist {
 
     private String password;
     private List<String> slotsAvailable;
+    private byte[] availability;
+    private Long version;
 
     @DynamoDbPartitionKey
     @DynamoDbAttribute("therapistId")
@@ -34,6 +38,7 @@ public class Therapist {
         this.name = name;
     }
 
+    @DynamoDbSecondaryPartitionKey(indexNames = "EmailIndex")
     @DynamoDbAttribute("email")
     public String getEmail() {
         return email;
@@ -60,4 +65,29 @@ public class Therapist {
     public void setSlotsAvailable(List<String> slotsAvailable) {
         this.slotsAvailable = slotsAvailable;
     }
+
+    /**
+     * Weekly bitmap of free 15-minute slots, derived from {@link #getSlotsAvailable()}.
+     */
+    @DynamoDbAttribute("availability")
+    public byte[] getAvailability() {
+        return availability;
+    }
+
+    public void setAvailability(byte[] availability) {
+        this.availability = availability;
+    }
+
+    /**
+     * Incremented by every write, so it identifies the item's current state (see the {@code ETag}s).
+     */
+    @DynamoDbAtomicCounter
+    @DynamoDbAttribute("version")
+    public Long getVersion() {
+        return version;
+    }
+
+    public void setVersion(Long version) {
+        this.version = version;
+    }
 }
@@ -0,0 +1,68 @@
+package com.revanth.paging;
+
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+/**
+ * The {@code limit} and {@code nextToken} query parameters of a list request, together with the scope
+ * its page tokens are bound to.
+ */
+public final class PageRequest {
+
+    public static final int DEFAULT_LIMIT = 50;
+    public static final int MAX_LIMIT = 100;
+
+    private final int limit;
+    private final Map<String, AttributeValue> exclusiveStartKey;
+    private final String scope;
+
+    private PageRequest(int limit, Map<String, AttributeValue> exclusiveStartKey, String scope) {
+        this.limit = limit;
+        this.exclusiveStartKey = exclusiveStartKey;
+        this.scope = scope;
+    }
+
+    /**
+     * @param scope the route and the partition key values being listed, e.g. {@code "/sessions",
+     *              "clientId", clientId}; a token is only accepted by the listing it was issued for
+     * @throws IllegalArgumentException if {@code limit} is not a positive number or the token is invalid
+     */
+    public static PageRequest from(Map<String, String> queryParams, String... scope) {
+        String tokenScope = PageTokens.scope(scope);
+        if (queryParams == null) {
+            return new PageRequest(DEFAULT_LIMIT, null, tokenScope);
+        }
+
+        int limit = DEFAULT_LIMIT;
+        String limitParam = queryParams.get("limit");
+        if (limitParam != null) {
+            try {
+                limit = Integer.parseInt(limitParam);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("limit must be a number");
+            }
+            if (limit < 1) {
+                throw new IllegalArgumentException("limit must be positive");
+            }
+        }
+
+        return new PageRequest(Math.min(limit, MAX_LIMIT), PageTokens.decode(tokenScope, queryParams.get("nextToken")),
+                tokenScope);
+    }
+
+    /**
+     * The token for the page after the one ending at {@code lastEvaluatedKey}, or {@code null}.
+     */
+    public String nextToken(Map<String, AttributeValue> lastEvaluatedKey) {
+        return PageTokens.encode(scope, lastEvaluatedKey);
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+
+    public Map<String, AttributeValue> getExclusiveStartKey() {
+        return exclusiveStartKey;
+    }
+}
@@ -0,0 +1,108 @@
+package com.revanth.paging;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.revanth.json.JsonCodec;
+import com.revanth.security.Signer;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Opaque, tamper-proof continuation tokens wrapping a DynamoDB {@code LastEvaluatedKey}.
+ *
+ * A token is the Base64 JSON of the key followed by its HMAC signature. The signature also covers the
+ * token's scope, i.e. the route and partition it was issued for (see {@link #scope}), so a token from one
+ * user's listing can't be replayed against another's. Only string and number key attributes are
+ * supported, which covers every table and index in this service.
+ */
+public final class PageTokens {
+
+    private static final Signer SIGNER = Signer.forPurpose("page-token");
+    private static final TypeReference<Map<String, Map<String, String>>> KEY_TYPE = new TypeReference<>() {
+    };
+
+    private PageTokens() {
+    }
+
+    /**
+     * Builds a scope from the route and the partition key values of a listing.
+     */
+    public static String scope(String... parts) {
+        StringBuilder scope = new StringBuilder();
+        for (String part : parts) {
+            // Length-prefixed, so no choice of IDs makes two different scopes equal
+            String value = String.valueOf(part);
+            scope.append(value.length()).append(':').append(value);
+        }
+        return scope.toString();
+    }
+
+    public static String encode(String scope, Map<String, AttributeValue> lastEvaluatedKey) {
+        if (lastEvaluatedKey == null || lastEvaluatedKey.isEmpty()) {
+            return null;
+        }
+
+        Map<String, Map<String, String>> key = new HashMap<>();
+        for (Map.Entry<String, AttributeValue> entry : lastEvaluatedKey.entrySet()) {
+            AttributeValue value = entry.getValue();
+            if (value.s() != null) {
+                key.put(entry.getKey(), Map.of("S", value.s()));
+            } else if (value.n() != null) {
+                key.put(entry.getKey(), Map.of("N", value.n()));
+            } else {
+                throw new IllegalArgumentException("Unsupported key attribute type for " + entry.getKey());
+            }
+        }
+
+        try {
+            String payload = Base64.getUrlEncoder().withoutPadding()
+                    .encodeToString(JsonCodec.mapper().writeValueAsBytes(key));
+            return payload + "." + SIGNER.sign(signed(scope, payload));
+        } catch (Exception e) {
+            throw new IllegalStateException("Error encoding page token: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Decodes a token produced by {@link #encode(String, Map)} for the same scope.
+     *
+     * @throws IllegalArgumentException if the token is malformed, was issued for another scope or its
+     *                                  signature does not match
+     */
+    public static Map<String, AttributeValue> decode(String scope, String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+
+        int separator = token.indexOf('.');
+        if (separator < 0 || !SIGNER.verify(signed(scope, token.substring(0, separator)),
+                token.substring(separator + 1))) {
+            throw new IllegalArgumentException("Invalid nextToken");
+        }
+
+        Map<String, Map<String, String>> key;
+        try {
+            byte[] json = Base64.getUrlDecoder().decode(token.substring(0, separator));
+            key = JsonCodec.mapper().readValue(new String(json, StandardCharsets.UTF_8), KEY_TYPE);
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Invalid nextToken", e);
+        }
+
+        Map<String, AttributeValue> lastEvaluatedKey = new HashMap<>();
+        for (Map.Entry<String, Map<String, String>> entry : key.entrySet()) {
+            Map<String, String> value = entry.getValue();
+            lastEvaluatedKey.put(entry.getKey(), value.containsKey("N")
+                    ? AttributeValue.builder().n(value.get("N")).build()
+                    : AttributeValue.builder().s(value.get("S")).build());
+        }
+        return lastEvaluatedKey;
+    }
+
+    private static String signed(String scope, String payload) {
+        // The payload is Base64 and never contains a newline, so the last one ends the scope
+        return scope + "\n" + payload;
+    }
+}
@@ -0,0 +1,75 @@
+package com.revanth.paging;
+
+import com.revanth.json.BoundedJsonArray;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.Page;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * One page of DynamoDB results serialized as a JSON array, with the token for the next page.
+ *
+ * If the page does not fit in {@link BoundedJsonArray#DEFAULT_MAX_BYTES}, the token points at the last
+ * item that was written instead of at the end of the page, so no item is skipped.
+ */
+public final class PagedJsonArray {
+
+    private final String body;
+    private final String nextToken;
+
+    private PagedJsonArray(String body, String nextToken) {
+        this.body = body;
+        this.nextToken = nextToken;
+    }
+
+    public static <T> PagedJsonArray write(PageRequest request, Page<T> page, Class<T> type, TableSchema<T> schema) {
+        return write(request, page, type, schema, null);
+    }
+
+    /**
+     * @param indexName the index the page was read from, or {@code null} for the base table
+     */
+    public static <T> PagedJsonArray write(PageRequest request, Page<T> page, Class<T> type, TableSchema<T> schema,
+                                           String indexName) {
+        List<T> items = page.items();
+        BoundedJsonArray array = BoundedJsonArray.write(items, type, items.size(), BoundedJsonArray.DEFAULT_MAX_BYTES);
+
+        Map<String, AttributeValue> lastKey = page.lastEvaluatedKey();
+        if (array.isTruncated() && array.getItemCount() > 0) {
+            T lastItem = items.get(array.getItemCount() - 1);
+            lastKey = schema.itemToMap(lastItem, keyAttributes(schema.tableMetadata(), indexName));
+        }
+        return new PagedJsonArray(array.getBody(), request.nextToken(lastKey));
+    }
+
+    /**
+     * Wraps an already serialized page read through the low-level client.
+     */
+    public static PagedJsonArray of(PageRequest request, String body, Map<String, AttributeValue> lastEvaluatedKey) {
+        return new PagedJsonArray(body, request.nextToken(lastEvaluatedKey));
+    }
+
+    public String getBody() {
+        return body;
+    }
+
+    /**
+     * The token for the next page, or {@code null} on the last page.
+     */
+    public String getNextToken() {
+        return nextToken;
+    }
+
+    private static List<String> keyAttributes(TableMetadata metadata, String indexName) {
+        List<String> attributes = new ArrayList<>(metadata.primaryKeys());
+        if (indexName != null) {
+            attributes.add(metadata.indexPartitionKey(indexName));
+            metadata.indexSortKey(indexName).ifPresent(attributes::add);
+        }
+        return attributes;
+    }
+}
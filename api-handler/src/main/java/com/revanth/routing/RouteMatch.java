@@ -0,0 +1,29 @@
+package com.revanth.routing;
+
+import java.util.Map;
+
+/**
+ * Result of a {@link Router} lookup: the route target and the path parameters captured on the way.
+ */
+public final class RouteMatch<T> {
+
+    private final T target;
+    private final Map<String, String> pathParameters;
+
+    RouteMatch(T target, Map<String, String> pathParameters) {
+        this.target = target;
+        this.pathParameters = pathParameters;
+    }
+
+    /**
+     * The target registered for the request method, or {@code null} if the path exists but the method
+     * is not allowed on it.
+     */
+    public T getTarget() {
+        return target;
+    }
+
+    public Map<String, String> getPathParameters() {
+        return pathParameters;
+    }
+}
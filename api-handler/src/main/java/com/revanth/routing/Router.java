@@ -0,0 +1,105 @@
+package com.revanth.routing;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Path router backed by a trie of path segments.
+ *
+ * Routes are registered once at startup as patterns such as {@code /clients/{clientId}}. Matching walks
+ * the request path one segment at a time, preferring literal segments over parameters, so dispatch cost
+ * depends on the path depth rather than on the number of routes. It only backtracks where a literal and
+ * a parameter share a parent and the literal branch has no route for the request method.
+ *
+ * @param <T> the type of the route targets
+ */
+public final class Router<T> {
+
+    private final Node<T> root = new Node<>();
+
+    public Router<T> add(String method, String pathPattern, T target) {
+        Node<T> node = root;
+        for (String segment : segments(pathPattern)) {
+            if (segment.startsWith("{") && segment.endsWith("}")) {
+                String name = segment.substring(1, segment.length() - 1);
+                if (node.paramChild == null) {
+                    node.paramChild = new Node<>();
+                    node.paramName = name;
+                } else if (!node.paramName.equals(name)) {
+                    throw new IllegalArgumentException("Conflicting path parameter {" + name + "} in " + pathPattern);
+                }
+                node = node.paramChild;
+            } else {
+                node = node.literalChildren.computeIfAbsent(segment, s -> new Node<>());
+            }
+        }
+
+        if (node.targets.putIfAbsent(method, target) != null) {
+            throw new IllegalArgumentException("Duplicate route " + method + " " + pathPattern);
+        }
+        return this;
+    }
+
+    /**
+     * Finds the route for a request. Returns {@code null} when no route matches the path; when the path
+     * matches but the method does not, the returned match has no target.
+     *
+     * A literal segment is tried before a parameter, but if the literal branch has no route for the
+     * method, the parameter branch is tried too, so {@code GET /clients/login} still reaches
+     * {@code GET /clients/{clientId}} when only {@code POST /clients/login} is registered.
+     */
+    public RouteMatch<T> match(String method, String path) {
+        return find(root, segments(path == null ? "" : path), 0, method, new HashMap<>());
+    }
+
+    private RouteMatch<T> find(Node<T> node, List<String> segments, int index, String method,
+                               Map<String, String> pathParameters) {
+        if (index == segments.size()) {
+            if (node.targets.isEmpty()) {
+                return null;
+            }
+            return new RouteMatch<>(node.targets.get(method),
+                    pathParameters.isEmpty() ? Collections.emptyMap() : new HashMap<>(pathParameters));
+        }
+
+        String segment = segments.get(index);
+        RouteMatch<T> pathOnly = null;
+        Node<T> literal = node.literalChildren.get(segment);
+        if (literal != null) {
+            RouteMatch<T> match = find(literal, segments, index + 1, method, pathParameters);
+            if (match != null && match.getTarget() != null) {
+                return match;
+            }
+            pathOnly = match;
+        }
+        if (node.paramChild != null) {
+            pathParameters.put(node.paramName, segment);
+            RouteMatch<T> match = find(node.paramChild, segments, index + 1, method, pathParameters);
+            pathParameters.remove(node.paramName);
+            if (match != null && (match.getTarget() != null || pathOnly == null)) {
+                return match;
+            }
+        }
+        return pathOnly;
+    }
+
+    private static List<String> segments(String path) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : path.split("/")) {
+            if (!segment.isEmpty()) {
+                segments.add(segment);
+            }
+        }
+        return segments;
+    }
+
+    private static final class Node<T> {
+        private final Map<String, Node<T>> literalChildren = new HashMap<>();
+        private final Map<String, T> targets = new HashMap<>();
+        private Node<T> paramChild;
+        private String paramName;
+    }
+}
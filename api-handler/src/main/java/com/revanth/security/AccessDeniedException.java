@@ -0,0 +1,14 @@
+package com.revanth.security;
+
+/**
+ * Thrown when an authenticated caller asks for something that belongs to another user. Handlers answer
+ * it with 403.
+ */
+public class AccessDeniedException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public AccessDeniedException(String message) {
+        super(message);
+    }
+}
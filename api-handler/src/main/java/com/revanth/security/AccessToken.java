@@ -0,0 +1,67 @@
+package com.revanth.security;
+
+/**
+ * Claims carried by a verified access or refresh token.
+ */
+public final class AccessToken {
+
+    public static final String ROLE_CLIENT = "client";
+    public static final String ROLE_THERAPIST = "therapist";
+
+    private final String subject;
+    private final String role;
+    private final long expiresAt;
+
+    AccessToken(String subject, String role, long expiresAt) {
+        this.subject = subject;
+        this.role = role;
+        this.expiresAt = expiresAt;
+    }
+
+    /**
+     * The clientId or therapistId the token was issued to.
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * Expiry as epoch seconds.
+     */
+    public long getExpiresAt() {
+        return expiresAt;
+    }
+
+    public boolean isClient() {
+        return ROLE_CLIENT.equals(role);
+    }
+
+    public boolean isTherapist() {
+        return ROLE_THERAPIST.equals(role);
+    }
+
+    /**
+     * Whether the token was issued to the given client.
+     */
+    public boolean isClient(String clientId) {
+        return isClient() && subject.equals(clientId);
+    }
+
+    /**
+     * Whether the token was issued to the given therapist.
+     */
+    public boolean isTherapist(String therapistId) {
+        return isTherapist() && subject.equals(therapistId);
+    }
+
+    /**
+     * Whether the token was issued to either side of a client-therapist pair.
+     */
+    public boolean isParticipant(String clientId, String therapistId) {
+        return isClient(clientId) || isTherapist(therapistId);
+    }
+}
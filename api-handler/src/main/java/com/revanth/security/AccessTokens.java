@@ -0,0 +1,114 @@
+package com.revanth.security;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.function.Function;
+
+/**
+ * Issues and verifies stateless HMAC-signed tokens.
+ *
+ * A token is {@code base64url(role|expiresAt|subject)} followed by a dot and its signature. Verifying one
+ * is a single HMAC over a few dozen bytes; there is no DynamoDB read and no BCrypt. Access and refresh
+ * tokens are signed with different keys, so one can't be used as the other.
+ *
+ * A refresh token also carries a stamp of the account's password hash, {@code base64url(role|expiresAt|
+ * stamp|subject)}. Refreshing looks the account up and only succeeds while the stamp still matches, so
+ * deleting the account or changing its password ends every session at the next refresh.
+ */
+public final class AccessTokens {
+
+    public static final Duration ACCESS_TOKEN_TTL = Duration.ofMinutes(15);
+    public static final Duration REFRESH_TOKEN_TTL = Duration.ofDays(30);
+
+    private static final Signer ACCESS_SIGNER = Signer.forPurpose("access-token");
+    private static final Signer REFRESH_SIGNER = Signer.forPurpose("refresh-token");
+    private static final Signer CREDENTIAL_SIGNER = Signer.forPurpose("credential-stamp");
+
+    private AccessTokens() {
+    }
+
+    /**
+     * Issues a token pair for an account whose stored password hash is {@code credential}.
+     */
+    public static TokenPair issue(String subject, String role, String credential) {
+        long now = System.currentTimeMillis() / 1000;
+        return new TokenPair(
+                sign(ACCESS_SIGNER, role + "|" + (now + ACCESS_TOKEN_TTL.getSeconds()) + "|" + subject),
+                sign(REFRESH_SIGNER, role + "|" + (now + REFRESH_TOKEN_TTL.getSeconds()) + "|"
+                        + stamp(credential) + "|" + subject),
+                ACCESS_TOKEN_TTL.getSeconds());
+    }
+
+    /**
+     * Returns the claims of a valid, unexpired access token, or {@code null}.
+     */
+    public static AccessToken verifyAccessToken(String token) {
+        return verify(ACCESS_SIGNER, token);
+    }
+
+    /**
+     * Issues a new token pair for a valid refresh token, or returns {@code null}. {@code credentials}
+     * returns the subject's current password hash, or {@code null} if the account no longer exists; it is
+     * only called once the token's signature and expiry check out.
+     */
+    public static TokenPair refresh(String refreshToken, Function<String, String> credentials) {
+        String[] claims = verifyClaims(REFRESH_SIGNER, refreshToken, 4);
+        if (claims == null) {
+            return null;
+        }
+        String credential = credentials.apply(claims[3]);
+        if (credential == null || !stamp(credential).equals(claims[2])) {
+            return null;
+        }
+        return issue(claims[3], claims[0], credential);
+    }
+
+    /**
+     * A keyed fingerprint of the password hash: it changes with the password and reveals nothing about it.
+     */
+    private static String stamp(String credential) {
+        return CREDENTIAL_SIGNER.sign(credential).substring(0, 16);
+    }
+
+    private static String sign(Signer signer, String claims) {
+        String payload = Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(claims.getBytes(StandardCharsets.UTF_8));
+        return payload + "." + signer.sign(payload);
+    }
+
+    private static AccessToken verify(Signer signer, String token) {
+        String[] claims = verifyClaims(signer, token, 3);
+        return claims == null ? null : new AccessToken(claims[2], claims[0], Long.parseLong(claims[1]));
+    }
+
+    /**
+     * Returns the {@code |}-separated claims of a validly signed, unexpired token, or {@code null}. The
+     * subject is always the last claim, so it may itself contain the separator.
+     */
+    private static String[] verifyClaims(Signer signer, String token, int count) {
+        if (token == null) {
+            return null;
+        }
+
+        int separator = token.indexOf('.');
+        if (separator < 0) {
+            return null;
+        }
+        String payload = token.substring(0, separator);
+        if (!signer.verify(payload, token.substring(separator + 1))) {
+            return null;
+        }
+
+        try {
+            String claims = new String(Base64.getUrlDecoder().decode(payload), StandardCharsets.UTF_8);
+            String[] parts = claims.split("\\|", count);
+            if (parts.length != count || Long.parseLong(parts[1]) <= System.currentTimeMillis() / 1000) {
+                return null;
+            }
+            return parts;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+}
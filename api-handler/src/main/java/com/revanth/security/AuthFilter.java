@@ -0,0 +1,84 @@
+package com.revanth.security;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Authenticates requests from their {@code Authorization: Bearer} header.
+ *
+ * Every handler calls {@link #authenticate} before routing and answers requests without a valid token
+ * with {@link #unauthorized()}; only sign-up, login and token refresh are reachable without one. Which
+ * user a request may act for is decided per route by the handler, which throws
+ * {@link AccessDeniedException} (see {@link #require}) and answers it with {@link #forbidden()}.
+ */
+public final class AuthFilter {
+
+    private static final String BEARER_PREFIX = "Bearer ";
+
+    private AuthFilter() {
+    }
+
+    /**
+     * Returns the claims of the request's access token, or {@code null} if it has no valid one.
+     */
+    public static AccessToken authenticate(APIGatewayProxyRequestEvent request) {
+        return authenticate(header(request.getHeaders(), "Authorization"));
+    }
+
+    /**
+     * Returns the claims of the access token in an {@code Authorization} header value, or {@code null}
+     * if it isn't a valid bearer token.
+     */
+    public static AccessToken authenticate(String authorization) {
+        if (authorization == null || !authorization.regionMatches(true, 0, BEARER_PREFIX, 0, BEARER_PREFIX.length())) {
+            return null;
+        }
+        return AccessTokens.verifyAccessToken(authorization.substring(BEARER_PREFIX.length()).trim());
+    }
+
+    /**
+     * Throws {@link AccessDeniedException} unless the caller is allowed to make the request.
+     */
+    public static void require(boolean allowed) {
+        if (!allowed) {
+            throw new AccessDeniedException("Forbidden");
+        }
+    }
+
+    public static APIGatewayProxyResponseEvent unauthorized() {
+        APIGatewayProxyResponseEvent response = errorResponse(401, "Unauthorized");
+        response.getHeaders().put("WWW-Authenticate", "Bearer");
+        return response;
+    }
+
+    public static APIGatewayProxyResponseEvent forbidden() {
+        return errorResponse(403, "Forbidden");
+    }
+
+    private static APIGatewayProxyResponseEvent errorResponse(int statusCode, String message) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put("Content-Type", "application/json");
+        headers.put("Access-Control-Allow-Origin", "*");
+
+        return new APIGatewayProxyResponseEvent()
+                .withStatusCode(statusCode)
+                .withHeaders(headers)
+                .withBody(String.format("{\"message\": \"%s\"}", message));
+    }
+
+    private static String header(Map<String, String> headers, String name) {
+        if (headers == null) {
+            return null;
+        }
+        // Header names arrive in whatever case the caller used.
+        for (Map.Entry<String, String> entry : headers.entrySet()) {
+            if (name.equalsIgnoreCase(entry.getKey())) {
+                return entry.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,124 @@
+package com.revanth.security;
+
+import software.amazon.awssdk.auth.credentials.AwsCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.DefaultCredentialsProvider;
+import software.amazon.awssdk.auth.credentials.EnvironmentVariableCredentialsProvider;
+import software.amazon.awssdk.core.exception.SdkException;
+import software.amazon.awssdk.http.SdkHttpClient;
+import software.amazon.awssdk.http.urlconnection.UrlConnectionHttpClient;
+import software.amazon.awssdk.regions.Region;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClient;
+import software.amazon.awssdk.services.secretsmanager.SecretsManagerClientBuilder;
+import software.amazon.awssdk.services.secretsmanager.model.GetSecretValueRequest;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.util.Base64;
+
+/**
+ * HMAC-SHA256 signatures for values handed to API callers and read back later.
+ *
+ * Each purpose gets its own key derived from one master secret, so a signature made for one kind of
+ * token is never accepted as another. The master secret is read once per execution environment from the
+ * Secrets Manager secret named by {@code TOKEN_SIGNING_SECRET_ID}. There is no fallback: if the secret
+ * can't be read, this class fails to initialize and no token is issued or accepted. Tests and local
+ * runs may set the {@code token.signing.secret} system property instead.
+ */
+public final class Signer {
+
+    static final String SECRET_PROPERTY = "token.signing.secret";
+    private static final String ALGORITHM = "HmacSHA256";
+    private static final byte[] MASTER_KEY = loadMasterKey();
+
+    private final SecretKeySpec key;
+    private final ThreadLocal<Mac> mac;
+
+    private Signer(byte[] keyBytes) {
+        this.key = new SecretKeySpec(keyBytes, ALGORITHM);
+        this.mac = ThreadLocal.withInitial(this::newMac);
+    }
+
+    public static Signer forPurpose(String purpose) {
+        Signer master = new Signer(MASTER_KEY);
+        return new Signer(master.hmac(purpose.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    /**
+     * Returns the URL-safe Base64 signature of the payload.
+     */
+    public String sign(String payload) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(hmac(payload.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    public boolean verify(String payload, String signature) {
+        byte[] expected = hmac(payload.getBytes(StandardCharsets.UTF_8));
+        byte[] actual;
+        try {
+            actual = Base64.getUrlDecoder().decode(signature);
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+        return MessageDigest.isEqual(expected, actual);
+    }
+
+    private byte[] hmac(byte[] data) {
+        return mac.get().doFinal(data);
+    }
+
+    private Mac newMac() {
+        try {
+            Mac instance = Mac.getInstance(ALGORITHM);
+            instance.init(key);
+            return instance;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("HMAC-SHA256 is not available", e);
+        }
+    }
+
+    private static byte[] loadMasterKey() {
+        String secret = System.getProperty(SECRET_PROPERTY);
+        if (secret == null) {
+            String secretId = System.getenv("TOKEN_SIGNING_SECRET_ID");
+            if (secretId == null || secretId.isEmpty()) {
+                throw new IllegalStateException("TOKEN_SIGNING_SECRET_ID is not set");
+            }
+            secret = readSecret(secretId);
+        }
+        if (secret == null || secret.isEmpty()) {
+            throw new IllegalStateException("The token signing secret is empty");
+        }
+        return secret.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String readSecret(String secretId) {
+        // Read once at initialization, so the client is closed straight away along with its HTTP client
+        try (SdkHttpClient httpClient = UrlConnectionHttpClient.builder().build();
+             SecretsManagerClient client = secretsManager(httpClient)) {
+            return client.getSecretValue(GetSecretValueRequest.builder().secretId(secretId).build()).secretString();
+        } catch (SdkException e) {
+            throw new IllegalStateException("Could not read the token signing secret: " + e.getMessage(), e);
+        }
+    }
+
+    private static SecretsManagerClient secretsManager(SdkHttpClient httpClient) {
+        SecretsManagerClientBuilder builder = SecretsManagerClient.builder()
+                .httpClient(httpClient)
+                .credentialsProvider(credentialsProvider());
+        String region = System.getenv("AWS_REGION");
+        if (region != null) {
+            builder.region(Region.of(region));
+        }
+        return builder.build();
+    }
+
+    private static AwsCredentialsProvider credentialsProvider() {
+        // Lambda injects the execution role credentials as environment variables.
+        if (System.getenv("AWS_ACCESS_KEY_ID") != null) {
+            return EnvironmentVariableCredentialsProvider.create();
+        }
+        return DefaultCredentialsProvider.create();
+    }
+}
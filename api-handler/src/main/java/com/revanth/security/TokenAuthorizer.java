@@ -0,0 +1,75 @@
+package com.revanth.security;
+
+import com.amazonaws.services.lambda.runtime.Context;
+import com.amazonaws.services.lambda.runtime.RequestHandler;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayCustomAuthorizerEvent;
+import com.amazonaws.services.lambda.runtime.events.IamPolicyResponseV1;
+import com.revanth.http.CachePolicies;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * API Gateway {@code TOKEN} authorizer for the routes served from the stage cache.
+ *
+ * A cache hit never reaches the handler, so its {@link AuthFilter} check can't protect cached responses.
+ * This authorizer runs before the cache lookup and rejects requests without a valid access token with a
+ * 401. The policy it returns allows invoking the stage, and allows {@code execute-api:InvalidateCache} only
+ * for the cached paths the caller's own profile writes make stale (see {@link CachePolicies}), so a user
+ * can refresh what they just changed but not flush anyone else's entries.
+ *
+ * API Gateway caches the policy per token for the authorizer's result TTL, so it must not depend on
+ * anything but the token.
+ */
+public class TokenAuthorizer implements RequestHandler<APIGatewayCustomAuthorizerEvent, IamPolicyResponseV1> {
+
+    static final String INVALIDATE_CACHE = "execute-api:InvalidateCache";
+
+    @Override
+    public IamPolicyResponseV1 handleRequest(APIGatewayCustomAuthorizerEvent event, Context context) {
+        AccessToken principal = AuthFilter.authenticate(event.getAuthorizationToken());
+        if (principal == null) {
+            // API Gateway answers exactly this message with a 401
+            throw new RuntimeException("Unauthorized");
+        }
+
+        return new IamPolicyResponseV1(principal.getSubject(),
+                new IamPolicyResponseV1.PolicyDocument(IamPolicyResponseV1.VERSION_2012_10_17,
+                        statements(principal, event.getMethodArn())),
+                Map.of("role", principal.getRole()),
+                null);
+    }
+
+    static List<IamPolicyResponseV1.Statement> statements(AccessToken principal, String methodArn) {
+        String stageArn = stageArn(methodArn);
+        List<IamPolicyResponseV1.Statement> statements = new ArrayList<>();
+        statements.add(statement(IamPolicyResponseV1.EXECUTE_API_INVOKE, List.of(stageArn + "/*/*")));
+
+        String profilePath = (principal.isTherapist() ? "/therapists/" : "/clients/") + principal.getSubject();
+        List<String> invalidatable = new ArrayList<>();
+        for (String path : CachePolicies.invalidatedPaths("PUT", profilePath)) {
+            invalidatable.add(stageArn + "/GET" + path);
+        }
+        if (!invalidatable.isEmpty()) {
+            statements.add(statement(INVALIDATE_CACHE, invalidatable));
+        }
+        return statements;
+    }
+
+    /**
+     * {@code arn:aws:execute-api:region:account:api/stage}, from a method ARN that goes on with
+     * {@code /METHOD/resource/path}.
+     */
+    static String stageArn(String methodArn) {
+        String[] parts = methodArn != null ? methodArn.split("/", 3) : new String[0];
+        if (parts.length < 2) {
+            throw new IllegalArgumentException("Invalid method ARN: " + methodArn);
+        }
+        return parts[0] + "/" + parts[1];
+    }
+
+    private static IamPolicyResponseV1.Statement statement(String action, List<String> resources) {
+        return new IamPolicyResponseV1.Statement(action, IamPolicyResponseV1.ALLOW, resources, null);
+    }
+}
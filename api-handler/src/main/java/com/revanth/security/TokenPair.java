@@ -0,0 +1,36 @@
+package com.revanth.security;
+
+/**
+ * Response body of a successful login or refresh.
+ */
+public final class TokenPair {
+
+    private final String accessToken;
+    private final String refreshToken;
+    private final long expiresIn;
+
+    TokenPair(String accessToken, String refreshToken, long expiresIn) {
+        this.accessToken = accessToken;
+        this.refreshToken = refreshToken;
+        this.expiresIn = expiresIn;
+    }
+
+    public String getAccessToken() {
+        return accessToken;
+    }
+
+    public String getRefreshToken() {
+        return refreshToken;
+    }
+
+    public String getTokenType() {
+        return "Bearer";
+    }
+
+    /**
+     * Lifetime of the access token in seconds.
+     */
+    public long getExpiresIn() {
+        return expiresIn;
+    }
+}
@@ -0,0 +1,93 @@
+package com.revanth;
+
+import com.revanth.dynamodb.DynamoDbRegistry;
+import com.revanth.handlers.appointments.AppointmentHandler;
+import com.revanth.handlers.clients.ClientHandler;
+import com.revanth.handlers.journals.JournalHandler;
+import com.revanth.handlers.mappings.ClientTherapistMappingHandler;
+import com.revanth.handlers.messages.MessageHandler;
+import com.revanth.handlers.sessions.SessionHandler;
+import com.revanth.handlers.therapists.TherapistHandler;
+import com.revanth.models.Client;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClient;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.services.dynamodb.DynamoDbClient;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Every handler, however many are constructed, works through the one client and the cached tables in
+ * {@link DynamoDbRegistry}. Nothing is sent to DynamoDB; building the clients only needs a region.
+ */
+class ApiHandlerSharedClientTest {
+
+    @BeforeAll
+    static void setRegion() {
+        if (System.getenv("AWS_REGION") == null && System.getProperty("aws.region") == null) {
+            System.setProperty("aws.region", "us-east-1");
+        }
+    }
+
+    @Test
+    void handlersShareOneClientAndTheTableCache() throws Exception {
+        List<Object> handlers = List.of(new ClientHandler(), new ClientHandler(), new TherapistHandler(),
+                new MessageHandler(), new AppointmentHandler(), new SessionHandler(),
+                new ClientTherapistMappingHandler(), new JournalHandler(), new JournalHandler());
+
+        int checked = 0;
+        for (Object handler : handlers) {
+            checked += assertShared(handler, 1);
+        }
+        // At least one table per handler
+        assertTrue(checked >= handlers.size(), checked + " fields checked");
+    }
+
+    @Test
+    void cachesTablesByModelAndName() {
+        DynamoDbTable<?> clients = DynamoDbRegistry.table(Client.class, "Clients");
+
+        assertSame(clients, DynamoDbRegistry.table(Client.class, "Clients"));
+        assertNotSame(clients, DynamoDbRegistry.table(Client.class, "ClientsCopy"));
+        assertEquals("ClientsCopy", DynamoDbRegistry.table(Client.class, "ClientsCopy").tableName());
+        assertSame(DynamoDbRegistry.table(Client.class, null),
+                DynamoDbRegistry.table(Client.class, null));
+    }
+
+    // Checks the DynamoDB fields of the object, and of the repo's own helpers it holds, down to the given depth
+    private static int assertShared(Object object, int depth) throws IllegalAccessException {
+        int checked = 0;
+        for (Field field : object.getClass().getDeclaredFields()) {
+            if (Modifier.isStatic(field.getModifiers())) {
+                continue;
+            }
+            field.setAccessible(true);
+            Object value = field.get(object);
+            if (value instanceof DynamoDbClient) {
+                assertSame(DynamoDbRegistry.dynamoDbClient(), value, field.toString());
+                checked++;
+            } else if (value instanceof DynamoDbEnhancedClient) {
+                assertSame(DynamoDbRegistry.enhancedClient(), value, field.toString());
+                checked++;
+            } else if (value instanceof DynamoDbTable) {
+                assertSame(registered((DynamoDbTable<?>) value), value, field.toString());
+                checked++;
+            } else if (value != null && depth > 0 && value.getClass().getName().startsWith("com.revanth.")) {
+                checked += assertShared(value, depth - 1);
+            }
+        }
+        return checked;
+    }
+
+    private static <T> DynamoDbTable<T> registered(DynamoDbTable<T> table) {
+        return DynamoDbRegistry.table(table.tableSchema().itemType().rawClass(), table.tableName());
+    }
+}
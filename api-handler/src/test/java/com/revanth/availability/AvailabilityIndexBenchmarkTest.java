@@ -0,0 +1,99 @@
+package com.revanth.availability;
+
+import com.revanth.models.Therapist;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Measures GET /therapists/available at 10k therapists: building the index, and answering a 3-hour
+ * window with the index versus checking every therapist's bitmap slot by slot. Run with
+ * {@code -Dbenchmarks=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class AvailabilityIndexBenchmarkTest {
+
+    private static final int THERAPISTS = 10_000;
+    private static final String[] DAYS = {"MON", "TUE", "WED", "THU", "FRI", "SAT", "SUN"};
+    // 2024-01-01 was a Monday
+    private static final Instant FROM = Instant.parse("2024-01-03T10:00:00Z");
+    private static final Instant TO = Instant.parse("2024-01-03T13:00:00Z");
+
+    @Test
+    void indexAgainstScanAtTenThousandTherapists() {
+        List<Therapist> therapists = therapists(new Random(42));
+
+        long buildStart = System.nanoTime();
+        AvailabilityIndex index = AvailabilityIndex.build(therapists);
+        long buildMicros = (System.nanoTime() - buildStart) / 1_000;
+
+        int iterations = 20_000;
+        int found = 0;
+        for (int i = 0; i < iterations; i++) {
+            found += index.freeDuring(FROM, TO).size();
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            found += index.freeDuring(FROM, TO).size();
+        }
+        double indexMicros = (System.nanoTime() - start) / 1e3 / iterations;
+
+        for (int i = 0; i < iterations / 10; i++) {
+            found += scan(therapists).size();
+        }
+        start = System.nanoTime();
+        for (int i = 0; i < iterations / 10; i++) {
+            found += scan(therapists).size();
+        }
+        double scanMicros = (System.nanoTime() - start) / 1e3 / (iterations / 10);
+
+        assertEquals(scan(therapists).size(), index.freeDuring(FROM, TO).size());
+        System.out.printf("availability: %d therapists, %d free; build %d us, index query %.1f us/op,"
+                        + " bitmap scan %.1f us/op (%d)%n",
+                THERAPISTS, index.freeDuring(FROM, TO).size(), buildMicros, indexMicros, scanMicros, found);
+    }
+
+    // What the query costs without the index: every slot of the window for every therapist
+    private static List<Therapist> scan(List<Therapist> therapists) {
+        int first = WeeklyAvailability.slotOf(FROM);
+        int count = (int) ((TO.getEpochSecond() - FROM.getEpochSecond()) / 60 / WeeklyAvailability.SLOT_MINUTES);
+        List<Therapist> free = new ArrayList<>();
+        for (Therapist therapist : therapists) {
+            boolean all = true;
+            for (int i = 0; i < count && all; i++) {
+                all = WeeklyAvailability.isFree(therapist.getAvailability(), first + i);
+            }
+            if (all) {
+                free.add(therapist);
+            }
+        }
+        return free;
+    }
+
+    private static List<Therapist> therapists(Random random) {
+        List<Therapist> therapists = new ArrayList<>(THERAPISTS);
+        for (int t = 0; t < THERAPISTS; t++) {
+            List<String> slots = new ArrayList<>();
+            for (int day = 0; day < DAYS.length; day++) {
+                if (random.nextInt(10) < 6) {
+                    int start = 6 + random.nextInt(10);
+                    int end = Math.min(24, start + 2 + random.nextInt(7));
+                    slots.add(String.format(Locale.ROOT, "%s %02d:00-%02d:00", DAYS[day], start, end));
+                }
+            }
+            Therapist therapist = new Therapist();
+            therapist.setTherapistId("t-" + t);
+            therapist.setSlotsAvailable(slots);
+            therapist.setAvailability(WeeklyAvailability.encode(slots));
+            therapists.add(therapist);
+        }
+        return therapists;
+    }
+}
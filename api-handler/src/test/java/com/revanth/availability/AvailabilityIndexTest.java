@@ -0,0 +1,93 @@
+package com.revanth.availability;
+
+import com.revanth.models.Therapist;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AvailabilityIndexTest {
+
+    // 2024-01-01 was a Monday
+    private static final Instant MONDAY = Instant.parse("2024-01-01T00:00:00Z");
+
+    @Test
+    void returnsTherapistsFreeForTheWholeWindow() {
+        AvailabilityIndex index = AvailabilityIndex.build(List.of(
+                therapist("morning", "MON 09:00-12:00"),
+                therapist("late-morning", "MON 10:00-12:00"),
+                therapist("afternoon", "MON 13:00-17:00")));
+
+        assertEquals(List.of("morning"), ids(index.freeDuring(at("09:00"), at("10:00"))));
+        assertEquals(List.of("morning", "late-morning"), ids(index.freeDuring(at("10:00"), at("11:30"))));
+        // A window that starts or ends inside a slot needs the whole slot
+        assertEquals(List.of("morning", "late-morning"), ids(index.freeDuring(at("11:50"), at("12:00"))));
+        assertEquals(List.of("morning"), ids(index.freeDuring(at("09:50"), at("10:05"))));
+        assertEquals(List.of(), ids(index.freeDuring(at("11:50"), at("12:05"))));
+    }
+
+    @Test
+    void wrapsAroundTheEndOfTheWeek() {
+        AvailabilityIndex index = AvailabilityIndex.build(List.of(
+                therapist("overnight", "SUN 22:00-24:00", "MON 00:00-02:00"),
+                therapist("sunday", "SUN 22:00-24:00")));
+
+        Instant sundayNight = MONDAY.plusSeconds(6 * 86400 + 23 * 3600);
+        assertEquals(List.of("overnight"), ids(index.freeDuring(sundayNight, sundayNight.plusSeconds(2 * 3600))));
+    }
+
+    @Test
+    void listsTherapistsWithoutABitmapAsUnknown() {
+        Therapist legacy = therapist("legacy", "Weekday evenings");
+        Therapist none = new Therapist();
+        none.setTherapistId("none");
+
+        AvailabilityIndex index = AvailabilityIndex.build(List.of(therapist("known", "MON 09:00-10:00"), legacy, none));
+
+        assertEquals(1, index.size());
+        assertEquals(List.of("legacy", "none"), ids(index.unknownAvailability()));
+        assertEquals(List.of("known"), ids(index.freeDuring(at("09:00"), at("10:00"))));
+    }
+
+    @Test
+    void spansMoreThanSixtyFourTherapists() {
+        List<Therapist> therapists = new ArrayList<>();
+        for (int i = 0; i < 130; i++) {
+            therapists.add(therapist("t" + i, i % 2 == 0 ? "MON 09:00-10:00" : "TUE 09:00-10:00"));
+        }
+
+        List<String> free = ids(AvailabilityIndex.build(therapists).freeDuring(at("09:00"), at("10:00")));
+
+        assertEquals(65, free.size());
+        assertEquals("t128", free.get(64));
+    }
+
+    @Test
+    void rejectsEmptyAndOverlongWindows() {
+        AvailabilityIndex index = AvailabilityIndex.build(List.of());
+
+        assertThrows(IllegalArgumentException.class, () -> index.freeDuring(at("10:00"), at("10:00")));
+        assertThrows(IllegalArgumentException.class, () -> index.freeDuring(MONDAY, MONDAY.plusSeconds(8 * 86400)));
+    }
+
+    private static Instant at(String mondayTime) {
+        return Instant.parse("2024-01-01T" + mondayTime + ":00Z");
+    }
+
+    private static Therapist therapist(String id, String... slots) {
+        Therapist therapist = new Therapist();
+        therapist.setTherapistId(id);
+        therapist.setSlotsAvailable(List.of(slots));
+        therapist.setAvailability(WeeklyAvailability.encode(therapist.getSlotsAvailable()));
+        return therapist;
+    }
+
+    private static List<String> ids(List<Therapist> therapists) {
+        return therapists.stream().map(Therapist::getTherapistId).collect(Collectors.toList());
+    }
+}
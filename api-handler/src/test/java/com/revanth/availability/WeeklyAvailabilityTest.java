@@ -0,0 +1,56 @@
+package com.revanth.availability;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class WeeklyAvailabilityTest {
+
+    @Test
+    void setsOneBitPerSlotWithAnExclusiveEnd() {
+        byte[] bitmap = WeeklyAvailability.fromSlots(List.of("MON 09:00-10:00", "sunday 23:45-24:00"));
+
+        assertEquals(WeeklyAvailability.BYTES, bitmap.length);
+        assertFalse(WeeklyAvailability.isFree(bitmap, 35));
+        for (int slot = 36; slot < 40; slot++) {
+            assertTrue(WeeklyAvailability.isFree(bitmap, slot));
+        }
+        assertFalse(WeeklyAvailability.isFree(bitmap, 40));
+        assertTrue(WeeklyAvailability.isFree(bitmap, WeeklyAvailability.SLOTS_PER_WEEK - 1));
+    }
+
+    @Test
+    void rejectsMalformedRanges() {
+        for (String slot : new String[] {"Mondays 9-5", "MON 09:00", "MON 09:10-10:00", "MON 10:00-09:00", "XYZ 09:00-10:00"}) {
+            assertThrows(IllegalArgumentException.class, () -> WeeklyAvailability.fromSlots(List.of(slot)), slot);
+        }
+    }
+
+    @Test
+    void encodesLegacyFreeFormTextAsUnknown() {
+        assertNull(WeeklyAvailability.encode(null));
+
+        byte[] legacy = WeeklyAvailability.encode(List.of("MON 09:00-10:00", "Weekday evenings"));
+        assertEquals(0, legacy.length);
+        assertFalse(WeeklyAvailability.isKnown(legacy));
+        assertFalse(WeeklyAvailability.isKnown(null));
+        assertTrue(WeeklyAvailability.isKnown(WeeklyAvailability.encode(List.of("TUE 08:00-09:00"))));
+    }
+
+    @Test
+    void mapsInstantsToUtcSlots() {
+        // 2024-01-01 was a Monday
+        assertEquals(36, WeeklyAvailability.slotOf(Instant.parse("2024-01-01T09:14:59Z")));
+        assertEquals(WeeklyAvailability.SLOTS_PER_DAY * 6,
+                WeeklyAvailability.slotOf(WeeklyAvailability.parseTime("2024-01-07T01:00:00+01:00")));
+        assertEquals(Instant.parse("2024-01-01T09:00:00Z"), WeeklyAvailability.parseTime("2024-01-01T09:00:00"));
+        assertThrows(IllegalArgumentException.class, () -> WeeklyAvailability.parseTime("tomorrow"));
+    }
+}
@@ -0,0 +1,34 @@
+package com.revanth.dynamodb;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BatchReaderTest {
+
+    @Test
+    void parsesTrimmedIdsInOrder() {
+        assertEquals(List.of("c-1", "c-2", "c-1"), BatchReader.parseIds(" c-1, c-2,,c-1 "));
+    }
+
+    @Test
+    void rejectsMissingOrBlankIds() {
+        assertThrows(IllegalArgumentException.class, () -> BatchReader.parseIds(null));
+        assertThrows(IllegalArgumentException.class, () -> BatchReader.parseIds(""));
+        assertThrows(IllegalArgumentException.class, () -> BatchReader.parseIds("  "));
+        assertThrows(IllegalArgumentException.class, () -> BatchReader.parseIds(" , ,"));
+    }
+
+    @Test
+    void rejectsTooManyIds() {
+        StringBuilder ids = new StringBuilder();
+        for (int i = 0; i <= BatchReader.MAX_REQUEST_IDS; i++) {
+            ids.append(i > 0 ? "," : "").append("id-").append(i);
+        }
+
+        assertThrows(IllegalArgumentException.class, () -> BatchReader.parseIds(ids.toString()));
+    }
+}
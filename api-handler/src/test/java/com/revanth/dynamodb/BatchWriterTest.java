@@ -0,0 +1,71 @@
+package com.revanth.dynamodb;
+
+import com.revanth.models.Journal;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BatchWriterTest {
+
+    @Test
+    void resultsCarryAnExplicitStatus() {
+        BatchWriter.Result written = BatchWriter.Result.written(0);
+        BatchWriter.Result failed = BatchWriter.Result.failed(1, "Throughput exceeded, retry the item.");
+
+        assertTrue(written.succeeded());
+        assertEquals("written", written.getStatus());
+        assertFalse(failed.succeeded());
+        assertEquals("failed", failed.getStatus());
+    }
+
+    @Test
+    void failureWithoutMessageIsStillAFailure() {
+        BatchWriter.Result failed = BatchWriter.Result.failed(3, null);
+
+        assertFalse(failed.succeeded());
+        assertNotNull(failed.getError());
+    }
+
+    @Test
+    void withIndexKeepsTheOutcome() {
+        BatchWriter.Result moved = BatchWriter.Result.failed(0, "Duplicate key in batch.").withIndex(7);
+
+        assertEquals(7, moved.getIndex());
+        assertFalse(moved.succeeded());
+        assertEquals("Duplicate key in batch.", moved.getError());
+    }
+
+    @Test
+    void statusCodeIsMultiStatusWhenAnyItemFailed() {
+        assertEquals(200, BatchWriter.statusCode(List.of(BatchWriter.Result.written(0), BatchWriter.Result.written(1))));
+        assertEquals(207, BatchWriter.statusCode(List.of(BatchWriter.Result.written(0), BatchWriter.Result.failed(1, null))));
+    }
+
+    @Test
+    void responseBodyListsEveryItem() throws Exception {
+        String body = BatchWriter.responseBody(List.of(BatchWriter.Result.written(0), BatchWriter.Result.failed(1, "x")));
+
+        assertEquals("{\"results\":[{\"index\":0,\"status\":\"written\",\"error\":null},"
+                + "{\"index\":1,\"status\":\"failed\",\"error\":\"x\"}]}", body);
+    }
+
+    @Test
+    void readRequestEnforcesTheItemLimits() {
+        assertEquals(1, BatchWriter.readRequest("[{\"clientId\":\"c-1\",\"timestamp\":\"t\"}]", Journal.class).size());
+        assertThrows(IllegalArgumentException.class, () -> BatchWriter.readRequest("[]", Journal.class));
+        assertThrows(IllegalArgumentException.class, () -> BatchWriter.readRequest("{", Journal.class));
+
+        StringBuilder tooMany = new StringBuilder("[");
+        for (int i = 0; i <= BatchWriter.MAX_REQUEST_ITEMS; i++) {
+            tooMany.append(i > 0 ? "," : "").append("{\"clientId\":\"c-1\",\"timestamp\":\"").append(i).append("\"}");
+        }
+        assertThrows(IllegalArgumentException.class,
+                () -> BatchWriter.readRequest(tooMany.append(']').toString(), Journal.class));
+    }
+}
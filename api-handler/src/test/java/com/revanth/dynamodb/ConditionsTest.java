@@ -0,0 +1,37 @@
+package com.revanth.dynamodb;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.CancellationReason;
+import software.amazon.awssdk.services.dynamodb.model.TransactionCanceledException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConditionsTest {
+
+    @Test
+    void findsTheFailedConditionByIndex() {
+        TransactionCanceledException e = cancelled("None", "ConditionalCheckFailed", "None");
+
+        assertFalse(Conditions.conditionFailed(e, 0));
+        assertTrue(Conditions.conditionFailed(e, 1));
+        assertFalse(Conditions.conditionFailed(e, 3));
+    }
+
+    @Test
+    void findsAReasonOnAnyWrite() {
+        TransactionCanceledException e = cancelled("None", "None", "ThrottlingError");
+
+        assertTrue(Conditions.cancelledWith(e, "TransactionConflict", "ThrottlingError"));
+        assertFalse(Conditions.cancelledWith(e, "TransactionConflict"));
+        assertFalse(Conditions.cancelledWith(TransactionCanceledException.builder().build(), "TransactionConflict"));
+    }
+
+    private static TransactionCanceledException cancelled(String... codes) {
+        CancellationReason[] reasons = new CancellationReason[codes.length];
+        for (int i = 0; i < codes.length; i++) {
+            reasons[i] = CancellationReason.builder().code(codes[i]).build();
+        }
+        return TransactionCanceledException.builder().cancellationReasons(reasons).build();
+    }
+}
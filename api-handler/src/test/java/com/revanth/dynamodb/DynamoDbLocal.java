@@ -0,0 +1,62 @@
+package com.revanth.dynamodb;
+
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.IndexMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.TableMetadata;
+import software.amazon.awssdk.enhanced.dynamodb.model.CreateTableEnhancedRequest;
+import software.amazon.awssdk.enhanced.dynamodb.model.EnhancedGlobalSecondaryIndex;
+import software.amazon.awssdk.services.dynamodb.model.Projection;
+import software.amazon.awssdk.services.dynamodb.model.ProjectionType;
+import software.amazon.awssdk.services.dynamodb.model.ResourceNotFoundException;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Tables for tests that run against DynamoDB Local. They are enabled by {@code DYNAMODB_ENDPOINT}, which
+ * {@link DynamoDbRegistry} also reads, e.g.
+ *
+ * <pre>
+ * docker run -p 8000:8000 amazon/dynamodb-local
+ * DYNAMODB_ENDPOINT=http://localhost:8000 AWS_REGION=us-east-1 AWS_ACCESS_KEY_ID=local \
+ *     AWS_SECRET_ACCESS_KEY=local MESSAGES_TABLE_NAME=MessagesTest ... mvn test
+ * </pre>
+ *
+ * Handlers take their table names from the environment, so each test reads the variable its handler
+ * uses and is skipped when it isn't set.
+ */
+public final class DynamoDbLocal {
+
+    private DynamoDbLocal() {
+    }
+
+    /**
+     * Recreates the table with the model's key schema and every secondary index as a GSI projecting all
+     * attributes, then waits until it exists.
+     */
+    public static <T> DynamoDbTable<T> recreateTable(Class<T> modelClass, String tableName) {
+        DynamoDbTable<T> table = DynamoDbRegistry.table(modelClass, tableName);
+        deleteTable(table);
+
+        List<EnhancedGlobalSecondaryIndex> indexes = new ArrayList<>();
+        for (IndexMetadata index : table.tableSchema().tableMetadata().indices()) {
+            if (!index.name().equals(TableMetadata.primaryIndexName())) {
+                indexes.add(EnhancedGlobalSecondaryIndex.builder()
+                        .indexName(index.name())
+                        .projection(Projection.builder().projectionType(ProjectionType.ALL).build())
+                        .build());
+            }
+        }
+        table.createTable(CreateTableEnhancedRequest.builder().globalSecondaryIndices(indexes).build());
+        DynamoDbRegistry.dynamoDbClient().waiter().waitUntilTableExists(r -> r.tableName(tableName));
+        return table;
+    }
+
+    public static void deleteTable(DynamoDbTable<?> table) {
+        try {
+            table.deleteTable();
+        } catch (ResourceNotFoundException e) {
+            // Nothing left from an earlier run
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package com.revanth.dynamodb;
+
+import com.revanth.security.AccessDeniedException;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DynamoDbRegistryTest {
+
+    private static final long ROUND_TRIP_MILLIS = 200;
+
+    @Test
+    void authorizedReadCostsTheSlowerCallNotTheSum() {
+        long start = System.nanoTime();
+        Future<?> access = DynamoDbRegistry.executor().submit(() -> roundTrip(ROUND_TRIP_MILLIS));
+        Future<String> read = DynamoDbRegistry.executor().submit(() -> roundTrip(ROUND_TRIP_MILLIS));
+
+        assertEquals("read", DynamoDbRegistry.awaitAuthorized(access, read));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertTrue(elapsedMillis < 2 * ROUND_TRIP_MILLIS - 50, "took " + elapsedMillis + " ms");
+    }
+
+    @Test
+    void deniedCheckCancelsTheReadAndRethrows() throws Exception {
+        CountDownLatch readStarted = new CountDownLatch(1);
+        CountDownLatch readInterrupted = new CountDownLatch(1);
+        AccessDeniedException denied = new AccessDeniedException("denied");
+        Future<String> read = DynamoDbRegistry.executor().submit(() -> {
+            readStarted.countDown();
+            String result = roundTrip(10 * ROUND_TRIP_MILLIS);
+            if (Thread.currentThread().isInterrupted()) {
+                readInterrupted.countDown();
+            }
+            return result;
+        });
+        assertTrue(readStarted.await(1, TimeUnit.SECONDS));
+        Future<?> access = DynamoDbRegistry.executor().submit(() -> {
+            throw denied;
+        });
+
+        long start = System.nanoTime();
+        assertSame(denied, assertThrows(AccessDeniedException.class, () -> DynamoDbRegistry.awaitAuthorized(access, read)));
+        assertTrue(read.isCancelled());
+        // The caller doesn't wait for the read it threw away
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < ROUND_TRIP_MILLIS);
+        // and the worker running it is interrupted rather than left to finish
+        assertTrue(readInterrupted.await(ROUND_TRIP_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void rethrowsTheReadsOwnFailure() {
+        IllegalArgumentException invalid = new IllegalArgumentException("bad page token");
+        CompletableFuture<Void> access = CompletableFuture.completedFuture(null);
+        Future<String> read = DynamoDbRegistry.executor().submit(() -> {
+            throw invalid;
+        });
+
+        assertSame(invalid, assertThrows(IllegalArgumentException.class, () -> DynamoDbRegistry.awaitAuthorized(access, read)));
+    }
+
+    // Stands in for a DynamoDB call with the given latency
+    private static String roundTrip(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return "read";
+    }
+}
@@ -0,0 +1,82 @@
+package com.revanth.dynamodb;
+
+import software.amazon.awssdk.core.SdkRequest;
+import software.amazon.awssdk.core.interceptor.Context;
+import software.amazon.awssdk.core.interceptor.ExecutionAttributes;
+import software.amazon.awssdk.core.interceptor.ExecutionInterceptor;
+import software.amazon.awssdk.core.interceptor.SdkExecutionAttribute;
+import software.amazon.awssdk.services.dynamodb.model.ConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.GetItemRequest;
+import software.amazon.awssdk.services.dynamodb.model.QueryRequest;
+import software.amazon.awssdk.services.dynamodb.model.ReturnConsumedCapacity;
+import software.amazon.awssdk.services.dynamodb.model.ScanRequest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Records the name of every operation the SDK clients in the test JVM execute, and the read capacity
+ * their queries, scans and gets consume, so DynamoDB Local tests can check which calls a handler makes
+ * and what they cost. Registered for all clients through
+ * {@code software/amazon/awssdk/global/handlers/execution.interceptors}.
+ */
+public class RecordingInterceptor implements ExecutionInterceptor {
+
+    private static final List<String> OPERATIONS = new ArrayList<>();
+    private static double readCapacity;
+
+    @Override
+    public void beforeExecution(Context.BeforeExecution context, ExecutionAttributes executionAttributes) {
+        synchronized (OPERATIONS) {
+            OPERATIONS.add(executionAttributes.getAttribute(SdkExecutionAttribute.OPERATION_NAME));
+        }
+    }
+
+    @Override
+    public SdkRequest modifyRequest(Context.ModifyRequest context, ExecutionAttributes executionAttributes) {
+        SdkRequest request = context.request();
+        if (request instanceof QueryRequest) {
+            return ((QueryRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof ScanRequest) {
+            return ((ScanRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        if (request instanceof GetItemRequest) {
+            return ((GetItemRequest) request).toBuilder().returnConsumedCapacity(ReturnConsumedCapacity.TOTAL).build();
+        }
+        return request;
+    }
+
+    @Override
+    public void afterExecution(Context.AfterExecution context, ExecutionAttributes executionAttributes) {
+        context.response().getValueForField("ConsumedCapacity", ConsumedCapacity.class)
+                .map(ConsumedCapacity::capacityUnits)
+                .ifPresent(units -> {
+                    synchronized (OPERATIONS) {
+                        readCapacity += units;
+                    }
+                });
+    }
+
+    public static void clear() {
+        synchronized (OPERATIONS) {
+            OPERATIONS.clear();
+            readCapacity = 0;
+        }
+    }
+
+    public static List<String> operations() {
+        synchronized (OPERATIONS) {
+            return List.copyOf(OPERATIONS);
+        }
+    }
+
+    /**
+     * Capacity units consumed by queries, scans and gets since the last {@link #clear()}.
+     */
+    public static double readCapacity() {
+        synchronized (OPERATIONS) {
+            return readCapacity;
+        }
+    }
+}
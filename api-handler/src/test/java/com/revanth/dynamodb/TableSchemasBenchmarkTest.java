@@ -0,0 +1,86 @@
+package com.revanth.dynamodb;
+
+import com.revanth.models.Appointment;
+import com.revanth.models.Client;
+import com.revanth.models.ClientTherapistMapping;
+import com.revanth.models.Journal;
+import com.revanth.models.Message;
+import com.revanth.models.Session;
+import com.revanth.models.Therapist;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * What resolving the table schemas for every model costs a cold start: the static schemas in
+ * {@link TableSchemas} against {@code TableSchema.fromBean}. Each sample runs in a fresh JVM, as a Lambda
+ * init would, and maps one item per model so the accessors are generated too. Run with
+ * {@code -Dbenchmarks=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class TableSchemasBenchmarkTest {
+
+    private static final int FORKS = 5;
+    private static final List<Class<?>> MODELS = List.of(Client.class, Therapist.class, Message.class,
+            Journal.class, Session.class, Appointment.class, ClientTherapistMapping.class);
+
+    @Test
+    void coldInitStaticAgainstBean() throws Exception {
+        for (String mode : new String[] {"static", "bean"}) {
+            List<Long> micros = new ArrayList<>();
+            for (int i = 0; i < FORKS; i++) {
+                micros.add(fork(mode));
+            }
+            Collections.sort(micros);
+            System.out.printf("table schemas (%s): cold init median %d us, min %d us, max %d us over %d JVMs%n",
+                    mode, micros.get(FORKS / 2), micros.get(0), micros.get(FORKS - 1), FORKS);
+        }
+    }
+
+    private static long fork(String mode) throws Exception {
+        String java = System.getProperty("java.home") + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"),
+                ColdInit.class.getName(), mode)
+                .redirectErrorStream(true)
+                .start();
+        String last = null;
+        try (BufferedReader out = new BufferedReader(new InputStreamReader(process.getInputStream(), StandardCharsets.UTF_8))) {
+            for (String line = out.readLine(); line != null; line = out.readLine()) {
+                last = line;
+            }
+        }
+        assertEquals(0, process.waitFor(), String.valueOf(last));
+        return Long.parseLong(last.trim());
+    }
+
+    /**
+     * Resolves every schema once and prints the microseconds it took.
+     */
+    static final class ColdInit {
+
+        public static void main(String[] args) throws Exception {
+            boolean bean = "bean".equals(args[0]);
+            long start = System.nanoTime();
+            for (Class<?> model : MODELS) {
+                roundTrip(model, bean);
+            }
+            System.out.println((System.nanoTime() - start) / 1_000);
+        }
+
+        private static <T> void roundTrip(Class<T> model, boolean bean) throws Exception {
+            TableSchema<T> schema = bean ? TableSchema.fromBean(model) : TableSchemas.forModel(model);
+            T item = model.getDeclaredConstructor().newInstance();
+            schema.mapToItem(schema.itemToMap(item, true));
+        }
+    }
+}
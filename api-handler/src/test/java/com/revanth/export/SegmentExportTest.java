@@ -0,0 +1,51 @@
+package com.revanth.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SegmentExportTest {
+
+    @Test
+    void refusesToResumeWithADifferentSegmentCount() throws Exception {
+        Path directory = Files.createTempDirectory("export");
+        try {
+            checkpoint(directory, "Journals", 3, 4);
+
+            IllegalStateException e = assertThrows(IllegalStateException.class,
+                    () -> SegmentExport.requireSameSegments(directory, "Journals", 8));
+            assertTrue(e.getMessage().contains("--segments 4"), e.getMessage());
+            // The segment itself checks too, before it scans anything
+            assertThrows(IllegalStateException.class,
+                    () -> new SegmentExport(null, "Journals", 3, 8, directory, 100, 10).call());
+
+            SegmentExport.requireSameSegments(directory, "Journals", 4);
+            SegmentExport.requireSameSegments(directory, "Messages", 8);
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void checkpoint(Path directory, String table, int segment, int totalSegments) throws IOException {
+        String json = String.format("{\"table\":\"%s\",\"segment\":%d,\"totalSegments\":%d,\"nextPart\":1,\"done\":false}",
+                table, segment, totalSegments);
+        Files.writeString(directory.resolve(String.format("%s.seg%04d.checkpoint.json", table, segment)), json,
+                StandardCharsets.UTF_8);
+    }
+
+    static void delete(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        }
+    }
+}
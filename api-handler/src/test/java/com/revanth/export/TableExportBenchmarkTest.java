@@ -0,0 +1,63 @@
+package com.revanth.export;
+
+import com.revanth.dynamodb.BatchWriter;
+import com.revanth.dynamodb.DynamoDbLocal;
+import com.revanth.models.Journal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Export throughput against DynamoDB Local by segment count. Run with {@code -Dbenchmarks=true} and
+ * {@code DYNAMODB_ENDPOINT} set (see {@link DynamoDbLocal}). DynamoDB Local is far slower than the
+ * service and doesn't throttle, so compare the rows with each other, not with production numbers.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@EnabledIfEnvironmentVariable(named = "DYNAMODB_ENDPOINT", matches = ".+")
+class TableExportBenchmarkTest {
+
+    private static final String TABLE = "TableExportBenchmark";
+    private static final int ITEMS = 20_000;
+
+    @Test
+    void throughputBySegmentCount() throws Exception {
+        DynamoDbTable<Journal> table = DynamoDbLocal.recreateTable(Journal.class, TABLE);
+        try {
+            List<Journal> journals = new ArrayList<>();
+            for (int i = 0; i < ITEMS; i++) {
+                Journal journal = new Journal();
+                journal.setClientId("c-" + (i % 500));
+                journal.setTimestamp(String.format("2024-01-01T00:00:%05dZ", i));
+                journal.setFeeling("calm");
+                journal.setIntensity(String.valueOf(i % 10));
+                journals.add(journal);
+            }
+            BatchWriter.putAll(table, journals);
+
+            for (int segments : new int[] {1, 4, 16}) {
+                Path directory = Files.createTempDirectory("export");
+                try {
+                    long start = System.nanoTime();
+                    long items = TableExport.export(TABLE, segments, directory, 5_000, 1000);
+                    double seconds = (System.nanoTime() - start) / 1e9;
+
+                    assertEquals(ITEMS, items);
+                    System.out.printf("export: %2d segments, %d items in %.2fs (%.0f items/s)%n",
+                            segments, items, seconds, items / seconds);
+                } finally {
+                    SegmentExportTest.delete(directory);
+                }
+            }
+        } finally {
+            DynamoDbLocal.deleteTable(table);
+        }
+    }
+}
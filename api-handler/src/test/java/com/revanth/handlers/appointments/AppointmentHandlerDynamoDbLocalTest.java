@@ -0,0 +1,125 @@
+package com.revanth.handlers.appointments;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.revanth.dynamodb.DynamoDbLocal;
+import com.revanth.json.JsonCodec;
+import com.revanth.models.Appointment;
+import com.revanth.models.ClientTherapistMapping;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AccessTokens;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Concurrent bookings of one slot against DynamoDB Local: exactly one wins, whatever offset each client
+ * wrote the time in. Needs {@code APPOINTMENTS_TABLE_NAME} and {@code MAPPINGS_TABLE_NAME} besides
+ * {@code DYNAMODB_ENDPOINT} (see {@link DynamoDbLocal}).
+ */
+@EnabledIfEnvironmentVariable(named = "DYNAMODB_ENDPOINT", matches = ".+")
+class AppointmentHandlerDynamoDbLocalTest {
+
+    private static final String THERAPIST = "t-1";
+    private static final int CLIENTS = 16;
+
+    private static DynamoDbTable<Appointment> appointments;
+    private static DynamoDbTable<ClientTherapistMapping> mappings;
+    private static AppointmentHandler handler;
+
+    @BeforeAll
+    static void createTables() {
+        String appointmentsTable = System.getenv("APPOINTMENTS_TABLE_NAME");
+        String mappingsTable = System.getenv("MAPPINGS_TABLE_NAME");
+        assumeTrue(appointmentsTable != null && mappingsTable != null,
+                "APPOINTMENTS_TABLE_NAME and MAPPINGS_TABLE_NAME are not set");
+        appointments = DynamoDbLocal.recreateTable(Appointment.class, appointmentsTable);
+        mappings = DynamoDbLocal.recreateTable(ClientTherapistMapping.class, mappingsTable);
+        handler = new AppointmentHandler();
+
+        for (int i = 0; i < CLIENTS; i++) {
+            ClientTherapistMapping mapping = new ClientTherapistMapping();
+            mapping.setClientId("c-" + i);
+            mapping.setTherapistId(THERAPIST);
+            mapping.setStatus(ClientTherapistMapping.STATUS_ACCEPTED);
+            mappings.putItem(mapping);
+        }
+    }
+
+    @AfterAll
+    static void deleteTables() {
+        if (appointments != null) {
+            DynamoDbLocal.deleteTable(appointments);
+            DynamoDbLocal.deleteTable(mappings);
+        }
+    }
+
+    @Test
+    void exactlyOneConcurrentBookingWinsTheSlot() throws Exception {
+        // The same instant in three notations
+        String[] notations = {"2024-06-03T10:00:00Z", "2024-06-03T12:00:00+02:00", "2024-06-03T10:00"};
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(CLIENTS);
+        try {
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int i = 0; i < CLIENTS; i++) {
+                String clientId = "c-" + i;
+                String slot = notations[i % notations.length];
+                Callable<Integer> booking = () -> {
+                    start.await();
+                    return book(clientId, slot).getStatusCode();
+                };
+                results.add(pool.submit(booking));
+            }
+            start.countDown();
+
+            List<Integer> statuses = new ArrayList<>();
+            for (Future<Integer> result : results) {
+                statuses.add(result.get());
+            }
+            assertEquals(1, statuses.stream().filter(status -> status == 200).count(), statuses.toString());
+            assertEquals(CLIENTS - 1, statuses.stream().filter(status -> status == 409).count(), statuses.toString());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        List<Appointment> booked = appointments.scan().items().stream()
+                .filter(item -> !item.getAppointmentId().startsWith("SLOT#"))
+                .collect(Collectors.toList());
+        assertEquals(1, booked.size());
+        assertEquals("2024-06-03T10:00:00Z", booked.get(0).getDateTimeSlot());
+    }
+
+    @Test
+    void rejectsBookingsWithoutAMapping() throws Exception {
+        APIGatewayProxyResponseEvent response = book("c-unmapped", "2024-06-04T10:00:00Z");
+
+        assertEquals(403, response.getStatusCode().intValue());
+        assertEquals(400, book("c-0", "next tuesday").getStatusCode().intValue());
+    }
+
+    private static APIGatewayProxyResponseEvent book(String clientId, String slot) throws Exception {
+        String token = AccessTokens.issue(clientId, AccessToken.ROLE_CLIENT, "hash").getAccessToken();
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withHttpMethod("POST")
+                .withPath("/appointment/request")
+                .withHeaders(Map.of("Authorization", "Bearer " + token))
+                .withBody(JsonCodec.write(Map.of("clientId", clientId, "therapistId", THERAPIST, "dateTimeSlot", slot)));
+        return handler.handleRequest(request, null);
+    }
+}
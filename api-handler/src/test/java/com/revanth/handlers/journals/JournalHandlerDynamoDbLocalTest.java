@@ -0,0 +1,116 @@
+package com.revanth.handlers.journals;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.revanth.dynamodb.BatchWriter;
+import com.revanth.dynamodb.DynamoDbLocal;
+import com.revanth.dynamodb.RecordingInterceptor;
+import com.revanth.json.JsonCodec;
+import com.revanth.models.Journal;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AccessTokens;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * A client's journal is read with a query on its partition, so the capacity it consumes follows the size
+ * of that journal, not of the table. Needs {@code JOURNALS_TABLE_NAME} besides {@code DYNAMODB_ENDPOINT}
+ * (see {@link DynamoDbLocal}).
+ */
+@EnabledIfEnvironmentVariable(named = "DYNAMODB_ENDPOINT", matches = ".+")
+class JournalHandlerDynamoDbLocalTest {
+
+    private static final String CLIENT = "c-1";
+    private static final int ENTRIES = 20;
+    private static final int OTHER_ENTRIES = 1_000;
+
+    private static DynamoDbTable<Journal> table;
+    private static JournalHandler handler;
+
+    @BeforeAll
+    static void createTable() {
+        String tableName = System.getenv("JOURNALS_TABLE_NAME");
+        assumeTrue(tableName != null, "JOURNALS_TABLE_NAME is not set");
+        table = DynamoDbLocal.recreateTable(Journal.class, tableName);
+        handler = new JournalHandler();
+
+        List<Journal> journals = new ArrayList<>();
+        for (int i = 0; i < ENTRIES; i++) {
+            journals.add(journal(CLIENT, i, i % 2 == 0 ? "calm" : "tired"));
+        }
+        // Other clients' entries, 2 KB each: a scan would have to read all of them
+        for (int i = 0; i < OTHER_ENTRIES; i++) {
+            journals.add(journal("c-" + (2 + i % 50), i, "x".repeat(2048)));
+        }
+        assertEquals(200, BatchWriter.statusCode(BatchWriter.putAll(table, journals)));
+    }
+
+    @AfterAll
+    static void deleteTable() {
+        if (table != null) {
+            DynamoDbLocal.deleteTable(table);
+        }
+    }
+
+    @Test
+    void readsOnlyTheClientsPartition() throws Exception {
+        RecordingInterceptor.clear();
+
+        APIGatewayProxyResponseEvent response = get(Map.of("clientId", CLIENT));
+
+        assertEquals(200, response.getStatusCode().intValue());
+        assertEquals(ENTRIES, JsonCodec.readList(response.getBody(), Journal.class).size());
+        assertEquals(List.of("Query"), RecordingInterceptor.operations());
+        // 20 small items fit in one 4 KB read unit; scanning the table would take hundreds
+        double capacity = RecordingInterceptor.readCapacity();
+        assertTrue(capacity > 0 && capacity <= 1, "consumed " + capacity);
+    }
+
+    @Test
+    void filtersByFeelingAndDateRangeInTheQuery() throws Exception {
+        RecordingInterceptor.clear();
+
+        APIGatewayProxyResponseEvent calm = get(Map.of("clientId", CLIENT, "feeling", "calm"));
+        APIGatewayProxyResponseEvent range = get(Map.of("clientId", CLIENT,
+                "from", timestamp(5), "to", timestamp(9)));
+
+        assertEquals(ENTRIES / 2, JsonCodec.readList(calm.getBody(), Journal.class).size());
+        assertEquals(5, JsonCodec.readList(range.getBody(), Journal.class).size());
+        assertEquals(List.of("Query", "Query"), RecordingInterceptor.operations());
+        assertTrue(RecordingInterceptor.readCapacity() <= 2, "consumed " + RecordingInterceptor.readCapacity());
+    }
+
+    private static APIGatewayProxyResponseEvent get(Map<String, String> queryParams) {
+        String token = AccessTokens.issue(CLIENT, AccessToken.ROLE_CLIENT, "hash").getAccessToken();
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withHttpMethod("GET")
+                .withPath("/journal")
+                .withQueryStringParameters(queryParams)
+                .withHeaders(Map.of("Authorization", "Bearer " + token));
+        return handler.handleRequest(request, null);
+    }
+
+    private static Journal journal(String clientId, int index, String feeling) {
+        Journal journal = new Journal();
+        journal.setClientId(clientId);
+        journal.setTimestamp(timestamp(index));
+        journal.setFeeling(feeling);
+        journal.setIntensity("3");
+        return journal;
+    }
+
+    private static String timestamp(int index) {
+        return String.format("2024-05-01T10:%02d:%02dZ", index / 60, index % 60);
+    }
+}
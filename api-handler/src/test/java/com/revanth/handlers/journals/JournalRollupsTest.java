@@ -0,0 +1,113 @@
+package com.revanth.handlers.journals;
+
+import com.revanth.models.Journal;
+import com.revanth.models.MoodSummary;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+import software.amazon.awssdk.services.dynamodb.model.Update;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JournalRollupsTest {
+
+    @Test
+    void takesTheDateFromTimestampsAndDates() {
+        assertEquals(LocalDate.of(2024, 5, 1), JournalRollups.dateOf("2024-05-01T10:00:00Z", "timestamp"));
+        assertEquals(LocalDate.of(2024, 5, 1), JournalRollups.dateOf("2024-05-01", "from"));
+    }
+
+    @Test
+    void rejectsValuesThatDoNotStartWithADate() {
+        assertThrows(IllegalArgumentException.class, () -> JournalRollups.dateOf(null, "timestamp"));
+        assertThrows(IllegalArgumentException.class, () -> JournalRollups.dateOf("2024-5-1", "from"));
+        assertThrows(IllegalArgumentException.class, () -> JournalRollups.dateOf("yesterday!", "to"));
+        assertThrows(IllegalArgumentException.class, () -> JournalRollups.dateOf("2024-13-01T00:00:00Z", "to"));
+    }
+
+    @Test
+    void countsUnknownFeelingsAsOther() {
+        assertEquals("calm", JournalRollups.feelingBucket(" Calm "));
+        assertEquals(JournalRollups.OTHER_FEELING, JournalRollups.feelingBucket("like a tuesday"));
+        assertNull(JournalRollups.feelingBucket("  "));
+        assertNull(JournalRollups.feelingBucket(null));
+    }
+
+    @Test
+    void acceptsOnlyIntensitiesInRange() {
+        JournalRollups.checkIntensity("0");
+        JournalRollups.checkIntensity("7.25");
+        JournalRollups.checkIntensity("10");
+        JournalRollups.checkIntensity("pretty bad");
+        JournalRollups.checkIntensity(null);
+
+        assertThrows(IllegalArgumentException.class, () -> JournalRollups.checkIntensity("-1"));
+        assertThrows(IllegalArgumentException.class, () -> JournalRollups.checkIntensity("10.01"));
+        assertThrows(IllegalArgumentException.class, () -> JournalRollups.checkIntensity("1E400"));
+    }
+
+    @Test
+    void countsIntensitiesToOneDecimalPlace() {
+        assertEquals("7.3", JournalRollups.intensityBucket("7.25").toPlainString());
+        assertEquals("10", JournalRollups.intensityBucket("10.00").toPlainString());
+        assertEquals("0", JournalRollups.intensityBucket("0.0").toPlainString());
+        assertNull(JournalRollups.intensityBucket("1E400"));
+        assertNull(JournalRollups.intensityBucket("pretty bad"));
+    }
+
+    @Test
+    void updatesDayWeekAndMonthWithBoundedFeelingCounters() {
+        JournalRollups rollups = new JournalRollups(null, "JournalSummariesTable");
+
+        List<Update> updates = rollups.updatesFor(journal("2024-05-01T10:00:00Z", "a feeling nobody listed", "3"));
+
+        assertEquals(3, updates.size());
+        assertEquals("DAY#2024-05-01", updates.get(0).key().get("period").s());
+        assertEquals("WEEK#2024-W18", updates.get(1).key().get("period").s());
+        assertEquals("MONTH#2024-05", updates.get(2).key().get("period").s());
+        assertTrue(updates.get(0).expressionAttributeNames().containsValue("feeling:other"));
+    }
+
+    @Test
+    void summarizesCounters() {
+        Map<String, AttributeValue> item = new HashMap<>();
+        item.put("period", AttributeValue.builder().s("DAY#2024-05-01").build());
+        item.put("entryCount", number("3"));
+        item.put("intensityCount", number("2"));
+        item.put("intensitySum", number("7"));
+        item.put("feeling:calm", number("2"));
+        item.put("feeling:other", number("1"));
+        item.put("intensity:3", number("1"));
+        item.put("intensity:4", number("1"));
+
+        MoodSummary summary = JournalRollups.toSummary(item);
+
+        assertEquals("2024-05-01", summary.getPeriod());
+        assertEquals(3, summary.getEntries());
+        assertEquals(new BigDecimal("3.50"), summary.getIntensityMean());
+        assertEquals(new BigDecimal("3"), summary.getIntensityMin());
+        assertEquals(new BigDecimal("4"), summary.getIntensityMax());
+        assertEquals(Map.of("calm", 2L, "other", 1L), summary.getFeelings());
+    }
+
+    private static Journal journal(String timestamp, String feeling, String intensity) {
+        Journal journal = new Journal();
+        journal.setClientId("c-1");
+        journal.setTimestamp(timestamp);
+        journal.setFeeling(feeling);
+        journal.setIntensity(intensity);
+        return journal;
+    }
+
+    private static AttributeValue number(String value) {
+        return AttributeValue.builder().n(value).build();
+    }
+}
@@ -0,0 +1,221 @@
+package com.revanth.handlers.mappings;
+
+import com.revanth.models.ClientTherapistMapping;
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbEnhancedClientExtension;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbIndex;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+import software.amazon.awssdk.enhanced.dynamodb.Key;
+import software.amazon.awssdk.enhanced.dynamodb.TableSchema;
+import software.amazon.awssdk.enhanced.dynamodb.model.GetItemEnhancedRequest;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MappingCacheTest {
+
+    @Test
+    void seesARevokeFromAnotherEnvironmentOnceTheGrantExpires() {
+        FakeMappingTable table = new FakeMappingTable("revoke");
+        MutableClock clock = new MutableClock();
+        MappingCache cache = new MappingCache(table, clock);
+        table.save(mapping("c-1", "t-1", "Yes", 3L));
+        assertEquals("Yes", cache.get("c-1", "t-1").getJournalAccess());
+
+        // Written by another execution environment, so this cache is never told
+        table.save(mapping("c-1", "t-1", "No", 4L));
+        clock.advance(MappingCache.POSITIVE_TTL);
+        assertEquals("No", cache.get("c-1", "t-1").getJournalAccess());
+
+        table.delete("c-1", "t-1");
+        clock.advance(MappingCache.POSITIVE_TTL);
+        assertNull(cache.get("c-1", "t-1"));
+    }
+
+    @Test
+    void servesGrantsFromTheCacheUntilTheyExpire() {
+        FakeMappingTable table = new FakeMappingTable("positive");
+        MutableClock clock = new MutableClock();
+        MappingCache cache = new MappingCache(table, clock);
+        table.save(mapping("c-1", "t-1", "Yes", 1L));
+
+        cache.get("c-1", "t-1");
+        cache.get("c-1", "t-1");
+        assertEquals(1, table.reads.get());
+
+        clock.advance(MappingCache.POSITIVE_TTL);
+        cache.get("c-1", "t-1");
+        assertEquals(2, table.reads.get());
+        assertTrue(table.allReadsConsistent);
+    }
+
+    @Test
+    void replacesAGrantOnItsOwnWritesStraightAway() {
+        FakeMappingTable table = new FakeMappingTable("own-write");
+        MappingCache cache = new MappingCache(table, new MutableClock());
+        table.save(mapping("c-1", "t-1", "Yes", 1L));
+        assertEquals("Yes", cache.get("c-1", "t-1").getJournalAccess());
+
+        ClientTherapistMapping revoked = mapping("c-1", "t-1", "No", 2L);
+        table.save(revoked);
+        cache.put(revoked);
+        assertEquals("No", cache.get("c-1", "t-1").getJournalAccess());
+
+        table.delete("c-1", "t-1");
+        cache.remove("c-1", "t-1");
+        assertNull(cache.get("c-1", "t-1"));
+        assertEquals(1, table.reads.get());
+    }
+
+    @Test
+    void servesNotMappedFromTheCache() {
+        FakeMappingTable table = new FakeMappingTable("negative");
+        MappingCache cache = MappingCache.of(table);
+
+        assertNull(cache.get("c-1", "t-1"));
+        assertNull(cache.get("c-1", "t-1"));
+
+        assertEquals(1, table.reads.get());
+    }
+
+    @Test
+    void acceptsOnlyMappingsTheClientAccepted() {
+        FakeMappingTable table = new FakeMappingTable("accepted");
+        MappingCache cache = MappingCache.of(table);
+        ClientTherapistMapping requested = mapping("c-1", "t-1", "No", 1L);
+        requested.setStatus(ClientTherapistMapping.STATUS_PENDING);
+        table.save(requested);
+        table.save(mapping("c-2", "t-1", "No", 1L));
+
+        assertFalse(cache.isAccepted("c-1", "t-1"));
+        assertFalse(cache.isAccepted("c-2", "t-1"));
+        assertFalse(cache.isAccepted("c-3", "t-1"));
+
+        ClientTherapistMapping accepted = mapping("c-1", "t-1", "No", 2L);
+        accepted.setStatus(ClientTherapistMapping.STATUS_ACCEPTED);
+        table.save(accepted);
+        cache.put(accepted);
+        assertTrue(cache.isAccepted("c-1", "t-1"));
+    }
+
+    @Test
+    void picksUpAMappingCreatedAgainWithALowerVersion() {
+        FakeMappingTable table = new FakeMappingTable("recreate");
+        MappingCache cache = MappingCache.of(table);
+        ClientTherapistMapping old = mapping("c-1", "t-1", "Yes", 7L);
+        table.save(old);
+        cache.put(old);
+        assertEquals(Long.valueOf(7), cache.get("c-1", "t-1").getVersion());
+
+        table.delete("c-1", "t-1");
+        cache.remove("c-1", "t-1");
+        assertNull(cache.get("c-1", "t-1"));
+
+        ClientTherapistMapping recreated = mapping("c-1", "t-1", "No", 1L);
+        table.save(recreated);
+        cache.put(recreated);
+        ClientTherapistMapping current = cache.get("c-1", "t-1");
+        assertNotNull(current);
+        assertEquals(Long.valueOf(1), current.getVersion());
+    }
+
+    private static ClientTherapistMapping mapping(String clientId, String therapistId, String journalAccess,
+                                                  Long version) {
+        ClientTherapistMapping mapping = new ClientTherapistMapping();
+        mapping.setClientId(clientId);
+        mapping.setTherapistId(therapistId);
+        mapping.setJournalAccess(journalAccess);
+        mapping.setVersion(version);
+        return mapping;
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2024-05-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Just enough of a mapping table for the cache: an in-memory item map behind getItem.
+     */
+    private static final class FakeMappingTable implements DynamoDbTable<ClientTherapistMapping> {
+        private final String name;
+        private final Map<String, ClientTherapistMapping> items = new ConcurrentHashMap<>();
+        private final AtomicInteger reads = new AtomicInteger();
+        private volatile boolean allReadsConsistent = true;
+
+        private FakeMappingTable(String name) {
+            this.name = "MappingCacheTest-" + name;
+        }
+
+        void save(ClientTherapistMapping mapping) {
+            items.put(mapping.getClientId() + "#" + mapping.getTherapistId(), mapping);
+        }
+
+        void delete(String clientId, String therapistId) {
+            items.remove(clientId + "#" + therapistId);
+        }
+
+        @Override
+        public ClientTherapistMapping getItem(GetItemEnhancedRequest request) {
+            reads.incrementAndGet();
+            allReadsConsistent &= Boolean.TRUE.equals(request.consistentRead());
+            Key key = request.key();
+            return items.get(key.partitionKeyValue().s() + "#" + key.sortKeyValue().get().s());
+        }
+
+        @Override
+        public String tableName() {
+            return name;
+        }
+
+        @Override
+        public DynamoDbIndex<ClientTherapistMapping> index(String indexName) {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public DynamoDbEnhancedClientExtension mapperExtension() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public TableSchema<ClientTherapistMapping> tableSchema() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public Key keyFrom(ClientTherapistMapping item) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package com.revanth.handlers.messages;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.revanth.dynamodb.BatchWriter;
+import com.revanth.dynamodb.DynamoDbLocal;
+import com.revanth.json.JsonCodec;
+import com.revanth.models.Message;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AccessTokens;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Messages per second through POST /messages/batch versus the same number of POST /messages/send calls,
+ * against DynamoDB Local. Run with {@code -Dbenchmarks=true}; needs {@code DYNAMODB_ENDPOINT} and
+ * {@code MESSAGES_TABLE_NAME} (see {@link DynamoDbLocal}).
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+@EnabledIfEnvironmentVariable(named = "DYNAMODB_ENDPOINT", matches = ".+")
+class MessageBatchBenchmarkTest {
+
+    private static final DateTimeFormatter TIMESTAMP_FORMAT =
+            DateTimeFormatter.ofPattern("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'").withZone(ZoneOffset.UTC);
+    private static final int MESSAGES = BatchWriter.MAX_REQUEST_ITEMS;
+
+    private static DynamoDbTable<Message> table;
+    private static MessageHandler handler;
+    private static String token;
+
+    @BeforeAll
+    static void createTable() {
+        String tableName = System.getenv("MESSAGES_TABLE_NAME");
+        assumeTrue(tableName != null, "MESSAGES_TABLE_NAME is not set");
+        table = DynamoDbLocal.recreateTable(Message.class, tableName);
+        handler = new MessageHandler();
+        token = AccessTokens.issue("c-1", AccessToken.ROLE_CLIENT, "hash").getAccessToken();
+    }
+
+    @AfterAll
+    static void deleteTable() {
+        if (table != null) {
+            DynamoDbLocal.deleteTable(table);
+        }
+    }
+
+    @Test
+    void batchAgainstSingleSends() throws Exception {
+        // Warm up both paths on a conversation of their own
+        sendOneByOne("t-warmup", 50);
+        assertEquals(200, sendBatch("t-warmup", Instant.parse("2020-01-01T00:00:00Z"), 50));
+
+        long start = System.nanoTime();
+        sendOneByOne("t-single", MESSAGES);
+        double singlePerSecond = MESSAGES / ((System.nanoTime() - start) / 1e9);
+
+        start = System.nanoTime();
+        assertEquals(200, sendBatch("t-batch", Instant.parse("2021-01-01T00:00:00Z"), MESSAGES));
+        double batchPerSecond = MESSAGES / ((System.nanoTime() - start) / 1e9);
+
+        System.out.printf("messages: %d per request; single sends %.0f msg/s, batch %.0f msg/s (%.1fx)%n",
+                MESSAGES, singlePerSecond, batchPerSecond, batchPerSecond / singlePerSecond);
+    }
+
+    private static void sendOneByOne(String therapistId, int count) throws Exception {
+        for (int i = 0; i < count; i++) {
+            APIGatewayProxyResponseEvent response = handler.handleRequest(request("/messages/send")
+                    .withBody(JsonCodec.write(message(therapistId, i, null))), null);
+            assertEquals(200, response.getStatusCode().intValue(), response.getBody());
+        }
+    }
+
+    private static int sendBatch(String therapistId, Instant first, int count) throws Exception {
+        List<Map<String, String>> batch = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            batch.add(message(therapistId, i, TIMESTAMP_FORMAT.format(first.plusMillis(i))));
+        }
+        return handler.handleRequest(request("/messages/batch").withBody(JsonCodec.write(batch)), null)
+                .getStatusCode();
+    }
+
+    private static Map<String, String> message(String therapistId, int i, String timestamp) {
+        String content = "benchmark message " + i;
+        return timestamp == null
+                ? Map.of("sender", "c-1", "receiver", therapistId, "messageContent", content)
+                : Map.of("sender", "c-1", "receiver", therapistId, "messageContent", content, "timestamp", timestamp);
+    }
+
+    private static APIGatewayProxyRequestEvent request(String path) {
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod("POST")
+                .withPath(path)
+                .withHeaders(Map.of("Authorization", "Bearer " + token));
+    }
+}
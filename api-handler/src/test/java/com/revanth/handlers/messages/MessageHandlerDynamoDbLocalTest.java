@@ -0,0 +1,160 @@
+package com.revanth.handlers.messages;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.revanth.dynamodb.DynamoDbLocal;
+import com.revanth.dynamodb.RecordingInterceptor;
+import com.revanth.json.JsonCodec;
+import com.revanth.models.Message;
+import com.revanth.security.AccessToken;
+import com.revanth.security.AccessTokens;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfEnvironmentVariable;
+import software.amazon.awssdk.enhanced.dynamodb.DynamoDbTable;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+/**
+ * Inboxes and conversations are served by queries on the table and its two GSIs; no request scans.
+ * Needs {@code MESSAGES_TABLE_NAME} besides {@code DYNAMODB_ENDPOINT} (see {@link DynamoDbLocal}).
+ */
+@EnabledIfEnvironmentVariable(named = "DYNAMODB_ENDPOINT", matches = ".+")
+class MessageHandlerDynamoDbLocalTest {
+
+    private static final String CLIENT = "c-1";
+    private static final String THERAPIST = "t-1";
+
+    private static DynamoDbTable<Message> table;
+    private static MessageHandler handler;
+
+    @BeforeAll
+    static void createTable() throws Exception {
+        String tableName = System.getenv("MESSAGES_TABLE_NAME");
+        assumeTrue(tableName != null, "MESSAGES_TABLE_NAME is not set");
+        table = DynamoDbLocal.recreateTable(Message.class, tableName);
+        handler = new MessageHandler();
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals(200, send(CLIENT, AccessToken.ROLE_CLIENT, THERAPIST, Map.of()).getStatusCode().intValue());
+            assertEquals(200, send(THERAPIST, AccessToken.ROLE_THERAPIST, CLIENT, Map.of()).getStatusCode().intValue());
+        }
+        // Someone else's conversation, which must not show up in either inbox
+        assertEquals(200, send("c-2", AccessToken.ROLE_CLIENT, "t-2", Map.of()).getStatusCode().intValue());
+    }
+
+    @AfterAll
+    static void deleteTable() {
+        if (table != null) {
+            DynamoDbLocal.deleteTable(table);
+        }
+    }
+
+    @Test
+    void pagesThroughInboxesNewestFirstWithoutScanning() throws Exception {
+        RecordingInterceptor.clear();
+
+        List<Message> clientInbox = readAll(Map.of("clientId", CLIENT), CLIENT, AccessToken.ROLE_CLIENT);
+        List<Message> therapistInbox = readAll(Map.of("therapistId", THERAPIST), THERAPIST, AccessToken.ROLE_THERAPIST);
+        List<Message> conversation = readAll(Map.of("sender", CLIENT, "receiver", THERAPIST), CLIENT, AccessToken.ROLE_CLIENT);
+
+        assertEquals(6, clientInbox.size());
+        assertEquals(6, therapistInbox.size());
+        assertEquals(6, conversation.size());
+        for (int i = 1; i < clientInbox.size(); i++) {
+            assertTrue(clientInbox.get(i - 1).getTimestamp().compareTo(clientInbox.get(i).getTimestamp()) > 0);
+        }
+
+        List<String> operations = RecordingInterceptor.operations();
+        assertFalse(operations.isEmpty());
+        assertTrue(operations.stream().allMatch("Query"::equals), operations.toString());
+    }
+
+    @Test
+    void takesTheSenderRoleAndInboxesFromTheToken() throws Exception {
+        // A therapist claiming to be a client and filing the message under another client's inbox
+        assertEquals(200, send(THERAPIST, AccessToken.ROLE_THERAPIST, "c-3",
+                Map.of("senderRole", "client", "clientId", "c-9", "therapistId", "t-9")).getStatusCode().intValue());
+
+        List<Message> inbox = readAll(Map.of("clientId", "c-3"), "c-3", AccessToken.ROLE_CLIENT);
+        assertEquals(1, inbox.size());
+        assertEquals(AccessToken.ROLE_THERAPIST, inbox.get(0).getSenderRole());
+        assertEquals(THERAPIST, inbox.get(0).getTherapistId());
+        assertTrue(readAll(Map.of("clientId", "c-9"), "c-9", AccessToken.ROLE_CLIENT).isEmpty());
+    }
+
+    @Test
+    void refusesToOverwriteMessagesInABatch() throws Exception {
+        Message existing = readAll(Map.of("sender", CLIENT, "receiver", THERAPIST), CLIENT, AccessToken.ROLE_CLIENT)
+                .stream()
+                .filter(message -> CLIENT.equals(message.getSender()))
+                .findFirst()
+                .orElseThrow();
+
+        // The therapist replays the client's key with their own text, next to a message to another client
+        List<Map<String, String>> batch = List.of(
+                Map.of("sender", THERAPIST, "receiver", CLIENT, "messageContent", "rewritten",
+                        "timestamp", existing.getTimestamp()),
+                Map.of("sender", THERAPIST, "receiver", "c-4", "messageContent", "new",
+                        "timestamp", "2020-01-01T00:00:00.000Z"));
+        APIGatewayProxyResponseEvent response = handler.handleRequest(
+                request("POST", "/messages/batch", null, THERAPIST, AccessToken.ROLE_THERAPIST)
+                        .withBody(JsonCodec.write(batch)), null);
+
+        assertEquals(207, response.getStatusCode().intValue(), response.getBody());
+        JsonNode results = JsonCodec.mapper().readTree(response.getBody()).get("results");
+        assertEquals("failed", results.get(0).get("status").asText());
+        assertEquals("written", results.get(1).get("status").asText());
+        Message stored = table.getItem(existing);
+        assertEquals(existing.getMessageContent(), stored.getMessageContent());
+        assertEquals(CLIENT, stored.getSender());
+    }
+
+    private static APIGatewayProxyResponseEvent send(String sender, String role, String receiver,
+                                                     Map<String, String> extra) throws Exception {
+        Map<String, Object> body = new HashMap<>(extra);
+        body.put("sender", sender);
+        body.put("receiver", receiver);
+        body.put("messageContent", "hello from " + sender);
+        return handler.handleRequest(request("POST", "/messages/send", null, sender, role)
+                .withBody(JsonCodec.write(body)), null);
+    }
+
+    private static List<Message> readAll(Map<String, String> query, String userId, String role) throws Exception {
+        List<Message> messages = new ArrayList<>();
+        String nextToken = null;
+        do {
+            Map<String, String> params = new HashMap<>(query);
+            params.put("limit", "2");
+            if (nextToken != null) {
+                params.put("nextToken", nextToken);
+            }
+            APIGatewayProxyResponseEvent response = handler.handleRequest(
+                    request("GET", "/messages/history", params, userId, role), null);
+            assertEquals(200, response.getStatusCode().intValue(), response.getBody());
+            messages.addAll(JsonCodec.readList(response.getBody(), Message.class));
+            nextToken = response.getHeaders().get("X-Next-Token");
+        } while (nextToken != null);
+        return messages;
+    }
+
+    private static APIGatewayProxyRequestEvent request(String method, String path, Map<String, String> query,
+                                                       String userId, String role) {
+        String token = AccessTokens.issue(userId, role, "hash").getAccessToken();
+        return new APIGatewayProxyRequestEvent()
+                .withHttpMethod(method)
+                .withPath(path)
+                .withQueryStringParameters(query)
+                .withHeaders(Map.of("Authorization", "Bearer " + token));
+    }
+}
@@ -0,0 +1,88 @@
+package com.revanth.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.revanth.json.JsonCodec;
+import com.revanth.models.Therapist;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CachePoliciesTest {
+
+    @Test
+    void sendsCacheControlForCachedReads() {
+        assertEquals("public, max-age=300", header(apply("GET", "/therapists/t-1", 200), "Cache-Control"));
+        assertEquals("public, max-age=60", header(apply("GET", "/therapists/available", 304), "Cache-Control"));
+        assertEquals("private, max-age=60", header(apply("GET", "/clients/c-1", 200), "Cache-Control"));
+    }
+
+    @Test
+    void leavesUncachedRoutesAndErrorsAlone() {
+        assertNull(header(apply("GET", "/journal", 200), "Cache-Control"));
+        assertNull(header(apply("GET", "/therapists/t-1", 404), "Cache-Control"));
+        assertNull(header(apply("PUT", "/therapists/t-1", 500), CachePolicies.INVALIDATE_HEADER));
+    }
+
+    @Test
+    void listsThePathsAWriteMakesStale() {
+        assertEquals("/therapists, /therapists/available, /therapists/t-1",
+                header(apply("PUT", "/therapists/t-1", 200), CachePolicies.INVALIDATE_HEADER));
+        assertEquals(List.of("/therapists", "/therapists/available"), CachePolicies.invalidatedPaths("POST", "/therapists"));
+        assertEquals(List.of("/clients/c-1"), CachePolicies.invalidatedPaths("DELETE", "/clients/c-1"));
+        assertEquals(List.of(), CachePolicies.invalidatedPaths("POST", "/therapists/login"));
+        assertEquals(List.of(), CachePolicies.invalidatedPaths("POST", "/clients/refresh"));
+    }
+
+    @Test
+    void keysPerUserRoutesOnTheAuthorizationHeader() {
+        CachePolicy therapists = CachePolicies.forRoute("GET", "/therapists");
+        CachePolicy client = CachePolicies.forRoute("GET", "/clients/{clientId}");
+
+        assertEquals(List.of("method.request.querystring.limit", "method.request.querystring.nextToken",
+                        "method.request.querystring.ids", "method.request.header.Accept",
+                        "method.request.header.Accept-Encoding",
+                        "method.request.header.If-None-Match"),
+                therapists.getCacheKeyParameters());
+        assertEquals(List.of("method.request.path.clientId", "method.request.header.Accept",
+                        "method.request.header.Accept-Encoding",
+                        "method.request.header.If-None-Match", "method.request.header.Authorization"),
+                client.getCacheKeyParameters());
+        assertNull(CachePolicies.forRoute("GET", "/journal"));
+    }
+
+    @Test
+    void matchesLiteralRoutesBeforeParameterizedOnes() {
+        assertEquals(60, CachePolicies.forRoute("GET", "/therapists/available").getTtlSeconds());
+        assertEquals("public, max-age=60", header(apply("GET", "/therapists/available", 200), "Cache-Control"));
+    }
+
+    @Test
+    void sharesOnlyTherapistProfilesWithoutTheirPasswords() throws Exception {
+        for (CachePolicy policy : CachePolicies.ALL) {
+            assertTrue(policy.isPerUser() || policy.getResourcePath().startsWith("/therapists"),
+                    policy.getResourcePath());
+        }
+        Therapist therapist = new Therapist();
+        therapist.setTherapistId("t-1");
+        therapist.setPassword("$2a$10$hash");
+
+        // Public entries are served to every caller, so the stored hash must never be in them
+        assertFalse(JsonCodec.write(therapist).contains("password"));
+        assertFalse(JsonCodec.writeList(List.of(therapist), Therapist.class).contains("password"));
+    }
+
+    private static APIGatewayProxyResponseEvent apply(String method, String path, int status) {
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent().withHttpMethod(method).withPath(path);
+        return CachePolicies.apply(request, new APIGatewayProxyResponseEvent().withStatusCode(status));
+    }
+
+    private static String header(APIGatewayProxyResponseEvent response, String name) {
+        return response.getHeaders() != null ? response.getHeaders().get(name) : null;
+    }
+}
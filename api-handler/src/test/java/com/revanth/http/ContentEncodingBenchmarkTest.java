@@ -0,0 +1,92 @@
+package com.revanth.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reports what response compression costs in CPU against the bytes it saves, for payloads shaped like
+ * the API's list responses. Run with {@code -Dbenchmarks=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class ContentEncodingBenchmarkTest {
+
+    @Test
+    void cpuCostAgainstBytesSaved() {
+        Map<String, String> payloads = new LinkedHashMap<>();
+        payloads.put("therapist page (20)", therapists(20));
+        payloads.put("therapist directory (500)", therapists(500));
+        payloads.put("message history (200)", messages(200));
+        payloads.put("journal month (30)", journals(30));
+
+        APIGatewayProxyRequestEvent request = ContentEncodingTest.request("application/json", "gzip");
+        for (Map.Entry<String, String> payload : payloads.entrySet()) {
+            String body = payload.getValue();
+            int plainBytes = body.getBytes(StandardCharsets.UTF_8).length;
+
+            int iterations = Math.max(200, 20_000_000 / plainBytes);
+            String encoded = null;
+            for (int i = 0; i < iterations; i++) {
+                encoded = ContentEncoding.encode(request, ContentEncodingTest.response(body, Map.of())).getBody();
+            }
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                encoded = ContentEncoding.encode(request, ContentEncodingTest.response(body, Map.of())).getBody();
+            }
+            long nanosPerOp = (System.nanoTime() - start) / iterations;
+
+            int gzipBytes = Base64.getDecoder().decode(encoded).length;
+            System.out.printf("gzip %-26s %8d -> %7d bytes (%4.1f%% saved), %7d us/op, %6.1f bytes saved/us%n",
+                    payload.getKey(), plainBytes, gzipBytes, 100.0 * (plainBytes - gzipBytes) / plainBytes,
+                    nanosPerOp / 1_000, (plainBytes - gzipBytes) * 1_000.0 / nanosPerOp);
+        }
+    }
+
+    private static String therapists(int count) {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"therapistId\":\"").append(uuid(i)).append("\",\"name\":\"Therapist ").append(i)
+                    .append("\",\"email\":\"therapist").append(i).append("@example.com\",\"slotsAvailable\":")
+                    .append("[\"MON 09:00-12:00\",\"WED 13:00-17:30\",\"FRI 08:00-11:15\"],\"version\":").append(i % 7)
+                    .append('}');
+        }
+        return json.append("],\"nextToken\":null}").toString();
+    }
+
+    private static String messages(int count) {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"messageId\":\"").append(uuid(i)).append("\",\"clientId\":\"c-1\",\"therapistId\":\"t-1\"")
+                    .append(",\"senderRole\":\"").append(i % 2 == 0 ? "client" : "therapist")
+                    .append("\",\"timestamp\":\"2024-05-01T10:").append(String.format("%02d", i % 60))
+                    .append(":00Z\",\"content\":\"Message number ").append(i)
+                    .append(" about how the week went and what to talk about next time.\"}");
+        }
+        return json.append("],\"nextToken\":null}").toString();
+    }
+
+    private static String journals(int count) {
+        StringBuilder json = new StringBuilder("{\"items\":[");
+        for (int i = 0; i < count; i++) {
+            json.append(i == 0 ? "" : ",")
+                    .append("{\"clientId\":\"c-1\",\"timestamp\":\"2024-05-").append(String.format("%02d", i % 28 + 1))
+                    .append("T21:00:00Z\",\"feeling\":\"").append(i % 3 == 0 ? "calm" : "anxious")
+                    .append("\",\"intensity\":").append(i % 10)
+                    .append(",\"entry\":\"Slept ").append(5 + i % 4).append(" hours. ")
+                    .append("Work was busy, a walk in the evening helped. Day ").append(i).append(".\"}");
+        }
+        return json.append("],\"nextToken\":null}").toString();
+    }
+
+    private static String uuid(int i) {
+        return String.format("%08x-%04x-4%03x-8%03x-%012x", i * 2654435761L & 0xffffffffL, i & 0xffff, i & 0xfff,
+                (i * 7) & 0xfff, i * 40503L);
+    }
+}
@@ -0,0 +1,126 @@
+package com.revanth.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ContentEncodingTest {
+
+    private static final String LARGE_BODY = "[" + "{\"therapistId\":\"t-1\",\"name\":\"Dr. Example\"},".repeat(100) + "{}]";
+
+    @Test
+    void gzipsLargeBodiesForJsonClientsThatAcceptIt() throws IOException {
+        APIGatewayProxyResponseEvent response = ContentEncoding.encode(
+                request("application/json", "gzip, deflate, br"), response(LARGE_BODY, Map.of("ETag", "\"abc\"")));
+
+        assertTrue(response.getIsBase64Encoded());
+        assertEquals("gzip", response.getHeaders().get("Content-Encoding"));
+        assertEquals("Accept-Encoding", response.getHeaders().get("Vary"));
+        assertEquals("\"abc" + ETags.GZIP_SUFFIX + "\"", response.getHeaders().get("ETag"));
+        assertEquals(LARGE_BODY, gunzip(response.getBody()));
+    }
+
+    @Test
+    void reusesTheCompressorAcrossResponses() throws IOException {
+        String other = LARGE_BODY.replace("Example", "Other");
+
+        String first = ContentEncoding.encode(request("application/json", "gzip"), response(LARGE_BODY, Map.of())).getBody();
+        String second = ContentEncoding.encode(request("application/json", "gzip"), response(other, Map.of())).getBody();
+
+        assertEquals(LARGE_BODY, gunzip(first));
+        assertEquals(other, gunzip(second));
+    }
+
+    @Test
+    void leavesSmallBodiesAndRefusingClientsAlone() {
+        assertPlain(ContentEncoding.encode(request("application/json", "gzip"), response("{\"ok\":true}", Map.of())));
+        assertPlain(ContentEncoding.encode(request("application/json", null), response(LARGE_BODY, Map.of())));
+        assertPlain(ContentEncoding.encode(request("application/json", "gzip;q=0, deflate"), response(LARGE_BODY, Map.of())));
+        assertPlain(ContentEncoding.encode(request("application/json", "*;q=0"), response(LARGE_BODY, Map.of())));
+    }
+
+    @Test
+    void leavesCompressionToApiGatewayWhenItWouldNotDecodeTheBody() {
+        // API Gateway only decodes base64 when the first Accept type is a declared binary media type
+        APIGatewayProxyResponseEvent response = ContentEncoding.encode(
+                request("*/*", "gzip"), response(LARGE_BODY, Map.of()));
+
+        assertPlain(response);
+        assertEquals("Accept-Encoding", response.getHeaders().get("Vary"));
+        assertPlain(ContentEncoding.encode(request(null, "gzip"), response(LARGE_BODY, Map.of())));
+        assertPlain(ContentEncoding.encode(request("text/html, application/json", "gzip"), response(LARGE_BODY, Map.of())));
+        assertTrue(ContentEncoding.encode(request("Application/JSON; charset=utf-8, */*", "gzip"),
+                response(LARGE_BODY, Map.of())).getIsBase64Encoded());
+    }
+
+    @Test
+    void doesNotReencodeEncodedResponses() {
+        APIGatewayProxyResponseEvent encoded = response(LARGE_BODY, Map.of("Content-Encoding", "identity"));
+
+        assertPlain(ContentEncoding.encode(request("application/json", "gzip"), encoded));
+    }
+
+    @Test
+    void acceptsGzipFromTheWildcardAndMultiValueHeaders() {
+        assertTrue(ContentEncoding.acceptsGzip(request(null, "*")));
+        assertFalse(ContentEncoding.acceptsGzip(request(null, "br, *;q=0")));
+        assertTrue(ContentEncoding.acceptsGzip(request(null, "x-gzip;q=0.5")));
+
+        APIGatewayProxyRequestEvent multiValue = new APIGatewayProxyRequestEvent()
+                .withMultiValueHeaders(Map.of("accept-encoding", List.of("br", "gzip")));
+        assertTrue(ContentEncoding.acceptsGzip(multiValue));
+    }
+
+    @Test
+    void decodesBase64RequestBodiesOnce() {
+        APIGatewayProxyRequestEvent request = new APIGatewayProxyRequestEvent()
+                .withBody(Base64.getEncoder().encodeToString("{\"name\":\"Zoë\"}".getBytes(StandardCharsets.UTF_8)))
+                .withIsBase64Encoded(true);
+
+        ContentEncoding.decodeRequestBody(request);
+        ContentEncoding.decodeRequestBody(request);
+
+        assertEquals("{\"name\":\"Zoë\"}", request.getBody());
+        assertFalse(request.getIsBase64Encoded());
+    }
+
+    private static void assertPlain(APIGatewayProxyResponseEvent response) {
+        assertNull(response.getIsBase64Encoded());
+        assertFalse("gzip".equals(response.getHeaders().get("Content-Encoding")));
+    }
+
+    static APIGatewayProxyRequestEvent request(String accept, String acceptEncoding) {
+        Map<String, String> headers = new HashMap<>();
+        if (accept != null) {
+            headers.put("Accept", accept);
+        }
+        if (acceptEncoding != null) {
+            headers.put("accept-encoding", acceptEncoding);
+        }
+        return new APIGatewayProxyRequestEvent().withHttpMethod("GET").withPath("/therapists").withHeaders(headers);
+    }
+
+    static APIGatewayProxyResponseEvent response(String body, Map<String, String> headers) {
+        return new APIGatewayProxyResponseEvent().withStatusCode(200).withHeaders(new HashMap<>(headers)).withBody(body);
+    }
+
+    static String gunzip(String base64) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(Base64.getDecoder().decode(base64)))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+}
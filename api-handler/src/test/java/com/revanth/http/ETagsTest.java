@@ -0,0 +1,78 @@
+package com.revanth.http;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import com.revanth.dynamodb.TableSchemas;
+import com.revanth.models.Client;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ETagsTest {
+
+    @Test
+    void tagsItemsByKeyAndContentNotJustVersion() {
+        String etag = ETags.ofItem(TableSchemas.CLIENT, client("c-1", "Ann", 1L));
+
+        assertEquals(etag, ETags.ofItem(TableSchemas.CLIENT, client("c-1", "Ann", 1L)));
+        // Another item at the same version, and the same item recreated with its counter back at 1
+        assertNotEquals(etag, ETags.ofItem(TableSchemas.CLIENT, client("c-2", "Ann", 1L)));
+        assertNotEquals(etag, ETags.ofItem(TableSchemas.CLIENT, client("c-1", "Bea", 1L)));
+        assertNotEquals(etag, ETags.ofItem(TableSchemas.CLIENT, client("c-1", "Ann", 2L)));
+        // Items written before versions existed are tagged too
+        assertTrue(ETags.ofItem(TableSchemas.CLIENT, client("c-1", "Ann", null)).startsWith("\""));
+    }
+
+    @Test
+    void matchesIfNoneMatchListsWildcardsAndGzipVariants() {
+        String etag = ETags.ofParts(List.of("a"));
+        String opaque = etag.substring(1, etag.length() - 1);
+
+        assertTrue(ETags.matches(ifNoneMatch(etag), etag));
+        assertTrue(ETags.matches(ifNoneMatch("\"other\", W/" + etag), etag));
+        assertTrue(ETags.matches(ifNoneMatch("\"" + opaque + ETags.GZIP_SUFFIX + "\""), etag));
+        assertTrue(ETags.matches(ifNoneMatch("*"), etag));
+        assertFalse(ETags.matches(ifNoneMatch("\"other\""), etag));
+        assertFalse(ETags.matches(new APIGatewayProxyRequestEvent().withHeaders(Map.of()), etag));
+    }
+
+    @Test
+    void answersCurrentCopiesWithNotModified() {
+        APIGatewayProxyResponseEvent tagged = ETags.apply(ifNoneMatch("\"other\""), ok("[1]"), null);
+        String etag = tagged.getHeaders().get("ETag");
+
+        assertEquals(200, tagged.getStatusCode().intValue());
+        assertEquals(ETags.ofParts(List.of("[1]")), etag);
+
+        APIGatewayProxyResponseEvent notModified = ETags.apply(ifNoneMatch(etag), ok("[1]"), null);
+        assertEquals(304, notModified.getStatusCode().intValue());
+        assertNull(notModified.getBody());
+
+        APIGatewayProxyResponseEvent error = new APIGatewayProxyResponseEvent().withStatusCode(404).withBody("{}");
+        assertNull(ETags.apply(ifNoneMatch("*"), error, null).getHeaders());
+    }
+
+    private static Client client(String clientId, String name, Long version) {
+        Client client = new Client();
+        client.setClientId(clientId);
+        client.setName(name);
+        client.setEmail(clientId + "@example.com");
+        client.setVersion(version);
+        return client;
+    }
+
+    private static APIGatewayProxyRequestEvent ifNoneMatch(String value) {
+        return new APIGatewayProxyRequestEvent().withHeaders(Map.of("If-None-Match", value));
+    }
+
+    private static APIGatewayProxyResponseEvent ok(String body) {
+        return new APIGatewayProxyResponseEvent().withStatusCode(200).withBody(body);
+    }
+}
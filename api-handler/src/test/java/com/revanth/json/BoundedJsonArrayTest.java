@@ -0,0 +1,114 @@
+package com.revanth.json;
+
+import com.revanth.models.Journal;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedJsonArrayTest {
+
+    @Test
+    void writesEveryItemUnderTheLimits() throws Exception {
+        List<Journal> journals = List.of(JsonCodecTest.journal("c-1", "2024-05-01T10:00:00Z", "calm"),
+                JsonCodecTest.journal("c-1", "2024-05-02T10:00:00Z", "tired"));
+
+        BoundedJsonArray array = BoundedJsonArray.write(journals, Journal.class);
+
+        assertEquals(JsonCodec.writeList(journals, Journal.class), array.getBody());
+        assertEquals(2, array.getItemCount());
+        assertFalse(array.isTruncated());
+        assertEquals("[]", BoundedJsonArray.write(List.<Journal>of(), Journal.class).getBody());
+    }
+
+    @Test
+    void stopsAtTheItemLimit() throws Exception {
+        AtomicLong pulled = new AtomicLong();
+        BoundedJsonArray array = BoundedJsonArray.write(journals(1_000, 10, pulled), Journal.class, 3, 1024 * 1024);
+
+        assertEquals(3, array.getItemCount());
+        assertTrue(array.isTruncated());
+        assertEquals(3, JsonCodec.readList(array.getBody(), Journal.class).size());
+        assertEquals(3, pulled.get());
+    }
+
+    @Test
+    void dropsTheItemThatCrossesTheByteLimit() throws Exception {
+        String one = JsonCodec.write(JsonCodecTest.journal("c-1", "2024-01-01T00:00:00Z", "x".repeat(100)));
+        // Room for two items, their comma and the brackets, less one byte
+        int maxBytes = 2 * one.length() + 3 - 1;
+
+        BoundedJsonArray array = BoundedJsonArray.write(journals(10, 100, new AtomicLong()), Journal.class, 100, maxBytes);
+
+        assertEquals(1, array.getItemCount());
+        assertTrue(array.isTruncated());
+        assertTrue(array.getBody().length() <= maxBytes);
+        assertEquals(1, JsonCodec.readList(array.getBody(), Journal.class).size());
+    }
+
+    @Test
+    void keepsTheHeapFlatWhateverTheSourceSize() {
+        // A million 1 KB journals would take over a gigabyte if they were collected before writing
+        for (int rows : new int[] {10_000, 1_000_000}) {
+            AtomicLong pulled = new AtomicLong();
+            Iterable<Journal> source = journals(rows, 1024, pulled);
+
+            System.gc();
+            long before = heapUsed();
+            ManagementFactory.getMemoryPoolMXBeans().forEach(MemoryPoolMXBean::resetPeakUsage);
+            BoundedJsonArray array = BoundedJsonArray.write(source, Journal.class);
+            long peak = heapPeak() - before;
+
+            assertEquals(BoundedJsonArray.DEFAULT_MAX_ITEMS, array.getItemCount());
+            assertEquals(BoundedJsonArray.DEFAULT_MAX_ITEMS, pulled.get());
+            assertTrue(peak < 64L * 1024 * 1024, rows + " rows peaked at " + peak + " bytes");
+        }
+    }
+
+    // Generates journals on demand, like a DynamoDB page iterable, counting how many were pulled
+    private static Iterable<Journal> journals(long rows, int feelingLength, AtomicLong pulled) {
+        String feeling = "x".repeat(feelingLength);
+        return () -> new Iterator<>() {
+            private long next;
+
+            @Override
+            public boolean hasNext() {
+                return next < rows;
+            }
+
+            @Override
+            public Journal next() {
+                pulled.incrementAndGet();
+                return JsonCodecTest.journal("c-1", String.format("2024-01-01T00:00:00.%09dZ", next++), feeling);
+            }
+        };
+    }
+
+    private static long heapUsed() {
+        long used = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                used += pool.getUsage().getUsed();
+            }
+        }
+        return used;
+    }
+
+    private static long heapPeak() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+            if (pool.getType() == MemoryType.HEAP) {
+                peak += pool.getPeakUsage().getUsed();
+            }
+        }
+        return peak;
+    }
+}
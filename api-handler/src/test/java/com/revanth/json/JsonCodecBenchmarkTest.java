@@ -0,0 +1,63 @@
+package com.revanth.json;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.revanth.models.Journal;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Allocation and time per request for the JSON work a journal request does (read one entry, write a
+ * page of 20), through the shared {@link JsonCodec} against a new {@code ObjectMapper} per call as the
+ * handlers used to. Run with {@code -Dbenchmarks=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class JsonCodecBenchmarkTest {
+
+    private static final int ITERATIONS = 20_000;
+
+    interface Request {
+        int run() throws Exception;
+    }
+
+    @Test
+    void allocationPerRequest() throws Exception {
+        String body = JsonCodec.write(JsonCodecTest.journal("c-1", "2024-05-01T10:00:00Z", "calm"));
+        List<Journal> page = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            page.add(JsonCodecTest.journal("c-1", String.format("2024-05-%02dT10:00:00Z", i + 1), "calm"));
+        }
+
+        measure("new ObjectMapper per call", () -> {
+            Journal journal = new ObjectMapper().readValue(body, Journal.class);
+            return journal.getClientId().length() + new ObjectMapper().writeValueAsString(page).length();
+        });
+        measure("shared JsonCodec", () -> {
+            Journal journal = JsonCodec.read(body, Journal.class);
+            return journal.getClientId().length() + JsonCodec.writeList(page, Journal.class).length();
+        });
+    }
+
+    private static void measure(String name, Request request) throws Exception {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+        int sink = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += request.run();
+        }
+
+        long allocatedBefore = threads.getThreadAllocatedBytes(thread);
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            sink += request.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long allocated = threads.getThreadAllocatedBytes(thread) - allocatedBefore;
+
+        System.out.printf("json %-26s %8d bytes/op, %6d ns/op (%d)%n",
+                name, allocated / ITERATIONS, nanos / ITERATIONS, sink);
+    }
+}
@@ -0,0 +1,82 @@
+package com.revanth.json;
+
+import com.revanth.models.Client;
+import com.revanth.models.Journal;
+import com.revanth.models.Therapist;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class JsonCodecTest {
+
+    @Test
+    void cachesReadersAndWritersPerClass() {
+        assertSame(JsonCodec.reader(Journal.class), JsonCodec.reader(Journal.class));
+        assertSame(JsonCodec.writer(Journal.class), JsonCodec.writer(Journal.class));
+        assertSame(JsonCodec.listReader(Journal.class), JsonCodec.listReader(Journal.class));
+        assertSame(JsonCodec.listWriter(Journal.class), JsonCodec.listWriter(Journal.class));
+    }
+
+    @Test
+    void writeMatchesThePlainMapper() throws Exception {
+        Journal journal = journal("c-1", "2024-05-01T10:00:00Z", "calm");
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("count", 2);
+        map.put("items", List.of("a", "b"));
+
+        assertEquals(JsonCodec.mapper().writeValueAsString(journal), JsonCodec.write(journal));
+        assertEquals(JsonCodec.mapper().writeValueAsString(map), JsonCodec.write(map));
+        assertEquals("null", JsonCodec.write(null));
+    }
+
+    @Test
+    void roundTripsListsOfModels() throws Exception {
+        List<Journal> journals = List.of(journal("c-1", "2024-05-01T10:00:00Z", "calm"),
+                journal("c-1", "2024-05-02T10:00:00Z", "tired"));
+
+        List<Journal> read = JsonCodec.readList(JsonCodec.writeList(journals, Journal.class), Journal.class);
+
+        assertEquals(2, read.size());
+        assertEquals("tired", read.get(1).getFeeling());
+        assertEquals("2024-05-01T10:00:00Z", read.get(0).getTimestamp());
+    }
+
+    @Test
+    void readsFlatStringFields() throws Exception {
+        Map<String, String> fields = JsonCodec.readStringMap("{\"email\": \"a@b.c\", \"password\": \"secret\"}");
+
+        assertEquals(Map.of("email", "a@b.c", "password", "secret"), fields);
+    }
+
+    @Test
+    void readsPasswordsButNeverWritesThem() throws Exception {
+        Client client = JsonCodec.read("{\"clientId\": \"c-1\", \"password\": \"secret\"}", Client.class);
+        assertEquals("secret", client.getPassword());
+        Therapist therapist = new Therapist();
+        therapist.setTherapistId("t-1");
+        therapist.setPassword("$2a$10$hash");
+
+        assertFalse(JsonCodec.write(client).contains("password"));
+        assertFalse(JsonCodec.write(therapist).contains("password"));
+        assertFalse(JsonCodec.writeList(List.of(therapist), Therapist.class).contains("password"));
+        assertFalse(BoundedJsonArray.write(List.of(client), Client.class, 1, BoundedJsonArray.DEFAULT_MAX_BYTES)
+                .getBody().contains("password"));
+        assertTrue(JsonCodec.write(therapist).contains("t-1"));
+    }
+
+    static Journal journal(String clientId, String timestamp, String feeling) {
+        Journal journal = new Journal();
+        journal.setClientId(clientId);
+        journal.setTimestamp(timestamp);
+        journal.setFeeling(feeling);
+        journal.setIntensity("3");
+        return journal;
+    }
+}
@@ -0,0 +1,58 @@
+package com.revanth.metrics;
+
+import com.amazonaws.services.lambda.runtime.LambdaLogger;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.revanth.json.JsonCodec;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class EmbeddedMetricsTest {
+
+    @Test
+    void logsOneEmbeddedMetricLinePerCall() throws Exception {
+        Map<String, Long> counts = new LinkedHashMap<>();
+        counts.put("Hits", 3L);
+        counts.put("Misses", 0L);
+        List<String> lines = new ArrayList<>();
+
+        EmbeddedMetrics.publishCounts(new RecordingLogger(lines), Instant.ofEpochMilli(1714557600000L), counts);
+
+        assertEquals(1, lines.size());
+        assertTrue(lines.get(0).endsWith("\n"));
+        JsonNode line = JsonCodec.mapper().readTree(lines.get(0));
+        JsonNode directive = line.get("_aws").get("CloudWatchMetrics").get(0);
+        assertEquals(1714557600000L, line.get("_aws").get("Timestamp").asLong());
+        assertEquals(EmbeddedMetrics.NAMESPACE, directive.get("Namespace").asText());
+        assertEquals("Hits", directive.get("Metrics").get(0).get("Name").asText());
+        assertEquals("Count", directive.get("Metrics").get(1).get("Unit").asText());
+        assertEquals(3, line.get("Hits").asLong());
+        assertEquals(0, line.get("Misses").asLong());
+    }
+
+    private static final class RecordingLogger implements LambdaLogger {
+        private final List<String> lines;
+
+        private RecordingLogger(List<String> lines) {
+            this.lines = lines;
+        }
+
+        @Override
+        public void log(String message) {
+            lines.add(message);
+        }
+
+        @Override
+        public void log(byte[] message) {
+            lines.add(new String(message, StandardCharsets.UTF_8));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.revanth.paging;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageRequestTest {
+
+    @Test
+    void defaultsAndCapsTheLimit() {
+        assertEquals(PageRequest.DEFAULT_LIMIT, PageRequest.from(null, "/clients").getLimit());
+        assertEquals(PageRequest.MAX_LIMIT, PageRequest.from(Map.of("limit", "5000"), "/clients").getLimit());
+        assertNull(PageRequest.from(Map.of(), "/clients").getExclusiveStartKey());
+    }
+
+    @Test
+    void rejectsBadLimits() {
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.from(Map.of("limit", "ten"), "/clients"));
+        assertThrows(IllegalArgumentException.class, () -> PageRequest.from(Map.of("limit", "0"), "/clients"));
+    }
+
+    @Test
+    void acceptsOnlyTokensIssuedForTheSameListing() {
+        String token = PageRequest.from(null, "/journal", "c-1")
+                .nextToken(Map.of("clientId", AttributeValue.builder().s("c-1").build()));
+
+        assertEquals("c-1", PageRequest.from(Map.of("nextToken", token), "/journal", "c-1")
+                .getExclusiveStartKey().get("clientId").s());
+        assertThrows(IllegalArgumentException.class,
+                () -> PageRequest.from(Map.of("nextToken", token), "/journal", "c-2"));
+    }
+}
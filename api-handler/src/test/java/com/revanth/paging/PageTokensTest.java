@@ -0,0 +1,66 @@
+package com.revanth.paging;
+
+import org.junit.jupiter.api.Test;
+import software.amazon.awssdk.services.dynamodb.model.AttributeValue;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageTokensTest {
+
+    private static final String SCOPE = PageTokens.scope("/sessions", "clientId", "c-1");
+    private static final Map<String, AttributeValue> KEY = Map.of(
+            "clientId", AttributeValue.builder().s("c-1").build(),
+            "sessionId", AttributeValue.builder().s("s-9").build(),
+            "sessionDate", AttributeValue.builder().n("1714521600").build());
+
+    @Test
+    void roundTripsStringAndNumberKeys() {
+        assertEquals(KEY, PageTokens.decode(SCOPE, PageTokens.encode(SCOPE, KEY)));
+    }
+
+    @Test
+    void hasNoTokenForTheLastPage() {
+        assertNull(PageTokens.encode(SCOPE, null));
+        assertNull(PageTokens.encode(SCOPE, Map.of()));
+        assertNull(PageTokens.decode(SCOPE, null));
+        assertNull(PageTokens.decode(SCOPE, ""));
+    }
+
+    @Test
+    void rejectsTokensFromAnotherScope() {
+        String token = PageTokens.encode(SCOPE, KEY);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PageTokens.decode(PageTokens.scope("/sessions", "clientId", "c-2"), token));
+        assertThrows(IllegalArgumentException.class,
+                () -> PageTokens.decode(PageTokens.scope("/messages/history", "clientId", "c-1"), token));
+    }
+
+    @Test
+    void rejectsTamperedOrMalformedTokens() {
+        String token = PageTokens.encode(SCOPE, KEY);
+        String other = PageTokens.encode(SCOPE, Map.of("clientId", AttributeValue.builder().s("c-2").build()));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> PageTokens.decode(SCOPE, other.substring(0, other.indexOf('.')) + token.substring(token.indexOf('.'))));
+        assertThrows(IllegalArgumentException.class, () -> PageTokens.decode(SCOPE, "no-signature"));
+        assertThrows(IllegalArgumentException.class, () -> PageTokens.decode(SCOPE, token + "x"));
+    }
+
+    @Test
+    void keepsScopePartsApart() {
+        assertNotEquals(PageTokens.scope("/a", "bc"), PageTokens.scope("/ab", "c"));
+        assertNotEquals(PageTokens.scope("/a", "1:b"), PageTokens.scope("/a", "1", "b"));
+    }
+
+    @Test
+    void rejectsUnsupportedKeyTypes() {
+        assertThrows(IllegalArgumentException.class, () -> PageTokens.encode(SCOPE,
+                Map.of("flag", AttributeValue.builder().bool(true).build())));
+    }
+}
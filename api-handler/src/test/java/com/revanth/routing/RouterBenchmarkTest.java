@@ -0,0 +1,81 @@
+package com.revanth.routing;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * Measures what routing costs the single entry handler: building the full route table (paid once per
+ * cold start) and matching a request once the JVM is warm. Run with {@code -Dbenchmarks=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class RouterBenchmarkTest {
+
+    private static final String[][] REQUESTS = {
+            {"GET", "/clients"}, {"POST", "/clients/login"}, {"GET", "/clients/c-1"},
+            {"GET", "/clients/login"}, {"GET", "/therapists/available"}, {"GET", "/therapists/t-1"},
+            {"POST", "/messages/send"}, {"GET", "/journal/summary"}, {"PATCH", "/session"},
+            {"POST", "/mappings/revoke-journal-access"}
+    };
+
+    @Test
+    void coldBuildAndWarmMatch() {
+        long buildStart = System.nanoTime();
+        Router<String> router = apiRoutes();
+        long firstMatchStart = System.nanoTime();
+        assertNotNull(router.match("GET", "/clients/c-1"));
+        long firstMatchEnd = System.nanoTime();
+
+        int iterations = 2_000_000;
+        int found = 0;
+        for (int i = 0; i < iterations; i++) {
+            String[] request = REQUESTS[i % REQUESTS.length];
+            found += router.match(request[0], request[1]) != null ? 1 : 0;
+        }
+        long warmStart = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            String[] request = REQUESTS[i % REQUESTS.length];
+            found += router.match(request[0], request[1]) != null ? 1 : 0;
+        }
+        long warmEnd = System.nanoTime();
+
+        System.out.printf("router: build %d us, first match %d us, warm match %d ns/op (%d matches)%n",
+                (firstMatchStart - buildStart) / 1_000, (firstMatchEnd - firstMatchStart) / 1_000,
+                (warmEnd - warmStart) / iterations, found);
+    }
+
+    private static Router<String> apiRoutes() {
+        return new Router<String>()
+                .add("GET", "/clients", "clients")
+                .add("POST", "/clients", "clients")
+                .add("POST", "/clients/login", "clients")
+                .add("POST", "/clients/refresh", "clients")
+                .add("GET", "/clients/{clientId}", "clients")
+                .add("PUT", "/clients/{clientId}", "clients")
+                .add("DELETE", "/clients/{clientId}", "clients")
+                .add("GET", "/therapists", "therapists")
+                .add("POST", "/therapists", "therapists")
+                .add("POST", "/therapists/login", "therapists")
+                .add("POST", "/therapists/refresh", "therapists")
+                .add("GET", "/therapists/available", "therapists")
+                .add("GET", "/therapists/{therapistId}", "therapists")
+                .add("PUT", "/therapists/{therapistId}", "therapists")
+                .add("DELETE", "/therapists/{therapistId}", "therapists")
+                .add("POST", "/messages/send", "messages")
+                .add("POST", "/messages/batch", "messages")
+                .add("GET", "/messages/history", "messages")
+                .add("POST", "/appointment/request", "appointments")
+                .add("GET", "/session", "sessions")
+                .add("POST", "/session", "sessions")
+                .add("PATCH", "/session", "sessions")
+                .add("POST", "/mappings", "mappings")
+                .add("DELETE", "/mappings", "mappings")
+                .add("POST", "/mappings/journal-access", "mappings")
+                .add("POST", "/mappings/revoke-journal-access", "mappings")
+                .add("GET", "/journal", "journals")
+                .add("GET", "/journal/summary", "journals")
+                .add("POST", "/journal", "journals")
+                .add("POST", "/journal/batch", "journals");
+    }
+}
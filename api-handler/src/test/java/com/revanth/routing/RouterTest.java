@@ -0,0 +1,83 @@
+package com.revanth.routing;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RouterTest {
+
+    private final Router<String> router = new Router<String>()
+            .add("GET", "/clients", "listClients")
+            .add("POST", "/clients/login", "login")
+            .add("GET", "/clients/{clientId}", "getClient")
+            .add("PUT", "/clients/{clientId}", "updateClient")
+            .add("GET", "/therapists/available", "available")
+            .add("GET", "/therapists/{therapistId}", "getTherapist")
+            .add("GET", "/journal/summary", "summary");
+
+    @Test
+    void matchesLiteralRoutes() {
+        RouteMatch<String> match = router.match("POST", "/clients/login");
+
+        assertEquals("login", match.getTarget());
+        assertTrue(match.getPathParameters().isEmpty());
+    }
+
+    @Test
+    void capturesPathParameters() {
+        RouteMatch<String> match = router.match("PUT", "/clients/c-1");
+
+        assertEquals("updateClient", match.getTarget());
+        assertEquals(Map.of("clientId", "c-1"), match.getPathParameters());
+    }
+
+    @Test
+    void prefersLiteralOverParameter() {
+        assertEquals("available", router.match("GET", "/therapists/available").getTarget());
+        assertEquals("getTherapist", router.match("GET", "/therapists/t-1").getTarget());
+    }
+
+    @Test
+    void fallsBackToParameterWhenLiteralLacksMethod() {
+        RouteMatch<String> match = router.match("GET", "/clients/login");
+
+        assertEquals("getClient", match.getTarget());
+        assertEquals(Map.of("clientId", "login"), match.getPathParameters());
+    }
+
+    @Test
+    void reportsMethodNotAllowedWhenNoBranchHasTheMethod() {
+        RouteMatch<String> match = router.match("DELETE", "/clients/login");
+
+        assertNotNull(match);
+        assertNull(match.getTarget());
+    }
+
+    @Test
+    void returnsNullForUnknownPaths() {
+        assertNull(router.match("GET", "/unknown"));
+        assertNull(router.match("GET", "/clients/c-1/extra"));
+        assertNull(router.match("GET", "/journal"));
+    }
+
+    @Test
+    void ignoresEmptySegments() {
+        assertEquals("getClient", router.match("GET", "//clients/c-1/").getTarget());
+    }
+
+    @Test
+    void rejectsDuplicateRoutes() {
+        assertThrows(IllegalArgumentException.class, () -> router.add("GET", "/clients", "again"));
+    }
+
+    @Test
+    void rejectsConflictingParameterNames() {
+        assertThrows(IllegalArgumentException.class, () -> router.add("DELETE", "/clients/{id}", "delete"));
+    }
+}
@@ -0,0 +1,45 @@
+package com.revanth.security;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.mindrot.jbcrypt.BCrypt;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+
+/**
+ * What authenticating a request costs: verifying an access token against the BCrypt check every call
+ * used to make. Run with {@code -Dbenchmarks=true}.
+ */
+@EnabledIfSystemProperty(named = "benchmarks", matches = "true")
+class AccessTokensBenchmarkTest {
+
+    private static final int ITERATIONS = 1_000_000;
+
+    @Test
+    void verifyAgainstBcrypt() {
+        String hash = BCrypt.hashpw("correct horse battery staple", BCrypt.gensalt());
+        String token = AccessTokens.issue("0b6f1c1e-6a53-4d6b-9f0e-3c1f5f6d2a10", AccessToken.ROLE_THERAPIST, hash)
+                .getAccessToken();
+
+        int verified = 0;
+        for (int i = 0; i < ITERATIONS; i++) {
+            verified += AccessTokens.verifyAccessToken(token) != null ? 1 : 0;
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; i++) {
+            verified += AccessTokens.verifyAccessToken(token) != null ? 1 : 0;
+        }
+        double verifyMicros = (System.nanoTime() - start) / 1e3 / ITERATIONS;
+
+        int checks = 10;
+        start = System.nanoTime();
+        for (int i = 0; i < checks; i++) {
+            verified += BCrypt.checkpw("correct horse battery staple", hash) ? 1 : 0;
+        }
+        double bcryptMicros = (System.nanoTime() - start) / 1e3 / checks;
+
+        assertNotNull(AccessTokens.verifyAccessToken(token));
+        System.out.printf("auth: token verify %.2f us/op, BCrypt check %.0f us/op (%d)%n",
+                verifyMicros, bcryptMicros, verified);
+    }
+}
@@ -0,0 +1,92 @@
+package com.revanth.security;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AccessTokensTest {
+
+    private static final String HASH = "$2a$10$7EqJtq98hPqEX7fNZaFWoOhi5BWX4Z1ZqvMsEFCTq5yBqIr5tXgq6";
+
+    @Test
+    void verifiesIssuedAccessToken() {
+        TokenPair tokens = AccessTokens.issue("c-1", AccessToken.ROLE_CLIENT, HASH);
+
+        AccessToken claims = AccessTokens.verifyAccessToken(tokens.getAccessToken());
+
+        assertNotNull(claims);
+        assertEquals("c-1", claims.getSubject());
+        assertEquals(AccessToken.ROLE_CLIENT, claims.getRole());
+        assertTrue(claims.getExpiresAt() > System.currentTimeMillis() / 1000);
+    }
+
+    @Test
+    void rejectsTamperedOrMalformedTokens() {
+        String token = AccessTokens.issue("c-1", AccessToken.ROLE_CLIENT, HASH).getAccessToken();
+        String forged = AccessTokens.issue("t-1", AccessToken.ROLE_THERAPIST, HASH).getAccessToken();
+        String forgedPayload = forged.substring(0, forged.indexOf('.'));
+
+        assertNull(AccessTokens.verifyAccessToken(forgedPayload + token.substring(token.indexOf('.'))));
+        assertNull(AccessTokens.verifyAccessToken(token.substring(0, token.indexOf('.'))));
+        assertNull(AccessTokens.verifyAccessToken(token + "x"));
+        assertNull(AccessTokens.verifyAccessToken("not-a-token"));
+        assertNull(AccessTokens.verifyAccessToken(null));
+    }
+
+    @Test
+    void keepsAccessAndRefreshTokensApart() {
+        TokenPair tokens = AccessTokens.issue("t-1", AccessToken.ROLE_THERAPIST, HASH);
+
+        assertNull(AccessTokens.verifyAccessToken(tokens.getRefreshToken()));
+        assertNull(AccessTokens.refresh(tokens.getAccessToken(), subject -> HASH));
+
+        TokenPair refreshed = AccessTokens.refresh(tokens.getRefreshToken(), subject -> HASH);
+        assertNotNull(refreshed);
+        AccessToken claims = AccessTokens.verifyAccessToken(refreshed.getAccessToken());
+        assertEquals("t-1", claims.getSubject());
+        assertEquals(AccessToken.ROLE_THERAPIST, claims.getRole());
+        assertNotNull(AccessTokens.refresh(refreshed.getRefreshToken(), subject -> HASH));
+    }
+
+    @Test
+    void stopsRefreshingAfterAPasswordChangeOrDeletion() {
+        String refreshToken = AccessTokens.issue("c-1", AccessToken.ROLE_CLIENT, HASH).getRefreshToken();
+        List<String> looked = new ArrayList<>();
+
+        assertNull(AccessTokens.refresh(refreshToken, subject -> {
+            looked.add(subject);
+            return "$2a$10$aDifferentPasswordHashAfterAChangeOfPassword00000000000";
+        }));
+        assertNull(AccessTokens.refresh(refreshToken, subject -> null));
+        assertNull(AccessTokens.refresh("not-a-token", subject -> {
+            looked.add(subject);
+            return HASH;
+        }));
+
+        assertEquals(List.of("c-1"), looked);
+    }
+
+    @Test
+    void checksOwnershipByRoleAndSubject() {
+        AccessToken client = new AccessToken("c-1", AccessToken.ROLE_CLIENT, Long.MAX_VALUE);
+        AccessToken therapist = new AccessToken("t-1", AccessToken.ROLE_THERAPIST, Long.MAX_VALUE);
+
+        assertTrue(client.isClient("c-1"));
+        assertFalse(client.isClient("c-2"));
+        assertFalse(client.isTherapist("c-1"));
+        assertTrue(therapist.isTherapist("t-1"));
+        assertFalse(therapist.isClient("t-1"));
+
+        assertTrue(client.isParticipant("c-1", "t-1"));
+        assertTrue(therapist.isParticipant("c-1", "t-1"));
+        assertFalse(client.isParticipant("c-2", "c-1"));
+        assertFalse(therapist.isParticipant("t-1", "t-2"));
+    }
+}
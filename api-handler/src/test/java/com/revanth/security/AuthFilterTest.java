@@ -0,0 +1,57 @@
+package com.revanth.security;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyRequestEvent;
+import com.amazonaws.services.lambda.runtime.events.APIGatewayProxyResponseEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class AuthFilterTest {
+
+    @Test
+    void authenticatesBearerTokenInAnyHeaderCase() {
+        String token = AccessTokens.issue("c-1", AccessToken.ROLE_CLIENT, "hash").getAccessToken();
+
+        AccessToken claims = AuthFilter.authenticate(request(Map.of("authorization", "bearer " + token)));
+
+        assertNotNull(claims);
+        assertEquals("c-1", claims.getSubject());
+    }
+
+    @Test
+    void rejectsMissingOrNonBearerCredentials() {
+        String token = AccessTokens.issue("c-1", AccessToken.ROLE_CLIENT, "hash").getAccessToken();
+
+        assertNull(AuthFilter.authenticate(new APIGatewayProxyRequestEvent()));
+        assertNull(AuthFilter.authenticate(request(Map.of("Authorization", token))));
+        assertNull(AuthFilter.authenticate(request(Map.of("Authorization", "Basic " + token))));
+        assertNull(AuthFilter.authenticate(request(Map.of("Authorization", "Bearer nope"))));
+    }
+
+    @Test
+    void requireThrowsOnlyWhenDenied() {
+        assertDoesNotThrow(() -> AuthFilter.require(true));
+        assertThrows(AccessDeniedException.class, () -> AuthFilter.require(false));
+    }
+
+    @Test
+    void answersWith401And403() {
+        APIGatewayProxyResponseEvent unauthorized = AuthFilter.unauthorized();
+        APIGatewayProxyResponseEvent forbidden = AuthFilter.forbidden();
+
+        assertEquals(401, unauthorized.getStatusCode().intValue());
+        assertEquals("Bearer", unauthorized.getHeaders().get("WWW-Authenticate"));
+        assertEquals(403, forbidden.getStatusCode().intValue());
+        assertNull(forbidden.getHeaders().get("WWW-Authenticate"));
+    }
+
+    private static APIGatewayProxyRequestEvent request(Map<String, String> headers) {
+        return new APIGatewayProxyRequestEvent().withHeaders(headers);
+    }
+}
@@ -0,0 +1,72 @@
+package com.revanth.security;
+
+import com.amazonaws.services.lambda.runtime.events.APIGatewayCustomAuthorizerEvent;
+import com.amazonaws.services.lambda.runtime.events.IamPolicyResponseV1;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenAuthorizerTest {
+
+    private static final String STAGE = "arn:aws:execute-api:us-east-1:123456789012:abc123/prod";
+
+    private final TokenAuthorizer authorizer = new TokenAuthorizer();
+
+    @Test
+    void rejectsMissingAndInvalidTokensAsUnauthorized() {
+        RuntimeException missing = assertThrows(RuntimeException.class, () -> authorizer.handleRequest(event(null), null));
+        assertEquals("Unauthorized", missing.getMessage());
+        assertThrows(RuntimeException.class, () -> authorizer.handleRequest(event("Bearer nope"), null));
+    }
+
+    @Test
+    void identifiesTheCallerForValidTokens() {
+        String token = AccessTokens.issue("t-1", AccessToken.ROLE_THERAPIST, "hash").getAccessToken();
+
+        IamPolicyResponseV1 policy = authorizer.handleRequest(event("Bearer " + token), null);
+
+        assertEquals("t-1", policy.getPrincipalId());
+        assertEquals(AccessToken.ROLE_THERAPIST, policy.getContext().get("role"));
+    }
+
+    @Test
+    void letsTherapistsInvalidateOnlyTheirOwnCachedPaths() {
+        String token = AccessTokens.issue("t-1", AccessToken.ROLE_THERAPIST, "hash").getAccessToken();
+
+        List<IamPolicyResponseV1.Statement> statements = TokenAuthorizer.statements(
+                AccessTokens.verifyAccessToken(token), STAGE + "/GET/therapists/t-2");
+
+        assertEquals(IamPolicyResponseV1.EXECUTE_API_INVOKE, statements.get(0).getAction());
+        assertEquals(List.of(STAGE + "/*/*"), statements.get(0).getResource());
+        assertEquals(TokenAuthorizer.INVALIDATE_CACHE, statements.get(1).getAction());
+        assertEquals(List.of(STAGE + "/GET/therapists", STAGE + "/GET/therapists/available", STAGE + "/GET/therapists/t-1"),
+                statements.get(1).getResource());
+    }
+
+    @Test
+    void letsClientsInvalidateTheirOwnProfile() {
+        String token = AccessTokens.issue("c-1", AccessToken.ROLE_CLIENT, "hash").getAccessToken();
+
+        List<IamPolicyResponseV1.Statement> statements = TokenAuthorizer.statements(
+                AccessTokens.verifyAccessToken(token), STAGE + "/GET/therapists/t-2");
+
+        assertEquals(List.of(STAGE + "/GET/clients/c-1"), statements.get(1).getResource());
+    }
+
+    @Test
+    void derivesTheStageFromTheMethodArn() {
+        assertEquals(STAGE, TokenAuthorizer.stageArn(STAGE + "/GET/clients/c-1"));
+        assertThrows(IllegalArgumentException.class, () -> TokenAuthorizer.stageArn("arn:aws:execute-api:us-east-1:1:abc123"));
+    }
+
+    private static APIGatewayCustomAuthorizerEvent event(String authorization) {
+        APIGatewayCustomAuthorizerEvent event = new APIGatewayCustomAuthorizerEvent();
+        event.setType("TOKEN");
+        event.setAuthorizationToken(authorization);
+        event.setMethodArn(STAGE + "/GET/therapists/t-2");
+        return event;
+    }
+}
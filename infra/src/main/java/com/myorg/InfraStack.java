@@ -3,6 +3,7 @@ package com.myorg;
 import com.myorg.infrastructure.APIGatewayStack;
 import com.myorg.infrastructure.DynamoDBStack;
 import com.myorg.infrastructure.LambdaStack;
+import com.myorg.infrastructure.SecurityStack;
 import software.amazon.awscdk.App;
 import software.constructs.Construct;
 import software.amazon.awscdk.Stack;
@@ -28,11 +29,14 @@ public class InfraStack extends Stack {
         // Instantiate DynamoDBStack
         new DynamoDBStack(this, "DynamoDBStack", StackProps.builder().build());
 
+        // Instantiate SecurityStack; the function stacks import its secret by name
+        SecurityStack securityStack = new SecurityStack(this, "SecurityStack", StackProps.builder().build());
+
         // Instantiate LambdaStack
-        new LambdaStack(this, "LambdaStack", StackProps.builder().build());
+        new LambdaStack(this, "LambdaStack", StackProps.builder().build()).addDependency(securityStack);
 
         // Instantiate APIGatewayStack
-        new APIGatewayStack(this, "APIGatewayStack", StackProps.builder().build());
+        new APIGatewayStack(this, "APIGatewayStack", StackProps.builder().build()).addDependency(securityStack);
     }
 
     public static void main(final String[] args) {
@@ -1,25 +1,81 @@
 package com.myorg.infrastructure;
 
+import com.revanth.http.CachePolicies;
+import com.revanth.http.CachePolicy;
+import com.revanth.http.ContentEncoding;
+import software.amazon.awscdk.Duration;
+import software.amazon.awscdk.customresources.AwsCustomResource;
+import software.amazon.awscdk.customresources.AwsCustomResourcePolicy;
+import software.amazon.awscdk.customresources.AwsSdkCall;
+import software.amazon.awscdk.customresources.PhysicalResourceId;
+import software.amazon.awscdk.services.apigateway.AuthorizationType;
+import software.amazon.awscdk.services.apigateway.IdentitySource;
 import software.amazon.awscdk.services.apigateway.LambdaIntegration;
+import software.amazon.awscdk.services.apigateway.MethodDeploymentOptions;
+import software.amazon.awscdk.services.apigateway.MethodOptions;
+import software.amazon.awscdk.services.apigateway.ProxyResourceOptions;
 import software.amazon.awscdk.services.apigateway.Resource;
 import software.amazon.awscdk.services.apigateway.RestApi;
+import software.amazon.awscdk.services.apigateway.StageOptions;
+import software.amazon.awscdk.services.apigateway.TokenAuthorizer;
+import software.amazon.awscdk.services.dynamodb.Table;
+import software.amazon.awscdk.services.iam.PolicyStatement;
 import software.amazon.awscdk.services.lambda.Function;
 import software.amazon.awscdk.services.lambda.Runtime;
 import software.amazon.awscdk.services.lambda.Code;
+import software.amazon.awscdk.services.secretsmanager.ISecret;
 import software.amazon.awscdk.Stack;
 import software.amazon.awscdk.StackProps;
 import software.constructs.Construct;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 public class APIGatewayStack extends Stack {
 
+    // Where the handler jar is read from; synth tests point the apiHandlerJar context value elsewhere
+    private static final String DEFAULT_HANDLER_JAR = "../assets/api-handler.jar";
+
+    // Authorizer results are cached per token; a token stays usable on cached routes this long after it expires
+    private static final Duration AUTHORIZER_RESULTS_TTL = Duration.seconds(60);
+
+    private final ISecret signingSecret;
+    private TokenAuthorizer cacheAuthorizer;
+
     public APIGatewayStack(final Construct scope, final String id, final StackProps props) {
         super(scope, id, props);
 
+        signingSecret = SecurityStack.signingSecret(this);
+
+        // Deploy every route through one function when synthesized with -c monoLambda=true
+        boolean monoLambda = Boolean.parseBoolean(String.valueOf(this.getNode().tryGetContext("monoLambda")));
+
         // Create the REST API
         RestApi api = RestApi.Builder.create(this, "ApiHandlerRestApi")
                 .restApiName("ApiHandlerService")
                 .description("API Gateway for the api-handler module.")
+                // Gzip what the handlers leave uncompressed; their own gzipped bodies already carry Content-Encoding
+                .minimumCompressionSize(1024)
+                // Only JSON passes through as binary, so handler-gzipped responses reach clients intact
+                .binaryMediaTypes(ContentEncoding.BINARY_MEDIA_TYPES)
+                // A {proxy+} route can't have per-route cache keys, so only the per-resource API gets a cache
+                .deployOptions(monoLambda ? StageOptions.builder().build() : cachedStageOptions())
+                .build();
+
+        if (monoLambda) {
+            createMonoLambdaApi(api);
+            return;
+        }
+
+        // Cache hits never reach the handlers, so cached routes check the token before the cache lookup
+        cacheAuthorizer = TokenAuthorizer.Builder.create(this, "AccessTokenAuthorizer")
+                .handler(createLambda("TokenAuthorizer", "com.revanth.security.TokenAuthorizer::handleRequest"))
+                .identitySource(IdentitySource.header("Authorization"))
+                .resultsCacheTtl(AUTHORIZER_RESULTS_TTL)
                 .build();
+        ignoreUnauthorizedCacheInvalidation(api);
 
         // Lambda Functions
         Function clientHandler = createLambda("ClientHandler", "com.revanth.handlers.clients.ClientHandler::handleRequest");
@@ -34,23 +90,27 @@ public class APIGatewayStack extends Stack {
         Resource clientsResource = api.getRoot().addResource("clients");
         clientsResource.addMethod("GET", LambdaIntegration.Builder.create(clientHandler).build());
         clientsResource.addMethod("POST", LambdaIntegration.Builder.create(clientHandler).build());
-        clientsResource.addResource("{clientId}")
-                .addMethod("GET", LambdaIntegration.Builder.create(clientHandler).build());
+        addGetMethod(clientsResource.addResource("{clientId}"), clientHandler);
         clientsResource.addResource("login")
                 .addMethod("POST", LambdaIntegration.Builder.create(clientHandler).build());
+        clientsResource.addResource("refresh")
+                .addMethod("POST", LambdaIntegration.Builder.create(clientHandler).build());
 
         // /therapists resource
         Resource therapistsResource = api.getRoot().addResource("therapists");
-        therapistsResource.addMethod("GET", LambdaIntegration.Builder.create(therapistHandler).build());
+        addGetMethod(therapistsResource, therapistHandler);
         therapistsResource.addMethod("POST", LambdaIntegration.Builder.create(therapistHandler).build());
-        therapistsResource.addResource("{therapistId}")
-                .addMethod("GET", LambdaIntegration.Builder.create(therapistHandler).build());
+        addGetMethod(therapistsResource.addResource("available"), therapistHandler);
+        addGetMethod(therapistsResource.addResource("{therapistId}"), therapistHandler);
         therapistsResource.addResource("login")
                 .addMethod("POST", LambdaIntegration.Builder.create(therapistHandler).build());
+        therapistsResource.addResource("refresh")
+                .addMethod("POST", LambdaIntegration.Builder.create(therapistHandler).build());
 
         // /messages resource
         Resource messagesResource = api.getRoot().addResource("messages");
         messagesResource.addResource("send").addMethod("POST", LambdaIntegration.Builder.create(messageHandler).build());
+        messagesResource.addResource("batch").addMethod("POST", LambdaIntegration.Builder.create(messageHandler).build());
         messagesResource.addResource("history").addMethod("GET", LambdaIntegration.Builder.create(messageHandler).build());
 
         // /appointments resource
@@ -67,18 +127,135 @@ public class APIGatewayStack extends Stack {
         Resource mappingsResource = api.getRoot().addResource("mappings");
         mappingsResource.addMethod("POST", LambdaIntegration.Builder.create(mappingHandler).build());
         mappingsResource.addMethod("DELETE", LambdaIntegration.Builder.create(mappingHandler).build());
+        mappingsResource.addResource("accept")
+                .addMethod("POST", LambdaIntegration.Builder.create(mappingHandler).build());
+        mappingsResource.addResource("journal-access")
+                .addMethod("POST", LambdaIntegration.Builder.create(mappingHandler).build());
+        mappingsResource.addResource("revoke-journal-access")
+                .addMethod("POST", LambdaIntegration.Builder.create(mappingHandler).build());
 
         // /journals resource
         Resource journalsResource = api.getRoot().addResource("journal");
         journalsResource.addMethod("GET", LambdaIntegration.Builder.create(journalHandler).build());
         journalsResource.addMethod("POST", LambdaIntegration.Builder.create(journalHandler).build());
+        journalsResource.addResource("batch")
+                .addMethod("POST", LambdaIntegration.Builder.create(journalHandler).build());
+        journalsResource.addResource("summary")
+                .addMethod("GET", LambdaIntegration.Builder.create(journalHandler).build());
+    }
+
+    /**
+     * Adds a GET method; routes with a {@link CachePolicy} also declare their cache key parameters and
+     * sit behind the token authorizer.
+     */
+    private void addGetMethod(Resource resource, Function handler) {
+        CachePolicy policy = CachePolicies.forRoute("GET", resource.getPath());
+        if (policy == null) {
+            resource.addMethod("GET", LambdaIntegration.Builder.create(handler).build());
+            return;
+        }
+
+        Map<String, Boolean> requestParameters = new HashMap<>();
+        for (String parameter : policy.getCacheKeyParameters()) {
+            // Path parameters are always present; query parameters and headers are optional
+            requestParameters.put(parameter, parameter.startsWith("method.request.path."));
+        }
+        resource.addMethod("GET", LambdaIntegration.Builder.create(handler)
+                        .cacheKeyParameters(policy.getCacheKeyParameters())
+                        .build(),
+                MethodOptions.builder()
+                        .requestParameters(requestParameters)
+                        .authorizationType(AuthorizationType.CUSTOM)
+                        .authorizer(cacheAuthorizer)
+                        .build());
+    }
+
+    /**
+     * By default a {@code Cache-Control: max-age=0} from a caller without {@code execute-api:InvalidateCache}
+     * fails with a 403, and browsers send it on every reload. Serve those callers from the cache instead;
+     * the authorizer grants the permission to the owners of what was written. CloudFormation's method
+     * settings can't express this, so it is applied with UpdateStage whenever the cached routes change.
+     */
+    private void ignoreUnauthorizedCacheInvalidation(RestApi api) {
+        List<Map<String, String>> patchOperations = new ArrayList<>();
+        for (CachePolicy policy : CachePolicies.ALL) {
+            patchOperations.add(Map.of(
+                    "op", "replace",
+                    "path", "/" + policy.getResourcePath().replace("/", "~1") + "/" + policy.getMethod()
+                            + "/caching/unauthorizedCacheControlHeaderStrategy",
+                    "value", "SUCCEED_WITHOUT_RESPONSE_HEADER"));
+        }
+        String stageName = api.getDeploymentStage().getStageName();
+        AwsCustomResource strategy = AwsCustomResource.Builder.create(this, "CacheControlHeaderStrategy")
+                .onUpdate(AwsSdkCall.builder()
+                        .service("APIGateway")
+                        .action("updateStage")
+                        .parameters(Map.of(
+                                "restApiId", api.getRestApiId(),
+                                "stageName", stageName,
+                                "patchOperations", patchOperations))
+                        .physicalResourceId(PhysicalResourceId.of(api.getRestApiId() + "-" + stageName + "-cache-control"))
+                        .build())
+                .policy(AwsCustomResourcePolicy.fromStatements(List.of(PolicyStatement.Builder.create()
+                        .actions(List.of("apigateway:PATCH"))
+                        .resources(List.of("arn:aws:apigateway:" + this.getRegion() + "::/restapis/"
+                                + api.getRestApiId() + "/stages/" + stageName))
+                        .build())))
+                .installLatestAwsSdk(false)
+                .build();
+        strategy.getNode().addDependency(api.getDeploymentStage());
+    }
+
+    // Caching is enabled only for the routes in CachePolicies, each with its own TTL
+    private static StageOptions cachedStageOptions() {
+        Map<String, MethodDeploymentOptions> methodOptions = new HashMap<>();
+        for (CachePolicy policy : CachePolicies.ALL) {
+            methodOptions.put(policy.getResourcePath() + "/" + policy.getMethod(), MethodDeploymentOptions.builder()
+                    .cachingEnabled(true)
+                    .cacheTtl(Duration.seconds(policy.getTtlSeconds()))
+                    .cacheDataEncrypted(policy.isPerUser())
+                    .build());
+        }
+        return StageOptions.builder()
+                .cacheClusterEnabled(true)
+                .cacheClusterSize("0.5")
+                .methodOptions(methodOptions)
+                .build();
     }
 
     private Function createLambda(String name, String handler) {
-        return Function.Builder.create(this, name + "Lambda")
+        Function function = Function.Builder.create(this, name + "Lambda")
                 .runtime(Runtime.JAVA_17)
-                .code(Code.fromAsset("../assets/api-handler.jar")) // Adjust the jar path if needed
+                .code(handlerCode())
                 .handler(handler)
+                .environment(EnvironmentConfig.withSigningSecret(Map.of()))
+                .build();
+        signingSecret.grantRead(function);
+        return function;
+    }
+
+    private Code handlerCode() {
+        Object jar = this.getNode().tryGetContext("apiHandlerJar");
+        return Code.fromAsset(jar != null ? String.valueOf(jar) : DEFAULT_HANDLER_JAR);
+    }
+
+    private void createMonoLambdaApi(RestApi api) {
+        Function apiHandler = Function.Builder.create(this, "ApiHandlerLambda")
+                .runtime(Runtime.JAVA_17)
+                .code(handlerCode())
+                .handler("com.revanth.ApiHandler::handleRequest")
+                .environment(EnvironmentConfig.withSigningSecret(EnvironmentConfig.ALL_ENV))
                 .build();
+
+        for (String tableName : EnvironmentConfig.ALL_ENV.values()) {
+            Table.fromTableName(this, "Imported" + tableName, tableName).grantReadWriteData(apiHandler);
+        }
+        signingSecret.grantRead(apiHandler);
+
+        // /{proxy+} resource
+        api.getRoot().addProxy(ProxyResourceOptions.builder()
+                .defaultIntegration(LambdaIntegration.Builder.create(apiHandler).build())
+                .anyMethod(true)
+                .build());
     }
 }
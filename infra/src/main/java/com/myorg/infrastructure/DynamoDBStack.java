@@ -18,29 +18,48 @@ public class DynamoDBStack extends Stack {
         createTherapistsTable();
         createMessagesTable();
         createJournalsTable();
+        createJournalSummariesTable();
         createSessionsTable();
         createClientTherapistMappingsTable();
         createAppointmentsTable();
     }
 
     private void createClientsTable() {
-        Table.Builder.create(this, "ClientsTable")
+        Table clientsTable = Table.Builder.create(this, "ClientsTable")
                 .partitionKey(Attribute.builder()
                         .name("ClientId")
                         .type(AttributeType.STRING)
                         .build())
                 .billingMode(BillingMode.PAY_PER_REQUEST)
                 .build();
+
+        // Add GSI for login lookups by email
+        clientsTable.addGlobalSecondaryIndex(GlobalSecondaryIndexProps.builder()
+                .indexName("EmailIndex")
+                .partitionKey(Attribute.builder()
+                        .name("email")
+                        .type(AttributeType.STRING)
+                        .build())
+                .build());
     }
 
     private void createTherapistsTable() {
-        Table.Builder.create(this, "TherapistsTable")
+        Table therapistsTable = Table.Builder.create(this, "TherapistsTable")
                 .partitionKey(Attribute.builder()
                         .name("TherapistId")
                         .type(AttributeType.STRING)
                         .build())
                 .billingMode(BillingMode.PAY_PER_REQUEST)
                 .build();
+
+        // Add GSI for login lookups by email
+        therapistsTable.addGlobalSecondaryIndex(GlobalSecondaryIndexProps.builder()
+                .indexName("EmailIndex")
+                .partitionKey(Attribute.builder()
+                        .name("email")
+                        .type(AttributeType.STRING)
+                        .build())
+                .build());
     }
 
     private void createMessagesTable() {
@@ -56,28 +75,28 @@ public class DynamoDBStack extends Stack {
                 .billingMode(BillingMode.PAY_PER_REQUEST)
                 .build();
 
-        // Add GSI for ClientId and Timestamp
+        // Add GSI for ClientId and Timestamp (attribute names match the Message model)
         messagesTable.addGlobalSecondaryIndex(GlobalSecondaryIndexProps.builder()
                 .indexName("ClientMessagesIndex")
                 .partitionKey(Attribute.builder()
-                        .name("ClientId")
+                        .name("clientId")
                         .type(AttributeType.STRING)
                         .build())
                 .sortKey(Attribute.builder()
-                        .name("Timestamp")
+                        .name("timestamp")
                         .type(AttributeType.STRING)
                         .build())
                 .build());
 
-        // Add GSI for TherapistId and Timestamp
+        // Add GSI for TherapistId and Timestamp (attribute names match the Message model)
         messagesTable.addGlobalSecondaryIndex(GlobalSecondaryIndexProps.builder()
                 .indexName("TherapistMessagesIndex")
                 .partitionKey(Attribute.builder()
-                        .name("TherapistId")
+                        .name("therapistId")
                         .type(AttributeType.STRING)
                         .build())
                 .sortKey(Attribute.builder()
-                        .name("Timestamp")
+                        .name("timestamp")
                         .type(AttributeType.STRING)
                         .build())
                 .build());
@@ -97,6 +116,23 @@ public class DynamoDBStack extends Stack {
                 .build();
     }
 
+    // Per-client mood rollups, one item per day, ISO week and month (e.g. "WEEK#2024-W18")
+    private void createJournalSummariesTable() {
+        // LambdaStack imports this table by name
+        Table.Builder.create(this, "JournalSummariesTable")
+                .tableName("JournalSummariesTable")
+                .partitionKey(Attribute.builder()
+                        .name("clientId")
+                        .type(AttributeType.STRING)
+                        .build())
+                .sortKey(Attribute.builder()
+                        .name("period")
+                        .type(AttributeType.STRING)
+                        .build())
+                .billingMode(BillingMode.PAY_PER_REQUEST)
+                .build();
+    }
+
     private void createSessionsTable() {
         Table sessionsTable = Table.Builder.create(this, "SessionsTable")
                 .partitionKey(Attribute.builder()
@@ -110,15 +146,28 @@ public class DynamoDBStack extends Stack {
                 .billingMode(BillingMode.PAY_PER_REQUEST)
                 .build();
 
-        // Add GSI for ClientId and TherapistId
+        // Add GSI for a client's sessions, optionally with one therapist
         sessionsTable.addGlobalSecondaryIndex(GlobalSecondaryIndexProps.builder()
                 .indexName("ClientSessionsIndex")
                 .partitionKey(Attribute.builder()
-                        .name("ClientId")
+                        .name("clientId")
                         .type(AttributeType.STRING)
                         .build())
                 .sortKey(Attribute.builder()
-                        .name("TherapistId")
+                        .name("therapistId")
+                        .type(AttributeType.STRING)
+                        .build())
+                .build());
+
+        // Add GSI for a therapist's sessions by date
+        sessionsTable.addGlobalSecondaryIndex(GlobalSecondaryIndexProps.builder()
+                .indexName("TherapistSessionsIndex")
+                .partitionKey(Attribute.builder()
+                        .name("therapistId")
+                        .type(AttributeType.STRING)
+                        .build())
+                .sortKey(Attribute.builder()
+                        .name("sessionDate")
                         .type(AttributeType.STRING)
                         .build())
                 .build());
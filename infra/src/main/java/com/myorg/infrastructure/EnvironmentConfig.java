@@ -1,14 +1,44 @@
 package com.myorg.infrastructure;
 
+import java.util.HashMap;
 import java.util.Map;
 
 public class EnvironmentConfig {
-    public static final Map<String, String> CLIENTS_ENV = Map.of("CLIENTS_TABLE_NAME", "ClientsTable");
+    // Created by SecurityStack; the functions read it from Secrets Manager when they start
+    public static final String SIGNING_SECRET_NAME = "therapy-app/token-signing-secret";
+
+    // Clients and journals check client-therapist mappings before letting a therapist read
+    public static final Map<String, String> CLIENTS_ENV = Map.of("CLIENTS_TABLE_NAME", "ClientsTable",
+            "MAPPINGS_TABLE_NAME", "ClientTherapistMappingsTable");
     public static final Map<String, String> THERAPISTS_ENV = Map.of("THERAPISTS_TABLE_NAME", "TherapistsTable");
     public static final Map<String, String> MESSAGES_ENV = Map.of("MESSAGES_TABLE_NAME", "MessagesTable");
-    public static final Map<String, String> JOURNALS_ENV = Map.of("JOURNALS_TABLE_NAME", "JournalsTable");
-    public static final Map<String, String> SESSIONS_ENV = Map.of("SESSIONS_TABLE_NAME", "SessionsTable");
+    public static final Map<String, String> JOURNALS_ENV = Map.of("JOURNALS_TABLE_NAME", "JournalsTable",
+            "JOURNAL_SUMMARIES_TABLE_NAME", "JournalSummariesTable",
+            "MAPPINGS_TABLE_NAME", "ClientTherapistMappingsTable");
+    public static final Map<String, String> SESSIONS_ENV = Map.of("SESSIONS_TABLE_NAME", "SessionsTable",
+            "MAPPINGS_TABLE_NAME", "ClientTherapistMappingsTable");
     public static final Map<String, String> MAPPINGS_ENV = Map.of("MAPPINGS_TABLE_NAME", "ClientTherapistMappingsTable");
     public static final Map<String, String> APPOINTMENTS_ENV = Map.of("APPOINTMENTS_TABLE_NAME", "AppointmentsTable");
 
+    // The single routed function reads every table.
+    public static final Map<String, String> ALL_ENV = merge(CLIENTS_ENV, THERAPISTS_ENV, MESSAGES_ENV,
+            JOURNALS_ENV, SESSIONS_ENV, MAPPINGS_ENV, APPOINTMENTS_ENV);
+
+    /**
+     * Adds the name of the secret used to sign pagination and access tokens. Every function verifies
+     * access tokens, so every function needs it, along with read access to the secret.
+     */
+    public static Map<String, String> withSigningSecret(Map<String, String> env) {
+        return merge(env, Map.of("TOKEN_SIGNING_SECRET_ID", SIGNING_SECRET_NAME));
+    }
+
+    @SafeVarargs
+    private static Map<String, String> merge(Map<String, String>... envs) {
+        Map<String, String> merged = new HashMap<>();
+        for (Map<String, String> env : envs) {
+            merged.putAll(env);
+        }
+        return Map.copyOf(merged);
+    }
+
 }
@@ -8,14 +8,19 @@ import software.amazon.awscdk.Stack;
 import software.amazon.awscdk.services.lambda.Runtime;
 import software.amazon.awscdk.services.lambda.Function;
 import software.amazon.awscdk.services.lambda.Code;
+import software.amazon.awscdk.services.secretsmanager.ISecret;
 
 import java.util.Map;
 
 public class LambdaStack extends Stack {
 
+    private final ISecret signingSecret;
+
     public LambdaStack(final Construct scope, final String id, StackProps build) {
         super(scope, id);
 
+        signingSecret = SecurityStack.signingSecret(this);
+
         createClientsLambda();
         createTherapistsLambda();
         createMessagesLambda();
@@ -27,16 +32,19 @@ public class LambdaStack extends Stack {
 
     private void createClientsLambda() {
         ITable clientsTable = Table.fromTableName(this, "ClientsTable", "ClientsTable");
+        ITable mappingsTable = Table.fromTableName(this, "ClientsMappingsTable", "ClientTherapistMappingsTable");
 
         Function clientsLambda = Function.Builder.create(this, "ClientsLambda")
                 .runtime(Runtime.JAVA_17)
                 .handler("com.revanth.handlers.clients.ClientHandler::handleRequest")
                 .code(Code.fromAsset("../assets/api-handler.jar"))
                 .functionName("ClientsFunction")
-                .environment(EnvironmentConfig.CLIENTS_ENV)
+                .environment(EnvironmentConfig.withSigningSecret(EnvironmentConfig.CLIENTS_ENV))
                 .build();
 
         clientsTable.grantReadWriteData(clientsLambda);
+        mappingsTable.grantReadData(clientsLambda);
+        signingSecret.grantRead(clientsLambda);
     }
 
     private void createTherapistsLambda() {
@@ -47,10 +55,11 @@ public class LambdaStack extends Stack {
                 .handler("com.revanth.handlers.therapists.TherapistHandler::handleRequest")
                 .code(Code.fromAsset("../assets/api-handler.jar"))
                 .functionName("TherapistsFunction")
-                .environment(EnvironmentConfig.THERAPISTS_ENV)
+                .environment(EnvironmentConfig.withSigningSecret(EnvironmentConfig.THERAPISTS_ENV))
                 .build();
 
         therapistsTable.grantReadWriteData(therapistsLambda);
+        signingSecret.grantRead(therapistsLambda);
     }
 
     private void createMessagesLambda() {
@@ -61,38 +70,47 @@ public class LambdaStack extends Stack {
                 .handler("com.revanth.handlers.messages.MessageHandler::handleRequest")
                 .code(Code.fromAsset("../assets/api-handler.jar"))
                 .functionName("MessagesFunction")
-                .environment(EnvironmentConfig.MESSAGES_ENV)
+                .environment(EnvironmentConfig.withSigningSecret(EnvironmentConfig.MESSAGES_ENV))
                 .build();
 
         messagesTable.grantReadWriteData(messagesLambda);
+        signingSecret.grantRead(messagesLambda);
     }
 
     private void createJournalsLambda() {
         ITable journalsTable = Table.fromTableName(this, "JournalsTable", "JournalsTable");
+        ITable journalSummariesTable = Table.fromTableName(this, "JournalSummariesTable", "JournalSummariesTable");
+        ITable mappingsTable = Table.fromTableName(this, "JournalsMappingsTable", "ClientTherapistMappingsTable");
 
         Function journalsLambda = Function.Builder.create(this, "JournalsLambda")
                 .runtime(Runtime.JAVA_17)
                 .handler("com.revanth.handlers.journals.JournalHandler::handleRequest")
                 .code(Code.fromAsset("../assets/api-handler.jar"))
                 .functionName("JournalsFunction")
-                .environment(EnvironmentConfig.JOURNALS_ENV)
+                .environment(EnvironmentConfig.withSigningSecret(EnvironmentConfig.JOURNALS_ENV))
                 .build();
 
         journalsTable.grantReadWriteData(journalsLambda);
+        journalSummariesTable.grantReadWriteData(journalsLambda);
+        mappingsTable.grantReadData(journalsLambda);
+        signingSecret.grantRead(journalsLambda);
     }
 
     private void createSessionsLambda() {
         ITable sessionsTable = Table.fromTableName(this, "SessionsTable", "SessionsTable");
+        ITable mappingsTable = Table.fromTableName(this, "SessionsMappingsTable", "ClientTherapistMappingsTable");
 
         Function sessionsLambda = Function.Builder.create(this, "SessionsLambda")
                 .runtime(Runtime.JAVA_17)
                 .handler("com.revanth.handlers.sessions.SessionHandler::handleRequest")
                 .code(Code.fromAsset("../assets/api-handler.jar"))
                 .functionName("SessionsFunction")
-                .environment(EnvironmentConfig.SESSIONS_ENV)
+                .environment(EnvironmentConfig.withSigningSecret(EnvironmentConfig.SESSIONS_ENV))
                 .build();
 
         sessionsTable.grantReadWriteData(sessionsLambda);
+        mappingsTable.grantReadData(sessionsLambda);
+        signingSecret.grantRead(sessionsLambda);
     }
 
     private void createClientTherapistMappingsLambda() {
@@ -103,10 +121,11 @@ public class LambdaStack extends Stack {
                 .handler("com.revanth.handlers.mappings.ClientTherapistMappingHandler::handleRequest")
                 .code(Code.fromAsset("../assets/api-handler.jar"))
                 .functionName("ClientTherapistMappingsFunction")
-                .environment(EnvironmentConfig.MAPPINGS_ENV)
+                .environment(EnvironmentConfig.withSigningSecret(EnvironmentConfig.MAPPINGS_ENV))
                 .build();
 
         mappingsTable.grantReadWriteData(mappingsLambda);
+        signingSecret.grantRead(mappingsLambda);
     }
 
     private void createAppointmentsLambda() {
@@ -117,9 +136,10 @@ public class LambdaStack extends Stack {
                 .handler("com.revanth.handlers.appointments.AppointmentHandler::handleRequest")
                 .code(Code.fromAsset("../assets/api-handler.jar"))
                 .functionName("AppointmentsFunction")
-                .environment(EnvironmentConfig.APPOINTMENTS_ENV)
+                .environment(EnvironmentConfig.withSigningSecret(EnvironmentConfig.APPOINTMENTS_ENV))
                 .build();
 
         appointmentsTable.grantReadWriteData(appointmentsLambda);
+        signingSecret.grantRead(appointmentsLambda);
     }
 }
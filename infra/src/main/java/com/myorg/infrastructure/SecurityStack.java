@@ -0,0 +1,36 @@
+package com.myorg.infrastructure;
+
+import software.amazon.awscdk.Stack;
+import software.amazon.awscdk.StackProps;
+import software.amazon.awscdk.services.secretsmanager.ISecret;
+import software.amazon.awscdk.services.secretsmanager.Secret;
+import software.amazon.awscdk.services.secretsmanager.SecretStringGenerator;
+import software.constructs.Construct;
+
+public class SecurityStack extends Stack {
+
+    public SecurityStack(final Construct scope, final String id, StackProps build) {
+        super(scope, id);
+
+        createSigningSecret();
+    }
+
+    /**
+     * Imports the token signing secret into another stack, for granting functions read access to it.
+     */
+    public static ISecret signingSecret(Construct scope) {
+        return Secret.fromSecretNameV2(scope, "TokenSigningSecret", EnvironmentConfig.SIGNING_SECRET_NAME);
+    }
+
+    private void createSigningSecret() {
+        // Generated by Secrets Manager, so the key never appears in the template or the function configuration
+        Secret.Builder.create(this, "TokenSigningSecret")
+                .secretName(EnvironmentConfig.SIGNING_SECRET_NAME)
+                .description("Master key for signing access, refresh and page tokens")
+                .generateSecretString(SecretStringGenerator.builder()
+                        .passwordLength(64)
+                        .excludePunctuation(true)
+                        .build())
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.myorg.infrastructure;
+
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import software.amazon.awscdk.App;
+import software.amazon.awscdk.AppProps;
+import software.amazon.awscdk.StackProps;
+import software.amazon.awscdk.assertions.Match;
+import software.amazon.awscdk.assertions.Template;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class APIGatewayStackTest {
+
+    @TempDir
+    static Path assets;
+
+    private static Template template;
+
+    @BeforeAll
+    static void synth() throws IOException {
+        // The real jar is built separately; any archive works as the Lambda asset
+        Path jar = assets.resolve("api-handler.jar");
+        try (OutputStream out = Files.newOutputStream(jar); ZipOutputStream zip = new ZipOutputStream(out)) {
+            zip.putNextEntry(new ZipEntry("placeholder"));
+            zip.closeEntry();
+        }
+
+        App app = new App(AppProps.builder()
+                .context(Map.of("apiHandlerJar", jar.toString()))
+                .build());
+        template = Template.fromStack(new APIGatewayStack(app, "TestApi", StackProps.builder().build()));
+    }
+
+    @Test
+    void cachesTheCachePolicyRoutesWithTheirTtls() {
+        template.hasResourceProperties("AWS::ApiGateway::Stage", Map.of(
+                "CacheClusterEnabled", true,
+                "CacheClusterSize", "0.5"));
+        assertMethodSetting("/~1therapists", 300, false);
+        assertMethodSetting("/~1therapists~1available", 60, false);
+        assertMethodSetting("/~1therapists~1{therapistId}", 300, false);
+        assertMethodSetting("/~1clients~1{clientId}", 60, true);
+    }
+
+    @Test
+    void passesOnlyJsonThroughAsBinary() {
+        template.hasResourceProperties("AWS::ApiGateway::RestApi", Map.of(
+                "BinaryMediaTypes", List.of("application/json"),
+                "MinimumCompressionSize", 1024));
+    }
+
+    @Test
+    void keysPerUserRoutesOnTheAuthorizationHeader() {
+        template.hasResourceProperties("AWS::ApiGateway::Method", Match.objectLike(Map.of(
+                "HttpMethod", "GET",
+                "Integration", Match.objectLike(Map.of("CacheKeyParameters", List.of(
+                        "method.request.path.clientId",
+                        "method.request.header.Accept",
+                        "method.request.header.Accept-Encoding",
+                        "method.request.header.If-None-Match",
+                        "method.request.header.Authorization"))))));
+    }
+
+    @Test
+    void putsCachedRoutesBehindTheTokenAuthorizer() {
+        template.resourceCountIs("AWS::ApiGateway::Authorizer", 1);
+        template.hasResourceProperties("AWS::ApiGateway::Authorizer", Map.of(
+                "Type", "TOKEN",
+                "IdentitySource", "method.request.header.Authorization",
+                "AuthorizerResultTtlInSeconds", 60));
+
+        // Four cached GETs; uncached routes keep relying on the handlers' own checks
+        assertEquals(4, template.findResources("AWS::ApiGateway::Method",
+                Map.of("Properties", Map.of("AuthorizationType", "CUSTOM"))).size());
+    }
+
+    @Test
+    void ignoresCacheControlFromCallersWhoMayNotInvalidate() {
+        template.resourceCountIs("Custom::AWS", 1);
+        // The UpdateStage call is a Fn::Join around the API ID, so look for the patch path in the template
+        String json = template.toJSON().toString();
+        assertTrue(json.contains("/~1therapists~1{therapistId}/GET/caching/unauthorizedCacheControlHeaderStrategy"));
+        assertTrue(json.contains("SUCCEED_WITHOUT_RESPONSE_HEADER"));
+    }
+
+    // The settings come from a map, so match each one on its own rather than relying on their order
+    private static void assertMethodSetting(String resourcePath, int ttlSeconds, boolean encrypted) {
+        template.hasResourceProperties("AWS::ApiGateway::Stage", Map.of(
+                "MethodSettings", Match.arrayWith(List.of(Map.of(
+                        "ResourcePath", resourcePath,
+                        "HttpMethod", "GET",
+                        "CachingEnabled", true,
+                        "CacheTtlInSeconds", ttlSeconds,
+                        "CacheDataEncrypted", encrypted)))));
+    }
+}